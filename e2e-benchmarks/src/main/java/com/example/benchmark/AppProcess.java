@@ -0,0 +1,216 @@
+package com.example.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One of the applications, run from its boot jar in a JVM of its own.
+ * <p>
+ * The gateway (WebFlux) and spring-boot-server (servlet) can't share a classpath, and separate JVMs also
+ * keep their allocation and GC figures apart from each other's and from the load generator's. Console
+ * output goes to {@code <name>.out} in the report directory.
+ */
+final class AppProcess implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(AppProcess.class);
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final String name;
+    private final Process process;
+    private final URI baseUri;
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+    private final long launchedAt = System.nanoTime();
+    private Duration startupTime;
+
+    private AppProcess(String name, Process process, URI baseUri) {
+        this.name = name;
+        this.process = process;
+        this.baseUri = baseUri;
+    }
+
+    static AppProcess launch(String name, BenchmarkOptions.Launch launch, int port, List<String> args,
+                             Path reportDirectory) throws IOException {
+        Path jar = launch.directory() != null ? launch.directory().resolve(launch.jar()) : launch.jar();
+        if (!Files.isRegularFile(jar)) {
+            throw new IllegalStateException("No jar for " + name + " at " + jar);
+        }
+        List<String> command = new ArrayList<>();
+        command.add(javaTool("java"));
+        command.addAll(launch.jvmArgs());
+        command.add("-jar");
+        command.add(launch.jar().toString());
+        command.add("--server.port=" + port);
+        command.addAll(args);
+        command.addAll(launch.args());
+        log.info("Starting {}: {}", name, String.join(" ", command));
+        Process process = new ProcessBuilder(command)
+                .directory(launch.directory() != null ? launch.directory().toFile() : null)
+                .redirectErrorStream(true)
+                .redirectOutput(reportDirectory.resolve(name + ".out").toFile())
+                .start();
+        return new AppProcess(name, process, URI.create("http://localhost:" + port));
+    }
+
+    String name() {
+        return name;
+    }
+
+    URI baseUri() {
+        return baseUri;
+    }
+
+    /**
+     * Time from launching the JVM to the health endpoint first answering UP.
+     */
+    Duration startupTime() {
+        return startupTime;
+    }
+
+    void awaitHealthy(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        HttpRequest request = HttpRequest.newBuilder(baseUri.resolve("/actuator/health"))
+                .timeout(Duration.ofSeconds(2))
+                .build();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException(name + " exited with " + process.exitValue() + ", see " + name + ".out");
+            }
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    startupTime = Duration.ofNanos(System.nanoTime() - launchedAt);
+                    log.info("{} is up after {} ms", name, startupTime.toMillis());
+                    return;
+                }
+            } catch (ConnectException e) {
+                // Not listening yet
+            } catch (IOException e) {
+                log.debug("Health check of {} failed", name, e);
+            }
+            Thread.sleep(100);
+        }
+        throw new IllegalStateException(name + " did not report UP within " + timeout);
+    }
+
+    /**
+     * Sends one request, which must succeed, and times its response from the launch and from the send.
+     */
+    FirstResponse firstResponse(HttpRequest request) throws IOException, InterruptedException {
+        long sentAt = System.nanoTime();
+        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        long receivedAt = System.nanoTime();
+        if (status / 100 != 2) {
+            throw new IllegalStateException(name + " answered " + status + " to " + request.uri());
+        }
+        return new FirstResponse(Duration.ofNanos(receivedAt - launchedAt), Duration.ofNanos(receivedAt - sentAt));
+    }
+
+    /**
+     * Starts measuring the JVM's allocations and GC pauses.
+     */
+    JvmWindow openWindow() throws IOException, InterruptedException {
+        collectGarbage();
+        return new JvmWindow(metric("jvm.gc.memory.allocated", "COUNT"),
+                metric("jvm.gc.pause", "COUNT"), metric("jvm.gc.pause", "TOTAL_TIME"));
+    }
+
+    /**
+     * What the JVM allocated and paused for since the window was opened. jvm.gc.memory.allocated only
+     * moves when a collection runs, so a collection is forced at both ends of the window (after reading
+     * the pauses, which then leave the forced collections out).
+     */
+    JvmUsage closeWindow(JvmWindow window) throws IOException, InterruptedException {
+        double pauses = metric("jvm.gc.pause", "COUNT");
+        double pauseSeconds = metric("jvm.gc.pause", "TOTAL_TIME");
+        collectGarbage();
+        double allocated = metric("jvm.gc.memory.allocated", "COUNT");
+        return new JvmUsage((long) (allocated - window.allocatedBytes()), (long) (pauses - window.gcPauses()),
+                Duration.ofNanos((long) ((pauseSeconds - window.gcPauseSeconds()) * 1e9)));
+    }
+
+    private void collectGarbage() throws IOException, InterruptedException {
+        Process jcmd = new ProcessBuilder(javaTool("jcmd"), String.valueOf(process.pid()), "GC.run")
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        if (!jcmd.waitFor(30, TimeUnit.SECONDS) || jcmd.exitValue() != 0) {
+            throw new IllegalStateException("jcmd GC.run failed for " + name);
+        }
+        // The allocation counter is updated by a GC notification listener, after the collection itself
+        Thread.sleep(200);
+    }
+
+    /**
+     * One statistic of a meter from the actuator metrics endpoint, summed over its tags; 0 if the meter
+     * doesn't exist (jvm.gc.pause has no samples until the first collection).
+     */
+    private double metric(String meter, String statistic) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(baseUri.resolve("/actuator/metrics/" + meter))
+                .timeout(Duration.ofSeconds(5))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() == 404) {
+            return 0;
+        }
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(name + " answered " + response.statusCode() + " for metric " + meter);
+        }
+        for (JsonNode measurement : JSON.readTree(response.body()).path("measurements")) {
+            if (statistic.equals(measurement.path("statistic").asText())) {
+                return measurement.path("value").asDouble();
+            }
+        }
+        return 0;
+    }
+
+    private static String javaTool(String tool) {
+        return Path.of(System.getProperty("java.home"), "bin", tool).toString();
+    }
+
+    @Override
+    public void close() {
+        process.destroy();
+        try {
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                log.warn("{} did not stop within 30s, killing it", name);
+                process.destroyForcibly().waitFor(10, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            process.destroyForcibly();
+        }
+    }
+
+    /**
+     * @param sinceLaunch from launching the JVM to the response
+     * @param latency     from sending the request to the response
+     */
+    record FirstResponse(Duration sinceLaunch, Duration latency) {
+    }
+
+    record JvmWindow(double allocatedBytes, double gcPauses, double gcPauseSeconds) {
+    }
+
+    /**
+     * @param allocatedBytes heap allocated in the window
+     * @param gcPauses       collection pauses in the window
+     * @param gcPauseTime    total time of those pauses
+     */
+    record JvmUsage(long allocatedBytes, long gcPauses, Duration gcPauseTime) {
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.benchmark;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Run settings, read from {@code e2e.*} system properties (the e2e Gradle task forwards {@code -Pe2e.*}).
+ * <p>
+ * Durations take a unit suffix: {@code 500ms}, {@code 30s}, {@code 2m}. Rates are requests per second.
+ *
+ * @param scenarios      scenarios to run, in order ({@code e2e.scenarios}, default {@code ingest,api})
+ * @param rates          target rate per scenario ({@code e2e.rate}, or {@code e2e.<scenario>.rate})
+ * @param warmup         time each scenario runs at its rate before measuring ({@code e2e.warmup})
+ * @param duration       measured time per scenario ({@code e2e.duration})
+ * @param timeout        request timeout ({@code e2e.timeout})
+ * @param clients        distinct X-Global-ID values the requests are spread over ({@code e2e.clients})
+ * @param maxOutstanding requests in flight above which sends are skipped and counted ({@code e2e.max-outstanding})
+ * @param partitions     partitions of the ingest topic ({@code e2e.kafka.partitions})
+ * @param startupTimeout how long each application may take to report UP ({@code e2e.startup-timeout})
+ * @param drainTimeout   how long to wait for ingested events to reach the database ({@code e2e.drain-timeout})
+ * @param gateway        how to launch the gateway
+ * @param server         how to launch spring-boot-server
+ * @param fastStartup    whether to measure the fast-startup builds too ({@code e2e.fast-startup}, set by the
+ *                       startup task when run with -PfastStartup)
+ * @param startupRuns    measured launches per application and build ({@code e2e.startup.runs})
+ * @param results        directory the run's report directory is created in ({@code e2e.results})
+ * @param projectDir     repository root, for recording the commit ({@code e2e.project-dir})
+ */
+record BenchmarkOptions(List<Scenario> scenarios, Map<Scenario, Double> rates, Duration warmup, Duration duration,
+                        Duration timeout, int clients, int maxOutstanding, int partitions, Duration startupTimeout,
+                        Duration drainTimeout, Launch gateway, Launch server, boolean fastStartup, int startupRuns,
+                        Path results, Path projectDir) {
+
+    private static final String PREFIX = "e2e.";
+
+    static BenchmarkOptions fromSystemProperties() {
+        List<Scenario> scenarios = new ArrayList<>();
+        for (String name : list(property("scenarios", "ingest,api"))) {
+            scenarios.add(Scenario.valueOf(name.toUpperCase(Locale.ROOT)));
+        }
+        double rate = Double.parseDouble(property("rate", "500"));
+        Map<Scenario, Double> rates = new LinkedHashMap<>();
+        for (Scenario scenario : scenarios) {
+            double scenarioRate = Double.parseDouble(property(scenario.id() + ".rate", String.valueOf(rate)));
+            if (scenarioRate <= 0) {
+                throw new IllegalArgumentException("Rate of " + scenario.id() + " must be positive");
+            }
+            rates.put(scenario, scenarioRate);
+        }
+        String jvmArgs = property("jvm-args", "-Xms1g -Xmx1g");
+        return new BenchmarkOptions(scenarios, rates,
+                duration(property("warmup", "20s")),
+                duration(property("duration", "60s")),
+                duration(property("timeout", "10s")),
+                Integer.parseInt(property("clients", "1000")),
+                Integer.parseInt(property("max-outstanding", "10000")),
+                Integer.parseInt(property("kafka.partitions", "3")),
+                duration(property("startup-timeout", "2m")),
+                duration(property("drain-timeout", "2m")),
+                Launch.of("gateway", jvmArgs),
+                Launch.of("server", jvmArgs),
+                Boolean.parseBoolean(property("fast-startup", "false")),
+                Integer.parseInt(property("startup.runs", "5")),
+                Path.of(required("results")),
+                Path.of(property("project-dir", ".")));
+    }
+
+    double rate(Scenario scenario) {
+        return rates.get(scenario);
+    }
+
+    private static String property(String name, String defaultValue) {
+        String value = System.getProperty(PREFIX + name);
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    private static String required(String name) {
+        String value = property(name, null);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing system property " + PREFIX + name);
+        }
+        return value;
+    }
+
+    private static List<String> list(String value) {
+        return Arrays.stream(value.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList();
+    }
+
+    private static List<String> words(String value) {
+        return Arrays.stream(value.split("\\s+")).filter(s -> !s.isEmpty()).toList();
+    }
+
+    static Duration duration(String value) {
+        String text = value.trim().toLowerCase(Locale.ROOT);
+        int split = 0;
+        while (split < text.length() && Character.isDigit(text.charAt(split))) {
+            split++;
+        }
+        if (split == 0) {
+            throw new IllegalArgumentException("Not a duration: " + value);
+        }
+        long amount = Long.parseLong(text.substring(0, split));
+        return switch (text.substring(split)) {
+            case "ms" -> Duration.ofMillis(amount);
+            case "s", "" -> Duration.ofSeconds(amount);
+            case "m" -> Duration.ofMinutes(amount);
+            default -> throw new IllegalArgumentException("Not a duration: " + value);
+        };
+    }
+
+    /**
+     * How one application is launched.
+     *
+     * @param jar       its boot jar ({@code e2e.<app>.jar}), relative to {@code directory} if that is set
+     * @param jvmArgs   JVM options ({@code e2e.<app>.jvm-args}, defaulting to {@code e2e.jvm-args}). The
+     *                  default fixes the heap size so that runs are comparable.
+     * @param args      extra application arguments, e.g. {@code --spring.kafka.producer.properties.linger.ms=20}
+     *                  to measure a setting ({@code e2e.<app>.args})
+     * @param directory working directory, or null for the harness's own
+     * @param fastStartupDirectory where the app's fastStartupArchive task put the extracted jar and its
+     *                  AppCDS archive ({@code e2e.<app>.fast-startup-dir})
+     */
+    record Launch(Path jar, List<String> jvmArgs, List<String> args, Path directory, Path fastStartupDirectory) {
+
+        static Launch of(String app, String defaultJvmArgs) {
+            return new Launch(Path.of(required(app + ".jar")),
+                    words(property(app + ".jvm-args", defaultJvmArgs)),
+                    words(property(app + ".args", "")),
+                    null,
+                    Path.of(property(app + ".fast-startup-dir", ".")));
+        }
+
+        /**
+         * The same launch of the fast-startup build: the extracted jar, run from its directory (the path the
+         * archive was trained with) with the archive, the AOT-generated code and the profile the build was
+         * processed with. -Xshare:on makes an unusable archive fail the launch instead of silently being
+         * ignored.
+         */
+        Launch fastStartup() {
+            List<String> fastJvmArgs = new ArrayList<>(jvmArgs);
+            fastJvmArgs.addAll(List.of("-Xshare:on", "-XX:SharedArchiveFile=application.jsa",
+                    "-Dspring.aot.enabled=true"));
+            List<String> fastArgs = new ArrayList<>(args);
+            fastArgs.add("--spring.profiles.active=fast-startup");
+            return new Launch(jar.getFileName(), fastJvmArgs, fastArgs, fastStartupDirectory, fastStartupDirectory);
+        }
+    }
+}
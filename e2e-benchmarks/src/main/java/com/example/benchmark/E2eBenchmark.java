@@ -0,0 +1,209 @@
+package com.example.benchmark;
+
+import org.HdrHistogram.HistogramLogWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load and latency benchmark of the whole stack: the gateway and spring-boot-server, as built, against
+ * local Kafka and PostgreSQL (see {@link LocalStack}).
+ * <p>
+ * Each scenario runs at its fixed rate for the warmup period, unmeasured, and then for the measured
+ * period, with an open-loop schedule (see {@link OpenLoopLoad}). Every run gets a directory under
+ * build/e2e-results holding:
+ * <ul>
+ *     <li>summary.json: throughput, latency percentiles, allocation and GC per application (see {@link RunReport})</li>
+ *     <li>{@code <scenario>.hlog}: per-second latency histograms, for HdrHistogram's log tools and plotters</li>
+ *     <li>{@code <scenario>.hgrm}: the full latency distribution of the measured period</li>
+ *     <li>gateway.out and server.out: the applications' console output</li>
+ * </ul>
+ * The load generator, Kafka and PostgreSQL share the machine with the applications, so results are for
+ * comparing runs on the same machine (a tuning change against its baseline), not absolute capacity.
+ * Run it with {@code ./gradlew e2e} from e2e-benchmarks; the options are in {@link BenchmarkOptions}.
+ */
+public final class E2eBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(E2eBenchmark.class);
+
+    private E2eBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkOptions options = BenchmarkOptions.fromSystemProperties();
+        LocalDateTime startedAt = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        Path reportDirectory = options.results()
+                .resolve(startedAt.format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")));
+        Files.createDirectories(reportDirectory);
+
+        RunReport report;
+        try (LocalStack stack = LocalStack.start(options, reportDirectory)) {
+            Map<String, Long> startupMillis = new LinkedHashMap<>();
+            for (AppProcess app : stack.applications()) {
+                startupMillis.put(app.name(), app.startupTime().toMillis());
+            }
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(options.timeout())
+                    .build();
+            OpenLoopLoad load = new OpenLoopLoad(client, options.maxOutstanding(), options.timeout());
+
+            List<RunReport.ScenarioReport> scenarios = new ArrayList<>();
+            for (Scenario scenario : options.scenarios()) {
+                scenarios.add(run(scenario, options, stack, load, reportDirectory));
+            }
+            report = new RunReport(OffsetDateTime.now().withNano(0).toString(), commit(options.projectDir()),
+                    settings(options), startupMillis, scenarios);
+        }
+        report.write(reportDirectory.resolve("summary.json"));
+        print(report, System.out);
+        log.info("Report written to {}", reportDirectory);
+    }
+
+    private static RunReport.ScenarioReport run(Scenario scenario, BenchmarkOptions options, LocalStack stack,
+                                                OpenLoopLoad load, Path reportDirectory) throws Exception {
+        double rate = options.rate(scenario);
+        log.info("{}: warming up at {}/s for {}s", scenario.id(), rate, options.warmup().toSeconds());
+        load.run(scenario.requests(stack.gatewayUri(), Scenario.newGlobalIds(options.clients()), options.timeout()),
+                rate, options.warmup(), null);
+
+        // New installs for the measured period, so that its events can be told apart in log_entry
+        String[] globalIds = Scenario.newGlobalIds(options.clients());
+        Map<AppProcess, AppProcess.JvmWindow> windows = new LinkedHashMap<>();
+        for (AppProcess app : stack.applications()) {
+            windows.put(app, app.openWindow());
+        }
+        log.info("{}: measuring at {}/s for {}s", scenario.id(), rate, options.duration().toSeconds());
+        OpenLoopLoad.Result result;
+        try (PrintStream hlog = new PrintStream(reportDirectory.resolve(scenario.id() + ".hlog").toFile(),
+                StandardCharsets.US_ASCII)) {
+            result = load.run(scenario.requests(stack.gatewayUri(), globalIds, options.timeout()),
+                    rate, options.duration(), new HistogramLogWriter(hlog));
+        }
+        long finishedAt = System.nanoTime();
+        // Storing the events is part of what ingesting them costs, so the allocation window stays open for it
+        RunReport.Drain drain = scenario == Scenario.INGEST
+                ? awaitStored(stack, globalIds, result.successful(), finishedAt, options.drainTimeout())
+                : null;
+        double seconds = result.elapsed().toNanos() / 1e9;
+        Map<String, RunReport.Allocation> allocation = new LinkedHashMap<>();
+        for (Map.Entry<AppProcess, AppProcess.JvmWindow> window : windows.entrySet()) {
+            AppProcess.JvmUsage usage = window.getKey().closeWindow(window.getValue());
+            allocation.put(window.getKey().name(), new RunReport.Allocation(usage.allocatedBytes(),
+                    RunReport.round(usage.allocatedBytes() / seconds),
+                    RunReport.round(result.sent() == 0 ? 0 : (double) usage.allocatedBytes() / result.sent()),
+                    usage.gcPauses(), RunReport.round(usage.gcPauseTime().toNanos() / 1e6)));
+        }
+        try (PrintStream hgrm = new PrintStream(reportDirectory.resolve(scenario.id() + ".hgrm").toFile(),
+                StandardCharsets.US_ASCII)) {
+            // Recorded in microseconds, printed in milliseconds
+            result.latency().outputPercentileDistribution(hgrm, 1000.0);
+        }
+        return new RunReport.ScenarioReport(scenario.id(), rate, result.sent(), result.skipped(), result.unfinished(),
+                result.outcomes(), RunReport.round(result.successful() / seconds),
+                RunReport.round(result.maxLag().toNanos() / 1e6),
+                RunReport.percentiles(result.latency()), RunReport.percentiles(result.serviceTime()),
+                allocation, drain);
+    }
+
+    /**
+     * Waits for spring-boot-server to have written every acknowledged event to log_entry.
+     */
+    private static RunReport.Drain awaitStored(LocalStack stack, String[] globalIds, long expected, long since,
+                                               Duration timeout) throws Exception {
+        long deadline = since + timeout.toNanos();
+        long stored = stack.storedEvents(globalIds);
+        while (stored < expected && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+            stored = stack.storedEvents(globalIds);
+        }
+        double seconds = RunReport.round((System.nanoTime() - since) / 1e9);
+        return new RunReport.Drain(expected, stored, seconds, stored >= expected);
+    }
+
+    private static Map<String, Object> settings(BenchmarkOptions options) {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        Map<String, Double> rates = new LinkedHashMap<>();
+        options.rates().forEach((scenario, rate) -> rates.put(scenario.id(), rate));
+        settings.put("rates", rates);
+        settings.put("warmupSeconds", options.warmup().toSeconds());
+        settings.put("durationSeconds", options.duration().toSeconds());
+        settings.put("timeoutSeconds", options.timeout().toSeconds());
+        settings.put("clients", options.clients());
+        settings.put("maxOutstanding", options.maxOutstanding());
+        settings.put("kafkaPartitions", options.partitions());
+        settings.put("gatewayJvmArgs", options.gateway().jvmArgs());
+        settings.put("gatewayArgs", options.gateway().args());
+        settings.put("serverJvmArgs", options.server().jvmArgs());
+        settings.put("serverArgs", options.server().args());
+        settings.put("cpus", Runtime.getRuntime().availableProcessors());
+        settings.put("java", System.getProperty("java.version"));
+        return settings;
+    }
+
+    /**
+     * The checked-out commit, so that a report says what it measured; null outside a git checkout.
+     */
+    static String commit(Path projectDir) {
+        try {
+            String commit = git(projectDir, "rev-parse", "--short", "HEAD");
+            String changes = git(projectDir, "status", "--porcelain", "--untracked-files=no");
+            return commit == null ? null : changes == null || changes.isEmpty() ? commit : commit + "-dirty";
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private static String git(Path directory, String... args) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>(List.of("git", "-C", directory.toString()));
+        command.addAll(List.of(args));
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD).start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+        if (!process.waitFor(10, TimeUnit.SECONDS) || process.exitValue() != 0) {
+            return null;
+        }
+        return output;
+    }
+
+    static void print(RunReport report, PrintStream out) {
+        out.printf("%nRun %s (%s)%n", report.startedAt(), report.commit());
+        report.startupMillis().forEach((app, millis) -> out.printf("  %-8s started in %d ms%n", app, millis));
+        for (RunReport.ScenarioReport scenario : report.scenarios()) {
+            out.printf("%n%s at %.0f/s: %d sent, %.1f ok/s, outcomes %s%n", scenario.scenario(),
+                    scenario.targetRate(), scenario.sent(), scenario.throughput(), scenario.outcomes());
+            if (scenario.skipped() > 0 || scenario.unfinished() > 0) {
+                out.printf("  RATE NOT HELD: %d skipped, %d unfinished%n", scenario.skipped(), scenario.unfinished());
+            }
+            out.printf("  latency ms      %s%n", scenario.latencyMillis());
+            out.printf("  service time ms %s%n", scenario.serviceTimeMillis());
+            scenario.allocation().forEach((app, allocation) -> out.printf(
+                    "  %-8s allocated %.1f MB/s, %.0f B/request, %d GC pauses totalling %.1f ms%n", app,
+                    allocation.bytesPerSecond() / (1024 * 1024), allocation.bytesPerRequest(),
+                    allocation.gcPauses(), allocation.gcPauseMillis()));
+            if (scenario.drain() != null) {
+                RunReport.Drain drain = scenario.drain();
+                out.printf("  stored %d/%d events %s%.1f s after the last request%n", drain.stored(),
+                        drain.expected(), drain.complete() ? "" : "(INCOMPLETE) ", drain.seconds());
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.benchmark;
+
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Prints two runs' figures side by side with the relative change, scenario by scenario. Arguments are the
+ * two report directories (or their summary.json files), baseline first.
+ */
+public final class E2eCompare {
+
+    private E2eCompare() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2 || args[0].isEmpty() || args[1].isEmpty()) {
+            throw new IllegalArgumentException("Usage: E2eCompare <baseline run> <candidate run>");
+        }
+        RunReport baseline = RunReport.read(summary(Path.of(args[0])));
+        RunReport candidate = RunReport.read(summary(Path.of(args[1])));
+        compare(baseline, candidate, System.out);
+    }
+
+    private static Path summary(Path path) {
+        return Files.isDirectory(path) ? path.resolve("summary.json") : path;
+    }
+
+    static void compare(RunReport baseline, RunReport candidate, PrintStream out) {
+        out.printf("%-36s %14s %14s %9s%n", "", baseline.commit(), candidate.commit(), "change");
+        candidate.startupMillis().forEach((app, millis) -> {
+            Long was = baseline.startupMillis().get(app);
+            row(out, app + " startup ms", was != null ? was.doubleValue() : null, millis);
+        });
+        for (RunReport.ScenarioReport after : candidate.scenarios()) {
+            RunReport.ScenarioReport before = baseline.scenarios().stream()
+                    .filter(s -> s.scenario().equals(after.scenario()))
+                    .findFirst()
+                    .orElse(null);
+            if (before == null) {
+                out.printf("%n%s: not in the baseline%n", after.scenario());
+                continue;
+            }
+            out.printf("%n%s (%.0f/s vs %.0f/s)%n", after.scenario(), before.targetRate(), after.targetRate());
+            // Such a run measured a system that was already saturated, so its figures don't compare like for like
+            warnRateNotHeld(out, "baseline", before);
+            warnRateNotHeld(out, "candidate", after);
+            row(out, "ok/s", before.throughput(), after.throughput());
+            row(out, "skipped", (double) before.skipped(), (double) after.skipped());
+            for (Map.Entry<String, Double> percentile : after.latencyMillis().entrySet()) {
+                row(out, "latency " + percentile.getKey() + " ms",
+                        before.latencyMillis().get(percentile.getKey()), percentile.getValue());
+            }
+            for (Map.Entry<String, RunReport.Allocation> allocation : after.allocation().entrySet()) {
+                RunReport.Allocation was = before.allocation().get(allocation.getKey());
+                RunReport.Allocation is = allocation.getValue();
+                String app = allocation.getKey();
+                row(out, app + " B/request", was != null ? was.bytesPerRequest() : null, is.bytesPerRequest());
+                row(out, app + " MB/s allocated", was != null ? was.bytesPerSecond() / (1024 * 1024) : null,
+                        is.bytesPerSecond() / (1024 * 1024));
+                row(out, app + " GC pause ms", was != null ? was.gcPauseMillis() : null, is.gcPauseMillis());
+            }
+            if (after.drain() != null && before.drain() != null) {
+                row(out, "drain s", before.drain().seconds(), after.drain().seconds());
+            }
+        }
+    }
+
+    private static void warnRateNotHeld(PrintStream out, String run, RunReport.ScenarioReport scenario) {
+        if (scenario.skipped() > 0 || scenario.unfinished() > 0) {
+            out.printf("  INVALID: the %s run didn't hold its rate (%d skipped, %d unfinished)%n", run,
+                    scenario.skipped(), scenario.unfinished());
+        }
+    }
+
+    private static void row(PrintStream out, String label, Double before, double after) {
+        if (before == null) {
+            out.printf("  %-34s %14s %14.3f%n", label, "-", after);
+        } else if (before == 0) {
+            out.printf("  %-34s %14.3f %14.3f%n", label, before, after);
+        } else {
+            out.printf("  %-34s %14.3f %14.3f %+8.1f%%%n", label, before, after, (after - before) / before * 100);
+        }
+    }
+}
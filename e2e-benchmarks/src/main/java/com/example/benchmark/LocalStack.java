@@ -0,0 +1,175 @@
+package com.example.benchmark;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Kafka, PostgreSQL, spring-boot-server and the gateway, wired to each other on free local ports.
+ * <p>
+ * Kafka is a single KRaft broker from spring-kafka-test, running in this JVM, with the ingest-events topic
+ * created up front. PostgreSQL is a real server started from the binaries bundled with zonky
+ * embedded-postgres, so that Flyway's migrations, the partitioned log_entry table and the batch inserts run
+ * as they do in production. Both applications keep their own application.yaml; only addresses, ports and
+ * state directories are overridden, and OTLP export is switched off since there is no collector.
+ */
+final class LocalStack implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalStack.class);
+
+    private static final String INGEST_TOPIC = "ingest-events";
+
+    private EmbeddedKafkaBroker kafka;
+    private EmbeddedPostgres postgres;
+    private Path workDirectory;
+    private AppProcess server;
+    private AppProcess gateway;
+
+    private LocalStack() {
+    }
+
+    /**
+     * Kafka, PostgreSQL and both applications, the gateway routing /api to the server.
+     */
+    static LocalStack start(BenchmarkOptions options, Path reportDirectory) throws Exception {
+        LocalStack stack = startInfrastructure(options.partitions());
+        try {
+            stack.server = stack.launchServer("server", options.server(), reportDirectory);
+            stack.gateway = stack.launchGateway("gateway", options.gateway(), stack.server.baseUri(), reportDirectory);
+            // Both JVMs start at once; each one's startup time is still its own
+            stack.server.awaitHealthy(options.startupTimeout());
+            stack.gateway.awaitHealthy(options.startupTimeout());
+            return stack;
+        } catch (Exception e) {
+            stack.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Only Kafka and PostgreSQL; applications are launched and stopped by the caller.
+     */
+    static LocalStack startInfrastructure(int partitions) throws Exception {
+        LocalStack stack = new LocalStack();
+        try {
+            stack.workDirectory = Files.createTempDirectory("e2e-benchmark-");
+
+            stack.kafka = new EmbeddedKafkaKraftBroker(1, partitions, INGEST_TOPIC);
+            stack.kafka.afterPropertiesSet();
+            log.info("Kafka is up at {}", stack.kafka.getBrokersAsString());
+
+            stack.postgres = EmbeddedPostgres.builder()
+                    .setDataDirectory(stack.workDirectory.resolve("postgres"))
+                    .setCleanDataDirectory(true)
+                    .setPGStartupWait(Duration.ofMinutes(1))
+                    .start();
+            log.info("PostgreSQL is up on port {}", stack.postgres.getPort());
+            return stack;
+        } catch (Exception e) {
+            stack.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Launches spring-boot-server against this stack's Kafka and PostgreSQL. Its state goes to a directory
+     * of its own, named after the process.
+     */
+    AppProcess launchServer(String name, BenchmarkOptions.Launch launch, Path reportDirectory) throws IOException {
+        Path state = workDirectory.resolve(name);
+        return AppProcess.launch(name, launch, freePort(), List.of(
+                "--spring.kafka.bootstrap-servers=" + kafka.getBrokersAsString(),
+                "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true",
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=postgres",
+                "--logging.file.name=" + state.resolve("logs/app.log"),
+                "--log.search.directory=" + state.resolve("log-index"),
+                "--management.otlp.tracing.export.enabled=false"), reportDirectory);
+    }
+
+    /**
+     * Launches the gateway against this stack's Kafka, routing /api to the given server.
+     */
+    AppProcess launchGateway(String name, BenchmarkOptions.Launch launch, URI server, Path reportDirectory)
+            throws IOException {
+        return AppProcess.launch(name, launch, freePort(), List.of(
+                "--spring.kafka.bootstrap-servers=" + kafka.getBrokersAsString(),
+                "--spring.cloud.gateway.server.webflux.routes[0].uri=" + server,
+                "--ingest.spool.directory=" + workDirectory.resolve(name).resolve("spool"),
+                "--management.otlp.tracing.export.enabled=false"), reportDirectory);
+    }
+
+    URI gatewayUri() {
+        return gateway.baseUri();
+    }
+
+    List<AppProcess> applications() {
+        return List.of(gateway, server);
+    }
+
+    /**
+     * log_entry rows written for the given installs' events.
+     */
+    long storedEvents(String[] globalIds) throws SQLException {
+        try (Connection connection = postgres.getPostgresDatabase().getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT count(*) FROM log_entry WHERE global_id = ANY (?)")) {
+            Array ids = connection.createArrayOf("varchar", globalIds);
+            statement.setArray(1, ids);
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    @Override
+    public void close() {
+        // Applications first, so that they don't spend their shutdown retrying a missing broker or database
+        for (AppProcess app : new AppProcess[] {gateway, server}) {
+            if (app != null) {
+                app.close();
+            }
+        }
+        if (kafka != null) {
+            kafka.destroy();
+        }
+        if (postgres != null) {
+            try {
+                postgres.close();
+            } catch (IOException e) {
+                log.warn("Failed to stop PostgreSQL", e);
+            }
+        }
+        if (workDirectory != null) {
+            try (Stream<Path> paths = Files.walk(workDirectory)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            } catch (IOException e) {
+                log.warn("Failed to delete {}", workDirectory, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.benchmark;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+
+import java.net.ConnectException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Sends requests on a fixed schedule, whatever the responses do.
+ * <p>
+ * Request {@code i} is due at {@code start + i / rate}. It is sent when due without waiting for earlier
+ * responses, and its latency is counted from when it was due, not from when it actually went out: if the
+ * system stalls, the requests that should have been sent during the stall are charged the stall, as a real
+ * population of clients would experience it. The time from the actual send is recorded too, as service
+ * time; a gap between the two percentiles means the generator itself fell behind or was held up.
+ * <p>
+ * Requests beyond {@code maxOutstanding} in flight are not sent but counted as skipped, so that a hung
+ * system can't exhaust the generator's sockets; a run with skipped requests didn't hold its rate. Skipped
+ * requests still go into the latency histogram, at the request timeout: leaving them out would hide the
+ * very stall that caused them, and no sent request is charged more than that.
+ */
+final class OpenLoopLoad {
+
+    /**
+     * Latencies are recorded in microseconds, up to a minute, to three significant digits.
+     */
+    static final long HIGHEST_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private static final long INTERVAL_MILLIS = 1000;
+
+    private final HttpClient client;
+    private final int maxOutstanding;
+    private final Duration timeout;
+
+    OpenLoopLoad(HttpClient client, int maxOutstanding, Duration timeout) {
+        this.client = client;
+        this.maxOutstanding = maxOutstanding;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Runs the requests at the given rate for the given time, then waits for the outstanding responses.
+     * Per-second latency histograms are written to {@code log} if it isn't null.
+     */
+    Result run(Supplier<HttpRequest> requests, double rate, Duration duration, HistogramLogWriter log) {
+        Recorder latency = new Recorder(HIGHEST_LATENCY_MICROS, 3);
+        Recorder serviceTime = new Recorder(HIGHEST_LATENCY_MICROS, 3);
+        Histogram latencyTotal = new Histogram(HIGHEST_LATENCY_MICROS, 3);
+        Histogram serviceTimeTotal = new Histogram(HIGHEST_LATENCY_MICROS, 3);
+        Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+        AtomicInteger outstanding = new AtomicInteger();
+        AtomicLong lastCompletion = new AtomicLong();
+
+        ScheduledExecutorService intervals = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "e2e-intervals");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (log != null) {
+            long now = System.currentTimeMillis();
+            log.outputLogFormatVersion();
+            log.outputStartTime(now);
+            log.setBaseTime(now);
+            log.outputLegend();
+        }
+        intervals.scheduleAtFixedRate(() -> collect(latency, latencyTotal, log), INTERVAL_MILLIS, INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10);
+        long end = start + duration.toNanos();
+        double nanosPerRequest = TimeUnit.SECONDS.toNanos(1) / rate;
+        long sent = 0;
+        long skipped = 0;
+        long maxLag = 0;
+        long skippedLatency = micros(timeout.toNanos());
+        for (long i = 0; ; i++) {
+            long due = start + (long) (i * nanosPerRequest);
+            if (due >= end) {
+                break;
+            }
+            long now = waitUntil(due);
+            maxLag = Math.max(maxLag, now - due);
+            if (outstanding.incrementAndGet() > maxOutstanding) {
+                outstanding.decrementAndGet();
+                latency.recordValue(skippedLatency);
+                skipped++;
+                continue;
+            }
+            HttpRequest request = requests.get();
+            long sentAt = System.nanoTime();
+            sent++;
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                long completedAt = System.nanoTime();
+                latency.recordValue(micros(completedAt - due));
+                serviceTime.recordValue(micros(completedAt - sentAt));
+                String outcome = error == null ? String.valueOf(response.statusCode()) : errorName(error);
+                outcomes.computeIfAbsent(outcome, k -> new LongAdder()).increment();
+                lastCompletion.accumulateAndGet(completedAt, Math::max);
+                outstanding.decrementAndGet();
+            });
+        }
+
+        // Every request has its own timeout, so this only waits out the slowest of them
+        long drainDeadline = System.nanoTime() + timeout.toNanos() + TimeUnit.SECONDS.toNanos(1);
+        while (outstanding.get() > 0 && System.nanoTime() < drainDeadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        intervals.shutdownNow();
+        try {
+            intervals.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        collect(latency, latencyTotal, log);
+        serviceTimeTotal.add(serviceTime.getIntervalHistogram());
+
+        Map<String, Long> counts = new TreeMap<>();
+        outcomes.forEach((outcome, count) -> counts.put(outcome, count.sum()));
+        long elapsed = Math.max(lastCompletion.get(), end) - start;
+        return new Result(sent, skipped, outstanding.get(), counts, Duration.ofNanos(elapsed),
+                Duration.ofNanos(maxLag), latencyTotal, serviceTimeTotal);
+    }
+
+    private static synchronized void collect(Recorder recorder, Histogram total, HistogramLogWriter log) {
+        Histogram interval = recorder.getIntervalHistogram();
+        total.add(interval);
+        if (log != null) {
+            log.outputIntervalHistogram(interval);
+        }
+    }
+
+    /**
+     * Parks until the deadline, spinning for the last stretch since parking overshoots by tens of
+     * microseconds. Returns the time it woke up.
+     */
+    private static long waitUntil(long deadline) {
+        long now = System.nanoTime();
+        while (deadline - now > 100_000) {
+            LockSupport.parkNanos(deadline - now - 50_000);
+            now = System.nanoTime();
+        }
+        while (now < deadline) {
+            Thread.onSpinWait();
+            now = System.nanoTime();
+        }
+        return now;
+    }
+
+    private static long micros(long nanos) {
+        return Math.min(Math.max(TimeUnit.NANOSECONDS.toMicros(nanos), 0), HIGHEST_LATENCY_MICROS);
+    }
+
+    private static String errorName(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof HttpTimeoutException) {
+            return "timeout";
+        }
+        if (cause instanceof ConnectException) {
+            return "connect-error";
+        }
+        return cause.getClass().getSimpleName();
+    }
+
+    /**
+     * @param sent        requests sent
+     * @param skipped     requests that were due but not sent because too many were in flight
+     * @param unfinished  requests still without a response when the run ended
+     * @param outcomes    responses by HTTP status, or by error (timeout, connect-error, exception name)
+     * @param elapsed     from the first request being due to the last response, at least the run's duration
+     * @param maxLag      the furthest the generator fell behind its schedule
+     * @param latency     microseconds from each request being due to its response, or the timeout for skipped
+     *                    requests
+     * @param serviceTime microseconds from each request being sent to its response
+     */
+    record Result(long sent, long skipped, long unfinished, Map<String, Long> outcomes, Duration elapsed,
+                  Duration maxLag, Histogram latency, Histogram serviceTime) {
+
+        long completed() {
+            return outcomes.values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        /**
+         * Responses with a 2xx status.
+         */
+        long successful() {
+            return outcomes.entrySet().stream()
+                    .filter(e -> e.getKey().length() == 3 && e.getKey().charAt(0) == '2')
+                    .mapToLong(Map.Entry::getValue)
+                    .sum();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What a run measured, written as summary.json next to the run's histogram logs. The layout is fixed and
+ * pretty-printed with one value per line, so two runs can be compared with diff or with E2eCompare.
+ * Latencies are in milliseconds and rates per second.
+ *
+ * @param startedAt    when the run started (ISO-8601)
+ * @param commit       git commit of the code under test, with {@code -dirty} if the tree had changes
+ * @param settings     the options the run used
+ * @param startupMillis time each application took from launch to UP
+ * @param scenarios    one entry per scenario, in the order they ran
+ */
+record RunReport(String startedAt, String commit, Map<String, Object> settings, Map<String, Long> startupMillis,
+                 List<ScenarioReport> scenarios) {
+
+    static final ObjectMapper JSON = new ObjectMapper()
+            .enable(SerializationFeature.INDENT_OUTPUT)
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+
+    void write(Path file) throws IOException {
+        JSON.writeValue(file.toFile(), this);
+    }
+
+    static RunReport read(Path file) throws IOException {
+        return JSON.readValue(file.toFile(), RunReport.class);
+    }
+
+    /**
+     * @param scenario       the scenario's name
+     * @param targetRate     requests per second the schedule called for
+     * @param sent           requests sent in the measured period
+     * @param skipped        requests not sent because too many were in flight; non-zero means the rate wasn't held
+     * @param unfinished     requests still unanswered when the run ended
+     * @param outcomes       responses by HTTP status or error
+     * @param throughput     2xx responses per second
+     * @param maxScheduleLagMillis how far the generator fell behind its schedule at worst
+     * @param latencyMillis  percentiles of the time from each request being due to its response, skipped requests
+     *                       counting as timed out
+     * @param serviceTimeMillis percentiles of the time from each request being sent to its response
+     * @param allocation     heap allocation and GC pauses per application during the measured period and,
+     *                       for ingest, the drain
+     * @param drain          for ingest, how long the server took to store the acknowledged events
+     */
+    record ScenarioReport(String scenario, double targetRate, long sent, long skipped, long unfinished,
+                          Map<String, Long> outcomes, double throughput, double maxScheduleLagMillis,
+                          Map<String, Double> latencyMillis, Map<String, Double> serviceTimeMillis,
+                          Map<String, Allocation> allocation, Drain drain) {
+    }
+
+    /**
+     * @param bytes           bytes allocated
+     * @param bytesPerSecond  bytes allocated per second of the measured period
+     * @param bytesPerRequest bytes allocated per request sent
+     * @param gcPauses        number of collection pauses
+     * @param gcPauseMillis   their total duration
+     */
+    record Allocation(long bytes, double bytesPerSecond, double bytesPerRequest, long gcPauses, double gcPauseMillis) {
+    }
+
+    /**
+     * @param expected events acknowledged with a 2xx
+     * @param stored   log_entry rows found for them (at-least-once, so possibly more than expected)
+     * @param seconds  from the end of the measured period until they were all stored, or until giving up
+     * @param complete whether they were all stored within e2e.drain-timeout
+     */
+    record Drain(long expected, long stored, double seconds, boolean complete) {
+    }
+
+    /**
+     * The usual percentiles, in milliseconds, of a histogram recorded in microseconds.
+     */
+    static Map<String, Double> percentiles(Histogram histogram) {
+        Map<String, Double> percentiles = new LinkedHashMap<>();
+        for (double percentile : new double[] {50, 90, 99, 99.9, 99.99}) {
+            percentiles.put("p" + format(percentile), millis(histogram.getValueAtPercentile(percentile)));
+        }
+        percentiles.put("max", millis(histogram.getMaxValue()));
+        percentiles.put("mean", millis(histogram.getMean()));
+        return percentiles;
+    }
+
+    static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    private static double millis(double micros) {
+        return round(micros / 1000);
+    }
+
+    private static String format(double percentile) {
+        return percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile);
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * The request paths under load. Every request goes to the gateway, with the X-Global-ID of one of a set
+ * of simulated installs so that the per-client rate limits and Kafka keys are spread the way real traffic
+ * spreads them.
+ */
+enum Scenario {
+
+    /**
+     * A client event, shaped like the ones the Flutter app sends, published to Kafka and acknowledged by
+     * the gateway; spring-boot-server then consumes it into log_entry.
+     */
+    INGEST {
+        @Override
+        HttpRequest request(URI gateway, String globalId, Duration timeout) {
+            String event = """
+                    {"eventId":"%s","timestamp":"%s","event":"screen_view","appVersion":"1.4.0",\
+                    "platform":"android","durationMs":%d,"properties":{"screen":"home","source":"e2e"}}"""
+                    .formatted(UUID.randomUUID(), Instant.now(), ThreadLocalRandom.current().nextInt(1, 2000));
+            return builder(gateway.resolve("/ingest/events"), globalId, timeout)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(event))
+                    .build();
+        }
+    },
+
+    /**
+     * GET /api/hello routed by the gateway to spring-boot-server, which writes a log entry per call.
+     */
+    API {
+        @Override
+        HttpRequest request(URI gateway, String globalId, Duration timeout) {
+            return builder(gateway.resolve("/api/hello"), globalId, timeout).GET().build();
+        }
+    };
+
+    abstract HttpRequest request(URI gateway, String globalId, Duration timeout);
+
+    String id() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Requests from the given installs, round robin.
+     */
+    Supplier<HttpRequest> requests(URI gateway, String[] globalIds, Duration timeout) {
+        return new Supplier<>() {
+
+            private int next;
+
+            @Override
+            public HttpRequest get() {
+                String globalId = globalIds[next];
+                next = (next + 1) % globalIds.length;
+                return request(gateway, globalId, timeout);
+            }
+        };
+    }
+
+    static String[] newGlobalIds(int count) {
+        String[] globalIds = new String[count];
+        for (int i = 0; i < count; i++) {
+            globalIds[i] = UUID.randomUUID().toString();
+        }
+        return globalIds;
+    }
+
+    private static HttpRequest.Builder builder(URI uri, String globalId, Duration timeout) {
+        return HttpRequest.newBuilder(uri).timeout(timeout).header("X-Global-ID", globalId);
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.benchmark;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Startup benchmark of the gateway and spring-boot-server: how long each takes from launching its JVM to
+ * reporting UP, and to answering its first real request.
+ * <p>
+ * Each application is launched on its own against the local Kafka and PostgreSQL of {@link LocalStack}, as
+ * built by default and, with {@code -PfastStartup}, as the fast-startup build (AOT-processed, with an AppCDS
+ * archive and the fast-startup profile). The first request is the one a new instance behind the load
+ * balancer would get: an ingest event for the gateway, GET /api/hello for the server. One round is run
+ * unmeasured (it also applies the server's migrations) and then {@code e2e.startup.runs} measured rounds,
+ * the builds alternating so that a busy moment on the machine doesn't land on one of them only.
+ * <p>
+ * The run's directory, build/e2e-results/{@code <time>}-startup, holds startup.json with every launch's
+ * figures and their min/median/max, and the console output of the last launch of each application and build.
+ * Run it with {@code ./gradlew startup -PfastStartup} from e2e-benchmarks.
+ */
+public final class StartupBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupBenchmark.class);
+
+    /**
+     * The gateway's /api route isn't exercised here, so it points at a port nothing listens on.
+     */
+    private static final URI NO_SERVER = URI.create("http://localhost:9");
+
+    private StartupBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkOptions options = BenchmarkOptions.fromSystemProperties();
+        if (options.startupRuns() < 1) {
+            throw new IllegalArgumentException("e2e.startup.runs must be at least 1");
+        }
+        OffsetDateTime startedAt = OffsetDateTime.now().withNano(0);
+        Path reportDirectory = options.results()
+                .resolve(startedAt.format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + "-startup");
+        Files.createDirectories(reportDirectory);
+
+        Map<String, Map<String, BenchmarkOptions.Launch>> launches = new LinkedHashMap<>();
+        launches.put("server", builds(options.server(), options.fastStartup()));
+        launches.put("gateway", builds(options.gateway(), options.fastStartup()));
+
+        Map<String, Map<String, List<Launch>>> samples = new LinkedHashMap<>();
+        try (LocalStack stack = LocalStack.startInfrastructure(options.partitions())) {
+            for (int round = 0; round <= options.startupRuns(); round++) {
+                for (Map.Entry<String, Map<String, BenchmarkOptions.Launch>> app : launches.entrySet()) {
+                    for (Map.Entry<String, BenchmarkOptions.Launch> build : app.getValue().entrySet()) {
+                        Launch launch = measure(stack, app.getKey(), build.getKey(), build.getValue(), options,
+                                reportDirectory);
+                        log.info("{} ({}) round {}: {}", app.getKey(), build.getKey(), round, launch);
+                        if (round > 0) {
+                            samples.computeIfAbsent(app.getKey(), key -> new LinkedHashMap<>())
+                                    .computeIfAbsent(build.getKey(), key -> new ArrayList<>())
+                                    .add(launch);
+                        }
+                    }
+                }
+            }
+        }
+
+        Map<String, Map<String, Summary>> applications = new LinkedHashMap<>();
+        samples.forEach((app, builds) -> {
+            Map<String, Summary> summaries = new LinkedHashMap<>();
+            builds.forEach((build, runs) -> summaries.put(build, Summary.of(runs)));
+            applications.put(app, summaries);
+        });
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("runs", options.startupRuns());
+        settings.put("gatewayJvmArgs", options.gateway().jvmArgs());
+        settings.put("serverJvmArgs", options.server().jvmArgs());
+        settings.put("cpus", Runtime.getRuntime().availableProcessors());
+        settings.put("java", System.getProperty("java.version"));
+        Report report = new Report(startedAt.toString(), E2eBenchmark.commit(options.projectDir()), settings,
+                applications);
+        RunReport.JSON.writeValue(reportDirectory.resolve("startup.json").toFile(), report);
+        print(report, System.out);
+        log.info("Report written to {}", reportDirectory);
+    }
+
+    private static Map<String, BenchmarkOptions.Launch> builds(BenchmarkOptions.Launch launch, boolean fastStartup) {
+        Map<String, BenchmarkOptions.Launch> builds = new LinkedHashMap<>();
+        builds.put("default", launch);
+        if (fastStartup) {
+            builds.put("fast-startup", launch.fastStartup());
+        }
+        return builds;
+    }
+
+    private static Launch measure(LocalStack stack, String app, String build, BenchmarkOptions.Launch launch,
+                                  BenchmarkOptions options, Path reportDirectory) throws Exception {
+        String name = app + "-" + build;
+        boolean gateway = app.equals("gateway");
+        try (AppProcess process = gateway
+                ? stack.launchGateway(name, launch, NO_SERVER, reportDirectory)
+                : stack.launchServer(name, launch, reportDirectory)) {
+            process.awaitHealthy(options.startupTimeout());
+            String globalId = UUID.randomUUID().toString();
+            HttpRequest request = gateway
+                    ? Scenario.INGEST.request(process.baseUri(), globalId, options.timeout())
+                    : Scenario.API.request(process.baseUri(), globalId, options.timeout());
+            AppProcess.FirstResponse first = process.firstResponse(request);
+            return new Launch(process.startupTime().toMillis(), first.sinceLaunch().toMillis(),
+                    RunReport.round(first.latency().toNanos() / 1e6));
+        }
+    }
+
+    static void print(Report report, PrintStream out) {
+        out.printf("%nStartup %s (%s), min / median / max%n", report.startedAt(), report.commit());
+        out.printf("%-8s %-13s %22s %22s %22s%n", "", "", "UP ms", "first response ms", "first request ms");
+        report.applications().forEach((app, builds) -> builds.forEach((build, summary) -> out.printf(
+                "%-8s %-13s %22s %22s %22s%n", app, build, summary.readyMillis(), summary.firstResponseMillis(),
+                summary.firstRequestMillis())));
+    }
+
+    /**
+     * @param startedAt    when the run started
+     * @param commit       the checked-out commit, "-dirty" if it had uncommitted changes
+     * @param settings     the options that shape the figures
+     * @param applications per application and build
+     */
+    record Report(String startedAt, String commit, Map<String, Object> settings,
+                  Map<String, Map<String, Summary>> applications) {
+    }
+
+    /**
+     * One launch.
+     *
+     * @param readyMillis         from launching the JVM to the health endpoint answering UP
+     * @param firstResponseMillis from launching the JVM to the response to the first request
+     * @param firstRequestMillis  from sending the first request to its response
+     */
+    record Launch(long readyMillis, long firstResponseMillis, double firstRequestMillis) {
+    }
+
+    record Summary(Spread readyMillis, Spread firstResponseMillis, Spread firstRequestMillis, List<Launch> runs) {
+
+        static Summary of(List<Launch> runs) {
+            return new Summary(
+                    Spread.of(runs.stream().mapToDouble(Launch::readyMillis).toArray()),
+                    Spread.of(runs.stream().mapToDouble(Launch::firstResponseMillis).toArray()),
+                    Spread.of(runs.stream().mapToDouble(Launch::firstRequestMillis).toArray()),
+                    runs);
+        }
+    }
+
+    /**
+     * A handful of launches isn't enough for percentiles; the median and the extremes say how stable they were.
+     */
+    record Spread(double min, double median, double max) {
+
+        static Spread of(double[] values) {
+            double[] sorted = values.clone();
+            Arrays.sort(sorted);
+            int n = sorted.length;
+            double median = n % 2 == 1 ? sorted[n / 2] : (sorted[n / 2 - 1] + sorted[n / 2]) / 2;
+            return new Spread(sorted[0], RunReport.round(median), sorted[n - 1]);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.0f / %.0f / %.0f", min, median, max);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.gateway.ingest;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Size and per-event cost of each {@link EventFormat}, against the ObjectMapper JSON path.
+ * <p>
+ * {@code encode} and {@code decode} bind through an ObjectMapper for the format, the way a client
+ * encodes and the way IngestController used to read events. {@code scan} is the gateway's path for an
+ * event already in the storage format, {@code scanAndTranscodeJson} the one for a JSON event stored in
+ * the format (the consumer's transcoding back to JSON costs about the same). Bytes per event are printed
+ * when each trial starts; Kafka compresses batches on top of that, see ProducerSettingsBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EventEncodingBenchmark {
+
+    private static final TypeReference<Map<String, Object>> EVENT_TYPE = new TypeReference<>() {};
+
+    // Shaped like the sample event sent by flutter_app's LoggingService
+    private static final String EVENT = """
+            {"eventId":"2f1d8c4e-6a57-4f0b-9a53-0d1c7e9b6a21","timestamp":"2025-09-23T14:30:00.123456",\
+            "userId":"user-123","event":"button_click","appVersion":"1.4.2","platform":"android",\
+            "properties":{"button_id":"send_event_button","page":"home","position":{"x":120,"y":48}}}""";
+
+    @Param({"JSON", "SMILE", "CBOR"})
+    public EventFormat format;
+
+    private ObjectMapper objectMapper;
+    private EventScanner eventScanner;
+    private Map<String, Object> event;
+    private byte[] json;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws Exception {
+        JsonFactory jsonFactory = new JsonFactory();
+        objectMapper = new ObjectMapper(format.newFactory(jsonFactory));
+        eventScanner = new EventScanner(jsonFactory, EventFields.NONE, format);
+        json = EVENT.getBytes(StandardCharsets.UTF_8);
+        event = new ObjectMapper().readValue(json, EVENT_TYPE);
+        encoded = objectMapper.writeValueAsBytes(event);
+
+        System.out.printf("%n[format=%s] %d bytes/event, %.0f%% of JSON%n", format, encoded.length,
+                100.0 * encoded.length / json.length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws Exception {
+        return objectMapper.writeValueAsBytes(event);
+    }
+
+    @Benchmark
+    public Map<String, Object> decode() throws Exception {
+        return objectMapper.readValue(encoded, EVENT_TYPE);
+    }
+
+    @Benchmark
+    public byte[] scan() {
+        return eventScanner.scan(encoded, format).payload();
+    }
+
+    @Benchmark
+    public byte[] scanAndTranscodeJson() {
+        return eventScanner.scan(json).payload();
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.gateway.ingest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-event cost of the ingest path before and after the raw passthrough.
+ * <p>
+ * {@code bindAndReserialize} is what IngestController used to do: bind the body to a Map, then write it
+ * back out for the String producer. {@code scanAndPassthrough} validates the bytes and extracts the
+ * routing fields, publishing the original array. Compare {@code gc.alloc.rate.norm} for allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class IngestPayloadBenchmark {
+
+    private static final TypeReference<Map<String, Object>> EVENT_TYPE = new TypeReference<>() {};
+
+    // Shaped like the sample event sent by flutter_app's LoggingService
+    private static final String EVENT = """
+            {"eventId":"2f1d8c4e-6a57-4f0b-9a53-0d1c7e9b6a21","timestamp":"2025-09-23T14:30:00.123456",\
+            "userId":"user-123","event":"button_click",\
+            "properties":{"button_id":"send_event_button","page":"home","position":{"x":120,"y":48}}}""";
+
+    private ObjectMapper objectMapper;
+    private EventScanner eventScanner;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        eventScanner = new EventScanner(objectMapper.getFactory());
+        payload = EVENT.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] bindAndReserialize() throws Exception {
+        Map<String, Object> eventData = objectMapper.readValue(payload, EVENT_TYPE);
+        String eventJson = objectMapper.writeValueAsString(eventData);
+        // StringSerializer encoding on the producer side
+        return eventJson.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] scanAndPassthrough() {
+        return eventScanner.scan(payload).payload();
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.gateway.ingest;
+
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Producer throughput and bytes on the wire for the compression and batching settings exposed in
+ * application.yaml ({@code KAFKA_COMPRESSION_TYPE}, {@code KAFKA_LINGER_MS}, {@code KAFKA_BATCH_SIZE}).
+ * <p>
+ * Records are keyed and carry the same headers EventPublisher adds, against a single in-process KRaft
+ * broker. Throughput is reported by JMH in records per second; bytes per record and the producer's
+ * average compression rate are printed when each trial ends.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ProducerSettingsBenchmark {
+
+    private static final String TOPIC = "ingest-events";
+    private static final int RECORDS_PER_FLUSH = 1000;
+    private static final String[] EVENT_TYPES = {"button_click", "page_view", "app_open", "scroll", "purchase"};
+
+    @Param({"none", "lz4", "zstd"})
+    public String compressionType;
+
+    @Param({"0", "5", "20"})
+    public int lingerMs;
+
+    @Param({"16384", "65536"})
+    public int batchSize;
+
+    private EmbeddedKafkaKraftBroker broker;
+    private KafkaProducer<String, byte[]> producer;
+    private List<ProducerRecord<String, byte[]>> records;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        broker = new EmbeddedKafkaKraftBroker(1, 3, TOPIC);
+        broker.afterPropertiesSet();
+
+        producer = new KafkaProducer<>(Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString(),
+                ProducerConfig.ACKS_CONFIG, "all",
+                ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType,
+                ProducerConfig.LINGER_MS_CONFIG, lingerMs,
+                ProducerConfig.BATCH_SIZE_CONFIG, batchSize),
+                new StringSerializer(), new ByteArraySerializer());
+
+        // A few clients, each sending a session's worth of events under its own trace
+        Random random = new Random(42);
+        records = new ArrayList<>(RECORDS_PER_FLUSH);
+        for (int i = 0; i < RECORDS_PER_FLUSH; i++) {
+            String globalId = "client-" + random.nextInt(20);
+            String traceparent = "00-%032x-%016x-01".formatted(random.nextLong() & Long.MAX_VALUE,
+                    random.nextLong() & Long.MAX_VALUE);
+            String event = """
+                    {"eventId":"%s","timestamp":"2025-09-23T14:30:%02d.%06d","userId":"user-%d","event":"%s",\
+                    "properties":{"button_id":"send_event_button","page":"home","position":{"x":%d,"y":%d}}}"""
+                    .formatted(UUID.randomUUID(), random.nextInt(60), random.nextInt(1_000_000),
+                            random.nextInt(1000), EVENT_TYPES[random.nextInt(EVENT_TYPES.length)],
+                            random.nextInt(400), random.nextInt(800));
+            List<Header> headers = List.of(
+                    new RecordHeader(EventContext.TRACEPARENT_HEADER, traceparent.getBytes(StandardCharsets.US_ASCII)),
+                    new RecordHeader(EventPublisher.GLOBAL_ID_RECORD_HEADER, globalId.getBytes(StandardCharsets.UTF_8)));
+            records.add(new ProducerRecord<>(TOPIC, null, globalId, event.getBytes(StandardCharsets.UTF_8), headers));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        double bytes = metric("outgoing-byte-total", "producer-metrics");
+        double sent = metric("record-send-total", "producer-metrics");
+        double compressionRate = metric("compression-rate-avg", "producer-metrics");
+        System.out.printf("%n[compression=%s linger.ms=%d batch.size=%d] %.1f bytes/record on the wire, "
+                        + "compression rate %.3f%n", compressionType, lingerMs, batchSize, bytes / sent,
+                compressionRate);
+
+        producer.close();
+        broker.destroy();
+    }
+
+    /**
+     * Sends a burst of records and waits until all of them are acknowledged, like a batch ingest request.
+     */
+    @Benchmark
+    @OperationsPerInvocation(RECORDS_PER_FLUSH)
+    public void sendAndFlush() {
+        for (ProducerRecord<String, byte[]> record : records) {
+            producer.send(record);
+        }
+        producer.flush();
+    }
+
+    private double metric(String name, String group) {
+        for (Map.Entry<MetricName, ? extends Metric> entry : producer.metrics().entrySet()) {
+            MetricName metricName = entry.getKey();
+            if (metricName.name().equals(name) && metricName.group().equals(group)) {
+                return ((Number) entry.getValue().metricValue()).doubleValue();
+            }
+        }
+        return Double.NaN;
+    }
+}
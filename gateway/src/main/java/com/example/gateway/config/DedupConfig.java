@@ -0,0 +1,31 @@
+package com.example.gateway.config;
+
+import com.example.gateway.dedup.DuplicateFilter;
+import com.example.gateway.dedup.EventDeduplicator;
+import com.example.gateway.dedup.ExactWindowFilter;
+import com.example.gateway.dedup.RotatingBloomFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(prefix = "ingest.dedup", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class DedupConfig {
+
+    /**
+     * The Bloom filter is sized up front for the peak rate over the whole window; starting the
+     * deduplicator schedules its rotation.
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public EventDeduplicator eventDeduplicator(IngestProperties properties, MeterRegistry meterRegistry) {
+        IngestProperties.Dedup dedup = properties.getDedup();
+        long window = dedup.getWindow().toNanos();
+        DuplicateFilter filter = switch (dedup.getMode()) {
+            case BLOOM -> new RotatingBloomFilter((long) dedup.getPeakRate() * dedup.getWindow().toSeconds(),
+                    dedup.getFalsePositiveRate(), dedup.getGenerations(), window);
+            case EXACT -> new ExactWindowFilter(window, dedup.getMaxEntries());
+        };
+        return new EventDeduplicator(filter, meterRegistry);
+    }
+}
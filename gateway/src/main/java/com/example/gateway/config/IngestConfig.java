@@ -0,0 +1,34 @@
+package com.example.gateway.config;
+
+import com.example.gateway.ingest.EventFields;
+import com.example.gateway.ingest.EventMetrics;
+import com.example.gateway.ingest.EventScanner;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class IngestConfig {
+
+    /**
+     * Shares the JsonFactory of Spring's ObjectMapper so the scanner parses with the same settings
+     * (and symbol tables) as the rest of the application. The fields EventMetrics aggregates by are
+     * picked up in the same pass, and events are transcoded to the storage format.
+     */
+    @Bean
+    public EventScanner eventScanner(ObjectMapper objectMapper, IngestProperties properties) {
+        IngestProperties.Metrics metrics = properties.getMetrics();
+        EventFields fields = metrics.isEnabled()
+                ? EventFields.of(metrics.getDimensions(), metrics.getDurationField())
+                : EventFields.NONE;
+        return new EventScanner(objectMapper.getFactory(), fields, properties.getStorageFormat());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "ingest.metrics", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public EventMetrics eventMetrics(MeterRegistry meterRegistry, IngestProperties properties) {
+        return new EventMetrics(meterRegistry, properties.getMetrics());
+    }
+}
@@ -0,0 +1,575 @@
+package com.example.gateway.config;
+
+import com.example.gateway.ingest.EventFormat;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tunables for the {@code /ingest} endpoints, bound from the {@code ingest.*} keys in application.yaml.
+ */
+@ConfigurationProperties(prefix = "ingest")
+public class IngestProperties {
+
+    /**
+     * Kafka topic that accepted events are published to.
+     */
+    private String topic = "ingest-events";
+
+    /**
+     * What records are keyed by, which decides their partition and therefore what stays in order.
+     */
+    private KeyStrategy keyStrategy = KeyStrategy.GLOBAL_ID;
+
+    /**
+     * Encoding of event payloads in Kafka, whatever they were sent in. Consumers must read the format header.
+     */
+    private EventFormat storageFormat = EventFormat.SMILE;
+
+    private final Batch batch = new Batch();
+
+    private final Publish publish = new Publish();
+
+    private final Spool spool = new Spool();
+
+    private final Metrics metrics = new Metrics();
+
+    private final Dedup dedup = new Dedup();
+
+    private final Tail tail = new Tail();
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public void setTopic(String topic) {
+        this.topic = topic;
+    }
+
+    public KeyStrategy getKeyStrategy() {
+        return keyStrategy;
+    }
+
+    public void setKeyStrategy(KeyStrategy keyStrategy) {
+        this.keyStrategy = keyStrategy;
+    }
+
+    public EventFormat getStorageFormat() {
+        return storageFormat;
+    }
+
+    public void setStorageFormat(EventFormat storageFormat) {
+        this.storageFormat = storageFormat;
+    }
+
+    public Batch getBatch() {
+        return batch;
+    }
+
+    public Publish getPublish() {
+        return publish;
+    }
+
+    public Spool getSpool() {
+        return spool;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    public Dedup getDedup() {
+        return dedup;
+    }
+
+    public Tail getTail() {
+        return tail;
+    }
+
+    public enum KeyStrategy {
+
+        /**
+         * The client's X-Global-ID, falling back to the trace ID for clients that don't send one.
+         */
+        GLOBAL_ID,
+
+        /**
+         * The trace ID of the ingest request.
+         */
+        TRACE_ID,
+
+        /**
+         * No key; the producer spreads records over partitions.
+         */
+        NONE
+    }
+
+    public static class Batch {
+
+        /**
+         * Events beyond this count in a single request are rejected.
+         */
+        private int maxEvents = 1000;
+
+        /**
+         * Largest single event, in bytes, that the batch endpoint will buffer.
+         */
+        private int maxEventSize = 256 * 1024;
+
+        public int getMaxEvents() {
+            return maxEvents;
+        }
+
+        public void setMaxEvents(int maxEvents) {
+            this.maxEvents = maxEvents;
+        }
+
+        public int getMaxEventSize() {
+            return maxEventSize;
+        }
+
+        public void setMaxEventSize(int maxEventSize) {
+            this.maxEventSize = maxEventSize;
+        }
+    }
+
+    public static class Publish {
+
+        /**
+         * Records handed to the producer but not yet acknowledged by the broker. New events are shed above this.
+         */
+        private int maxInFlightRecords = 10_000;
+
+        /**
+         * Payload bytes in flight. Keep it below the producer's buffer.memory so send() never blocks on a full buffer.
+         */
+        private long maxInFlightBytes = 16L * 1024 * 1024;
+
+        /**
+         * Value of the Retry-After header sent with 503 responses when events are shed.
+         */
+        private Duration retryAfter = Duration.ofSeconds(1);
+
+        /**
+         * Threads that call the producer's send(), keeping metadata waits off the Netty event loop.
+         */
+        private int senderThreads = 4;
+
+        public int getMaxInFlightRecords() {
+            return maxInFlightRecords;
+        }
+
+        public void setMaxInFlightRecords(int maxInFlightRecords) {
+            this.maxInFlightRecords = maxInFlightRecords;
+        }
+
+        public long getMaxInFlightBytes() {
+            return maxInFlightBytes;
+        }
+
+        public void setMaxInFlightBytes(long maxInFlightBytes) {
+            this.maxInFlightBytes = maxInFlightBytes;
+        }
+
+        public Duration getRetryAfter() {
+            return retryAfter;
+        }
+
+        public void setRetryAfter(Duration retryAfter) {
+            this.retryAfter = retryAfter;
+        }
+
+        public int getSenderThreads() {
+            return senderThreads;
+        }
+
+        public void setSenderThreads(int senderThreads) {
+            this.senderThreads = senderThreads;
+        }
+    }
+
+    public static class Spool {
+
+        /**
+         * Whether events that can't go to Kafka right now are written to the local spool instead of being shed.
+         */
+        private boolean enabled = true;
+
+        private Path directory = Path.of("spool");
+
+        /**
+         * Size at which the active segment file is closed and a new one started.
+         */
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+        /**
+         * Upper bound for all segments together. Events are shed with 503 once it is reached.
+         */
+        private DataSize maxSize = DataSize.ofGigabytes(1);
+
+        /**
+         * How long appends wait to be fsynced together with their neighbours.
+         */
+        private Duration fsyncInterval = Duration.ofMillis(20);
+
+        /**
+         * Records replayed to Kafka per drain round; the round is committed once all of them are acknowledged.
+         */
+        private int drainBatchSize = 500;
+
+        /**
+         * How often an empty spool is checked for new records.
+         */
+        private Duration drainInterval = Duration.ofMillis(500);
+
+        /**
+         * Longest wait between drain attempts while Kafka keeps failing. Attempts back off exponentially up to this.
+         */
+        private Duration maxDrainBackoff = Duration.ofSeconds(30);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Path getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(Path directory) {
+            this.directory = directory;
+        }
+
+        public DataSize getSegmentSize() {
+            return segmentSize;
+        }
+
+        public void setSegmentSize(DataSize segmentSize) {
+            this.segmentSize = segmentSize;
+        }
+
+        public DataSize getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(DataSize maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Duration getFsyncInterval() {
+            return fsyncInterval;
+        }
+
+        public void setFsyncInterval(Duration fsyncInterval) {
+            this.fsyncInterval = fsyncInterval;
+        }
+
+        public int getDrainBatchSize() {
+            return drainBatchSize;
+        }
+
+        public void setDrainBatchSize(int drainBatchSize) {
+            this.drainBatchSize = drainBatchSize;
+        }
+
+        public Duration getDrainInterval() {
+            return drainInterval;
+        }
+
+        public void setDrainInterval(Duration drainInterval) {
+            this.drainInterval = drainInterval;
+        }
+
+        public Duration getMaxDrainBackoff() {
+            return maxDrainBackoff;
+        }
+
+        public void setMaxDrainBackoff(Duration maxDrainBackoff) {
+            this.maxDrainBackoff = maxDrainBackoff;
+        }
+    }
+
+    public static class Metrics {
+
+        /**
+         * Whether accepted events are counted as {@code ingest.client.events} (and timed, see duration-field).
+         */
+        private boolean enabled = true;
+
+        /**
+         * Event fields that become tags besides the event type, e.g. {@code appVersion}. A dot descends into
+         * a nested object: {@code properties.page}.
+         */
+        private List<String> dimensions = new ArrayList<>();
+
+        /**
+         * Numeric event field recorded into {@code ingest.client.event.duration}, e.g. {@code durationMs}.
+         * Nothing is timed when unset.
+         */
+        private String durationField;
+
+        /**
+         * Unit of the duration field's values.
+         */
+        private TimeUnit durationUnit = TimeUnit.MILLISECONDS;
+
+        /**
+         * Histogram bucket boundaries for the duration. Every series gets all of them, so keep the list short.
+         */
+        private List<Duration> durationBuckets = new ArrayList<>(List.of(Duration.ofMillis(50),
+                Duration.ofMillis(100), Duration.ofMillis(250), Duration.ofMillis(500), Duration.ofSeconds(1),
+                Duration.ofMillis(2500), Duration.ofSeconds(5), Duration.ofSeconds(10)));
+
+        /**
+         * Distinct event type and dimension combinations tracked. Further combinations are counted under
+         * {@code event="other"} with every dimension {@code "other"}.
+         */
+        private int maxSeries = 2000;
+
+        /**
+         * Distinct values tracked per tag, the event type included. Further values of that tag are counted as
+         * {@code "other"}, so one tag with many values can't use up max-series on its own.
+         */
+        private int maxTagValues = 100;
+
+        /**
+         * Longer event types and dimension values are cut to this many characters. Values with control
+         * characters are counted as {@code "other"}.
+         */
+        private int maxValueLength = 64;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public List<String> getDimensions() {
+            return dimensions;
+        }
+
+        public void setDimensions(List<String> dimensions) {
+            this.dimensions = dimensions;
+        }
+
+        public String getDurationField() {
+            return durationField;
+        }
+
+        public void setDurationField(String durationField) {
+            this.durationField = durationField;
+        }
+
+        public TimeUnit getDurationUnit() {
+            return durationUnit;
+        }
+
+        public void setDurationUnit(TimeUnit durationUnit) {
+            this.durationUnit = durationUnit;
+        }
+
+        public List<Duration> getDurationBuckets() {
+            return durationBuckets;
+        }
+
+        public void setDurationBuckets(List<Duration> durationBuckets) {
+            this.durationBuckets = durationBuckets;
+        }
+
+        public int getMaxSeries() {
+            return maxSeries;
+        }
+
+        public void setMaxSeries(int maxSeries) {
+            this.maxSeries = maxSeries;
+        }
+
+        public int getMaxTagValues() {
+            return maxTagValues;
+        }
+
+        public void setMaxTagValues(int maxTagValues) {
+            this.maxTagValues = maxTagValues;
+        }
+
+        public int getMaxValueLength() {
+            return maxValueLength;
+        }
+
+        public void setMaxValueLength(int maxValueLength) {
+            this.maxValueLength = maxValueLength;
+        }
+    }
+
+    public static class Dedup {
+
+        /**
+         * Whether events whose {@code eventId} was already published within the window are dropped.
+         */
+        private boolean enabled = true;
+
+        private Mode mode = Mode.BLOOM;
+
+        /**
+         * How long an event ID is remembered after its event was published.
+         */
+        private Duration window = Duration.ofMinutes(10);
+
+        /**
+         * Peak events per second the Bloom filter is sized for. Its memory is fixed; above this rate the
+         * false positive rate rises (see the {@code ingest.dedup.false.positive.estimate} gauge).
+         */
+        private int peakRate = 5000;
+
+        /**
+         * Share of new events the Bloom filter may mistake for duplicates at the peak rate.
+         */
+        private double falsePositiveRate = 0.001;
+
+        /**
+         * Bloom filters the window is split into. IDs are forgotten one generation at a time, so an ID is
+         * remembered for at least {@code window * (generations - 1) / generations}.
+         */
+        private int generations = 6;
+
+        /**
+         * Event IDs the exact filter remembers at most. Further IDs are published without being remembered.
+         */
+        private int maxEntries = 100_000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Mode getMode() {
+            return mode;
+        }
+
+        public void setMode(Mode mode) {
+            this.mode = mode;
+        }
+
+        public Duration getWindow() {
+            return window;
+        }
+
+        public void setWindow(Duration window) {
+            this.window = window;
+        }
+
+        public int getPeakRate() {
+            return peakRate;
+        }
+
+        public void setPeakRate(int peakRate) {
+            this.peakRate = peakRate;
+        }
+
+        public double getFalsePositiveRate() {
+            return falsePositiveRate;
+        }
+
+        public void setFalsePositiveRate(double falsePositiveRate) {
+            this.falsePositiveRate = falsePositiveRate;
+        }
+
+        public int getGenerations() {
+            return generations;
+        }
+
+        public void setGenerations(int generations) {
+            this.generations = generations;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public enum Mode {
+
+            /**
+             * Rotating Bloom filters: fixed memory, a small chance of dropping a new event as a duplicate.
+             */
+            BLOOM,
+
+            /**
+             * A map of the IDs themselves: exact, but memory grows with traffic up to max-entries.
+             */
+            EXACT
+        }
+    }
+
+    public static class Tail {
+
+        /**
+         * Whether {@code GET /ingest/tail} streams live events. It shows any client's events to whoever can
+         * reach the gateway, without authentication, so it is off unless turned on where that is acceptable.
+         */
+        private boolean enabled;
+
+        /**
+         * Events buffered per subscriber. A subscriber that falls further behind is disconnected.
+         */
+        private int bufferSize = 256;
+
+        /**
+         * Open subscriptions at most. Further requests are answered with 503.
+         */
+        private int maxSubscribers = 100;
+
+        /**
+         * How often a comment is sent on idle streams so proxies don't close them.
+         */
+        private Duration heartbeat = Duration.ofSeconds(15);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getBufferSize() {
+            return bufferSize;
+        }
+
+        public void setBufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+
+        public int getMaxSubscribers() {
+            return maxSubscribers;
+        }
+
+        public void setMaxSubscribers(int maxSubscribers) {
+            this.maxSubscribers = maxSubscribers;
+        }
+
+        public Duration getHeartbeat() {
+            return heartbeat;
+        }
+
+        public void setHeartbeat(Duration heartbeat) {
+            this.heartbeat = heartbeat;
+        }
+    }
+}
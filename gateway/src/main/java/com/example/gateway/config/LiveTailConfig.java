@@ -0,0 +1,41 @@
+package com.example.gateway.config;
+
+import com.example.gateway.tail.LiveTail;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.ConsumerFactory;
+
+import java.util.Properties;
+
+@Configuration
+@ConditionalOnProperty(prefix = "ingest.tail", name = "enabled", havingValue = "true")
+public class LiveTailConfig {
+
+    /**
+     * Consumers come from Spring Boot's factory, so they get the same bootstrap servers and security
+     * settings as the producer, with deserializers for the raw payload and no offset commits.
+     */
+    @Bean(destroyMethod = "stop")
+    @SuppressWarnings("unchecked")
+    public LiveTail liveTail(ConsumerFactory<?, ?> consumerFactory, IngestProperties properties,
+                             ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+        overrides.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+        overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        overrides.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+
+        IngestProperties.Tail tail = properties.getTail();
+        return new LiveTail(
+                () -> (Consumer<String, byte[]>) consumerFactory.createConsumer(null, "live-tail", null, overrides),
+                properties.getTopic(), tail.getBufferSize(), tail.getMaxSubscribers(), objectMapper.getFactory(),
+                meterRegistry);
+    }
+}
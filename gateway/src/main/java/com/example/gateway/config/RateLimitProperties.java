@@ -0,0 +1,118 @@
+package com.example.gateway.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-client and global request limits, bound from the {@code rate-limit.*} keys in application.yaml.
+ */
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    /**
+     * Whether requests over the limits are answered with 429.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Path patterns the limits apply to. Anything else, e.g. /actuator, is never limited.
+     */
+    private List<String> paths = new ArrayList<>(List.of("/ingest/**", "/api/**"));
+
+    /**
+     * Limit for each client, identified by X-Global-ID or, without one, by remote address.
+     */
+    private final Limit client = new Limit(50, 100);
+
+    /**
+     * Limit for all requests to this node together.
+     */
+    private final Limit global = new Limit(50_000, 5_000);
+
+    /**
+     * Clients with their own bucket at most, bounding memory. Further clients are held to the global limit.
+     */
+    private int maxClients = 100_000;
+
+    /**
+     * How often buckets of clients that went quiet are dropped.
+     */
+    private Duration sweepInterval = Duration.ofSeconds(30);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public List<String> getPaths() {
+        return paths;
+    }
+
+    public void setPaths(List<String> paths) {
+        this.paths = paths;
+    }
+
+    public Limit getClient() {
+        return client;
+    }
+
+    public Limit getGlobal() {
+        return global;
+    }
+
+    public int getMaxClients() {
+        return maxClients;
+    }
+
+    public void setMaxClients(int maxClients) {
+        this.maxClients = maxClients;
+    }
+
+    public Duration getSweepInterval() {
+        return sweepInterval;
+    }
+
+    public void setSweepInterval(Duration sweepInterval) {
+        this.sweepInterval = sweepInterval;
+    }
+
+    public static class Limit {
+
+        /**
+         * Sustained requests per second. Zero or less turns the limit off.
+         */
+        private double rate;
+
+        /**
+         * Requests allowed at once on top of the sustained rate.
+         */
+        private double burst;
+
+        Limit(double rate, double burst) {
+            this.rate = rate;
+            this.burst = burst;
+        }
+
+        public double getRate() {
+            return rate;
+        }
+
+        public void setRate(double rate) {
+            this.rate = rate;
+        }
+
+        public double getBurst() {
+            return burst;
+        }
+
+        public void setBurst(double burst) {
+            this.burst = burst;
+        }
+    }
+}
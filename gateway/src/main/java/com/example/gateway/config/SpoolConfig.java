@@ -0,0 +1,32 @@
+package com.example.gateway.config;
+
+import com.example.gateway.spool.DiskSpool;
+import com.example.gateway.spool.SpoolDrainer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.io.IOException;
+
+@Configuration
+@ConditionalOnProperty(prefix = "ingest.spool", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SpoolConfig {
+
+    /**
+     * Opening the spool also recovers whatever a previous run left behind, so replay starts with the drainer.
+     */
+    @Bean(destroyMethod = "close")
+    public DiskSpool diskSpool(IngestProperties properties) throws IOException {
+        IngestProperties.Spool spool = properties.getSpool();
+        return new DiskSpool(spool.getDirectory(), spool.getSegmentSize().toBytes(), spool.getMaxSize().toBytes(),
+                spool.getFsyncInterval());
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public SpoolDrainer spoolDrainer(DiskSpool diskSpool, KafkaTemplate<String, byte[]> kafkaTemplate,
+                                     IngestProperties properties, MeterRegistry meterRegistry) {
+        return new SpoolDrainer(diskSpool, kafkaTemplate, properties, meterRegistry);
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.gateway.config;
+
+import com.example.gateway.controller.IngestController;
+import com.example.gateway.dedup.EventDeduplicator;
+import com.example.gateway.ingest.EventMetrics;
+import com.example.gateway.ingest.EventPublisher;
+import com.example.gateway.ingest.EventScanner;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Which beans stay eager when spring.main.lazy-initialization is on, as in the fast-startup profile.
+ * <p>
+ * A lazy bean is only created when something first asks for it, so a bean with an init method would
+ * silently never start; those stay eager. So does the ingest path, so that the first event after a scale-out
+ * doesn't pay for creating it. What is left lazy is what the first request doesn't need, like the live
+ * tail and its Kafka consumer. The filters are only consulted when lazy initialization is on.
+ */
+@Configuration(proxyBeanMethods = false)
+public class StartupConfig {
+
+    @Bean
+    static LazyInitializationExcludeFilter backgroundBeans() {
+        return (beanName, definition, type) -> definition.getInitMethodName() != null;
+    }
+
+    @Bean
+    static LazyInitializationExcludeFilter ingestPathBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(IngestController.class, EventScanner.class,
+                EventPublisher.class, EventDeduplicator.class, EventMetrics.class);
+    }
+}
@@ -1,48 +1,199 @@
 package com.example.gateway.controller;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.gateway.config.IngestProperties;
+import com.example.gateway.dedup.EventDeduplicator;
+import com.example.gateway.ingest.BatchIngestResponse;
+import com.example.gateway.ingest.BatchIngestResponse.EventResult;
+import com.example.gateway.ingest.EventContext;
+import com.example.gateway.ingest.EventFormat;
+import com.example.gateway.ingest.EventMetrics;
+import com.example.gateway.ingest.EventPublisher;
+import com.example.gateway.ingest.EventScanner;
+import com.example.gateway.ingest.EventStreamSplitter;
+import com.example.gateway.ingest.PublishOutcome;
+import com.example.gateway.ingest.PublishRejectedException;
+import com.example.gateway.ingest.ScannedEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.util.Map;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @RestController
 @RequestMapping("/ingest")
 public class IngestController {
 
     private static final Logger logger = LoggerFactory.getLogger(IngestController.class);
-    private static final String TOPIC_NAME = "ingest-events";
 
-    private final KafkaTemplate<String, String> kafkaTemplate;
-    private final ObjectMapper objectMapper;
+    private final EventPublisher eventPublisher;
+    private final EventScanner eventScanner;
+    private final IngestProperties properties;
+    private final EventMetrics eventMetrics;
+    private final EventDeduplicator eventDeduplicator;
 
-    public IngestController(KafkaTemplate<String, String> kafkaTemplate, ObjectMapper objectMapper) {
-        this.kafkaTemplate = kafkaTemplate;
-        this.objectMapper = objectMapper;
+    public IngestController(EventPublisher eventPublisher, EventScanner eventScanner, IngestProperties properties,
+                            ObjectProvider<EventMetrics> eventMetrics,
+                            ObjectProvider<EventDeduplicator> eventDeduplicator) {
+        this.eventPublisher = eventPublisher;
+        this.eventScanner = eventScanner;
+        this.properties = properties;
+        this.eventMetrics = eventMetrics.getIfAvailable();
+        this.eventDeduplicator = eventDeduplicator.getIfAvailable();
     }
 
+    /**
+     * Publishes the request body as-is. The body is only scanned for well-formedness and routing fields,
+     * never bound to objects or re-serialized. The response is sent once Kafka has acknowledged the event
+     * (200), or once it is durable in the local spool while Kafka is unavailable (202). A retry of an event
+     * ID that was already published is answered with 200 without publishing it again.
+     * <p>
+     * The body may be CBOR ({@code application/cbor}) or Smile ({@code application/x-jackson-smile}) instead
+     * of JSON, which saves clients upload bandwidth; it is transcoded to the storage format either way.
+     */
     @PostMapping("/events")
-    public Mono<ResponseEntity<Void>> ingestEvent(@RequestBody Map<String, Object> eventData) {
-        return Mono.fromCallable(() -> {
-            logger.info("Received event in IngestController: {}", eventData);
-            String eventJson = objectMapper.writeValueAsString(eventData);
-            kafkaTemplate.send(TOPIC_NAME, eventJson);
-            logger.info("Event sent to Kafka topic [{}]: {}", TOPIC_NAME, eventJson);
-            return ResponseEntity.ok().<Void>build();
-        }).onErrorResume(JsonProcessingException.class, e -> {
-            logger.error("Error serializing event data to JSON", e);
-            return Mono.just(ResponseEntity.badRequest().build());
-        }).onErrorResume(Exception.class, e -> {
-            logger.error("Error sending event to Kafka", e);
-            return Mono.just(ResponseEntity.internalServerError().build());
-        });
+    public Mono<ResponseEntity<Void>> ingestEvent(@RequestBody byte[] payload, ServerHttpRequest request) {
+        EventFormat format = EventFormat.of(request.getHeaders().getContentType());
+        return Mono.fromCallable(() -> eventScanner.scan(payload, format))
+                .flatMap(event -> Mono.deferContextual(context ->
+                                publishOnce(event, EventContext.from(request, context)))
+                        .doOnNext(outcome -> {
+                            record(event, outcome);
+                            logger.debug("Event [{}] {} {}", event.eventType(), event.eventId(), outcome);
+                        }))
+                .map(outcome -> outcome == PublishOutcome.SPOOLED
+                        ? ResponseEntity.accepted().<Void>build()
+                        : ResponseEntity.ok().<Void>build())
+                .onErrorResume(DecodingException.class, e -> {
+                    logger.warn("Rejected malformed event: {}", e.getMessage());
+                    return Mono.just(ResponseEntity.badRequest().build());
+                }).onErrorResume(PublishRejectedException.class, e ->
+                        Mono.just(serviceUnavailable(e.getRetryAfter()).build())
+                ).onErrorResume(Exception.class, e -> {
+                    logger.error("Error sending event to Kafka", e);
+                    return Mono.just(ResponseEntity.internalServerError().build());
+                });
+    }
+
+    /**
+     * Accepts many events in one request, either as a JSON array or as newline-delimited JSON.
+     * Events are split out of the body as its buffers arrive and handed to the producer right away,
+     * so the producer can batch them; the response lists an accept/reject result per event. If the body
+     * turns out to be malformed, every event before the fault still gets its result, followed by one
+     * rejection for the fault; past {@code ingest.batch.max-events} the body is not read any further.
+     */
+    @PostMapping(path = "/events/batch",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Mono<ResponseEntity<BatchIngestResponse>> ingestEvents(ServerHttpRequest request) {
+        boolean ndjson = MediaType.APPLICATION_NDJSON.isCompatibleWith(request.getHeaders().getContentType());
+        IngestProperties.Batch batch = properties.getBatch();
+        EventStreamSplitter splitter = new EventStreamSplitter(!ndjson, batch.getMaxEventSize());
+        AtomicBoolean shed = new AtomicBoolean();
+
+        return Mono.deferContextual(context -> Mono.just(EventContext.from(request, context)))
+                .flatMap(eventContext -> publishAll(request, splitter, eventContext, shed))
+                .map(results -> {
+                    BatchIngestResponse response = BatchIngestResponse.of(results);
+                    logger.info("Batch ingested: {} accepted, {} rejected", response.accepted(), response.rejected());
+                    if (shed.get()) {
+                        // Nothing was wrong with the shed events themselves; tell the client when to resend them.
+                        ResponseEntity.BodyBuilder builder = response.accepted() == 0
+                                ? serviceUnavailable(properties.getPublish().getRetryAfter())
+                                : ResponseEntity.ok().header(HttpHeaders.RETRY_AFTER,
+                                        retryAfterSeconds(properties.getPublish().getRetryAfter()));
+                        return builder.body(response);
+                    }
+                    return ResponseEntity.ok(response);
+                });
+    }
+
+    private Mono<List<EventResult>> publishAll(ServerHttpRequest request, EventStreamSplitter splitter,
+                                               EventContext eventContext, AtomicBoolean shed) {
+        int maxEvents = properties.getBatch().getMaxEvents();
+        return request.getBody()
+                // One buffer at a time, so that the body is only read as far as events are needed
+                .concatMapIterable(buffer -> split(splitter, buffer), 1)
+                .concatWith(Flux.defer(() -> Flux.fromIterable(splitter.finish())))
+                // The first event over the limit stands for all of them; the rest of the body is not read
+                .take(maxEvents + 1L)
+                .index()
+                .map(indexed -> indexed.getT1() < maxEvents
+                        ? Mono.defer(() -> publish(indexed.getT1(), indexed.getT2(), eventContext, shed))
+                        : Mono.just(EventResult.rejected(indexed.getT1(),
+                                "batch exceeds " + maxEvents + " events, the rest of it was not read")))
+                // A malformed body ends the batch with one last result, before the publishes are flattened,
+                // so that the events admitted ahead of it still finish publishing and report how that went
+                .onErrorResume(DecodingException.class, e ->
+                        Mono.just(Mono.just(EventResult.rejected(splitter.getEventCount(), e.getMessage()))))
+                .flatMapSequential(result -> result)
+                .collectList();
+    }
+
+    private List<byte[]> split(EventStreamSplitter splitter, DataBuffer buffer) {
+        try {
+            byte[] chunk = new byte[buffer.readableByteCount()];
+            buffer.read(chunk);
+            return splitter.feed(chunk);
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    private Mono<EventResult> publish(long index, byte[] payload, EventContext eventContext, AtomicBoolean shed) {
+        ScannedEvent event;
+        try {
+            event = eventScanner.scan(payload);
+        } catch (DecodingException e) {
+            return Mono.just(EventResult.rejected(index, e.getMessage()));
+        }
+        return publishOnce(event, eventContext)
+                .doOnNext(outcome -> record(event, outcome))
+                .map(outcome -> EventResult.of(index, outcome))
+                .onErrorResume(PublishRejectedException.class, e -> {
+                    shed.set(true);
+                    return Mono.just(EventResult.rejected(index, "gateway overloaded, retry later"));
+                })
+                .onErrorResume(e -> {
+                    logger.error("Error sending event {} of batch to Kafka", index, e);
+                    return Mono.just(EventResult.rejected(index, "failed to send to Kafka"));
+                });
+    }
+
+    private Mono<PublishOutcome> publishOnce(ScannedEvent event, EventContext eventContext) {
+        if (eventDeduplicator == null) {
+            return eventPublisher.publish(event, eventContext);
+        }
+        return eventDeduplicator.publishOnce(event, () -> eventPublisher.publish(event, eventContext));
+    }
+
+    // Only accepted events are counted; shed ones will be sent again and duplicates were counted already
+    private void record(ScannedEvent event, PublishOutcome outcome) {
+        if (eventMetrics != null && outcome != PublishOutcome.DUPLICATE) {
+            eventMetrics.record(event);
+        }
+    }
+
+    private static ResponseEntity.BodyBuilder serviceUnavailable(Duration retryAfter) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds(retryAfter));
+    }
+
+    private static String retryAfterSeconds(Duration retryAfter) {
+        return String.valueOf(Math.max(1, retryAfter.toSeconds()));
     }
 }
@@ -0,0 +1,76 @@
+package com.example.gateway.controller;
+
+import com.example.gateway.config.IngestProperties;
+import com.example.gateway.tail.LiveTail;
+import com.example.gateway.tail.SlowSubscriberException;
+import com.example.gateway.tail.TailEvent;
+import com.example.gateway.tail.TailFilter;
+import com.example.gateway.tail.TooManySubscribersException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+
+@RestController
+@RequestMapping("/ingest")
+@ConditionalOnProperty(prefix = "ingest.tail", name = "enabled", havingValue = "true")
+public class LiveTailController {
+
+    // Named apart from client event types, which could well be "error"
+    private static final String DROPPED_EVENT = "tail-dropped";
+    private static final String ERROR_EVENT = "tail-error";
+
+    private final LiveTail liveTail;
+    private final IngestProperties properties;
+
+    public LiveTailController(LiveTail liveTail, IngestProperties properties) {
+        this.liveTail = liveTail;
+        this.properties = properties;
+    }
+
+    /**
+     * Streams events published from now on that match all the given filters, as Server-Sent Events named
+     * by event type, with the JSON payload as data. At least one filter is required. A client that falls
+     * behind gets a final {@code tail-dropped} event and is disconnected; it can simply reconnect.
+     * <pre>
+     * curl -N 'http://localhost:8081/ingest/tail?globalId=install-1'
+     * </pre>
+     */
+    @GetMapping(path = "/tail", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> tail(@RequestParam(required = false) String globalId,
+                                              @RequestParam(required = false) String traceId,
+                                              @RequestParam(name = "event", required = false) String eventType) {
+        TailFilter filter = new TailFilter(globalId, traceId, eventType);
+        if (filter.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Set globalId, traceId or event");
+        }
+        Flux<ServerSentEvent<String>> heartbeats = Flux.interval(properties.getTail().getHeartbeat())
+                .map(tick -> ServerSentEvent.<String>builder().comment("heartbeat").build());
+        return liveTail.subscribe(filter)
+                .map(LiveTailController::toServerSentEvent)
+                .onErrorResume(e -> !(e instanceof TooManySubscribersException),
+                        e -> Flux.just(ServerSentEvent.<String>builder()
+                                .event(e instanceof SlowSubscriberException ? DROPPED_EVENT : ERROR_EVENT)
+                                .data(e.getMessage())
+                                .build()))
+                // Fails on subscription, before the first event, so the client still gets a 503 status
+                .onErrorMap(TooManySubscribersException.class,
+                        e -> new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage()))
+                .mergeWith(heartbeats)
+                // The heartbeats never end; stop after the final event
+                .takeUntil(event -> DROPPED_EVENT.equals(event.event()) || ERROR_EVENT.equals(event.event()));
+    }
+
+    private static ServerSentEvent<String> toServerSentEvent(TailEvent event) {
+        return ServerSentEvent.builder(event.json())
+                .id(event.id())
+                .event(event.eventType())
+                .build();
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.gateway.dedup;
+
+/**
+ * Remembers event IDs for a sliding window, in bounded memory.
+ */
+public interface DuplicateFilter {
+
+    /**
+     * True if the ID was {@link #put} within the window. May be a false positive, never a false negative
+     * while the ID is inside the window.
+     */
+    boolean mightContain(String eventId);
+
+    /**
+     * @return false if the filter had no room to remember the ID
+     */
+    boolean put(String eventId);
+
+    /**
+     * Forgets what has dropped out of the window. Called every {@link #expiryInterval()} nanoseconds.
+     */
+    void expire();
+
+    long expiryInterval();
+
+    /**
+     * Estimated chance that {@link #mightContain} answers true for an ID that was never put.
+     */
+    double falsePositiveEstimate();
+
+    /**
+     * IDs currently remembered, approximately.
+     */
+    long size();
+}
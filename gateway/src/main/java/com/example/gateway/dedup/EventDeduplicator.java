@@ -0,0 +1,125 @@
+package com.example.gateway.dedup;
+
+import com.example.gateway.ingest.PublishOutcome;
+import com.example.gateway.ingest.ScannedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Publishes each client event ID ({@code eventId} in the payload) at most once per window.
+ * <p>
+ * An ID is remembered in the {@link DuplicateFilter} only after its event was acknowledged or spooled, so
+ * an event that was shed or failed can be retried. A retry that arrives while the first attempt is still
+ * in flight, the usual case for a client timing out on a slow Kafka, waits for that attempt instead of
+ * publishing again. Either way the duplicate is answered with {@link PublishOutcome#DUPLICATE}. Events
+ * without an ID are always published.
+ */
+public class EventDeduplicator {
+
+    private final DuplicateFilter filter;
+    private final Map<String, Mono<PublishOutcome>> inFlight = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor;
+    private final Counter checked;
+    private final Counter windowDuplicates;
+    private final Counter inFlightDuplicates;
+    private final Counter untracked;
+
+    public EventDeduplicator(DuplicateFilter filter, MeterRegistry meterRegistry) {
+        this.filter = filter;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dedup-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.checked = Counter.builder("ingest.dedup.checked")
+                .description("Events with an event ID that were checked for duplicates")
+                .register(meterRegistry);
+        this.windowDuplicates = duplicates("window", meterRegistry);
+        this.inFlightDuplicates = duplicates("in_flight", meterRegistry);
+        this.untracked = Counter.builder("ingest.dedup.untracked")
+                .description("Published event IDs the filter had no room to remember")
+                .register(meterRegistry);
+        Gauge.builder("ingest.dedup.false.positive.estimate", filter, DuplicateFilter::falsePositiveEstimate)
+                .description("Estimated chance that a new event is mistaken for a duplicate at the current fill")
+                .register(meterRegistry);
+        Gauge.builder("ingest.dedup.entries", filter, DuplicateFilter::size)
+                .description("Event IDs currently remembered")
+                .register(meterRegistry);
+    }
+
+    private static Counter duplicates(String source, MeterRegistry meterRegistry) {
+        return Counter.builder("ingest.dedup.duplicates")
+                .description("Events dropped because their event ID was already published")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    public void start() {
+        long interval = filter.expiryInterval();
+        executor.scheduleAtFixedRate(filter::expire, interval, interval, TimeUnit.NANOSECONDS);
+    }
+
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @param publish publishes the event; only subscribed to if it isn't a duplicate
+     */
+    public Mono<PublishOutcome> publishOnce(ScannedEvent event, Supplier<Mono<PublishOutcome>> publish) {
+        String eventId = event.eventId();
+        if (eventId == null || eventId.isEmpty()) {
+            return Mono.defer(publish);
+        }
+        checked.increment();
+        if (filter.mightContain(eventId)) {
+            windowDuplicates.increment();
+            return Mono.just(PublishOutcome.DUPLICATE);
+        }
+
+        Attempt attempt = new Attempt(eventId, publish);
+        Mono<PublishOutcome> existing = inFlight.putIfAbsent(eventId, attempt.outcome);
+        if (existing != null) {
+            inFlightDuplicates.increment();
+            return existing.map(outcome -> PublishOutcome.DUPLICATE);
+        }
+        // The previous attempt may have finished between the filter check and claiming the ID
+        if (filter.mightContain(eventId)) {
+            inFlight.remove(eventId, attempt.outcome);
+            windowDuplicates.increment();
+            return Mono.just(PublishOutcome.DUPLICATE);
+        }
+        return attempt.outcome;
+    }
+
+    int inFlightCount() {
+        return inFlight.size();
+    }
+
+    // Shared by the first request and any retries that arrive while it runs
+    private final class Attempt {
+
+        private final Mono<PublishOutcome> outcome;
+
+        Attempt(String eventId, Supplier<Mono<PublishOutcome>> publish) {
+            this.outcome = Mono.defer(publish)
+                    .doOnNext(published -> {
+                        if (!filter.put(eventId)) {
+                            untracked.increment();
+                        }
+                    })
+                    .doFinally(signal -> inFlight.remove(eventId, this.outcome))
+                    .cache();
+        }
+    }
+}
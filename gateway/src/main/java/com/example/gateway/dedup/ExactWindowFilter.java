@@ -0,0 +1,71 @@
+package com.example.gateway.dedup;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Exact sliding-window duplicate filter for small deployments: a map from event ID to when it was put.
+ * No false positives, but memory grows with the IDs in the window, so the map is capped at
+ * {@code maxEntries}; IDs arriving while it is full are not remembered (which {@link EventDeduplicator} counts
+ * as untracked).
+ */
+public class ExactWindowFilter implements DuplicateFilter {
+
+    // How many expiry sweeps happen per window
+    private static final int SWEEPS_PER_WINDOW = 10;
+
+    private final Map<String, Long> seen = new ConcurrentHashMap<>();
+    private final long windowNanos;
+    private final int maxEntries;
+    private final LongSupplier nanoClock;
+
+    public ExactWindowFilter(long windowNanos, int maxEntries) {
+        this(windowNanos, maxEntries, System::nanoTime);
+    }
+
+    ExactWindowFilter(long windowNanos, int maxEntries, LongSupplier nanoClock) {
+        this.windowNanos = windowNanos;
+        this.maxEntries = maxEntries;
+        this.nanoClock = nanoClock;
+    }
+
+    @Override
+    public boolean mightContain(String eventId) {
+        Long putAt = seen.get(eventId);
+        return putAt != null && nanoClock.getAsLong() - putAt < windowNanos;
+    }
+
+    /**
+     * Does nothing while the map is full.
+     */
+    @Override
+    public boolean put(String eventId) {
+        if (seen.size() >= maxEntries) {
+            return false;
+        }
+        seen.put(eventId, nanoClock.getAsLong());
+        return true;
+    }
+
+    @Override
+    public void expire() {
+        long cutoff = nanoClock.getAsLong() - windowNanos;
+        seen.values().removeIf(putAt -> putAt - cutoff < 0);
+    }
+
+    @Override
+    public long expiryInterval() {
+        return Math.max(1, windowNanos / SWEEPS_PER_WINDOW);
+    }
+
+    @Override
+    public double falsePositiveEstimate() {
+        return 0;
+    }
+
+    @Override
+    public long size() {
+        return seen.size();
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.gateway.dedup;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sliding-window duplicate filter made of a ring of Bloom filters ("generations").
+ * <p>
+ * IDs go into the current generation; lookups check all of them. Every {@code window / generations} the
+ * oldest generation is cleared and becomes the current one, so an ID is remembered for between
+ * {@code window * (generations - 1) / generations} and {@code window}. Each generation is sized for the
+ * IDs that arrive at the expected peak rate during its turn, with a false positive rate of
+ * {@code falsePositiveRate / generations} so the combined rate stays at the target; memory is fixed at
+ * construction and does not grow with traffic.
+ * <p>
+ * Bits are set with a CAS per word, so lookups and inserts never lock. Two requests with the same new ID
+ * at the same moment can both miss; {@link EventDeduplicator} covers that case for IDs in flight.
+ */
+public class RotatingBloomFilter implements DuplicateFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private final Generation[] generations;
+    private final long rotationInterval;
+    private final int hashes;
+    private final long bitsPerGeneration;
+    private volatile int current;
+
+    /**
+     * @param expectedIds       IDs expected per window at peak
+     * @param falsePositiveRate target for the whole filter at that load
+     * @param windowNanos       how long IDs are remembered at most
+     */
+    public RotatingBloomFilter(long expectedIds, double falsePositiveRate, int generations, long windowNanos) {
+        if (generations < 2) {
+            throw new IllegalArgumentException("At least two generations are needed to slide: " + generations);
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False positive rate must be in (0, 1): " + falsePositiveRate);
+        }
+        double idsPerGeneration = Math.max(1, (double) expectedIds / generations);
+        double generationRate = falsePositiveRate / generations;
+        long bits = (long) Math.ceil(-idsPerGeneration * Math.log(generationRate) / (LN2 * LN2));
+        // Whole words; AtomicLongArray is int-indexed
+        long words = Math.min(Integer.MAX_VALUE, Math.max(1, (bits + 63) / 64));
+        this.bitsPerGeneration = words * 64;
+        this.hashes = Math.max(1, (int) Math.round(bitsPerGeneration / idsPerGeneration * LN2));
+        this.rotationInterval = Math.max(1, windowNanos / generations);
+        this.generations = new Generation[generations];
+        for (int i = 0; i < generations; i++) {
+            this.generations[i] = new Generation((int) words);
+        }
+    }
+
+    @Override
+    public boolean mightContain(String eventId) {
+        long h1 = hash(eventId);
+        long h2 = mix(h1 + 0x9E3779B97F4A7C15L) | 1;
+        for (Generation generation : generations) {
+            if (generation.contains(h1, h2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean put(String eventId) {
+        long h1 = hash(eventId);
+        long h2 = mix(h1 + 0x9E3779B97F4A7C15L) | 1;
+        generations[current].add(h1, h2);
+        return true;
+    }
+
+    /**
+     * Clears the oldest generation and makes it current. Only called from one thread.
+     */
+    @Override
+    public void expire() {
+        int next = (current + 1) % generations.length;
+        generations[next].clear();
+        current = next;
+    }
+
+    @Override
+    public long expiryInterval() {
+        return rotationInterval;
+    }
+
+    @Override
+    public double falsePositiveEstimate() {
+        double allNegative = 1;
+        for (Generation generation : generations) {
+            double filled = 1 - Math.exp(-hashes * (double) generation.inserted.sum() / bitsPerGeneration);
+            allNegative *= 1 - Math.pow(filled, hashes);
+        }
+        return 1 - allNegative;
+    }
+
+    @Override
+    public long size() {
+        long size = 0;
+        for (Generation generation : generations) {
+            size += generation.inserted.sum();
+        }
+        return size;
+    }
+
+    public long memoryBytes() {
+        return bitsPerGeneration / 8 * generations.length;
+    }
+
+    // FNV-1a over the UTF-16 chars, finished with a 64-bit avalanche
+    static long hash(String value) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB9FE1A85EC53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    private final class Generation {
+
+        private final AtomicLongArray words;
+        private final LongAdder inserted = new LongAdder();
+
+        Generation(int words) {
+            this.words = new AtomicLongArray(words);
+        }
+
+        // Kirsch-Mitzenmacher: the i-th bit index is h1 + i * h2
+        boolean contains(long h1, long h2) {
+            for (int i = 0; i < hashes; i++) {
+                long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bitsPerGeneration;
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void add(long h1, long h2) {
+            for (int i = 0; i < hashes; i++) {
+                long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bitsPerGeneration;
+                int index = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long word = words.get(index);
+                while ((word & mask) == 0 && !words.compareAndSet(index, word, word | mask)) {
+                    word = words.get(index);
+                }
+            }
+            inserted.increment();
+        }
+
+        void clear() {
+            for (int i = 0; i < words.length(); i++) {
+                words.set(i, 0);
+            }
+            inserted.reset();
+        }
+    }
+}
@@ -1,53 +1,69 @@
 package com.example.gateway.filter;
 
+import com.example.tracing.GlobalId;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
 import io.micrometer.tracing.Span;
-import io.micrometer.tracing.Tracer;
-import org.springframework.cloud.gateway.filter.GatewayFilterChain;
-import org.springframework.cloud.gateway.filter.GlobalFilter;
-import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import io.micrometer.tracing.handler.TracingObservationHandler;
 import org.springframework.core.Ordered;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
 import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
 
-import java.util.List;
-
+/**
+ * Resolves the client's {@code X-Global-ID} once per request, puts it into the Reactor context and tags the
+ * request's span with it.
+ * <p>
+ * A WebFilter rather than a gateway GlobalFilter: global filters only run for routed requests, and the
+ * {@code /ingest} endpoints read the global ID too.
+ */
 @Component
-public class GlobalTracingFilter implements GlobalFilter, Ordered {
+public class GlobalTracingFilter implements WebFilter, Ordered {
 
     private static final String FLUTTER_APP_SERVICE_NAME = "flutter-client-app";
-    private final Tracer tracer;
-
-    public GlobalTracingFilter(Tracer tracer) {
-        this.tracer = tracer;
-    }
 
     @Override
-    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
-        // By running this filter after the default tracing filter, a span is already created.
-        // Our job is to simply modify it.
-        Span currentSpan = this.tracer.currentSpan();
-
-        if (currentSpan != null) {
-            // If the request comes from an un-instrumented client (like our Flutter app),
-            // the default instrumentation doesn't know the remote client's name.
-            // We'll set it here to ensure it appears correctly in the service graph.
-            currentSpan.remoteServiceName(FLUTTER_APP_SERVICE_NAME);
-
-            // We can also enrich the span with more details if needed.
-            String globalId = exchange.getRequest().getHeaders().getFirst("X-Global-ID");
-            if (globalId != null && !globalId.isEmpty()) {
-                currentSpan.tag("globalId", globalId);
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String globalId = GlobalId.resolve(exchange.getRequest().getHeaders().getFirst(GlobalId.HEADER));
+        Mono<Void> filtered = Mono.deferContextual(context -> {
+            Span span = serverSpan(context);
+            if (span != null) {
+                // If the request comes from an un-instrumented client (like our Flutter app),
+                // the default instrumentation doesn't know the remote client's name.
+                // We'll set it here to ensure it appears correctly in the service graph.
+                span.remoteServiceName(FLUTTER_APP_SERVICE_NAME);
+                if (globalId != null) {
+                    span.tag(GlobalId.KEY, globalId);
+                }
             }
+            return chain.filter(exchange);
+        });
+        if (globalId == null) {
+            return filtered;
         }
+        // Resolved once here; with automatic context propagation the rest of the chain sees it as
+        // GlobalId.current() and in the MDC, whichever thread it runs on
+        return filtered.contextWrite(context -> context.put(GlobalId.KEY, globalId));
+    }
 
-        return chain.filter(exchange);
+    // The server observation WebFlux keeps in the Reactor context around all WebFilters
+    private static Span serverSpan(ContextView context) {
+        Observation observation = context.getOrDefault(ObservationThreadLocalAccessor.KEY, null);
+        if (observation == null) {
+            return null;
+        }
+        TracingObservationHandler.TracingContext tracing =
+                observation.getContextView().get(TracingObservationHandler.TracingContext.class);
+        return tracing != null ? tracing.getSpan() : null;
     }
 
     @Override
     public int getOrder() {
-        // This order needs to be AFTER the Observation starter's TraceWebFilter, which has an order of -2000.
-        // By running after it, we ensure the span has already been created and is in context.
-        return -1999;
+        // Ahead of every other WebFilter, RateLimitFilter included, so that the requests it rejects are
+        // tagged as well
+        return Ordered.HIGHEST_PRECEDENCE;
     }
 }
@@ -0,0 +1,79 @@
+package com.example.gateway.filter;
+
+import com.example.gateway.ratelimit.RateLimiter;
+import com.example.tracing.GlobalId;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Answers 429 with Retry-After to clients over their {@link RateLimiter} limits.
+ * <p>
+ * A WebFilter rather than a gateway GlobalFilter: global filters only run for routed requests, and the
+ * limits cover the {@code /ingest} endpoints as well as the {@code /api} routes.
+ */
+public class RateLimitFilter implements WebFilter, Ordered {
+
+    private final RateLimiter rateLimiter;
+    private final List<PathPattern> paths;
+
+    public RateLimitFilter(RateLimiter rateLimiter, List<String> paths) {
+        this.rateLimiter = rateLimiter;
+        this.paths = paths.stream().map(PathPatternParser.defaultInstance::parse).toList();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!isLimited(request.getPath().pathWithinApplication())) {
+            return chain.filter(exchange);
+        }
+        long wait = rateLimiter.tryAcquire(GlobalId.resolve(request.getHeaders().getFirst(GlobalId.HEADER)),
+                address(request));
+        if (wait == 0) {
+            return chain.filter(exchange);
+        }
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER,
+                String.valueOf(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + 999_999_999L))));
+        return response.setComplete();
+    }
+
+    private boolean isLimited(PathContainer path) {
+        for (PathPattern pattern : paths) {
+            if (pattern.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Installs without an X-Global-ID are told apart by address, which may be shared behind a NAT
+    static String address(ServerHttpRequest request) {
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        return remoteAddress != null && remoteAddress.getAddress() != null
+                ? remoteAddress.getAddress().getHostAddress()
+                : null;
+    }
+
+    @Override
+    public int getOrder() {
+        // Before any other work is done for the request. The server observation wraps all WebFilters,
+        // so rejected requests still show up in http.server.requests as 429s.
+        return Ordered.HIGHEST_PRECEDENCE + 1;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.gateway.ingest;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Body returned by the batch ingest endpoint: totals plus one result per event, in request order.
+ */
+public record BatchIngestResponse(int accepted, int rejected, List<EventResult> results) {
+
+    public static BatchIngestResponse of(List<EventResult> results) {
+        int accepted = (int) results.stream().filter(EventResult::isAccepted).count();
+        return new BatchIngestResponse(accepted, results.size() - accepted, results);
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record EventResult(long index, String status, String error) {
+
+        private static final String ACCEPTED = "accepted";
+        private static final String SPOOLED = "spooled";
+        private static final String DUPLICATE = "duplicate";
+        private static final String REJECTED = "rejected";
+
+        public static EventResult accepted(long index) {
+            return new EventResult(index, ACCEPTED, null);
+        }
+
+        public static EventResult of(long index, PublishOutcome outcome) {
+            return switch (outcome) {
+                case ACKNOWLEDGED -> accepted(index);
+                case SPOOLED -> new EventResult(index, SPOOLED, null);
+                case DUPLICATE -> new EventResult(index, DUPLICATE, null);
+            };
+        }
+
+        public static EventResult rejected(long index, String error) {
+            return new EventResult(index, REJECTED, error);
+        }
+
+        /**
+         * Spooled events count as accepted: they are durable and will reach Kafka without a retry.
+         * So do duplicates, which already did.
+         */
+        @JsonIgnore
+        public boolean isAccepted() {
+            return ACCEPTED.equals(status) || SPOOLED.equals(status) || DUPLICATE.equals(status);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.gateway.ingest;
+
+import com.example.tracing.GlobalId;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.TraceContext;
+import io.micrometer.tracing.handler.TracingObservationHandler;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import reactor.util.context.ContextView;
+
+/**
+ * Who sent an event and under which trace, resolved once per request and attached to every record
+ * published for it.
+ *
+ * @param globalId    the client's {@code X-Global-ID}, or null
+ * @param traceparent W3C trace context of the ingest request, or null when there is none
+ */
+public record EventContext(String globalId, String traceparent) {
+
+    public static final String GLOBAL_ID_HEADER = GlobalId.HEADER;
+    public static final String TRACEPARENT_HEADER = "traceparent";
+
+    private static final int TRACE_ID_START = 3;
+    private static final int TRACE_ID_END = 35;
+
+    /**
+     * Resolves the context from the Reactor context (the global ID the GlobalTracingFilter WebFilter puts
+     * there for every request and the server observation WebFlux keeps there), falling back to the request
+     * headers. The request's own span wins over an incoming {@code traceparent} header.
+     */
+    public static EventContext from(ServerHttpRequest request, ContextView reactorContext) {
+        String globalId = reactorContext.getOrDefault(GlobalId.KEY, null);
+        if (globalId == null) {
+            globalId = GlobalId.resolve(request.getHeaders().getFirst(GLOBAL_ID_HEADER));
+        }
+
+        String traceparent = request.getHeaders().getFirst(TRACEPARENT_HEADER);
+        Observation observation = reactorContext.getOrDefault(ObservationThreadLocalAccessor.KEY, null);
+        if (observation != null) {
+            TracingObservationHandler.TracingContext tracing =
+                    observation.getContextView().get(TracingObservationHandler.TracingContext.class);
+            Span span = tracing != null ? tracing.getSpan() : null;
+            if (span != null) {
+                TraceContext context = span.context();
+                traceparent = "00-" + context.traceId() + "-" + context.spanId()
+                        + (Boolean.TRUE.equals(context.sampled()) ? "-01" : "-00");
+            }
+        }
+        return new EventContext(globalId, traceparent);
+    }
+
+    /**
+     * The 32-hex-digit trace ID inside {@link #traceparent()}, or null.
+     */
+    public String traceId() {
+        if (traceparent == null || traceparent.length() < TRACE_ID_END) {
+            return null;
+        }
+        return traceparent.substring(TRACE_ID_START, TRACE_ID_END);
+    }
+}
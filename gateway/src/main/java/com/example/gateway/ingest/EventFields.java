@@ -0,0 +1,111 @@
+package com.example.gateway.ingest;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Extra event fields {@link EventScanner} picks up during its pass: dimension values and one numeric
+ * duration, addressed by dotted paths ({@code appVersion}, {@code properties.page}).
+ * <p>
+ * The paths are compiled into a tree keyed by field name, so the scanner only descends into nested objects
+ * that lead to a wanted field and skips everything else as before.
+ */
+public final class EventFields {
+
+    public static final EventFields NONE = new EventFields(List.of(), null);
+
+    private static final String[] NO_VALUES = new String[0];
+    // Nothing can be captured into it when no field is wanted, so it is shared
+    private static final Values NO_FIELDS = new Values(NO_VALUES);
+
+    private final Node root = new Node();
+    private final int dimensionCount;
+
+    private EventFields(List<String> dimensions, String durationField) {
+        this.dimensionCount = dimensions.size();
+        for (int i = 0; i < dimensions.size(); i++) {
+            node(dimensions.get(i)).dimension = i;
+        }
+        if (durationField != null && !durationField.isBlank()) {
+            node(durationField).duration = true;
+        }
+    }
+
+    public static EventFields of(List<String> dimensions, String durationField) {
+        if (dimensions.isEmpty() && (durationField == null || durationField.isBlank())) {
+            return NONE;
+        }
+        return new EventFields(List.copyOf(dimensions), durationField);
+    }
+
+    public int dimensionCount() {
+        return dimensionCount;
+    }
+
+    Node root() {
+        return root;
+    }
+
+    /**
+     * Holder for one scan's values; dimensions missing from the event stay null.
+     */
+    Values newValues() {
+        if (!root.hasChildren()) {
+            return NO_FIELDS;
+        }
+        return new Values(dimensionCount == 0 ? NO_VALUES : new String[dimensionCount]);
+    }
+
+    private Node node(String path) {
+        Node node = root;
+        for (String name : path.split("\\.")) {
+            if (name.isEmpty()) {
+                throw new IllegalArgumentException("Invalid event field path: " + path);
+            }
+            node = node.children.computeIfAbsent(name, key -> new Node());
+        }
+        return node;
+    }
+
+    static final class Node {
+
+        private final Map<String, Node> children = new HashMap<>();
+        private int dimension = -1;
+        private boolean duration;
+
+        Node child(String name) {
+            return children.isEmpty() ? null : children.get(name);
+        }
+
+        boolean hasChildren() {
+            return !children.isEmpty();
+        }
+
+        /**
+         * Stores the scalar the parser is positioned on if this node wants it.
+         */
+        void capture(JsonParser parser, JsonToken value, Values values) throws IOException {
+            if (dimension >= 0 && value.isScalarValue() && value != JsonToken.VALUE_NULL) {
+                values.dimensions[dimension] = parser.getText();
+            }
+            if (duration && value.isNumeric()) {
+                values.duration = parser.getDoubleValue();
+            }
+        }
+    }
+
+    static final class Values {
+
+        final String[] dimensions;
+        double duration = Double.NaN;
+
+        Values(String[] dimensions) {
+            this.dimensions = dimensions;
+        }
+    }
+}
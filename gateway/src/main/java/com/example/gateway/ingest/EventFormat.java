@@ -0,0 +1,88 @@
+package com.example.gateway.ingest;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.http.MediaType;
+
+/**
+ * Encodings an event can be sent in and stored in. All of them carry the same data model as JSON, so
+ * one streaming scanner reads them all and events can be transcoded without binding them to objects.
+ * <p>
+ * Stored records name their encoding in the {@value #RECORD_HEADER} header; records without one are JSON.
+ */
+public enum EventFormat {
+
+    JSON(MediaType.APPLICATION_JSON, null),
+
+    /**
+     * Jackson's binary JSON. Field names repeated within an event are written once and referenced after,
+     * and the 4-byte header identifies the format.
+     */
+    SMILE(new MediaType("application", "x-jackson-smile"), "smile"),
+
+    CBOR(MediaType.APPLICATION_CBOR, "cbor");
+
+    public static final String RECORD_HEADER = "format";
+
+    private final MediaType mediaType;
+    private final String recordHeaderValue;
+
+    EventFormat(MediaType mediaType, String recordHeaderValue) {
+        this.mediaType = mediaType;
+        this.recordHeaderValue = recordHeaderValue;
+    }
+
+    /**
+     * The format for a request's Content-Type. Anything that isn't CBOR or Smile is read as JSON, as it
+     * always was.
+     */
+    public static EventFormat of(MediaType contentType) {
+        if (contentType != null) {
+            for (EventFormat format : values()) {
+                if (format != JSON && format.mediaType.equalsTypeAndSubtype(contentType)) {
+                    return format;
+                }
+            }
+        }
+        return JSON;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    /**
+     * The format named by a {@value #RECORD_HEADER} record header value: JSON when there is none, null when
+     * it is unknown.
+     */
+    public static EventFormat ofRecordHeader(String value) {
+        if (value == null) {
+            return JSON;
+        }
+        for (EventFormat format : values()) {
+            if (value.equals(format.recordHeaderValue)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Value of the {@value #RECORD_HEADER} record header, or null for JSON, which goes without one.
+     */
+    public String recordHeaderValue() {
+        return recordHeaderValue;
+    }
+
+    /**
+     * A factory for this format; {@code jsonFactory} itself for JSON.
+     */
+    public JsonFactory newFactory(JsonFactory jsonFactory) {
+        return switch (this) {
+            case JSON -> jsonFactory;
+            case SMILE -> new SmileFactory();
+            case CBOR -> new CBORFactory();
+        };
+    }
+}
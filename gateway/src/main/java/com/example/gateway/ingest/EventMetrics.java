@@ -0,0 +1,211 @@
+package com.example.gateway.ingest;
+
+import com.example.gateway.config.IngestProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aggregates accepted client events into meters as they stream through, so questions like "checkout errors
+ * per minute by app version" are a Prometheus query instead of a log scan:
+ * <pre>
+ * sum by (appVersion) (rate(ingest_client_events_total{event="checkout_error"}[1m])) * 60
+ * </pre>
+ * Each distinct combination of event type and configured dimension values is one series with a counter
+ * ({@code ingest.client.events}) and, for events carrying the duration field, a timer
+ * ({@code ingest.client.event.duration}) with the configured buckets. Meters are looked up once per series
+ * and cached here, so recording an event costs a map lookup and striped adds (Micrometer's counters and
+ * timers accumulate in LongAdder/DoubleAdder cells), without building tags.
+ * <p>
+ * Tag values come from clients, so they are bounded before they make a series: values are cut to
+ * {@code maxValueLength}, values with control characters count as {@code other}, and each tag (the event type
+ * included) keeps its first {@code maxTagValues} values, further ones counting as {@code other} for that tag
+ * alone. The number of series is capped as well: once {@code maxSeries} exist, new combinations are counted
+ * in a single overflow series tagged {@code other}, and in {@code ingest.client.events.overflow}.
+ */
+public class EventMetrics {
+
+    static final String OTHER = "other";
+    static final String MISSING = "none";
+    static final String EVENT_TAG = "event";
+
+    private final MeterRegistry meterRegistry;
+    private final IngestProperties.Metrics settings;
+    private final List<String> dimensionTags;
+    private final Duration[] buckets;
+    private final long nanosPerUnit;
+    private final Map<SeriesKey, Series> series = new ConcurrentHashMap<>();
+    // Values seen per tag: the event type, then the dimensions
+    private final List<Set<String>> tagValues = new ArrayList<>();
+    private final Series overflowSeries;
+    private final Counter overflowed;
+
+    public EventMetrics(MeterRegistry meterRegistry, IngestProperties.Metrics settings) {
+        this.meterRegistry = meterRegistry;
+        this.settings = settings;
+        this.dimensionTags = List.copyOf(settings.getDimensions());
+        this.buckets = settings.getDurationBuckets().toArray(Duration[]::new);
+        this.nanosPerUnit = settings.getDurationUnit().toNanos(1);
+        for (int i = 0; i <= dimensionTags.size(); i++) {
+            tagValues.add(ConcurrentHashMap.newKeySet());
+        }
+
+        String[] other = new String[dimensionTags.size()];
+        Arrays.fill(other, OTHER);
+        this.overflowSeries = new Series(tags(OTHER, other));
+        this.overflowed = Counter.builder("ingest.client.events.overflow")
+                .description("Events counted under the overflow series because max-series was reached")
+                .register(meterRegistry);
+    }
+
+    public void record(ScannedEvent event) {
+        // Series are keyed by bounded values, so this finds events whose values all passed as they are
+        SeriesKey key = new SeriesKey(event.eventType(), event.dimensions());
+        Series target = series.get(key);
+        if (target == null) {
+            target = register(key);
+        }
+        target.count.increment();
+
+        double duration = event.duration();
+        if (duration >= 0) {
+            target.duration().record((long) (duration * nanosPerUnit), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    int seriesCount() {
+        return series.size();
+    }
+
+    private Series register(SeriesKey key) {
+        SeriesKey bounded = bound(key);
+        Series existing = series.get(bounded);
+        if (existing != null) {
+            return existing;
+        }
+        if (series.size() >= settings.getMaxSeries()) {
+            overflowed.increment();
+            return overflowSeries;
+        }
+        return series.computeIfAbsent(bounded, k -> new Series(tags(k.eventType, k.values)));
+    }
+
+    private SeriesKey bound(SeriesKey key) {
+        String eventType = bound(0, key.eventType);
+        String[] values = key.values;
+        for (int i = 0; i < values.length && i < dimensionTags.size(); i++) {
+            String value = bound(i + 1, values[i]);
+            // bound() returns the very same string when it lets a value through
+            if (value != values[i]) {
+                if (values == key.values) {
+                    values = values.clone();
+                }
+                values[i] = value;
+            }
+        }
+        return eventType == key.eventType && values == key.values ? key : new SeriesKey(eventType, values);
+    }
+
+    private String bound(int tag, String value) {
+        if (value == null) {
+            return null;
+        }
+        if (value.length() > settings.getMaxValueLength()) {
+            value = value.substring(0, settings.getMaxValueLength());
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.isISOControl(value.charAt(i))) {
+                return OTHER;
+            }
+        }
+        Set<String> known = tagValues.get(tag);
+        if (known.contains(value)) {
+            return value;
+        }
+        if (known.size() >= settings.getMaxTagValues()) {
+            return OTHER;
+        }
+        known.add(value);
+        return value;
+    }
+
+    private Tags tags(String eventType, String[] values) {
+        List<Tag> tags = new ArrayList<>(dimensionTags.size() + 1);
+        tags.add(Tag.of(EVENT_TAG, eventType != null ? eventType : MISSING));
+        for (int i = 0; i < dimensionTags.size(); i++) {
+            String value = i < values.length ? values[i] : null;
+            tags.add(Tag.of(dimensionTags.get(i), value != null ? value : MISSING));
+        }
+        return Tags.of(tags);
+    }
+
+    private final class Series {
+
+        private final Tags tags;
+        private final Counter count;
+        private volatile Timer duration;
+
+        Series(Tags tags) {
+            this.tags = tags;
+            this.count = Counter.builder("ingest.client.events")
+                    .description("Client events accepted by the gateway")
+                    .tags(tags)
+                    .register(meterRegistry);
+        }
+
+        // Only event types that carry the duration field get a timer and its buckets
+        Timer duration() {
+            Timer timer = duration;
+            if (timer == null) {
+                synchronized (this) {
+                    timer = duration;
+                    if (timer == null) {
+                        timer = Timer.builder("ingest.client.event.duration")
+                                .description("Duration reported by the client in the event's duration field")
+                                .tags(tags)
+                                .serviceLevelObjectives(buckets)
+                                .register(meterRegistry);
+                        duration = timer;
+                    }
+                }
+            }
+            return timer;
+        }
+    }
+
+    private static final class SeriesKey {
+
+        private final String eventType;
+        private final String[] values;
+        private final int hash;
+
+        SeriesKey(String eventType, String[] values) {
+            this.eventType = eventType;
+            this.values = values;
+            this.hash = 31 * (eventType != null ? eventType.hashCode() : 0) + Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof SeriesKey key && hash == key.hash
+                    && (eventType != null ? eventType.equals(key.eventType) : key.eventType == null)
+                    && Arrays.equals(values, key.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.gateway.ingest;
+
+import com.example.gateway.config.IngestProperties;
+import com.example.gateway.spool.DiskSpool;
+import com.example.gateway.spool.SpoolFullException;
+import com.example.gateway.spool.SpoolRecordCodec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.RetriableException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes events to Kafka and completes only once the broker has acknowledged the record.
+ * <p>
+ * The number of records and bytes in flight is capped; above the cap events are shed with a
+ * {@link PublishRejectedException} instead of piling up in the producer, whose send() would otherwise
+ * block once its buffer fills. send() itself runs on a small dedicated scheduler because it can still
+ * block while topic metadata is being fetched, and that must not happen on the Netty event loop.
+ * <p>
+ * When a {@link DiskSpool} is configured, events that would be shed or that fail with a retriable Kafka
+ * error are appended to it instead. While the spool holds a backlog every new event goes there too, so
+ * the drainer replays events in the order they arrived.
+ */
+@Component
+public class EventPublisher {
+
+    public static final String GLOBAL_ID_RECORD_HEADER = "globalId";
+    public static final String EVENT_TYPE_RECORD_HEADER = "eventType";
+
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final IngestProperties properties;
+    private final DiskSpool spool;
+    private final Scheduler sendScheduler;
+
+    private final AtomicInteger inFlightRecords = new AtomicInteger();
+    private final AtomicLong inFlightBytes = new AtomicLong();
+
+    private final Timer queueWait;
+    private final Timer ackSuccess;
+    private final Timer ackFailure;
+    private final Counter shed;
+    private final Counter spooled;
+
+    public EventPublisher(KafkaTemplate<String, byte[]> kafkaTemplate, IngestProperties properties,
+                          ObjectProvider<DiskSpool> spool, MeterRegistry meterRegistry) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.properties = properties;
+        this.spool = spool.getIfAvailable();
+        IngestProperties.Publish publish = properties.getPublish();
+        this.sendScheduler = Schedulers.newBoundedElastic(publish.getSenderThreads(),
+                publish.getMaxInFlightRecords(), "kafka-publish");
+
+        Gauge.builder("ingest.publish.inflight.records", inFlightRecords, AtomicInteger::get)
+                .description("Records sent to Kafka and not yet acknowledged")
+                .register(meterRegistry);
+        Gauge.builder("ingest.publish.inflight.bytes", inFlightBytes, AtomicLong::get)
+                .description("Payload bytes sent to Kafka and not yet acknowledged")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.queueWait = Timer.builder("ingest.publish.queue.wait")
+                .description("Time between admitting an event and handing it to the producer")
+                .register(meterRegistry);
+        this.ackSuccess = ackTimer(meterRegistry, "success");
+        this.ackFailure = ackTimer(meterRegistry, "failure");
+        this.shed = Counter.builder("ingest.publish.shed")
+                .description("Events rejected because the in-flight cap was reached")
+                .register(meterRegistry);
+        this.spooled = Counter.builder("ingest.spool.appended")
+                .description("Events written to the local spool instead of straight to Kafka")
+                .register(meterRegistry);
+    }
+
+    private static Timer ackTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("ingest.publish.ack.latency")
+                .description("Time from producer send() to the broker acknowledgement")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Sends the event and emits how it was taken care of once Kafka (or the spool) has it durably.
+     * Errors with {@link PublishRejectedException} if the in-flight cap is reached and there is no room
+     * in the spool, or with the broker's error if Kafka rejected the record outright.
+     */
+    public Mono<PublishOutcome> publish(ScannedEvent event, EventContext context) {
+        ProducerRecord<String, byte[]> record = toRecord(event, context);
+        if (spool != null && !spool.isEmpty()) {
+            return spool(record);
+        }
+
+        int size = event.payload().length;
+        if (!tryAcquire(size)) {
+            if (spool != null) {
+                return spool(record);
+            }
+            shed.increment();
+            return Mono.error(rejected("Too many events in flight to Kafka"));
+        }
+
+        InFlight inFlight = new InFlight(size);
+        return Mono.fromFuture(() -> send(record, inFlight), true)
+                .subscribeOn(sendScheduler)
+                .doOnError(e -> inFlight.cancel())
+                .doOnCancel(inFlight::cancel)
+                .map(result -> PublishOutcome.ACKNOWLEDGED)
+                .onErrorResume(e -> spool != null && isRetriable(e), e -> spool(record));
+    }
+
+    /**
+     * Keys the record so that one client's (or one trace's) events land on the same partition in order,
+     * and carries the trace context in headers so consumers can correlate without parsing the payload.
+     * The event type and the payload's encoding (unless it is JSON) go in headers too, so that the live
+     * tail can filter records without decoding them.
+     */
+    private ProducerRecord<String, byte[]> toRecord(ScannedEvent event, EventContext context) {
+        String key = switch (properties.getKeyStrategy()) {
+            case GLOBAL_ID -> context.globalId() != null ? context.globalId() : context.traceId();
+            case TRACE_ID -> context.traceId();
+            case NONE -> null;
+        };
+        List<Header> headers = new ArrayList<>(4);
+        if (context.traceparent() != null) {
+            headers.add(new RecordHeader(EventContext.TRACEPARENT_HEADER,
+                    context.traceparent().getBytes(StandardCharsets.US_ASCII)));
+        }
+        if (context.globalId() != null) {
+            headers.add(new RecordHeader(GLOBAL_ID_RECORD_HEADER, context.globalId().getBytes(StandardCharsets.UTF_8)));
+        }
+        if (event.eventType() != null) {
+            headers.add(new RecordHeader(EVENT_TYPE_RECORD_HEADER, event.eventType().getBytes(StandardCharsets.UTF_8)));
+        }
+        String format = properties.getStorageFormat().recordHeaderValue();
+        if (format != null) {
+            headers.add(new RecordHeader(EventFormat.RECORD_HEADER, format.getBytes(StandardCharsets.US_ASCII)));
+        }
+        return new ProducerRecord<>(properties.getTopic(), null, key, event.payload(), headers);
+    }
+
+    private Mono<PublishOutcome> spool(ProducerRecord<String, byte[]> record) {
+        return Mono.fromFuture(() -> {
+                    try {
+                        return spool.append(SpoolRecordCodec.encode(record));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, true)
+                // Appends are disk writes; keep them off the event loop like send()
+                .subscribeOn(Schedulers.boundedElastic())
+                .then(Mono.fromSupplier(() -> {
+                    spooled.increment();
+                    return PublishOutcome.SPOOLED;
+                }))
+                .onErrorMap(SpoolFullException.class, e -> {
+                    shed.increment();
+                    return rejected(e.getMessage());
+                });
+    }
+
+    private PublishRejectedException rejected(String message) {
+        return new PublishRejectedException(message, properties.getPublish().getRetryAfter());
+    }
+
+    private static boolean isRetriable(Throwable error) {
+        return NestedExceptionUtils.getMostSpecificCause(error) instanceof RetriableException;
+    }
+
+    private CompletableFuture<SendResult<String, byte[]>> send(ProducerRecord<String, byte[]> record,
+                                                               InFlight inFlight) {
+        if (!inFlight.start()) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Publish cancelled before send"));
+        }
+        long sentAt = System.nanoTime();
+        queueWait.record(sentAt - inFlight.admittedAt, TimeUnit.NANOSECONDS);
+
+        CompletableFuture<SendResult<String, byte[]>> future;
+        try {
+            future = kafkaTemplate.send(record);
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+        return future.whenComplete((result, error) -> {
+            (error == null ? ackSuccess : ackFailure).record(System.nanoTime() - sentAt, TimeUnit.NANOSECONDS);
+            inFlight.release();
+        });
+    }
+
+    private boolean tryAcquire(int size) {
+        IngestProperties.Publish publish = properties.getPublish();
+        int records = inFlightRecords.incrementAndGet();
+        long bytes = inFlightBytes.addAndGet(size);
+        if (records > publish.getMaxInFlightRecords() || bytes > publish.getMaxInFlightBytes()) {
+            inFlightRecords.decrementAndGet();
+            inFlightBytes.addAndGet(-size);
+            return false;
+        }
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sendScheduler.dispose();
+    }
+
+    /**
+     * Makes sure an admitted event gives its capacity back exactly once, whether it is acknowledged,
+     * fails, or is cancelled before it reached the producer.
+     */
+    private final class InFlight {
+
+        private static final int QUEUED = 0;
+        private static final int SENT = 1;
+        private static final int RELEASED = 2;
+
+        private final int size;
+        private final long admittedAt = System.nanoTime();
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+
+        InFlight(int size) {
+            this.size = size;
+        }
+
+        boolean start() {
+            return state.compareAndSet(QUEUED, SENT);
+        }
+
+        void cancel() {
+            if (state.compareAndSet(QUEUED, RELEASED)) {
+                giveBack();
+            }
+        }
+
+        void release() {
+            if (state.compareAndSet(SENT, RELEASED)) {
+                giveBack();
+            }
+        }
+
+        private void giveBack() {
+            inFlightRecords.decrementAndGet();
+            inFlightBytes.addAndGet(-size);
+        }
+    }
+}
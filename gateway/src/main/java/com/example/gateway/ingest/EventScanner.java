@@ -0,0 +1,148 @@
+package com.example.gateway.ingest;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import org.springframework.core.codec.DecodingException;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Checks that a raw event is a single well-formed JSON object and pulls out the few top-level fields the
+ * gateway routes on, in one streaming pass.
+ * <p>
+ * Nothing is materialized: values we don't route on are skipped by the parser without being decoded,
+ * and the original bytes are what gets published, so there is no re-serialization either. The configured
+ * {@link EventFields} for metrics are picked up in the same pass.
+ * <p>
+ * Events may arrive in any {@link EventFormat}. One sent in another format than the storage format is
+ * transcoded token by token after the scan, still without binding it to objects.
+ */
+public class EventScanner {
+
+    static final String EVENT_ID_FIELD = "eventId";
+    static final String EVENT_TYPE_FIELD = "event";
+    // Longer values are not event types; don't let them into record headers, metric tags and SSE event names
+    static final int MAX_EVENT_TYPE_LENGTH = 128;
+
+    private final Map<EventFormat, JsonFactory> factories = new EnumMap<>(EventFormat.class);
+    private final EventFields fields;
+    private final EventFormat storageFormat;
+
+    public EventScanner(JsonFactory jsonFactory) {
+        this(jsonFactory, EventFields.NONE);
+    }
+
+    public EventScanner(JsonFactory jsonFactory, EventFields fields) {
+        this(jsonFactory, fields, EventFormat.JSON);
+    }
+
+    /**
+     * @param storageFormat what the payload of scanned events is encoded in
+     */
+    public EventScanner(JsonFactory jsonFactory, EventFields fields, EventFormat storageFormat) {
+        for (EventFormat format : EventFormat.values()) {
+            factories.put(format, format.newFactory(jsonFactory));
+        }
+        this.fields = fields;
+        this.storageFormat = storageFormat;
+    }
+
+    public ScannedEvent scan(byte[] payload) {
+        return scan(payload, EventFormat.JSON);
+    }
+
+    /**
+     * @param format what {@code payload} is encoded in
+     */
+    public ScannedEvent scan(byte[] payload, EventFormat format) {
+        String eventId = null;
+        String eventType = null;
+        EventFields.Values values = fields.newValues();
+
+        try (JsonParser parser = factories.get(format).createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new DecodingException("Event must be a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                EventFields.Node node = fields.root().child(field);
+                if (value.isStructStart()) {
+                    scanNested(parser, value, node, values);
+                    continue;
+                }
+                if (value == JsonToken.VALUE_STRING) {
+                    if (EVENT_ID_FIELD.equals(field)) {
+                        eventId = parser.getText();
+                    } else if (EVENT_TYPE_FIELD.equals(field)) {
+                        eventType = resolveEventType(parser.getText());
+                    }
+                }
+                if (node != null) {
+                    node.capture(parser, value, values);
+                }
+            }
+            if (parser.nextToken() != null) {
+                throw new DecodingException("Unexpected content after the event object");
+            }
+            if (format != storageFormat) {
+                payload = transcode(payload, format);
+            }
+        } catch (JsonProcessingException e) {
+            throw new DecodingException("Event is not well-formed " + format + ": " + e.getOriginalMessage(), e);
+        } catch (IOException e) {
+            throw new DecodingException("Event could not be read", e);
+        }
+        return new ScannedEvent(payload, eventId, eventType, values.dimensions, values.duration);
+    }
+
+    /**
+     * Normalizes an event type: as is, or null when it is blank, too long or contains control characters, which
+     * would let it end an SSE or log line early. Events keep their payload either way, only without a type.
+     */
+    public static String resolveEventType(String value) {
+        if (value == null || value.isBlank() || value.length() > MAX_EVENT_TYPE_LENGTH) {
+            return null;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.isISOControl(value.charAt(i))) {
+                return null;
+            }
+        }
+        return value;
+    }
+
+    private byte[] transcode(byte[] payload, EventFormat format) throws IOException {
+        ByteArrayBuilder out = new ByteArrayBuilder(payload.length);
+        try (JsonParser parser = factories.get(format).createParser(payload);
+             JsonGenerator generator = factories.get(storageFormat).createGenerator(out)) {
+            parser.nextToken();
+            generator.copyCurrentStructure(parser);
+        }
+        return out.toByteArray();
+    }
+
+    // Descends only into objects that lead to a wanted field; anything else is skipped unread
+    private static void scanNested(JsonParser parser, JsonToken start, EventFields.Node node,
+                                   EventFields.Values values) throws IOException {
+        if (node == null || start != JsonToken.START_OBJECT || !node.hasChildren()) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            EventFields.Node child = node.child(parser.currentName());
+            JsonToken value = parser.nextToken();
+            if (value.isStructStart()) {
+                scanNested(parser, value, child, values);
+            } else if (child != null) {
+                child.capture(parser, value, values);
+            }
+        }
+    }
+}
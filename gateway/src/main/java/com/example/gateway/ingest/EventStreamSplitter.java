@@ -0,0 +1,234 @@
+package com.example.gateway.ingest;
+
+import org.springframework.core.codec.DecodingException;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Splits a streamed request body into the raw bytes of its top-level events without building a tree.
+ * <p>
+ * Accepts either a JSON array ({@code [{...},{...}]}) or newline-delimited JSON ({@code {...}\n{...}}).
+ * Chunks can be fed as they arrive from the network; an event that spans several chunks is carried over
+ * until its closing bracket shows up. Only structure (brackets, strings, escapes) is tracked here, the
+ * events themselves are validated downstream.
+ * <p>
+ * Instances are stateful and belong to a single request.
+ */
+public class EventStreamSplitter {
+
+    private final boolean unwrapArray;
+    private final int maxEventSize;
+
+    private final ByteArrayOutputStream carry = new ByteArrayOutputStream();
+
+    // 0 at the root; 1 inside the outer array when unwrapping
+    private int baseDepth;
+    private int depth;
+    private boolean started;
+    private boolean finished;
+    private boolean inEvent;
+    private boolean scalarEvent;
+    private boolean inString;
+    private boolean escaped;
+    // Inside the outer array: an event was just split out, so a ',' or the closing ']' has to come next
+    private boolean separatorExpected;
+    // Inside the outer array: a ',' was just read, so an event has to come next
+    private boolean eventExpected;
+    private long eventCount;
+    private DecodingException failure;
+
+    public EventStreamSplitter(boolean unwrapArray, int maxEventSize) {
+        this.unwrapArray = unwrapArray;
+        this.maxEventSize = maxEventSize;
+    }
+
+    /**
+     * Feeds the next chunk of the body and returns the events completed by it, in order. Events completed
+     * ahead of a fault in the same chunk are still returned; the fault is thrown by the next call.
+     */
+    public List<byte[]> feed(byte[] chunk) {
+        throwFailure();
+        List<byte[]> events = new ArrayList<>();
+        try {
+            split(chunk, events);
+        } catch (DecodingException e) {
+            if (events.isEmpty()) {
+                throw e;
+            }
+            failure = e;
+        }
+        return events;
+    }
+
+    private void split(byte[] chunk, List<byte[]> events) {
+        int eventStart = inEvent ? 0 : -1;
+
+        for (int i = 0; i < chunk.length; i++) {
+            byte b = chunk[i];
+
+            if (inEvent) {
+                if (inString) {
+                    if (escaped) {
+                        escaped = false;
+                    } else if (b == '\\') {
+                        escaped = true;
+                    } else if (b == '"') {
+                        inString = false;
+                        if (scalarEvent) {
+                            events.add(cut(chunk, eventStart, i + 1));
+                        }
+                    }
+                    continue;
+                }
+                if (scalarEvent) {
+                    if (!isDelimiter(b)) {
+                        continue;
+                    }
+                    // The delimiter belongs to the enclosing structure; reprocess it below.
+                    events.add(cut(chunk, eventStart, i));
+                } else {
+                    if (b == '"') {
+                        inString = true;
+                    } else if (b == '{' || b == '[') {
+                        depth++;
+                    } else if (b == '}' || b == ']') {
+                        depth--;
+                        if (depth == baseDepth) {
+                            events.add(cut(chunk, eventStart, i + 1));
+                        }
+                    }
+                    continue;
+                }
+            }
+
+            if (isWhitespace(b)) {
+                continue;
+            }
+            if (finished) {
+                throw new DecodingException("Unexpected content after the closing ']' of the event array");
+            }
+            if (!started) {
+                started = true;
+                if (unwrapArray && b == '[') {
+                    baseDepth = 1;
+                    depth = 1;
+                    continue;
+                }
+            }
+            if (baseDepth == 1 && b == ',') {
+                if (!separatorExpected) {
+                    throw new DecodingException("Unexpected ',' before the event at index " + eventCount);
+                }
+                separatorExpected = false;
+                eventExpected = true;
+                continue;
+            }
+            if (baseDepth == 1 && b == ']') {
+                if (eventExpected) {
+                    throw new DecodingException("Unexpected ']' after a ',' in the event array");
+                }
+                depth = 0;
+                finished = true;
+                continue;
+            }
+            if (separatorExpected) {
+                throw new DecodingException("Missing ',' before the event at index " + eventCount);
+            }
+
+            eventExpected = false;
+            inEvent = true;
+            eventStart = i;
+            if (b == '{' || b == '[') {
+                scalarEvent = false;
+                depth++;
+            } else {
+                // Strings, numbers and literals are not events, but they are split out so that they
+                // can be rejected individually instead of failing the whole batch.
+                scalarEvent = true;
+                inString = b == '"';
+            }
+        }
+
+        if (inEvent) {
+            carry(chunk, eventStart, chunk.length);
+        }
+    }
+
+    /**
+     * Signals the end of the body and returns a trailing event that had no delimiter after it, if any.
+     */
+    public List<byte[]> finish() {
+        throwFailure();
+        if (inEvent && scalarEvent && !inString) {
+            byte[] event = carry.toByteArray();
+            reset();
+            return List.of(event);
+        }
+        if (inEvent) {
+            throw new DecodingException("Request body ended in the middle of an event");
+        }
+        if (baseDepth == 1 && !finished) {
+            throw new DecodingException("Request body ended before the closing ']' of the event array");
+        }
+        return List.of();
+    }
+
+    /**
+     * Number of events split out so far, which is also the index of the next one.
+     */
+    public long getEventCount() {
+        return eventCount;
+    }
+
+    private void throwFailure() {
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private byte[] cut(byte[] chunk, int from, int to) {
+        byte[] event;
+        if (carry.size() == 0) {
+            checkSize(to - from);
+            event = Arrays.copyOfRange(chunk, from, to);
+        } else {
+            carry(chunk, from, to);
+            event = carry.toByteArray();
+        }
+        reset();
+        return event;
+    }
+
+    private void carry(byte[] chunk, int from, int to) {
+        checkSize(carry.size() + (to - from));
+        carry.write(chunk, from, to - from);
+    }
+
+    private void checkSize(int size) {
+        if (size > maxEventSize) {
+            throw new DecodingException("Event at index " + eventCount + " exceeds " + maxEventSize + " bytes");
+        }
+    }
+
+    private void reset() {
+        carry.reset();
+        inEvent = false;
+        scalarEvent = false;
+        inString = false;
+        escaped = false;
+        depth = baseDepth;
+        separatorExpected = baseDepth == 1;
+        eventCount++;
+    }
+
+    private static boolean isDelimiter(byte b) {
+        return isWhitespace(b) || b == ',' || b == ']' || b == '}';
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+}
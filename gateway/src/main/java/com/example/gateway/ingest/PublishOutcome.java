@@ -0,0 +1,22 @@
+package com.example.gateway.ingest;
+
+/**
+ * How an accepted event was taken care of by {@link EventPublisher}.
+ */
+public enum PublishOutcome {
+
+    /**
+     * Kafka acknowledged the record.
+     */
+    ACKNOWLEDGED,
+
+    /**
+     * Kafka was unavailable or saturated; the event is durable in the local spool and will be replayed.
+     */
+    SPOOLED,
+
+    /**
+     * An event with the same event ID was already published within the dedup window; nothing was sent.
+     */
+    DUPLICATE
+}
@@ -0,0 +1,21 @@
+package com.example.gateway.ingest;
+
+import java.time.Duration;
+
+/**
+ * Thrown when the publisher sheds an event because too much is already in flight to Kafka.
+ * The client should retry after {@link #getRetryAfter()}.
+ */
+public class PublishRejectedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public PublishRejectedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
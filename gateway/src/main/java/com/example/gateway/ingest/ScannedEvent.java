@@ -0,0 +1,19 @@
+package com.example.gateway.ingest;
+
+/**
+ * A validated event: the untouched request bytes plus the fields extracted for routing.
+ * {@code eventId} and {@code eventType} are null when the client didn't send them.
+ *
+ * @param dimensions values of the configured {@link EventFields} dimensions, in configuration order; null
+ *                   where the event has no such field
+ * @param duration   value of the configured duration field, or NaN
+ */
+public record ScannedEvent(byte[] payload, String eventId, String eventType, String[] dimensions,
+                           double duration) {
+
+    private static final String[] NO_DIMENSIONS = new String[0];
+
+    public ScannedEvent(byte[] payload, String eventId, String eventType) {
+        this(payload, eventId, eventType, NO_DIMENSIONS, Double.NaN);
+    }
+}
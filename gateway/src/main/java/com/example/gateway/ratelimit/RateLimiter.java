@@ -0,0 +1,170 @@
+package com.example.gateway.ratelimit;
+
+import com.example.gateway.config.RateLimitProperties;
+import com.example.tracing.sampling.TokenBucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Admits a request if both its client's bucket and the global bucket have a token.
+ * <p>
+ * The client bucket is checked first, so a flooding client is turned away without using up the global
+ * budget. Buckets are created on a client's first request and swept once they have refilled completely,
+ * which takes {@code burst / rate} seconds of idleness; at that point they behave like a new bucket, so
+ * forgetting them changes nothing. At most {@code maxClients} are kept; requests from further clients are
+ * only held to the global limit until a sweep makes room.
+ * <p>
+ * X-Global-ID is whatever the client says, so a flooder could send a new one with every request to get a
+ * fresh bucket each time and fill the table. Each address therefore also has a budget for new global IDs,
+ * refilling at the client rate: a request whose global ID has no bucket yet, from an address over that
+ * budget or while the table is full, is held to its address's bucket instead.
+ */
+public class RateLimiter {
+
+    private final Map<String, TokenBucket> clients = new ConcurrentHashMap<>();
+    // New global IDs each address may still bring in
+    private final Map<String, TokenBucket> newClientBudgets = new ConcurrentHashMap<>();
+    private final double clientRate;
+    private final double clientBurst;
+    private final int maxClients;
+    private final TokenBucket global;
+    private final long sweepIntervalNanos;
+    private final LongSupplier nanoClock;
+    private final ScheduledExecutorService executor;
+    private final Counter clientRejected;
+    private final Counter globalRejected;
+    private final Counter untracked;
+    private final Counter addressFallbacks;
+
+    public RateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    RateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        RateLimitProperties.Limit client = properties.getClient();
+        RateLimitProperties.Limit global = properties.getGlobal();
+        this.clientRate = client.getRate();
+        this.clientBurst = client.getBurst();
+        this.maxClients = properties.getMaxClients();
+        this.nanoClock = nanoClock;
+        this.global = global.getRate() > 0
+                ? new TokenBucket(global.getRate(), global.getBurst(), nanoClock)
+                : null;
+        this.sweepIntervalNanos = properties.getSweepInterval().toNanos();
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rate-limit-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.clientRejected = rejected("client", meterRegistry);
+        this.globalRejected = rejected("global", meterRegistry);
+        this.untracked = Counter.builder("ratelimit.untracked")
+                .description("Requests from clients beyond max-clients, held to the global limit only")
+                .register(meterRegistry);
+        this.addressFallbacks = Counter.builder("ratelimit.address.fallbacks")
+                .description("Requests with a new X-Global-ID held to their address's limit instead")
+                .register(meterRegistry);
+        Gauge.builder("ratelimit.clients", clients, Map::size)
+                .description("Clients with a token bucket")
+                .register(meterRegistry);
+    }
+
+    private static Counter rejected(String limit, MeterRegistry meterRegistry) {
+        return Counter.builder("ratelimit.rejected")
+                .description("Requests answered with 429")
+                .tag("limit", limit)
+                .register(meterRegistry);
+    }
+
+    public void start() {
+        executor.scheduleWithFixedDelay(this::sweep, sweepIntervalNanos, sweepIntervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @param globalId the client's global ID, or null
+     * @param address  the client's address, or null
+     * @return zero if the request is admitted, otherwise how many nanoseconds until it would be
+     */
+    public long tryAcquire(String globalId, String address) {
+        if (globalId == null) {
+            return tryAcquire(address);
+        }
+        if (address != null && clientRate > 0 && !clients.containsKey(globalId)
+                && (clients.size() >= maxClients || !mayAddClient(address))) {
+            addressFallbacks.increment();
+            return tryAcquire(address);
+        }
+        return tryAcquire(globalId);
+    }
+
+    /**
+     * @param clientId the client's global ID or address; null to apply only the global limit
+     * @return zero if the request is admitted, otherwise how many nanoseconds until it would be
+     */
+    public long tryAcquire(String clientId) {
+        if (clientId != null && clientRate > 0) {
+            TokenBucket bucket = bucketFor(clientId);
+            if (bucket != null) {
+                long wait = bucket.tryAcquire();
+                if (wait > 0) {
+                    clientRejected.increment();
+                    return wait;
+                }
+            }
+        }
+        if (global != null) {
+            long wait = global.tryAcquire();
+            if (wait > 0) {
+                globalRejected.increment();
+                return wait;
+            }
+        }
+        return 0;
+    }
+
+    private TokenBucket bucketFor(String clientId) {
+        TokenBucket bucket = clients.get(clientId);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (clients.size() >= maxClients) {
+            untracked.increment();
+            return null;
+        }
+        return clients.computeIfAbsent(clientId, id -> new TokenBucket(clientRate, clientBurst, nanoClock));
+    }
+
+    private boolean mayAddClient(String address) {
+        TokenBucket budget = newClientBudgets.get(address);
+        if (budget == null) {
+            if (newClientBudgets.size() >= maxClients) {
+                return false;
+            }
+            budget = newClientBudgets.computeIfAbsent(address,
+                    a -> new TokenBucket(clientRate, clientBurst, nanoClock));
+        }
+        return budget.tryAcquire() == 0;
+    }
+
+    void sweep() {
+        clients.values().removeIf(TokenBucket::isFull);
+        newClientBudgets.values().removeIf(TokenBucket::isFull);
+    }
+
+    int clientCount() {
+        return clients.size();
+    }
+}
@@ -0,0 +1,518 @@
+package com.example.gateway.spool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Segmented, append-only write-ahead log on local disk.
+ * <p>
+ * Records are appended to the active segment with plain {@link FileChannel} writes, each framed as
+ * {@code [length][crc32c][payload]}. Appends are made durable in groups: a background task calls
+ * {@code force()} every {@code fsyncInterval} and completes the futures of every append it covered, so
+ * many appends share one fsync. Segments roll over at {@code segmentSize} and are deleted once a reader
+ * has {@link #commit(Batch) committed} past them. The read position survives restarts in a checkpoint file.
+ * <p>
+ * On startup the segments are scanned; a torn or corrupt tail of the last segment (a crash mid-write) is
+ * truncated, and a corrupt record in an older segment ends that segment for the reader.
+ * <p>
+ * A failed fsync fails the futures of the appends it covered, but their records stay in the segment: after
+ * a failed fsync the kernel can't tell which of them reached the disk, so they are still replayed, and
+ * are delivered twice if the caller also retries them. The spool takes no further appends once that has
+ * happened, since later fsyncs can't vouch for those either.
+ * <p>
+ * One thread may read and commit at a time; any number of threads may append.
+ */
+public class DiskSpool implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(DiskSpool.class);
+
+    private static final String SEGMENT_SUFFIX = ".spool";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final String DEAD_LETTER_FILE = "dead-letters";
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+    private static final int MAX_RECORD_SIZE = 16 * 1024 * 1024;
+
+    private final Path directory;
+    private final long segmentSize;
+    private final long maxSize;
+
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final ScheduledExecutorService syncer;
+    private final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+    private final AtomicLong pendingRecords = new AtomicLong();
+    private final AtomicLong sizeBytes = new AtomicLong();
+    private final AtomicLong corruptRecords = new AtomicLong();
+
+    // Guarded by this
+    private Segment active;
+    private List<CompletableFuture<Void>> unsynced = new ArrayList<>();
+    private List<FileChannel> retired = new ArrayList<>();
+    private boolean closed;
+    private IOException syncFailure;
+
+    // Written only by the reading thread
+    private volatile Position committed;
+    private FileChannel readChannel;
+    private long readChannelSegment = -1;
+
+    public DiskSpool(Path directory, long segmentSize, long maxSize, Duration fsyncInterval) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSize = maxSize;
+        Files.createDirectories(directory);
+        recover();
+
+        this.syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "spool-fsync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMicros = Math.max(1, fsyncInterval.toNanos() / 1000);
+        syncer.scheduleWithFixedDelay(this::sync, intervalMicros, intervalMicros, TimeUnit.MICROSECONDS);
+    }
+
+    /**
+     * Appends a record. The returned future completes once the record has been fsynced.
+     *
+     * @throws SpoolFullException if the record would take the spool over its size bound
+     */
+    public CompletableFuture<Void> append(byte[] payload) throws IOException {
+        if (payload.length > MAX_RECORD_SIZE) {
+            throw new IllegalArgumentException("Record of " + payload.length + " bytes exceeds " + MAX_RECORD_SIZE);
+        }
+        int recordSize = HEADER_SIZE + payload.length;
+        CompletableFuture<Void> durable = new CompletableFuture<>();
+
+        synchronized (this) {
+            if (closed) {
+                throw new IOException("Spool is closed");
+            }
+            if (syncFailure != null) {
+                throw new IOException("Spool takes no appends after a failed fsync", syncFailure);
+            }
+            if (sizeBytes.get() + recordSize > maxSize) {
+                throw new SpoolFullException("Spool is full (" + sizeBytes.get() + " of " + maxSize + " bytes)");
+            }
+            if (active.size + recordSize > segmentSize && active.size > 0) {
+                roll();
+            }
+
+            CRC32C crc = new CRC32C();
+            crc.update(payload);
+            header.clear();
+            header.putInt(payload.length).putInt((int) crc.getValue()).flip();
+            ByteBuffer[] record = {header, ByteBuffer.wrap(payload)};
+            while (record[0].hasRemaining() || record[1].hasRemaining()) {
+                active.channel.write(record);
+            }
+
+            active.size += recordSize;
+            sizeBytes.addAndGet(recordSize);
+            pendingRecords.incrementAndGet();
+            unsynced.add(durable);
+        }
+        return durable;
+    }
+
+    /**
+     * Reads up to {@code maxRecords} records following the committed position, without moving it.
+     * Reading again before {@link #commit(Batch)} returns the same records.
+     */
+    public Batch read(int maxRecords) throws IOException {
+        List<byte[]> records = new ArrayList<>();
+        Position position = committed;
+
+        while (records.size() < maxRecords) {
+            Segment segment = segments.get(position.segment());
+            if (segment == null) {
+                break;
+            }
+            long limit = limitOf(segment);
+            if (position.offset() + HEADER_SIZE > limit) {
+                Long next = segments.higherKey(position.segment());
+                if (next == null) {
+                    break;
+                }
+                position = new Position(next, 0);
+                continue;
+            }
+
+            byte[] payload = readRecord(readerFor(segment), position.offset(), limit);
+            if (payload == null) {
+                corruptRecords.incrementAndGet();
+                log.warn("Corrupt record in spool segment {} at offset {}, skipping the rest of the segment",
+                        segment.path.getFileName(), position.offset());
+                seal(segment, position.offset());
+                continue;
+            }
+            records.add(payload);
+            position = new Position(position.segment(), position.offset() + HEADER_SIZE + payload.length);
+        }
+        return new Batch(records, position);
+    }
+
+    /**
+     * Marks everything up to the end of {@code batch} as consumed and deletes segments that are fully drained.
+     */
+    public void commit(Batch batch) throws IOException {
+        Position position = batch.next();
+        writeCheckpoint(position);
+        committed = position;
+        if (isEmpty()) {
+            // Also forgets records that were lost to corruption and will never be read
+            pendingRecords.set(0);
+        } else {
+            pendingRecords.addAndGet(-batch.records().size());
+        }
+
+        for (Map.Entry<Long, Segment> entry : segments.headMap(position.segment()).entrySet()) {
+            Segment segment = entry.getValue();
+            if (readChannelSegment == segment.id) {
+                closeReader();
+            }
+            segments.remove(entry.getKey());
+            Files.deleteIfExists(segment.path);
+            sizeBytes.addAndGet(-segment.size);
+        }
+    }
+
+    /**
+     * Keeps a record the reader could not replay in the dead-letter file next to the segments, framed like
+     * them, before the reader commits past it. The spool never reads that file back; it is there to be
+     * looked at and replayed by hand.
+     */
+    public void setAside(byte[] payload) throws IOException {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        ByteBuffer recordHeader = ByteBuffer.allocate(HEADER_SIZE).putInt(payload.length).putInt((int) crc.getValue());
+        ByteBuffer[] record = {recordHeader.flip(), ByteBuffer.wrap(payload)};
+        try (FileChannel channel = FileChannel.open(directory.resolve(DEAD_LETTER_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (record[0].hasRemaining() || record[1].hasRemaining()) {
+                channel.write(record);
+            }
+            channel.force(false);
+        }
+    }
+
+    /**
+     * True when the reader has committed everything that was appended.
+     */
+    public boolean isEmpty() {
+        Position position = committed;
+        synchronized (this) {
+            return position.segment() == active.id && position.offset() >= active.size;
+        }
+    }
+
+    public long getPendingRecords() {
+        return pendingRecords.get();
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes.get();
+    }
+
+    public long getCorruptRecords() {
+        return corruptRecords.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        syncer.shutdown();
+        try {
+            // A scheduled sync still running would otherwise force a channel closed below
+            if (!syncer.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Spool fsync still running after 10s, closing the spool anyway");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            closed = true;
+        }
+        sync();
+        synchronized (this) {
+            active.channel.close();
+        }
+        closeReader();
+    }
+
+    /**
+     * One group fsync: forces the active segment (and any segment rolled since the last run) and
+     * completes every append that was waiting for it.
+     */
+    private void sync() {
+        List<CompletableFuture<Void>> waiting;
+        List<FileChannel> channels;
+        synchronized (this) {
+            if (unsynced.isEmpty() && retired.isEmpty()) {
+                return;
+            }
+            waiting = unsynced;
+            unsynced = new ArrayList<>();
+            channels = retired;
+            retired = new ArrayList<>();
+            channels.add(active.channel);
+        }
+
+        IOException failure = null;
+        for (FileChannel channel : channels) {
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        for (int i = 0; i < channels.size() - 1; i++) {
+            closeQuietly(channels.get(i));
+        }
+        if (failure != null) {
+            log.error("Spool fsync failed, failing {} appends and taking no more", waiting.size(), failure);
+            synchronized (this) {
+                syncFailure = failure;
+            }
+        }
+        for (CompletableFuture<Void> future : waiting) {
+            if (failure == null) {
+                future.complete(null);
+            } else {
+                future.completeExceptionally(failure);
+            }
+        }
+    }
+
+    // Guarded by this
+    private void roll() throws IOException {
+        active.limit = active.size;
+        retired.add(active.channel);
+        active = openSegment(active.id + 1);
+        segments.put(active.id, active);
+    }
+
+    /**
+     * Stops reading {@code segment} at {@code offset}. Appends move on to a new segment if it was the active one.
+     */
+    private void seal(Segment segment, long offset) throws IOException {
+        synchronized (this) {
+            if (segment == active) {
+                roll();
+            }
+            segment.limit = offset;
+        }
+    }
+
+    private long limitOf(Segment segment) {
+        synchronized (this) {
+            return segment.limit >= 0 ? segment.limit : segment.size;
+        }
+    }
+
+    private FileChannel readerFor(Segment segment) throws IOException {
+        if (readChannelSegment != segment.id) {
+            closeReader();
+            readChannel = FileChannel.open(segment.path, StandardOpenOption.READ);
+            readChannelSegment = segment.id;
+        }
+        return readChannel;
+    }
+
+    private void closeReader() {
+        if (readChannel != null) {
+            closeQuietly(readChannel);
+            readChannel = null;
+            readChannelSegment = -1;
+        }
+    }
+
+    /**
+     * Reads and verifies the record at {@code offset}, or returns null if it is torn or corrupt.
+     */
+    private static byte[] readRecord(FileChannel channel, long offset, long limit) throws IOException {
+        ByteBuffer recordHeader = ByteBuffer.allocate(HEADER_SIZE);
+        if (offset + HEADER_SIZE > limit || !readFully(channel, recordHeader, offset)) {
+            return null;
+        }
+        recordHeader.flip();
+        int length = recordHeader.getInt();
+        int checksum = recordHeader.getInt();
+        if (length < 0 || length > MAX_RECORD_SIZE || offset + HEADER_SIZE + length > limit) {
+            return null;
+        }
+
+        byte[] payload = new byte[length];
+        if (!readFully(channel, ByteBuffer.wrap(payload), offset + HEADER_SIZE)) {
+            return null;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        return (int) crc.getValue() == checksum ? payload : null;
+    }
+
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void recover() throws IOException {
+        List<Long> ids;
+        try (Stream<Path> files = Files.list(directory)) {
+            ids = files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+        committed = readCheckpoint(ids.isEmpty() ? 0 : ids.get(0));
+
+        for (int i = 0; i < ids.size(); i++) {
+            long id = ids.get(i);
+            Path path = segmentPath(id);
+            if (id < committed.segment()) {
+                Files.deleteIfExists(path);
+                continue;
+            }
+            boolean last = i == ids.size() - 1;
+            long validEnd = 0;
+            long records = 0;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long fileSize = channel.size();
+                byte[] payload;
+                while ((payload = readRecord(channel, validEnd, fileSize)) != null) {
+                    if (id > committed.segment() || validEnd >= committed.offset()) {
+                        records++;
+                    }
+                    validEnd += HEADER_SIZE + payload.length;
+                }
+                if (validEnd < fileSize) {
+                    log.warn("Spool segment {} has {} unreadable bytes after offset {}{}", path.getFileName(),
+                            fileSize - validEnd, validEnd, last ? ", truncating" : "");
+                    if (!last) {
+                        corruptRecords.incrementAndGet();
+                    }
+                }
+            }
+
+            Segment segment;
+            if (last) {
+                segment = new Segment(id, path, FileChannel.open(path, StandardOpenOption.WRITE));
+                segment.channel.truncate(validEnd);
+                segment.channel.position(validEnd);
+                segment.size = validEnd;
+                active = segment;
+            } else {
+                segment = new Segment(id, path, null);
+                segment.size = Files.size(path);
+                segment.limit = validEnd;
+            }
+            segments.put(id, segment);
+            sizeBytes.addAndGet(segment.size);
+            pendingRecords.addAndGet(records);
+        }
+
+        if (active == null) {
+            active = openSegment(committed.segment());
+            segments.put(active.id, active);
+        }
+        if (!segments.containsKey(committed.segment())) {
+            committed = new Position(segments.firstKey(), 0);
+        }
+        if (pendingRecords.get() > 0) {
+            log.info("Recovered spool in {} with {} pending records ({} bytes)", directory, pendingRecords.get(),
+                    sizeBytes.get());
+        }
+    }
+
+    private Position readCheckpoint(long defaultSegment) throws IOException {
+        Path checkpoint = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(checkpoint)) {
+            return new Position(defaultSegment, 0);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(checkpoint));
+        return new Position(buffer.getLong(), buffer.getLong());
+    }
+
+    private void writeCheckpoint(Position position) throws IOException {
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES * 2).putLong(position.segment()).putLong(position.offset());
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            buffer.flip();
+            channel.write(buffer);
+            channel.force(false);
+        }
+        Files.move(temp, directory.resolve(CHECKPOINT_FILE), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Segment openSegment(long id) throws IOException {
+        Path path = segmentPath(id);
+        return new Segment(id, path, FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND));
+    }
+
+    private Path segmentPath(long id) {
+        return directory.resolve(String.format("%020d%s", id, SEGMENT_SUFFIX));
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Failed to close spool segment", e);
+        }
+    }
+
+    /**
+     * Records read from the spool and the position right after the last of them.
+     */
+    public record Batch(List<byte[]> records, Position next) {
+    }
+
+    public record Position(long segment, long offset) {
+    }
+
+    private static final class Segment {
+
+        private final long id;
+        private final Path path;
+        private final FileChannel channel;
+        // Bytes written; guarded by the spool
+        private long size;
+        // End of readable data once sealed, -1 while active
+        private long limit = -1;
+
+        Segment(long id, Path path, FileChannel channel) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.gateway.spool;
+
+import com.example.gateway.config.IngestProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.errors.RetriableException;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Replays the {@link DiskSpool} into Kafka, in order, from a single background thread.
+ * <p>
+ * Each round reads a batch, sends all of it and waits for every acknowledgement before committing the
+ * batch in the spool. A round in which Kafka failed a record with a retriable error or a timeout is retried
+ * from the same position with exponential backoff, so delivery is at-least-once: a record acknowledged in a
+ * round that later failed is sent again. Records that can never be delivered, because they can't be decoded
+ * or Kafka rejected them for good (a record too large, for one), are set aside in the spool's dead-letter
+ * file and counted in {@code ingest.spool.dead.letters}, and the round is committed past them.
+ */
+public class SpoolDrainer {
+
+    private static final Logger log = LoggerFactory.getLogger(SpoolDrainer.class);
+
+    private final DiskSpool spool;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final IngestProperties properties;
+    private final ScheduledExecutorService executor;
+    private final Counter drained;
+    private final Counter undecodable;
+    private final Counter rejected;
+
+    private Duration backoff;
+
+    public SpoolDrainer(DiskSpool spool, KafkaTemplate<String, byte[]> kafkaTemplate, IngestProperties properties,
+                        MeterRegistry meterRegistry) {
+        this.spool = spool;
+        this.kafkaTemplate = kafkaTemplate;
+        this.properties = properties;
+        this.backoff = properties.getSpool().getDrainInterval();
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "spool-drainer");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("ingest.spool.depth.records", spool, DiskSpool::getPendingRecords)
+                .description("Records waiting in the spool to be replayed to Kafka")
+                .register(meterRegistry);
+        Gauge.builder("ingest.spool.depth.bytes", spool, DiskSpool::getSizeBytes)
+                .description("Disk space used by spool segments")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        FunctionCounter.builder("ingest.spool.corrupt", spool, DiskSpool::getCorruptRecords)
+                .description("Spool records skipped because their checksum or framing was invalid")
+                .register(meterRegistry);
+        this.drained = Counter.builder("ingest.spool.drained")
+                .description("Records replayed from the spool and acknowledged by Kafka")
+                .register(meterRegistry);
+        this.undecodable = deadLetters("undecodable", meterRegistry);
+        this.rejected = deadLetters("rejected", meterRegistry);
+    }
+
+    private static Counter deadLetters(String reason, MeterRegistry meterRegistry) {
+        return Counter.builder("ingest.spool.dead.letters")
+                .description("Spool records set aside because they can never be delivered to Kafka")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    public void start() {
+        executor.execute(this::drain);
+    }
+
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    private void drain() {
+        IngestProperties.Spool settings = properties.getSpool();
+        Duration next = settings.getDrainInterval();
+        try {
+            DiskSpool.Batch batch = spool.read(settings.getDrainBatchSize());
+            if (!batch.records().isEmpty()) {
+                List<byte[]> records = batch.records();
+                List<CompletableFuture<?>> acks = new ArrayList<>(records.size());
+                for (byte[] entry : records) {
+                    acks.add(send(entry));
+                }
+
+                // Wait for every record before deciding, so that a retry doesn't overlap this round's sends
+                Map<byte[], Throwable> undeliverable = new LinkedHashMap<>();
+                Throwable retriable = null;
+                for (int i = 0; i < records.size(); i++) {
+                    try {
+                        acks.get(i).get();
+                    } catch (ExecutionException e) {
+                        if (isRetriable(e.getCause())) {
+                            retriable = e.getCause();
+                        } else {
+                            undeliverable.put(records.get(i), e.getCause());
+                        }
+                    }
+                }
+                if (retriable != null) {
+                    throw new KafkaException(retriable.getMessage(), retriable);
+                }
+
+                for (Map.Entry<byte[], Throwable> entry : undeliverable.entrySet()) {
+                    spool.setAside(entry.getKey());
+                    (entry.getValue() instanceof IllegalArgumentException ? undecodable : rejected).increment();
+                    log.error("Set aside a spooled record that can't be delivered to Kafka: {}",
+                            entry.getValue().toString());
+                }
+                spool.commit(batch);
+                drained.increment(records.size() - undeliverable.size());
+                // Keep going right away while there is a backlog
+                next = Duration.ZERO;
+            }
+            backoff = settings.getDrainInterval();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            backoff = min(backoff.multipliedBy(2), settings.getMaxDrainBackoff());
+            next = backoff;
+            log.warn("Replaying the spool to Kafka failed, retrying in {}: {}", next, e.getMessage());
+        }
+
+        if (!executor.isShutdown()) {
+            executor.schedule(this::drain, next.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private CompletableFuture<?> send(byte[] entry) {
+        try {
+            return kafkaTemplate.send(SpoolRecordCodec.decode(entry, properties.getTopic()));
+        } catch (RuntimeException e) {
+            // Undecodable entries, and records the producer turns down before sending them
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Kafka's retriable errors and timeouts may go away on their own; anything else will fail the same way
+     * every time the record is sent.
+     */
+    static boolean isRetriable(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RetriableException || cause instanceof TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+}
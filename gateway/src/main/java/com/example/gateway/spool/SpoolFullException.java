@@ -0,0 +1,11 @@
+package com.example.gateway.spool;
+
+/**
+ * Thrown by {@link DiskSpool#append(byte[])} when the spool has reached its configured size bound.
+ */
+public class SpoolFullException extends RuntimeException {
+
+    public SpoolFullException(String message) {
+        super(message);
+    }
+}
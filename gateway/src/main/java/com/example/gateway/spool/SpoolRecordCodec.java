@@ -0,0 +1,102 @@
+package com.example.gateway.spool;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeader;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Turns producer records into spool entries and back, so that replayed records keep their key and headers.
+ * <p>
+ * Layout: {@code [format][key length][key][header count]([name length][name][value length][value])*[value]},
+ * lengths being ints and -1 standing for null. Entries that don't follow it are rejected with an
+ * {@link IllegalArgumentException}.
+ */
+public final class SpoolRecordCodec {
+
+    private static final byte FORMAT = 1;
+
+    private SpoolRecordCodec() {
+    }
+
+    public static byte[] encode(ProducerRecord<String, byte[]> record) {
+        byte[] key = record.key() != null ? record.key().getBytes(StandardCharsets.UTF_8) : null;
+        List<byte[]> names = new ArrayList<>();
+        int size = 1 + Integer.BYTES + length(key) + Integer.BYTES + record.value().length;
+        for (Header header : record.headers()) {
+            byte[] name = header.key().getBytes(StandardCharsets.UTF_8);
+            names.add(name);
+            size += Integer.BYTES + name.length + Integer.BYTES + length(header.value());
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size).put(FORMAT);
+        putBytes(buffer, key);
+        buffer.putInt(names.size());
+        int i = 0;
+        for (Header header : record.headers()) {
+            putBytes(buffer, names.get(i++));
+            putBytes(buffer, header.value());
+        }
+        return buffer.put(record.value()).array();
+    }
+
+    public static ProducerRecord<String, byte[]> decode(byte[] entry, String topic) {
+        if (entry.length == 0 || entry[0] != FORMAT) {
+            throw new IllegalArgumentException("Not a spool record entry");
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(entry, 1, entry.length - 1);
+        try {
+            byte[] key = getBytes(buffer);
+            int headerCount = buffer.getInt();
+            // Every header takes at least its two lengths
+            if (headerCount < 0 || headerCount > buffer.remaining() / (Integer.BYTES * 2)) {
+                throw new IllegalArgumentException("Invalid header count " + headerCount + " in spool record entry");
+            }
+            List<Header> headers = new ArrayList<>(headerCount);
+            for (int i = 0; i < headerCount; i++) {
+                byte[] name = getBytes(buffer);
+                if (name == null) {
+                    throw new IllegalArgumentException("Header without a name in spool record entry");
+                }
+                headers.add(new RecordHeader(new String(name, StandardCharsets.UTF_8), getBytes(buffer)));
+            }
+            byte[] value = new byte[buffer.remaining()];
+            buffer.get(value);
+            return new ProducerRecord<>(topic, null, key != null ? new String(key, StandardCharsets.UTF_8) : null,
+                    value, headers);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated spool record entry", e);
+        }
+    }
+
+    private static int length(byte[] bytes) {
+        return bytes != null ? bytes.length : 0;
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    private static byte[] getBytes(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
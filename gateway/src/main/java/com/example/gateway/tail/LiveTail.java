@@ -0,0 +1,249 @@
+package com.example.gateway.tail;
+
+import com.example.gateway.ingest.EventContext;
+import com.example.gateway.ingest.EventFormat;
+import com.example.gateway.ingest.EventPublisher;
+import com.example.gateway.ingest.EventScanner;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.header.Header;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+/**
+ * Fans the ingest topic out to live tail subscribers from a single Kafka consumer.
+ * <p>
+ * The consumer starts with the first subscriber and stops with the last. It is assigned every partition
+ * and starts at the end, without a consumer group, so it neither commits offsets nor disturbs other
+ * consumers. Each record's headers are checked against every subscriber's {@link TailFilter}; only a
+ * record somebody wants is decoded, once, to JSON.
+ * <p>
+ * Every subscriber has a bounded buffer. A subscriber whose client doesn't keep up and lets it fill is
+ * ended with a {@link SlowSubscriberException}, so one slow browser tab never holds up the others or
+ * makes the consumer buffer without limit.
+ */
+public class LiveTail {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveTail.class);
+
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+
+    private final Supplier<Consumer<String, byte[]>> consumerFactory;
+    private final String topic;
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final Map<EventFormat, JsonFactory> factories = new EnumMap<>(EventFormat.class);
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final Counter dropped;
+
+    private Tailer tailer;
+
+    public LiveTail(Supplier<Consumer<String, byte[]>> consumerFactory, String topic, int bufferSize,
+                    int maxSubscribers, JsonFactory jsonFactory, MeterRegistry meterRegistry) {
+        this.consumerFactory = consumerFactory;
+        this.topic = topic;
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        for (EventFormat format : EventFormat.values()) {
+            factories.put(format, format.newFactory(jsonFactory));
+        }
+
+        Gauge.builder("ingest.tail.subscribers", subscribers, List::size)
+                .description("Open live tail subscriptions")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("ingest.tail.dropped")
+                .description("Live tail subscriptions ended because the client fell behind")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Events matching the filter from the moment the returned Flux is subscribed to, until it is cancelled.
+     * Nothing is registered, and no consumer started, before that. Subscribing while there are already
+     * {@code maxSubscribers} fails with a {@link TooManySubscribersException}.
+     */
+    public Flux<TailEvent> subscribe(TailFilter filter) {
+        return Flux.using(() -> add(filter), subscriber -> subscriber.sink.asFlux(), this::remove);
+    }
+
+    private synchronized Subscriber add(TailFilter filter) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new TooManySubscribersException(maxSubscribers);
+        }
+        Subscriber subscriber = new Subscriber(filter);
+        subscribers.add(subscriber);
+        if (tailer == null) {
+            tailer = new Tailer();
+            tailer.start();
+        }
+        return subscriber;
+    }
+
+    private synchronized void remove(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+        if (subscribers.isEmpty() && tailer != null) {
+            tailer.stop();
+            tailer = null;
+        }
+    }
+
+    public synchronized void stop() {
+        if (tailer != null) {
+            tailer.stop();
+            tailer = null;
+        }
+        for (Subscriber subscriber : subscribers) {
+            subscriber.sink.tryEmitComplete();
+        }
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    private void dispatch(ConsumerRecord<String, byte[]> record) {
+        String globalId = header(record, EventPublisher.GLOBAL_ID_RECORD_HEADER);
+        String traceId = traceId(header(record, EventContext.TRACEPARENT_HEADER));
+        // Records written by older gateways, or by other producers, never went through the scanner's check
+        String eventType = EventScanner.resolveEventType(header(record, EventPublisher.EVENT_TYPE_RECORD_HEADER));
+
+        TailEvent event = null;
+        for (Subscriber subscriber : subscribers) {
+            if (!subscriber.filter.matches(globalId, traceId, eventType)) {
+                continue;
+            }
+            if (event == null) {
+                try {
+                    event = new TailEvent(record.partition() + "-" + record.offset(), eventType, toJson(record));
+                } catch (IOException e) {
+                    log.debug("Skipping unreadable record {}-{}@{}: {}", record.topic(), record.partition(),
+                            record.offset(), e.getMessage());
+                    return;
+                }
+            }
+            subscriber.offer(event);
+        }
+    }
+
+    private String toJson(ConsumerRecord<String, byte[]> record) throws IOException {
+        EventFormat format = EventFormat.ofRecordHeader(header(record, EventFormat.RECORD_HEADER));
+        if (format == null) {
+            throw new IOException("Unknown event format " + header(record, EventFormat.RECORD_HEADER));
+        }
+        if (format == EventFormat.JSON) {
+            return new String(record.value(), StandardCharsets.UTF_8);
+        }
+        StringWriter json = new StringWriter(record.value().length * 2);
+        try (JsonParser parser = factories.get(format).createParser(record.value());
+             JsonGenerator generator = factories.get(EventFormat.JSON).createGenerator(json)) {
+            parser.nextToken();
+            generator.copyCurrentStructure(parser);
+        }
+        return json.toString();
+    }
+
+    private static String header(ConsumerRecord<?, ?> record, String name) {
+        Header header = record.headers().lastHeader(name);
+        return header != null && header.value() != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+
+    // traceparent is "00-<32 hex trace id>-<16 hex span id>-<flags>"
+    private static String traceId(String traceparent) {
+        return traceparent != null && traceparent.length() >= 35 ? traceparent.substring(3, 35) : null;
+    }
+
+    private final class Subscriber {
+
+        private final TailFilter filter;
+        private final Sinks.Many<TailEvent> sink;
+
+        Subscriber(TailFilter filter) {
+            this.filter = filter;
+            Queue<TailEvent> buffer = new ArrayBlockingQueue<>(bufferSize);
+            this.sink = Sinks.many().unicast().onBackpressureBuffer(buffer);
+        }
+
+        // Only called from the tailer thread
+        void offer(TailEvent event) {
+            if (sink.tryEmitNext(event) == Sinks.EmitResult.FAIL_OVERFLOW) {
+                dropped.increment();
+                subscribers.remove(this);
+                sink.tryEmitError(new SlowSubscriberException(bufferSize));
+            }
+        }
+    }
+
+    /**
+     * One consumer on its own thread, from the first subscriber to the last.
+     */
+    private final class Tailer implements Runnable {
+
+        private final Consumer<String, byte[]> consumer = consumerFactory.get();
+        private final Thread thread = new Thread(this, "live-tail");
+        private volatile boolean running = true;
+
+        void start() {
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        void stop() {
+            running = false;
+            consumer.wakeup();
+        }
+
+        @Override
+        public void run() {
+            try (consumer) {
+                List<TopicPartition> partitions = consumer.partitionsFor(topic).stream()
+                        .map(info -> new TopicPartition(info.topic(), info.partition()))
+                        .toList();
+                consumer.assign(partitions);
+                consumer.seekToEnd(partitions);
+                while (running) {
+                    for (ConsumerRecord<String, byte[]> record : consumer.poll(POLL_TIMEOUT)) {
+                        dispatch(record);
+                    }
+                }
+            } catch (WakeupException e) {
+                // stop() was called
+            } catch (Exception e) {
+                log.warn("Live tail of {} failed: {}", topic, e.getMessage());
+                failAll(this, e);
+            }
+        }
+    }
+
+    // Subscribers reconnect (EventSource does on its own) and get a new tailer
+    private synchronized void failAll(Tailer failed, Exception error) {
+        if (tailer != failed) {
+            return;
+        }
+        tailer = null;
+        for (Subscriber subscriber : subscribers) {
+            subscribers.remove(subscriber);
+            subscriber.sink.tryEmitError(error);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.gateway.tail;
+
+/**
+ * Ends a live tail subscription whose client fell more than the buffer size behind.
+ */
+public class SlowSubscriberException extends RuntimeException {
+
+    public SlowSubscriberException(int bufferSize) {
+        super("Fell more than " + bufferSize + " events behind");
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.gateway.tail;
+
+/**
+ * An event pushed to live tail subscribers.
+ *
+ * @param id        {@code <partition>-<offset>} of the record
+ * @param eventType the event's type, or null
+ * @param json      the payload as JSON text, whatever format it is stored in
+ */
+public record TailEvent(String id, String eventType, String json) {
+}
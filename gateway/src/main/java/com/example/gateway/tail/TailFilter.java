@@ -0,0 +1,35 @@
+package com.example.gateway.tail;
+
+/**
+ * What a live tail subscriber wants to see. Every criterion that is set must match; they are compared
+ * with record headers, so records that don't match are never decoded.
+ *
+ * @param globalId  the client's X-Global-ID, or null for any
+ * @param traceId   32 hex digit trace ID, or null for any
+ * @param eventType the event's {@code event} field, or null for any
+ */
+public record TailFilter(String globalId, String traceId, String eventType) {
+
+    public TailFilter {
+        globalId = blankToNull(globalId);
+        traceId = blankToNull(traceId);
+        eventType = blankToNull(eventType);
+    }
+
+    /**
+     * True when nothing is set, i.e. the filter would match the whole topic.
+     */
+    public boolean isEmpty() {
+        return globalId == null && traceId == null && eventType == null;
+    }
+
+    boolean matches(String recordGlobalId, String recordTraceId, String recordEventType) {
+        return (globalId == null || globalId.equals(recordGlobalId))
+                && (traceId == null || traceId.equalsIgnoreCase(recordTraceId))
+                && (eventType == null || eventType.equals(recordEventType));
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+}
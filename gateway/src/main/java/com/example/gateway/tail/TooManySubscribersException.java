@@ -0,0 +1,11 @@
+package com.example.gateway.tail;
+
+/**
+ * Ends a live tail subscription made while {@code max-subscribers} others were open.
+ */
+public class TooManySubscribersException extends RuntimeException {
+
+    public TooManySubscribersException(int maxSubscribers) {
+        super("Already " + maxSubscribers + " live tail subscribers");
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.gateway.controller;
+
+import com.example.gateway.config.IngestProperties;
+import com.example.gateway.dedup.EventDeduplicator;
+import com.example.gateway.ingest.BatchIngestResponse;
+import com.example.gateway.ingest.BatchIngestResponse.EventResult;
+import com.example.gateway.ingest.EventFormat;
+import com.example.gateway.ingest.EventMetrics;
+import com.example.gateway.ingest.EventPublisher;
+import com.example.gateway.ingest.EventScanner;
+import com.example.gateway.spool.DiskSpool;
+import com.fasterxml.jackson.core.JsonFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class IngestControllerTests {
+
+	private final IngestProperties properties = new IngestProperties();
+	private final AtomicInteger chunksRead = new AtomicInteger();
+	private EventPublisher publisher;
+
+	@AfterEach
+	void shutdown() {
+		if (publisher != null) {
+			publisher.shutdown();
+		}
+	}
+
+	@Test
+	void truncatedArrayStillReportsEventsInFlight() throws Exception {
+		MockProducer<String, byte[]> producer = producer(false);
+		IngestController controller = controller(producer);
+
+		CompletableFuture<ResponseEntity<BatchIngestResponse>> response = controller.ingestEvents(
+				batch("[{\"event\":\"a\"},{\"event\":\"b\"},", "{\"event\":\"c\"")).toFuture();
+		awaitSent(producer, 2);
+
+		// The body's fault must not cancel the two events Kafka hasn't acknowledged yet
+		assertThat(response).isNotDone();
+		producer.completeNext();
+		producer.completeNext();
+
+		BatchIngestResponse body = response.get(5, TimeUnit.SECONDS).getBody();
+		assertThat(body.results()).extracting(EventResult::index, EventResult::status).containsExactly(
+				tuple(0L, "accepted"), tuple(1L, "accepted"), tuple(2L, "rejected"));
+		assertThat(body.accepted()).isEqualTo(2);
+	}
+
+	@Test
+	void oversizedBatchIsCutOffAfterMaxEvents() throws Exception {
+		properties.getBatch().setMaxEvents(3);
+		MockProducer<String, byte[]> producer = producer(true);
+		IngestController controller = controller(producer);
+		List<String> chunks = new ArrayList<>();
+		chunks.add("[");
+		for (int i = 0; i < 10; i++) {
+			chunks.add("{\"event\":\"e" + i + "\"}" + (i < 9 ? "," : "]"));
+		}
+
+		BatchIngestResponse body = controller.ingestEvents(batch(chunks.toArray(String[]::new)))
+				.block(Duration.ofSeconds(5)).getBody();
+
+		assertThat(body.results()).extracting(EventResult::index, EventResult::status).containsExactly(
+				tuple(0L, "accepted"), tuple(1L, "accepted"), tuple(2L, "accepted"), tuple(3L, "rejected"));
+		assertThat(producer.history()).hasSize(3);
+		assertThat(chunksRead).hasValueLessThan(chunks.size());
+	}
+
+	private IngestController controller(MockProducer<String, byte[]> producer) {
+		properties.setStorageFormat(EventFormat.JSON);
+		StaticListableBeanFactory beans = new StaticListableBeanFactory();
+		publisher = new EventPublisher(new KafkaTemplate<>(() -> producer), properties,
+				beans.getBeanProvider(DiskSpool.class), new SimpleMeterRegistry());
+		return new IngestController(publisher, new EventScanner(new JsonFactory()), properties,
+				beans.getBeanProvider(EventMetrics.class), beans.getBeanProvider(EventDeduplicator.class));
+	}
+
+	// KafkaTemplate closes the producer after every send, which a factory's producers normally ignore
+	private static MockProducer<String, byte[]> producer(boolean autoComplete) {
+		return new MockProducer<>(autoComplete, new StringSerializer(), new ByteArraySerializer()) {
+			@Override
+			public void close(Duration timeout) {
+			}
+		};
+	}
+
+	private MockServerHttpRequest batch(String... chunks) {
+		Flux<DataBuffer> body = Flux.fromArray(chunks)
+				.doOnNext(chunk -> chunksRead.incrementAndGet())
+				.map(chunk -> DefaultDataBufferFactory.sharedInstance.wrap(chunk.getBytes(StandardCharsets.UTF_8)));
+		return MockServerHttpRequest.post("/ingest/events/batch")
+				.contentType(MediaType.APPLICATION_JSON)
+				.body(body);
+	}
+
+	private static void awaitSent(MockProducer<String, byte[]> producer, int records) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (producer.history().size() < records && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(producer.history()).hasSize(records);
+	}
+}
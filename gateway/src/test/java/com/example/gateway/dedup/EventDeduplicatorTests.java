@@ -0,0 +1,87 @@
+package com.example.gateway.dedup;
+
+import com.example.gateway.ingest.PublishOutcome;
+import com.example.gateway.ingest.PublishRejectedException;
+import com.example.gateway.ingest.ScannedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EventDeduplicatorTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final ExactWindowFilter filter = new ExactWindowFilter(TimeUnit.MINUTES.toNanos(10), 100);
+	private final EventDeduplicator deduplicator = new EventDeduplicator(filter, meterRegistry);
+	private final AtomicInteger published = new AtomicInteger();
+
+	@Test
+	void publishesEachEventIdOnce() {
+		assertThat(deduplicator.publishOnce(event("evt-1"), this::acknowledge).block())
+				.isEqualTo(PublishOutcome.ACKNOWLEDGED);
+		assertThat(deduplicator.publishOnce(event("evt-1"), this::acknowledge).block())
+				.isEqualTo(PublishOutcome.DUPLICATE);
+
+		assertThat(published).hasValue(1);
+		assertThat(meterRegistry.get("ingest.dedup.duplicates").tag("source", "window").counter().count())
+				.isEqualTo(1);
+		assertThat(meterRegistry.get("ingest.dedup.checked").counter().count()).isEqualTo(2);
+		assertThat(meterRegistry.get("ingest.dedup.entries").gauge().value()).isEqualTo(1);
+	}
+
+	@Test
+	void alwaysPublishesEventsWithoutAnId() {
+		deduplicator.publishOnce(event(null), this::acknowledge).block();
+		deduplicator.publishOnce(event(null), this::acknowledge).block();
+
+		assertThat(published).hasValue(2);
+		assertThat(meterRegistry.get("ingest.dedup.checked").counter().count()).isZero();
+	}
+
+	@Test
+	void retryWhileInFlightWaitsForTheFirstAttempt() {
+		Sinks.One<PublishOutcome> kafka = Sinks.one();
+		Mono<PublishOutcome> first = deduplicator.publishOnce(event("evt-1"), () -> {
+			published.incrementAndGet();
+			return kafka.asMono();
+		});
+		first.subscribe();
+
+		Mono<PublishOutcome> retry = deduplicator.publishOnce(event("evt-1"), this::acknowledge);
+		kafka.tryEmitValue(PublishOutcome.SPOOLED);
+
+		assertThat(retry.block(Duration.ofSeconds(1))).isEqualTo(PublishOutcome.DUPLICATE);
+		assertThat(first.block(Duration.ofSeconds(1))).isEqualTo(PublishOutcome.SPOOLED);
+		assertThat(published).hasValue(1);
+		assertThat(deduplicator.inFlightCount()).isZero();
+		assertThat(meterRegistry.get("ingest.dedup.duplicates").tag("source", "in_flight").counter().count())
+				.isEqualTo(1);
+	}
+
+	@Test
+	void shedEventsCanBeRetried() {
+		Mono<PublishOutcome> shed = deduplicator.publishOnce(event("evt-1"),
+				() -> Mono.error(new PublishRejectedException("saturated", Duration.ofSeconds(1))));
+		assertThatThrownBy(shed::block).isInstanceOf(PublishRejectedException.class);
+
+		assertThat(deduplicator.publishOnce(event("evt-1"), this::acknowledge).block())
+				.isEqualTo(PublishOutcome.ACKNOWLEDGED);
+		assertThat(deduplicator.inFlightCount()).isZero();
+	}
+
+	private Mono<PublishOutcome> acknowledge() {
+		published.incrementAndGet();
+		return Mono.just(PublishOutcome.ACKNOWLEDGED);
+	}
+
+	private static ScannedEvent event(String eventId) {
+		return new ScannedEvent(new byte[0], eventId, "click");
+	}
+}
@@ -0,0 +1,41 @@
+package com.example.gateway.dedup;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExactWindowFilterTests {
+
+	private final AtomicLong clock = new AtomicLong();
+
+	@Test
+	void forgetsIdsOlderThanTheWindow() {
+		ExactWindowFilter filter = new ExactWindowFilter(1000, 10, clock::get);
+
+		filter.put("a");
+		clock.set(600);
+		filter.put("b");
+		clock.set(1000);
+
+		assertThat(filter.mightContain("a")).isFalse();
+		assertThat(filter.mightContain("b")).isTrue();
+
+		filter.expire();
+		assertThat(filter.size()).isEqualTo(1);
+		assertThat(filter.falsePositiveEstimate()).isZero();
+	}
+
+	@Test
+	void stopsRememberingWhenFull() {
+		ExactWindowFilter filter = new ExactWindowFilter(1000, 2, clock::get);
+
+		assertThat(filter.put("a")).isTrue();
+		assertThat(filter.put("b")).isTrue();
+		assertThat(filter.put("c")).isFalse();
+
+		assertThat(filter.mightContain("c")).isFalse();
+		assertThat(filter.size()).isEqualTo(2);
+	}
+}
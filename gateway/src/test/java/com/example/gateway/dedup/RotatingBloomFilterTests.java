@@ -0,0 +1,67 @@
+package com.example.gateway.dedup;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class RotatingBloomFilterTests {
+
+	private static final long WINDOW = TimeUnit.MINUTES.toNanos(10);
+
+	@Test
+	void remembersIdsUntilTheirGenerationIsRotatedOut() {
+		RotatingBloomFilter filter = new RotatingBloomFilter(1000, 0.001, 4, WINDOW);
+
+		filter.put("evt-1");
+		assertThat(filter.mightContain("evt-1")).isTrue();
+		assertThat(filter.mightContain("evt-2")).isFalse();
+		assertThat(filter.expiryInterval()).isEqualTo(WINDOW / 4);
+
+		for (int i = 0; i < 3; i++) {
+			filter.expire();
+			assertThat(filter.mightContain("evt-1")).isTrue();
+		}
+		filter.expire();
+		assertThat(filter.mightContain("evt-1")).isFalse();
+		assertThat(filter.size()).isZero();
+	}
+
+	@Test
+	void staysNearTheTargetFalsePositiveRateAtTheExpectedLoad() {
+		int expected = 100_000;
+		int generations = 5;
+		RotatingBloomFilter filter = new RotatingBloomFilter(expected, 0.01, generations, WINDOW);
+		for (int generation = 0; generation < generations; generation++) {
+			if (generation > 0) {
+				filter.expire();
+			}
+			for (int i = 0; i < expected / generations; i++) {
+				filter.put("seen-" + generation + "-" + i);
+			}
+		}
+
+		int falsePositives = 0;
+		int probes = 100_000;
+		for (int i = 0; i < probes; i++) {
+			if (filter.mightContain("new-" + i)) {
+				falsePositives++;
+			}
+		}
+
+		double measured = (double) falsePositives / probes;
+		assertThat(measured).isLessThan(0.015);
+		assertThat(filter.falsePositiveEstimate()).isCloseTo(measured, within(0.005));
+		assertThat(filter.size()).isEqualTo(expected);
+	}
+
+	@Test
+	void hasAFixedFootprint() {
+		RotatingBloomFilter filter = new RotatingBloomFilter(3_000_000, 0.001, 6, WINDOW);
+
+		// About 14.4 bits per ID for 0.1%, a little more since each generation aims at 0.1% / 6
+		assertThat(filter.memoryBytes()).isBetween(5_000_000L, 8_000_000L);
+	}
+}
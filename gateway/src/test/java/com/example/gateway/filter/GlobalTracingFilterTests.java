@@ -0,0 +1,40 @@
+package com.example.gateway.filter;
+
+import com.example.tracing.GlobalId;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GlobalTracingFilterTests {
+
+	private final GlobalTracingFilter filter = new GlobalTracingFilter();
+	private final AtomicReference<String> seen = new AtomicReference<>();
+	private final WebFilterChain chain = exchange -> Mono.deferContextual(context -> {
+		seen.set(context.getOrDefault(GlobalId.KEY, null));
+		return Mono.empty();
+	});
+
+	@Test
+	void putsTheGlobalIdIntoTheContextOfUnroutedRequests() {
+		filter.filter(exchange("/ingest/events", " install-1 "), chain).block();
+
+		assertThat(seen).hasValue("install-1");
+	}
+
+	@Test
+	void leavesTheContextAloneWithoutAUsableGlobalId() {
+		filter.filter(exchange("/ingest/events", "install\n1"), chain).block();
+
+		assertThat(seen).hasNullValue();
+	}
+
+	private static MockServerWebExchange exchange(String path, String globalId) {
+		return MockServerWebExchange.from(MockServerHttpRequest.post(path).header(GlobalId.HEADER, globalId));
+	}
+}
@@ -0,0 +1,77 @@
+package com.example.gateway.filter;
+
+import com.example.gateway.config.RateLimitProperties;
+import com.example.gateway.ratelimit.RateLimiter;
+import com.example.tracing.GlobalId;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTests {
+
+	private final AtomicInteger passed = new AtomicInteger();
+	private final WebFilterChain chain = exchange -> {
+		passed.incrementAndGet();
+		return Mono.empty();
+	};
+
+	@Test
+	void answersTooManyRequestsWithRetryAfter() {
+		RateLimitFilter filter = filter(1, 1);
+
+		MockServerWebExchange first = exchange("/ingest/events", "install-1");
+		MockServerWebExchange second = exchange("/ingest/events", "install-1");
+		filter.filter(first, chain).block();
+		filter.filter(second, chain).block();
+
+		assertThat(passed).hasValue(1);
+		assertThat(first.getResponse().getStatusCode()).isNull();
+		assertThat(second.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+		assertThat(second.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+	}
+
+	@Test
+	void onlyLimitsConfiguredPaths() {
+		RateLimitFilter filter = filter(1, 1);
+
+		for (int i = 0; i < 3; i++) {
+			filter.filter(exchange("/actuator/prometheus", "install-1"), chain).block();
+		}
+		filter.filter(exchange("/api/hello", "install-1"), chain).block();
+
+		assertThat(passed).hasValue(4);
+	}
+
+	@Test
+	void identifiesClientsByAddressToo() {
+		MockServerHttpRequest withoutId = MockServerHttpRequest.get("/api/hello")
+				.remoteAddress(new InetSocketAddress("10.0.0.7", 52000))
+				.build();
+
+		assertThat(RateLimitFilter.address(withoutId)).isEqualTo("10.0.0.7");
+		assertThat(RateLimitFilter.address(MockServerHttpRequest.get("/api/hello").build())).isNull();
+	}
+
+	private static RateLimitFilter filter(double clientRate, double clientBurst) {
+		RateLimitProperties properties = new RateLimitProperties();
+		properties.getClient().setRate(clientRate);
+		properties.getClient().setBurst(clientBurst);
+		RateLimiter rateLimiter = new RateLimiter(properties, new SimpleMeterRegistry());
+		return new RateLimitFilter(rateLimiter, properties.getPaths());
+	}
+
+	private static MockServerWebExchange exchange(String path, String globalId) {
+		return MockServerWebExchange.from(MockServerHttpRequest.post(path).header(GlobalId.HEADER, globalId));
+	}
+}
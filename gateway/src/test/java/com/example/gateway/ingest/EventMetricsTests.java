@@ -0,0 +1,97 @@
+package com.example.gateway.ingest;
+
+import com.example.gateway.config.IngestProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventMetricsTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final IngestProperties.Metrics settings = new IngestProperties.Metrics();
+
+	@Test
+	void countsAndTimesPerEventTypeAndDimensions() {
+		settings.setDimensions(List.of("appVersion"));
+		settings.setDurationField("durationMs");
+		EventMetrics metrics = new EventMetrics(meterRegistry, settings);
+
+		metrics.record(event("checkout_error", 120, "1.4.2"));
+		metrics.record(event("checkout_error", 80, "1.4.2"));
+		metrics.record(event("checkout_error", Double.NaN, "1.5.0"));
+		metrics.record(event(null, Double.NaN, (String) null));
+
+		assertThat(meterRegistry.get("ingest.client.events").tags("event", "checkout_error", "appVersion", "1.4.2")
+				.counter().count()).isEqualTo(2);
+		assertThat(meterRegistry.get("ingest.client.events").tags("event", "checkout_error", "appVersion", "1.5.0")
+				.counter().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("ingest.client.events").tags("event", "none", "appVersion", "none")
+				.counter().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("ingest.client.event.duration").tags("appVersion", "1.4.2").timer()
+				.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(200);
+		// No timer for a series that never reported a duration
+		assertThat(meterRegistry.find("ingest.client.event.duration").tags("appVersion", "1.5.0").timer()).isNull();
+	}
+
+	@Test
+	void capsTheNumberOfSeries() {
+		settings.setDimensions(List.of("appVersion"));
+		settings.setMaxSeries(2);
+		EventMetrics metrics = new EventMetrics(meterRegistry, settings);
+
+		for (int i = 0; i < 5; i++) {
+			metrics.record(event("click", Double.NaN, "1." + i));
+		}
+		metrics.record(event("click", Double.NaN, "1.0"));
+
+		assertThat(metrics.seriesCount()).isEqualTo(2);
+		assertThat(meterRegistry.get("ingest.client.events").tags("event", "click", "appVersion", "1.0")
+				.counter().count()).isEqualTo(2);
+		assertThat(meterRegistry.get("ingest.client.events").tags("event", "other", "appVersion", "other")
+				.counter().count()).isEqualTo(3);
+		assertThat(meterRegistry.get("ingest.client.events.overflow").counter().count()).isEqualTo(3);
+	}
+
+	@Test
+	void oneDimensionCannotUseUpTheSeriesOfTheOthers() {
+		settings.setDimensions(List.of("appVersion", "deviceId"));
+		settings.setMaxTagValues(3);
+		settings.setMaxSeries(10);
+		EventMetrics metrics = new EventMetrics(meterRegistry, settings);
+
+		for (int i = 0; i < 1000; i++) {
+			metrics.record(event("click", Double.NaN, "1.0", "device-" + i));
+		}
+		metrics.record(event("click", Double.NaN, "2.0", "device-1000"));
+
+		assertThat(meterRegistry.get("ingest.client.events").tags("event", "click", "appVersion", "1.0",
+				"deviceId", "other").counter().count()).isEqualTo(997);
+		assertThat(meterRegistry.get("ingest.client.events").tags("event", "click", "appVersion", "2.0",
+				"deviceId", "other").counter().count()).isEqualTo(1);
+		assertThat(metrics.seriesCount()).isEqualTo(5);
+		assertThat(meterRegistry.find("ingest.client.events.overflow").counter().count()).isZero();
+	}
+
+	@Test
+	void cutsLongValuesAndRejectsControlCharacters() {
+		settings.setDimensions(List.of("appVersion"));
+		settings.setMaxValueLength(8);
+		EventMetrics metrics = new EventMetrics(meterRegistry, settings);
+
+		metrics.record(event("click", Double.NaN, "1.4.2-beta.1+build.77"));
+		metrics.record(event("click\n", Double.NaN, "1.4.2"));
+
+		assertThat(meterRegistry.get("ingest.client.events").tags("event", "click", "appVersion", "1.4.2-be")
+				.counter().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("ingest.client.events").tags("event", "other", "appVersion", "1.4.2")
+				.counter().count()).isEqualTo(1);
+	}
+
+	private static ScannedEvent event(String type, double duration, String... dimensions) {
+		return new ScannedEvent(new byte[0], null, type, dimensions, duration);
+	}
+}
@@ -0,0 +1,135 @@
+package com.example.gateway.ingest;
+
+import com.example.gateway.config.IngestProperties;
+import com.example.gateway.spool.DiskSpool;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EventPublisherTests {
+
+	private static final EventContext CONTEXT = new EventContext("install-1", null);
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final IngestProperties properties = new IngestProperties();
+	// Acknowledges nothing until told to, like a broker that is slow to answer
+	private final MockProducer<String, byte[]> producer =
+			new MockProducer<>(false, new StringSerializer(), new ByteArraySerializer()) {
+				// KafkaTemplate closes the producer after every send, which a factory's producers normally ignore
+				@Override
+				public void close(Duration timeout) {
+				}
+			};
+	private EventPublisher publisher;
+
+	@AfterEach
+	void shutdown() {
+		if (publisher != null) {
+			publisher.shutdown();
+		}
+	}
+
+	@Test
+	void completesOnlyOnceKafkaAcknowledges() throws Exception {
+		EventPublisher publisher = publisher();
+
+		CompletableFuture<PublishOutcome> outcome = publisher.publish(event(), CONTEXT).toFuture();
+		awaitSent(1);
+
+		assertThat(outcome).isNotDone();
+		assertThat(inFlightRecords()).isEqualTo(1);
+		producer.completeNext();
+
+		assertThat(outcome.get(5, TimeUnit.SECONDS)).isEqualTo(PublishOutcome.ACKNOWLEDGED);
+		assertThat(producer.history().get(0).key()).isEqualTo("install-1");
+		assertThat(inFlightRecords()).isZero();
+	}
+
+	@Test
+	void shedsEventsOverTheInFlightCap() throws Exception {
+		properties.getPublish().setMaxInFlightRecords(2);
+		properties.getPublish().setRetryAfter(Duration.ofSeconds(3));
+		EventPublisher publisher = publisher();
+
+		CompletableFuture<PublishOutcome> first = publisher.publish(event(), CONTEXT).toFuture();
+		CompletableFuture<PublishOutcome> second = publisher.publish(event(), CONTEXT).toFuture();
+		awaitSent(2);
+
+		assertThatThrownBy(() -> publisher.publish(event(), CONTEXT).block(Duration.ofSeconds(5)))
+				.isInstanceOfSatisfying(PublishRejectedException.class,
+						e -> assertThat(e.getRetryAfter()).isEqualTo(Duration.ofSeconds(3)));
+		assertThat(meterRegistry.get("ingest.publish.shed").counter().count()).isEqualTo(1);
+
+		// An acknowledgement makes room for the next event
+		producer.completeNext();
+		assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(PublishOutcome.ACKNOWLEDGED);
+		CompletableFuture<PublishOutcome> third = publisher.publish(event(), CONTEXT).toFuture();
+		awaitSent(3);
+		producer.completeNext();
+		producer.completeNext();
+		assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo(PublishOutcome.ACKNOWLEDGED);
+		assertThat(third.get(5, TimeUnit.SECONDS)).isEqualTo(PublishOutcome.ACKNOWLEDGED);
+	}
+
+	@Test
+	void shedsEventsOverTheInFlightByteCap() {
+		properties.getPublish().setMaxInFlightBytes(10);
+		EventPublisher publisher = publisher();
+
+		assertThatThrownBy(() -> publisher.publish(new ScannedEvent(new byte[11], null, "click"), CONTEXT).block())
+				.isInstanceOf(PublishRejectedException.class);
+		assertThat(producer.history()).isEmpty();
+		assertThat(inFlightRecords()).isZero();
+	}
+
+	@Test
+	void failsWithTheBrokerErrorAndGivesBackItsCapacity() throws Exception {
+		EventPublisher publisher = publisher();
+
+		CompletableFuture<PublishOutcome> outcome = publisher.publish(event(), CONTEXT).toFuture();
+		awaitSent(1);
+		producer.errorNext(new RecordTooLargeException("too large"));
+
+		assertThatThrownBy(() -> outcome.get(5, TimeUnit.SECONDS))
+				.isInstanceOf(ExecutionException.class)
+				.hasRootCauseInstanceOf(RecordTooLargeException.class);
+		assertThat(inFlightRecords()).isZero();
+	}
+
+	private EventPublisher publisher() {
+		publisher = new EventPublisher(new KafkaTemplate<>(() -> producer), properties,
+				new StaticListableBeanFactory().getBeanProvider(DiskSpool.class), meterRegistry);
+		return publisher;
+	}
+
+	private double inFlightRecords() {
+		return meterRegistry.get("ingest.publish.inflight.records").gauge().value();
+	}
+
+	private void awaitSent(int records) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (producer.history().size() < records && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(producer.history()).hasSize(records);
+	}
+
+	private static ScannedEvent event() {
+		return new ScannedEvent("{\"event\":\"click\"}".getBytes(StandardCharsets.UTF_8), "evt-1", "click");
+	}
+}
@@ -0,0 +1,116 @@
+package com.example.gateway.ingest;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.http.MediaType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EventScannerTests {
+
+	private final EventScanner scanner = new EventScanner(new JsonFactory());
+
+	@Test
+	void extractsRoutingFieldsAndKeepsPayload() {
+		byte[] payload = bytes("{\"properties\":{\"event\":\"nested\"},\"eventId\":\"e-1\",\"event\":\"button_click\"}");
+
+		ScannedEvent event = scanner.scan(payload);
+
+		assertThat(event.payload()).isSameAs(payload);
+		assertThat(event.eventId()).isEqualTo("e-1");
+		assertThat(event.eventType()).isEqualTo("button_click");
+	}
+
+	@Test
+	void dropsEventTypesThatCouldBreakOutOfAHeaderOrEventStreamLine() {
+		byte[] payload = bytes("{\"event\":\"click\\r\\nevent: admin\"}");
+
+		ScannedEvent event = scanner.scan(payload);
+
+		assertThat(event.payload()).isSameAs(payload);
+		assertThat(event.eventType()).isNull();
+		assertThat(EventScanner.resolveEventType("x".repeat(129))).isNull();
+		assertThat(EventScanner.resolveEventType("button_click")).isEqualTo("button_click");
+	}
+
+	@Test
+	void picksUpMetricFieldsInTheSamePass() {
+		EventScanner scanner = new EventScanner(new JsonFactory(),
+				EventFields.of(List.of("appVersion", "properties.page", "platform"), "properties.durationMs"));
+		byte[] payload = bytes("{\"event\":\"checkout_error\",\"appVersion\":\"1.4.2\",\"context\":{\"appVersion\":\"x\"},"
+				+ "\"properties\":{\"page\":\"cart\",\"durationMs\":420,\"items\":[{\"page\":\"y\"}]}}");
+
+		ScannedEvent event = scanner.scan(payload);
+
+		assertThat(event.eventType()).isEqualTo("checkout_error");
+		assertThat(event.dimensions()).containsExactly("1.4.2", "cart", null);
+		assertThat(event.duration()).isEqualTo(420.0);
+	}
+
+	@Test
+	void stillRejectsMalformedNestedObjectsItDescendsInto() {
+		EventScanner scanner = new EventScanner(new JsonFactory(), EventFields.of(List.of("properties.page"), null));
+
+		assertThatThrownBy(() -> scanner.scan(bytes("{\"properties\":{\"page\":}}")))
+				.isInstanceOf(DecodingException.class);
+	}
+
+	@Test
+	void transcodesToTheStorageFormat() throws Exception {
+		EventScanner scanner = new EventScanner(new JsonFactory(), EventFields.NONE, EventFormat.SMILE);
+		String json = "{\"eventId\":\"e-1\",\"event\":\"button_click\",\"properties\":{\"page\":\"home\"}}";
+		ObjectMapper smile = new ObjectMapper(new SmileFactory());
+		byte[] fromCbor = new ObjectMapper(new CBORFactory()).writeValueAsBytes(new ObjectMapper().readTree(json));
+
+		ScannedEvent event = scanner.scan(bytes(json));
+		ScannedEvent cbor = scanner.scan(fromCbor, EventFormat.CBOR);
+
+		assertThat(smile.readTree(event.payload())).isEqualTo(new ObjectMapper().readTree(json));
+		assertThat(event.payload().length).isLessThan(json.length());
+		assertThat(cbor.eventId()).isEqualTo("e-1");
+		assertThat(cbor.payload()).isEqualTo(event.payload());
+	}
+
+	@Test
+	void keepsPayloadsAlreadyInTheStorageFormat() throws Exception {
+		EventScanner scanner = new EventScanner(new JsonFactory(), EventFields.NONE, EventFormat.SMILE);
+		byte[] payload = new ObjectMapper(new SmileFactory()).writeValueAsBytes(Map.of("event", "click"));
+
+		ScannedEvent event = scanner.scan(payload, EventFormat.SMILE);
+
+		assertThat(event.payload()).isSameAs(payload);
+		assertThat(event.eventType()).isEqualTo("click");
+		assertThatThrownBy(() -> scanner.scan(bytes("{\"event\":\"click\"}"), EventFormat.SMILE))
+				.isInstanceOf(DecodingException.class);
+	}
+
+	@Test
+	void picksTheFormatFromTheContentType() {
+		assertThat(EventFormat.of(MediaType.parseMediaType("application/cbor"))).isEqualTo(EventFormat.CBOR);
+		assertThat(EventFormat.of(MediaType.parseMediaType("application/x-jackson-smile")))
+				.isEqualTo(EventFormat.SMILE);
+		assertThat(EventFormat.of(MediaType.APPLICATION_JSON)).isEqualTo(EventFormat.JSON);
+		assertThat(EventFormat.of(MediaType.TEXT_PLAIN)).isEqualTo(EventFormat.JSON);
+		assertThat(EventFormat.of(null)).isEqualTo(EventFormat.JSON);
+	}
+
+	@Test
+	void rejectsMalformedEvents() {
+		for (String payload : new String[] {"{\"event\":\"a\"", "[1]", "{\"a\":tru}", "{\"a\":\"\\q\"}", "{\"a\":1} {}"}) {
+			assertThatThrownBy(() -> scanner.scan(bytes(payload))).isInstanceOf(DecodingException.class);
+		}
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+}
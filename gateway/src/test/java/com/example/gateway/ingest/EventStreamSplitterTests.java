@@ -0,0 +1,88 @@
+package com.example.gateway.ingest;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.codec.DecodingException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EventStreamSplitterTests {
+
+	@Test
+	void splitsJsonArrayAcrossChunks() {
+		String body = "[{\"event\":\"a]\\\"}\"}, {\"event\":\"b\",\"tags\":[1,2]} ,3,\"s\"]";
+		for (int chunkSize = 1; chunkSize <= body.length(); chunkSize++) {
+			assertThat(split(true, body, chunkSize)).containsExactly(
+					"{\"event\":\"a]\\\"}\"}", "{\"event\":\"b\",\"tags\":[1,2]}", "3", "\"s\"");
+		}
+	}
+
+	@Test
+	void splitsNdjson() {
+		String body = "{\"event\":\"a\"}\n{\"event\":{\"nested\":\"}\"}}\r\n42\ntrue";
+		assertThat(split(false, body, 5)).containsExactly(
+				"{\"event\":\"a\"}", "{\"event\":{\"nested\":\"}\"}}", "42", "true");
+	}
+
+	@Test
+	void keepsArraysAsSingleEventsInNdjson() {
+		assertThat(split(false, "[{\"event\":\"a\"}]", 3)).containsExactly("[{\"event\":\"a\"}]");
+	}
+
+	@Test
+	void rejectsTruncatedArray() {
+		assertThatThrownBy(() -> split(true, "[{\"event\":\"a\"},", 4)).isInstanceOf(DecodingException.class);
+	}
+
+	@Test
+	void rejectsMissingLeadingDuplicateAndTrailingCommas() {
+		for (String body : List.of("[{}{}]", "[,{}]", "[{},,{}]", "[{},]", "[1 2]")) {
+			for (int chunkSize = 1; chunkSize <= body.length(); chunkSize++) {
+				int size = chunkSize;
+				assertThatThrownBy(() -> split(true, body, size)).as(body).isInstanceOf(DecodingException.class);
+			}
+		}
+		assertThat(split(true, "[ ]", 1)).isEmpty();
+		assertThat(split(true, "[{} , {}]", 1)).containsExactly("{}", "{}");
+	}
+
+	@Test
+	void rejectsOversizedEvent() {
+		EventStreamSplitter splitter = new EventStreamSplitter(true, 8);
+		assertThatThrownBy(() -> splitter.feed(bytes("[{\"event\":\"too-large\"}]")))
+				.isInstanceOf(DecodingException.class);
+	}
+
+	@Test
+	void returnsEventsAheadOfAFaultBeforeThrowingIt() {
+		EventStreamSplitter splitter = new EventStreamSplitter(true, 16);
+
+		List<byte[]> events = splitter.feed(bytes("[{\"event\":\"a\"},{\"event\":\"too-large\"}]"));
+
+		assertThat(events).extracting(event -> new String(event, StandardCharsets.UTF_8))
+				.containsExactly("{\"event\":\"a\"}");
+		assertThat(splitter.getEventCount()).isEqualTo(1);
+		assertThatThrownBy(splitter::finish).isInstanceOf(DecodingException.class);
+	}
+
+	private static List<String> split(boolean unwrapArray, String body, int chunkSize) {
+		EventStreamSplitter splitter = new EventStreamSplitter(unwrapArray, 1024);
+		byte[] bytes = bytes(body);
+		List<String> events = new ArrayList<>();
+		for (int i = 0; i < bytes.length; i += chunkSize) {
+			byte[] chunk = Arrays.copyOfRange(bytes, i, Math.min(bytes.length, i + chunkSize));
+			splitter.feed(chunk).forEach(event -> events.add(new String(event, StandardCharsets.UTF_8)));
+		}
+		splitter.finish().forEach(event -> events.add(new String(event, StandardCharsets.UTF_8)));
+		return events;
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+}
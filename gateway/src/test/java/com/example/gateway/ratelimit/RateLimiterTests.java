@@ -0,0 +1,106 @@
+package com.example.gateway.ratelimit;
+
+import com.example.gateway.config.RateLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimiterTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final RateLimitProperties properties = new RateLimitProperties();
+	private final AtomicLong clock = new AtomicLong();
+
+	@Test
+	void limitsEachClientToItsBurstAndRate() {
+		properties.getClient().setRate(10);
+		properties.getClient().setBurst(2);
+		RateLimiter rateLimiter = new RateLimiter(properties, meterRegistry, clock::get);
+
+		assertThat(rateLimiter.tryAcquire("install-1")).isZero();
+		assertThat(rateLimiter.tryAcquire("install-1")).isZero();
+		long wait = rateLimiter.tryAcquire("install-1");
+		assertThat(wait).isPositive().isLessThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+		// Other clients are unaffected
+		assertThat(rateLimiter.tryAcquire("install-2")).isZero();
+
+		clock.addAndGet(wait);
+		assertThat(rateLimiter.tryAcquire("install-1")).isZero();
+		assertThat(meterRegistry.get("ratelimit.rejected").tag("limit", "client").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void limitsAllClientsTogether() {
+		properties.getClient().setRate(0);
+		properties.getGlobal().setRate(1);
+		properties.getGlobal().setBurst(3);
+		RateLimiter rateLimiter = new RateLimiter(properties, meterRegistry, clock::get);
+
+		for (int i = 0; i < 3; i++) {
+			assertThat(rateLimiter.tryAcquire("install-" + i)).isZero();
+		}
+		assertThat(rateLimiter.tryAcquire(null)).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+		assertThat(rateLimiter.clientCount()).isZero();
+		assertThat(meterRegistry.get("ratelimit.rejected").tag("limit", "global").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void holdsAnAddressMakingUpGlobalIdsToItsOwnLimit() {
+		properties.getClient().setRate(10);
+		properties.getClient().setBurst(2);
+		RateLimiter rateLimiter = new RateLimiter(properties, meterRegistry, clock::get);
+
+		// Two new global IDs use up the address's budget for them; the third is charged to the address
+		assertThat(rateLimiter.tryAcquire("install-1", "10.0.0.7")).isZero();
+		assertThat(rateLimiter.tryAcquire("install-2", "10.0.0.7")).isZero();
+		assertThat(rateLimiter.tryAcquire("install-3", "10.0.0.7")).isZero();
+		assertThat(rateLimiter.tryAcquire("install-4", "10.0.0.7")).isZero();
+		assertThat(rateLimiter.tryAcquire("install-5", "10.0.0.7")).isPositive();
+		assertThat(rateLimiter.clientCount()).isEqualTo(3);
+		assertThat(meterRegistry.get("ratelimit.address.fallbacks").counter().count()).isEqualTo(3);
+
+		// Known global IDs keep their own bucket, and other addresses their own budget
+		assertThat(rateLimiter.tryAcquire("install-1", "10.0.0.7")).isZero();
+		assertThat(rateLimiter.tryAcquire("install-6", "10.0.0.8")).isZero();
+	}
+
+	@Test
+	void fallsBackToTheAddressWhenTheClientTableIsFull() {
+		properties.getClient().setRate(10);
+		properties.getClient().setBurst(1);
+		properties.setMaxClients(2);
+		RateLimiter rateLimiter = new RateLimiter(properties, meterRegistry, clock::get);
+
+		rateLimiter.tryAcquire(null, "10.0.0.7");
+		rateLimiter.tryAcquire("install-1", "10.0.0.8");
+
+		assertThat(rateLimiter.tryAcquire("install-2", "10.0.0.7")).isPositive();
+		assertThat(rateLimiter.clientCount()).isEqualTo(2);
+	}
+
+	@Test
+	void sweepsIdleClientsAndCapsTheirNumber() {
+		properties.getClient().setRate(10);
+		properties.getClient().setBurst(10);
+		properties.setMaxClients(2);
+		RateLimiter rateLimiter = new RateLimiter(properties, meterRegistry, clock::get);
+
+		rateLimiter.tryAcquire("install-1");
+		rateLimiter.tryAcquire("install-2");
+		rateLimiter.tryAcquire("install-3");
+		assertThat(rateLimiter.clientCount()).isEqualTo(2);
+		assertThat(meterRegistry.get("ratelimit.untracked").counter().count()).isEqualTo(1);
+
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(50));
+		rateLimiter.tryAcquire("install-2");
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(60));
+		rateLimiter.sweep();
+		// install-1 has refilled, install-2 is 90ms short of a full bucket
+		assertThat(rateLimiter.clientCount()).isEqualTo(1);
+		assertThat(meterRegistry.get("ratelimit.clients").gauge().value()).isEqualTo(1);
+	}
+}
@@ -0,0 +1,140 @@
+package com.example.gateway.spool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DiskSpoolTests {
+
+	private static final Duration FSYNC_INTERVAL = Duration.ofMillis(5);
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void replaysRecordsInOrderAcrossSegments() throws Exception {
+		try (DiskSpool spool = new DiskSpool(directory, 100, 10_000, FSYNC_INTERVAL)) {
+			appendAll(spool, 30);
+			assertThat(segmentCount()).isGreaterThan(1);
+
+			assertThat(drain(spool)).containsExactlyElementsOf(expected(0, 30));
+			assertThat(spool.isEmpty()).isTrue();
+			assertThat(segmentCount()).isEqualTo(1);
+		}
+	}
+
+	@Test
+	void readWithoutCommitReturnsSameRecords() throws Exception {
+		try (DiskSpool spool = new DiskSpool(directory, 1024, 10_000, FSYNC_INTERVAL)) {
+			appendAll(spool, 5);
+
+			assertThat(strings(spool.read(3))).containsExactly("event-0", "event-1", "event-2");
+			assertThat(strings(spool.read(3))).containsExactly("event-0", "event-1", "event-2");
+		}
+	}
+
+	@Test
+	void recoversCommittedPositionAndTruncatesTornTail() throws Exception {
+		try (DiskSpool spool = new DiskSpool(directory, 100, 10_000, FSYNC_INTERVAL)) {
+			appendAll(spool, 20);
+			spool.commit(spool.read(8));
+		}
+		Path last;
+		try (Stream<Path> files = Files.list(directory)) {
+			last = files.filter(path -> path.toString().endsWith(".spool")).sorted().reduce((a, b) -> b).orElseThrow();
+		}
+		try (FileChannel channel = FileChannel.open(last, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+			// Header of a record whose payload never made it to disk
+			channel.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 50, 1, 2, 3}));
+		}
+
+		try (DiskSpool spool = new DiskSpool(directory, 100, 10_000, FSYNC_INTERVAL)) {
+			assertThat(spool.getPendingRecords()).isEqualTo(12);
+			spool.append(bytes("after-crash")).get();
+
+			List<String> replayed = drain(spool);
+			List<String> expected = new ArrayList<>(expected(8, 20));
+			expected.add("after-crash");
+			assertThat(replayed).containsExactlyElementsOf(expected);
+			assertThat(spool.getCorruptRecords()).isZero();
+		}
+	}
+
+	@Test
+	void rejectsAppendsBeyondMaxSize() throws Exception {
+		try (DiskSpool spool = new DiskSpool(directory, 1024, 100, FSYNC_INTERVAL)) {
+			spool.append(new byte[80]);
+			assertThatThrownBy(() -> spool.append(new byte[80])).isInstanceOf(SpoolFullException.class);
+		}
+	}
+
+	@Test
+	void closeCompletesEveryAppendItSynced() throws Exception {
+		for (int round = 0; round < 20; round++) {
+			List<CompletableFuture<Void>> durable = new ArrayList<>();
+			// fsyncs back to back, so that close() tends to catch one running
+			DiskSpool spool = new DiskSpool(directory.resolve("round-" + round), 1024, 100_000, Duration.ofNanos(1000));
+			for (int i = 0; i < 100; i++) {
+				durable.add(spool.append(bytes("event-" + i)));
+			}
+			spool.close();
+
+			assertThat(durable).allSatisfy(future -> assertThat(future).isCompleted());
+		}
+	}
+
+	private static void appendAll(DiskSpool spool, int count) throws Exception {
+		List<CompletableFuture<Void>> durable = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			durable.add(spool.append(bytes("event-" + i)));
+		}
+		CompletableFuture.allOf(durable.toArray(CompletableFuture[]::new)).get();
+	}
+
+	private static List<String> drain(DiskSpool spool) throws IOException {
+		List<String> records = new ArrayList<>();
+		DiskSpool.Batch batch;
+		while (!(batch = spool.read(7)).records().isEmpty()) {
+			records.addAll(strings(batch));
+			spool.commit(batch);
+		}
+		return records;
+	}
+
+	private static List<String> strings(DiskSpool.Batch batch) {
+		return batch.records().stream().map(record -> new String(record, StandardCharsets.UTF_8)).toList();
+	}
+
+	private static List<String> expected(int from, int to) {
+		List<String> records = new ArrayList<>();
+		for (int i = from; i < to; i++) {
+			records.add("event-" + i);
+		}
+		return records;
+	}
+
+	private long segmentCount() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(path -> path.toString().endsWith(".spool")).count();
+		}
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+}
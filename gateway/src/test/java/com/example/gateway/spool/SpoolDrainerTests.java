@@ -0,0 +1,143 @@
+package com.example.gateway.spool;
+
+import com.example.gateway.config.IngestProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.errors.NetworkException;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpoolDrainerTests {
+
+	@TempDir
+	Path directory;
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final IngestProperties properties = new IngestProperties();
+	// Network errors left to fail the record whose value is "flaky"
+	private final AtomicInteger networkErrors = new AtomicInteger();
+	private final MockProducer<String, byte[]> producer =
+			new MockProducer<>(true, new StringSerializer(), new ByteArraySerializer()) {
+				@Override
+				public synchronized Future<RecordMetadata> send(ProducerRecord<String, byte[]> record,
+						Callback callback) {
+					String value = new String(record.value(), StandardCharsets.UTF_8);
+					RuntimeException error = value.equals("too-large") ? new RecordTooLargeException("too large")
+							: value.equals("flaky") && networkErrors.getAndDecrement() > 0
+									? new NetworkException("connection reset") : null;
+					if (error == null) {
+						return super.send(record, callback);
+					}
+					callback.onCompletion(null, error);
+					return CompletableFuture.failedFuture(error);
+				}
+
+				// KafkaTemplate closes the producer after every send, which a factory's producers normally ignore
+				@Override
+				public void close(Duration timeout) {
+				}
+			};
+	private DiskSpool spool;
+	private SpoolDrainer drainer;
+
+	@AfterEach
+	void tearDown() throws Exception {
+		if (drainer != null) {
+			drainer.stop();
+		}
+		if (spool != null) {
+			spool.close();
+		}
+	}
+
+	@Test
+	void setsAsideACorruptEntryAndReplaysTheRestOfItsBatch() throws Exception {
+		start(entry("event-0"), "not a spool entry".getBytes(StandardCharsets.UTF_8), entry("event-2"));
+
+		assertThat(awaitSent(2)).containsExactly("event-0", "event-2");
+		awaitEmpty();
+		assertThat(deadLetters("undecodable")).isEqualTo(1);
+		assertThat(Files.size(directory.resolve("dead-letters"))).isPositive();
+	}
+
+	@Test
+	void setsAsideRecordsKafkaRejectsForGood() throws Exception {
+		start(entry("event-0"), entry("too-large"), entry("event-2"));
+
+		assertThat(awaitSent(2)).containsExactly("event-0", "event-2");
+		awaitEmpty();
+		assertThat(deadLetters("rejected")).isEqualTo(1);
+	}
+
+	@Test
+	void retriesTheBatchOnRetriableErrors() throws Exception {
+		networkErrors.set(1);
+		start(entry("event-0"), entry("flaky"));
+
+		awaitEmpty();
+		// The first round's event-0 went out before the round failed, and goes out again with the retry
+		assertThat(sent()).containsExactly("event-0", "event-0", "flaky");
+		assertThat(deadLetters("rejected")).isZero();
+	}
+
+	private void start(byte[]... entries) throws Exception {
+		properties.getSpool().setDrainInterval(Duration.ofMillis(10));
+		properties.getSpool().setMaxDrainBackoff(Duration.ofMillis(20));
+		spool = new DiskSpool(directory, 1024, 10_000, Duration.ofMillis(5));
+		for (byte[] entry : entries) {
+			spool.append(entry).get(5, TimeUnit.SECONDS);
+		}
+		drainer = new SpoolDrainer(spool, new KafkaTemplate<>(() -> producer), properties, meterRegistry);
+		drainer.start();
+	}
+
+	private List<String> sent() {
+		return producer.history().stream().map(record -> new String(record.value(), StandardCharsets.UTF_8))
+				.toList();
+	}
+
+	private List<String> awaitSent(int count) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (producer.history().size() < count && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		return sent();
+	}
+
+	private void awaitEmpty() throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!spool.isEmpty() && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(spool.isEmpty()).isTrue();
+	}
+
+	private double deadLetters(String reason) {
+		return meterRegistry.get("ingest.spool.dead.letters").tag("reason", reason).counter().count();
+	}
+
+	private static byte[] entry(String value) {
+		return SpoolRecordCodec.encode(new ProducerRecord<>("ingest-events", "install-1",
+				value.getBytes(StandardCharsets.UTF_8)));
+	}
+}
@@ -0,0 +1,48 @@
+package com.example.gateway.spool;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpoolRecordCodecTests {
+
+	private static final String TOPIC = "ingest-events";
+
+	@Test
+	void roundTripsKeyHeadersAndValue() {
+		List<Header> headers = List.of(
+				new RecordHeader("traceparent", bytes("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01")),
+				new RecordHeader("globalId", bytes("client-1")));
+		ProducerRecord<String, byte[]> record =
+				new ProducerRecord<>(TOPIC, null, "client-1", bytes("{\"event\":\"click\"}"), headers);
+
+		ProducerRecord<String, byte[]> decoded = SpoolRecordCodec.decode(SpoolRecordCodec.encode(record), TOPIC);
+
+		assertThat(decoded.topic()).isEqualTo(TOPIC);
+		assertThat(decoded.key()).isEqualTo("client-1");
+		assertThat(decoded.value()).isEqualTo(record.value());
+		assertThat(decoded.headers().toArray()).containsExactly(headers.toArray(Header[]::new));
+	}
+
+	@Test
+	void roundTripsNullKeyAndHeaderValue() {
+		ProducerRecord<String, byte[]> record = new ProducerRecord<>(TOPIC, null, null, bytes("{}"),
+				List.<Header>of(new RecordHeader("empty", null)));
+
+		ProducerRecord<String, byte[]> decoded = SpoolRecordCodec.decode(SpoolRecordCodec.encode(record), TOPIC);
+
+		assertThat(decoded.key()).isNull();
+		assertThat(decoded.headers().lastHeader("empty").value()).isNull();
+		assertThat(decoded.value()).isEqualTo(bytes("{}"));
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+}
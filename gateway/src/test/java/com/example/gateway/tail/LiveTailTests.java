@@ -0,0 +1,189 @@
+package com.example.gateway.tail;
+
+import com.example.gateway.ingest.EventContext;
+import com.example.gateway.ingest.EventFormat;
+import com.example.gateway.ingest.EventPublisher;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LiveTailTests {
+
+	private static final String TOPIC = "ingest-events";
+	private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+
+	private final MockConsumer<String, byte[]> consumer = new MockConsumer<>(OffsetResetStrategy.LATEST);
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private long offset;
+
+	@BeforeEach
+	void setUp() {
+		consumer.updatePartitions(TOPIC, List.of(new PartitionInfo(TOPIC, 0, null, null, null)));
+		consumer.updateEndOffsets(Map.of(new TopicPartition(TOPIC, 0), 0L));
+	}
+
+	@Test
+	void fansOutMatchingEventsAsJson() throws Exception {
+		LiveTail liveTail = liveTail(16);
+		CountDownLatch subscribed = new CountDownLatch(1);
+		byte[] smile = new ObjectMapper(new SmileFactory()).writeValueAsBytes(Map.of("event", "view"));
+		consumer.schedulePollTask(() -> {
+			await(subscribed);
+			consumer.addRecord(record("install-1", null, "click", json("click"), null));
+			consumer.addRecord(record("install-2", TRACE_ID, "click", json("click"), null));
+			consumer.addRecord(record("install-1", TRACE_ID, "view", smile, "smile"));
+		});
+
+		CompletableFuture<List<TailEvent>> byClient = liveTail.subscribe(new TailFilter("install-1", null, null))
+				.take(2).collectList().toFuture();
+		CompletableFuture<List<TailEvent>> byTrace = liveTail.subscribe(
+				new TailFilter(null, TRACE_ID.toUpperCase(), "view")).take(1).collectList().toFuture();
+		subscribed.countDown();
+
+		List<TailEvent> clientEvents = byClient.get(5, TimeUnit.SECONDS);
+		List<TailEvent> traceEvents = byTrace.get(5, TimeUnit.SECONDS);
+
+		assertThat(clientEvents).extracting(TailEvent::eventType).containsExactly("click", "view");
+		assertThat(clientEvents.get(1).json()).isEqualTo("{\"event\":\"view\"}");
+		assertThat(clientEvents.get(1).id()).isEqualTo("0-2");
+		assertThat(traceEvents).containsExactly(clientEvents.get(1));
+		assertThat(liveTail.subscriberCount()).isZero();
+	}
+
+	@Test
+	void leavesOutEventTypesWithControlCharacters() {
+		LiveTail liveTail = liveTail(16);
+		consumer.schedulePollTask(() -> consumer.addRecord(record("install-1", null, "click\r\nevent: admin",
+				json("click"), null)));
+
+		TailEvent event = liveTail.subscribe(new TailFilter("install-1", null, null)).blockFirst(Duration.ofSeconds(5));
+
+		assertThat(event.eventType()).isNull();
+		assertThat(event.json()).isEqualTo("{\"event\":\"click\"}");
+	}
+
+	@Test
+	void dropsSubscribersThatFallBehind() throws Exception {
+		LiveTail liveTail = liveTail(2);
+		consumer.schedulePollTask(() -> {
+			for (int i = 0; i < 5; i++) {
+				consumer.addRecord(record("install-1", null, "click", json("click"), null));
+			}
+		});
+
+		List<TailEvent> received = new CopyOnWriteArrayList<>();
+		CompletableFuture<Throwable> error = new CompletableFuture<>();
+		BaseSubscriber<TailEvent> reader = new BaseSubscriber<>() {
+			@Override
+			protected void hookOnSubscribe(Subscription subscription) {
+				// Nothing reads the stream until the buffer has overflowed
+			}
+
+			@Override
+			protected void hookOnNext(TailEvent event) {
+				received.add(event);
+			}
+
+			@Override
+			protected void hookOnError(Throwable throwable) {
+				error.complete(throwable);
+			}
+		};
+		liveTail.subscribe(new TailFilter("install-1", null, null)).subscribe(reader);
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (meterRegistry.get("ingest.tail.dropped").counter().count() == 0 && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		reader.request(Long.MAX_VALUE);
+
+		assertThat(error.get(5, TimeUnit.SECONDS)).isInstanceOf(SlowSubscriberException.class);
+		assertThat(received).hasSize(2);
+		assertThat(liveTail.subscriberCount()).isZero();
+	}
+
+	@Test
+	void capsSubscribers() {
+		LiveTail liveTail = new LiveTail(() -> consumer, TOPIC, 16, 1, new JsonFactory(), meterRegistry);
+
+		Disposable first = liveTail.subscribe(new TailFilter("install-1", null, null)).subscribe();
+		assertThatThrownBy(() -> liveTail.subscribe(new TailFilter("install-2", null, null)).blockFirst())
+				.isInstanceOf(TooManySubscribersException.class);
+		first.dispose();
+		assertThat(liveTail.subscriberCount()).isZero();
+	}
+
+	@Test
+	void registersSubscribersOnlyOnSubscription() {
+		LiveTail liveTail = liveTail(16);
+
+		Flux<TailEvent> events = liveTail.subscribe(new TailFilter("install-1", null, null));
+		assertThat(liveTail.subscriberCount()).isZero();
+
+		Disposable subscription = events.subscribe();
+		assertThat(liveTail.subscriberCount()).isEqualTo(1);
+		subscription.dispose();
+		assertThat(liveTail.subscriberCount()).isZero();
+	}
+
+	private LiveTail liveTail(int bufferSize) {
+		return new LiveTail(() -> consumer, TOPIC, bufferSize, 10, new JsonFactory(), meterRegistry);
+	}
+
+	private ConsumerRecord<String, byte[]> record(String globalId, String traceId, String eventType, byte[] value,
+												  String format) {
+		RecordHeaders headers = new RecordHeaders();
+		headers.add(EventPublisher.GLOBAL_ID_RECORD_HEADER, bytes(globalId));
+		if (traceId != null) {
+			headers.add(EventContext.TRACEPARENT_HEADER, bytes("00-" + traceId + "-00f067aa0ba902b7-01"));
+		}
+		headers.add(EventPublisher.EVENT_TYPE_RECORD_HEADER, bytes(eventType));
+		if (format != null) {
+			headers.add(EventFormat.RECORD_HEADER, bytes(format));
+		}
+		return new ConsumerRecord<>(TOPIC, 0, offset++, 0L, TimestampType.CREATE_TIME, -1, -1, globalId, value,
+				headers, Optional.empty());
+	}
+
+	private static byte[] json(String eventType) {
+		return bytes("{\"event\":\"" + eventType + "\"}");
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
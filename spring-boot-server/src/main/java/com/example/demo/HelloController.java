@@ -2,6 +2,7 @@ package com.example.demo;
 
 import com.example.demo.entity.LogEntry;
 import com.example.demo.service.LogSaveService;
+import com.example.tracing.GlobalId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,6 +34,7 @@ public class HelloController {
                 LocalDateTime.now(),
                 "INFO"
         );
+        logEntry.setGlobalId(GlobalId.current());
         logSaveService.saveLog(logEntry);
         log.info("LogEntry saved to DB with traceId: {}", traceId);
 
@@ -53,6 +55,7 @@ public class HelloController {
                 LocalDateTime.now(),
                 "INFO"
         );
+        logEntry.setGlobalId(GlobalId.current());
         logSaveService.saveLog(logEntry);
         log.info("LogEntry saved to DB with traceId: {}", traceId);
 
@@ -0,0 +1,67 @@
+package com.example.demo.config;
+
+import com.example.demo.ingest.IngestEventMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.CommonErrorHandler;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.ExponentialBackOff;
+
+import java.time.Duration;
+import java.time.ZoneId;
+
+@Configuration
+public class IngestConsumerConfig {
+
+    private static final String DEAD_LETTER_SUFFIX = "-dlt";
+
+    @Bean
+    public IngestEventMapper ingestEventMapper(ObjectMapper objectMapper) {
+        return new IngestEventMapper(objectMapper.getFactory(), ZoneId.systemDefault());
+    }
+
+    /**
+     * Where records that can't be stored go, with their key and headers and the exception in further
+     * headers, so that they can be looked at and replayed. The dead-letter topic may have fewer partitions
+     * than the ingest topic, so the producer picks the partition.
+     */
+    @Bean
+    public DeadLetterPublishingRecoverer ingestDeadLetterRecoverer(KafkaTemplate<String, byte[]> kafkaTemplate) {
+        return new DeadLetterPublishingRecoverer(kafkaTemplate,
+                (record, e) -> new TopicPartition(record.topic() + DEAD_LETTER_SUFFIX, -1));
+    }
+
+    @Bean
+    public NewTopic ingestDeadLetterTopic(@Value("${ingest.consumer.topic:ingest-events}") String topic) {
+        return TopicBuilder.name(topic + DEAD_LETTER_SUFFIX).partitions(1).build();
+    }
+
+    /**
+     * Picked up by Spring Boot's listener container factory. A failed poll (typically the database being
+     * unavailable) is retried from the same offsets with exponential backoff, so events are not dropped
+     * while Postgres restarts; the partitions just stop advancing. After {@code max-elapsed} the poll's
+     * records go to the dead-letter topic so that the partitions move again. Rejected rows and unreadable
+     * records are dead-lettered by the listener itself; should one of those errors still reach the handler,
+     * it is not retried.
+     */
+    @Bean
+    public CommonErrorHandler ingestErrorHandler(
+            DeadLetterPublishingRecoverer ingestDeadLetterRecoverer,
+            @Value("${ingest.consumer.retry.max-elapsed:15m}") Duration maxElapsed) {
+        ExponentialBackOff backOff = new ExponentialBackOff(500, 2.0);
+        backOff.setMaxInterval(30_000);
+        backOff.setMaxElapsedTime(maxElapsed.toMillis());
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(ingestDeadLetterRecoverer, backOff);
+        errorHandler.addNotRetryableExceptions(DataIntegrityViolationException.class, JsonProcessingException.class);
+        return errorHandler;
+    }
+}
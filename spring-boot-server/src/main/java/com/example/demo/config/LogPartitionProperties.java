@@ -0,0 +1,36 @@
+package com.example.demo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Daily partitions of the log_entry table, bound from {@code log.partitions.*}.
+ */
+@ConfigurationProperties(prefix = "log.partitions")
+public class LogPartitionProperties {
+
+    /**
+     * Days of logs kept. Partitions whose day ended before that are dropped.
+     */
+    private int retentionDays = 14;
+
+    /**
+     * Days after today that get a partition in advance, so inserts never wait on DDL.
+     */
+    private int precreateDays = 3;
+
+    public int getRetentionDays() {
+        return retentionDays;
+    }
+
+    public void setRetentionDays(int retentionDays) {
+        this.retentionDays = retentionDays;
+    }
+
+    public int getPrecreateDays() {
+        return precreateDays;
+    }
+
+    public void setPrecreateDays(int precreateDays) {
+        this.precreateDays = precreateDays;
+    }
+}
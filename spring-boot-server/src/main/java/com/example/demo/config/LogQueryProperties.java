@@ -0,0 +1,71 @@
+package com.example.demo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Limits of the log query API, bound from {@code log.query.*}.
+ */
+@ConfigurationProperties(prefix = "log.query")
+public class LogQueryProperties {
+
+    /**
+     * Window searched when a request gives no time range, ending now.
+     */
+    private Duration defaultWindow = Duration.ofHours(1);
+
+    /**
+     * Widest time range one request may search. Bounds how many daily partitions a query touches.
+     */
+    private Duration maxWindow = Duration.ofDays(7);
+
+    private int defaultPageSize = 100;
+
+    private int maxPageSize = 1000;
+
+    /**
+     * Entries returned (and cached) per trace at most.
+     */
+    private int maxTraceEntries = 5000;
+
+    public Duration getDefaultWindow() {
+        return defaultWindow;
+    }
+
+    public void setDefaultWindow(Duration defaultWindow) {
+        this.defaultWindow = defaultWindow;
+    }
+
+    public Duration getMaxWindow() {
+        return maxWindow;
+    }
+
+    public void setMaxWindow(Duration maxWindow) {
+        this.maxWindow = maxWindow;
+    }
+
+    public int getDefaultPageSize() {
+        return defaultPageSize;
+    }
+
+    public void setDefaultPageSize(int defaultPageSize) {
+        this.defaultPageSize = defaultPageSize;
+    }
+
+    public int getMaxPageSize() {
+        return maxPageSize;
+    }
+
+    public void setMaxPageSize(int maxPageSize) {
+        this.maxPageSize = maxPageSize;
+    }
+
+    public int getMaxTraceEntries() {
+        return maxTraceEntries;
+    }
+
+    public void setMaxTraceEntries(int maxTraceEntries) {
+        this.maxTraceEntries = maxTraceEntries;
+    }
+}
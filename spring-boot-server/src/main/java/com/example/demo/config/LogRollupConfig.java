@@ -0,0 +1,37 @@
+package com.example.demo.config;
+
+import com.example.demo.repository.LogRollupRepository;
+import com.example.demo.service.LogRollupMaintenance;
+import com.example.demo.service.LogRollupService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Minute and hour rollups of log_entry. LogEntryBatchRepository picks up the repository and adds every
+ * batch it inserts to the counts.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "log.rollup", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class LogRollupConfig {
+
+    @Bean
+    public LogRollupRepository logRollupRepository(JdbcTemplate jdbcTemplate) {
+        return new LogRollupRepository(jdbcTemplate);
+    }
+
+    @Bean
+    public LogRollupService logRollupService(LogRollupRepository rollupRepository, LogRollupProperties properties) {
+        return new LogRollupService(rollupRepository, properties);
+    }
+
+    @Bean
+    public LogRollupMaintenance logRollupMaintenance(LogRollupRepository rollupRepository, JdbcTemplate jdbcTemplate,
+                                                     PlatformTransactionManager transactionManager,
+                                                     LogRollupProperties properties, MeterRegistry meterRegistry) {
+        return new LogRollupMaintenance(rollupRepository, jdbcTemplate, transactionManager, properties, meterRegistry);
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.demo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Minute and hour rollups of log_entry, bound from {@code log.rollup.*}.
+ */
+@ConfigurationProperties(prefix = "log.rollup")
+public class LogRollupProperties {
+
+    /**
+     * Whether inserts maintain the rollup tables and the rollup API is served.
+     */
+    private boolean enabled = true;
+
+    /**
+     * How far behind now the watermark stays. Minutes are recounted from log_entry once they are this old;
+     * entries arriving later are still added to their minute as they are inserted.
+     */
+    private Duration allowedLateness = Duration.ofMinutes(5);
+
+    /**
+     * Time between recounts; each one moves the watermark forward.
+     */
+    private Duration recountInterval = Duration.ofSeconds(30);
+
+    /**
+     * Largest span of log_entry recounted in one run, so that catching up on a backlog is done in steps.
+     */
+    private Duration maxRecountWindow = Duration.ofHours(1);
+
+    /**
+     * Minute rows kept. The watermark of a new database starts this far back, so existing entries are
+     * counted too.
+     */
+    private Duration minuteRetention = Duration.ofDays(14);
+
+    /**
+     * Hour rows kept.
+     */
+    private Duration hourRetention = Duration.ofDays(400);
+
+    /**
+     * Widest time range one rollup request may read at minute resolution.
+     */
+    private Duration maxMinuteWindow = Duration.ofDays(2);
+
+    /**
+     * Widest time range one rollup request may read at hour resolution.
+     */
+    private Duration maxHourWindow = Duration.ofDays(90);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Duration getAllowedLateness() {
+        return allowedLateness;
+    }
+
+    public void setAllowedLateness(Duration allowedLateness) {
+        this.allowedLateness = allowedLateness;
+    }
+
+    public Duration getRecountInterval() {
+        return recountInterval;
+    }
+
+    public void setRecountInterval(Duration recountInterval) {
+        this.recountInterval = recountInterval;
+    }
+
+    public Duration getMaxRecountWindow() {
+        return maxRecountWindow;
+    }
+
+    public void setMaxRecountWindow(Duration maxRecountWindow) {
+        this.maxRecountWindow = maxRecountWindow;
+    }
+
+    public Duration getMinuteRetention() {
+        return minuteRetention;
+    }
+
+    public void setMinuteRetention(Duration minuteRetention) {
+        this.minuteRetention = minuteRetention;
+    }
+
+    public Duration getHourRetention() {
+        return hourRetention;
+    }
+
+    public void setHourRetention(Duration hourRetention) {
+        this.hourRetention = hourRetention;
+    }
+
+    public Duration getMaxMinuteWindow() {
+        return maxMinuteWindow;
+    }
+
+    public void setMaxMinuteWindow(Duration maxMinuteWindow) {
+        this.maxMinuteWindow = maxMinuteWindow;
+    }
+
+    public Duration getMaxHourWindow() {
+        return maxHourWindow;
+    }
+
+    public void setMaxHourWindow(Duration maxHourWindow) {
+        this.maxHourWindow = maxHourWindow;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.demo.config;
+
+import com.example.demo.repository.LogEntryQueryRepository;
+import com.example.demo.search.LogIndex;
+import com.example.demo.search.LogIndexRebuilder;
+import com.example.demo.service.LogSearchService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Full-text search of log messages. LogEntryBatchRepository picks up the index and adds every batch it
+ * inserts once the batch has committed.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "log.search", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class LogSearchConfig {
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public LogIndex logIndex(LogSearchProperties properties, LogPartitionProperties partitionProperties,
+                             MeterRegistry meterRegistry) {
+        return new LogIndex(properties, partitionProperties, meterRegistry);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public LogIndexRebuilder logIndexRebuilder(LogIndex logIndex, LogEntryQueryRepository queryRepository,
+                                               LogSearchProperties properties,
+                                               LogPartitionProperties partitionProperties) {
+        return new LogIndexRebuilder(logIndex, queryRepository, properties, partitionProperties);
+    }
+
+    @Bean
+    public LogSearchService logSearchService(LogIndex logIndex, LogIndexRebuilder rebuilder,
+                                             LogSearchProperties properties,
+                                             LogPartitionProperties partitionProperties) {
+        return new LogSearchService(logIndex, rebuilder, properties, partitionProperties);
+    }
+}
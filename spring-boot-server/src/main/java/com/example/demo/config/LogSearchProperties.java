@@ -0,0 +1,130 @@
+package com.example.demo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * The full-text index of log messages, bound from {@code log.search.*}. Days of index are kept as long as
+ * the log_entry partitions (log.partitions.retention-days).
+ */
+@ConfigurationProperties(prefix = "log.search")
+public class LogSearchProperties {
+
+    /**
+     * Whether persisted entries are indexed and the search API is served.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Directory holding one index per day of log timestamps.
+     */
+    private Path directory = Path.of("data/log-index");
+
+    /**
+     * How soon an indexed entry becomes searchable.
+     */
+    private Duration refreshInterval = Duration.ofSeconds(1);
+
+    /**
+     * How often indexed entries are made durable. After a crash, entries indexed since are indexed again
+     * from log_entry on startup.
+     */
+    private Duration commitInterval = Duration.ofMinutes(1);
+
+    /**
+     * Memory each day's index writer buffers before writing a segment.
+     */
+    private DataSize ramBuffer = DataSize.ofMegabytes(64);
+
+    /**
+     * How far below the highest committed id the startup catch-up starts. Batches take their ids from the
+     * sequence before they are inserted, so a batch indexed after the last commit can have lower ids than
+     * one indexed before it; the margin must cover the ids of the batches in flight at once. The sequence
+     * hands out one id per row, so that is the number of rows being inserted at once.
+     */
+    private long catchUpIdMargin = 1_000_000;
+
+    /**
+     * Window searched when a request gives no time range, ending now.
+     */
+    private Duration defaultWindow = Duration.ofDays(1);
+
+    private int defaultLimit = 50;
+
+    private int maxLimit = 1000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(Path directory) {
+        this.directory = directory;
+    }
+
+    public Duration getRefreshInterval() {
+        return refreshInterval;
+    }
+
+    public void setRefreshInterval(Duration refreshInterval) {
+        this.refreshInterval = refreshInterval;
+    }
+
+    public Duration getCommitInterval() {
+        return commitInterval;
+    }
+
+    public void setCommitInterval(Duration commitInterval) {
+        this.commitInterval = commitInterval;
+    }
+
+    public DataSize getRamBuffer() {
+        return ramBuffer;
+    }
+
+    public void setRamBuffer(DataSize ramBuffer) {
+        this.ramBuffer = ramBuffer;
+    }
+
+    public long getCatchUpIdMargin() {
+        return catchUpIdMargin;
+    }
+
+    public void setCatchUpIdMargin(long catchUpIdMargin) {
+        this.catchUpIdMargin = catchUpIdMargin;
+    }
+
+    public Duration getDefaultWindow() {
+        return defaultWindow;
+    }
+
+    public void setDefaultWindow(Duration defaultWindow) {
+        this.defaultWindow = defaultWindow;
+    }
+
+    public int getDefaultLimit() {
+        return defaultLimit;
+    }
+
+    public void setDefaultLimit(int defaultLimit) {
+        this.defaultLimit = defaultLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public void setMaxLimit(int maxLimit) {
+        this.maxLimit = maxLimit;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.demo.config;
+
+import com.example.demo.repository.LogEntryBatchRepository;
+import com.example.demo.service.LogWriteBehindBuffer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(prefix = "log.write-behind", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class LogWriteBehindConfig {
+
+    /**
+     * Destroyed before the repository and datasource it depends on, so stop() can still flush what is queued.
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public LogWriteBehindBuffer logWriteBehindBuffer(LogEntryBatchRepository batchRepository,
+                                                     LogWriteBehindProperties properties,
+                                                     MeterRegistry meterRegistry) {
+        return new LogWriteBehindBuffer(batchRepository, properties, meterRegistry);
+    }
+}
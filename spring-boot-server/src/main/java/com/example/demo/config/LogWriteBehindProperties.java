@@ -0,0 +1,116 @@
+package com.example.demo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Tunables for LogSaveService's write-behind buffer, bound from {@code log.write-behind.*}.
+ */
+@ConfigurationProperties(prefix = "log.write-behind")
+public class LogWriteBehindProperties {
+
+    /**
+     * Whether saveLog() returns once the entry is queued. When false every call inserts synchronously.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Entries held in memory before the overflow policy applies.
+     */
+    private int capacity = 10_000;
+
+    /**
+     * A flush starts as soon as this many entries are queued, and writes at most this many per INSERT batch.
+     */
+    private int batchSize = 500;
+
+    /**
+     * Longest time an entry waits in the buffer when fewer than batch-size entries are queued.
+     */
+    private Duration flushInterval = Duration.ofMillis(200);
+
+    /**
+     * What saveLog() does when the buffer is full.
+     */
+    private OverflowPolicy overflowPolicy = OverflowPolicy.SYNC;
+
+    /**
+     * Attempts per batch before its entries are dropped, e.g. while the database is down.
+     */
+    private int maxAttempts = 3;
+
+    /**
+     * How long shutdown waits for queued entries to be written.
+     */
+    private Duration shutdownTimeout = Duration.ofSeconds(10);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public Duration getFlushInterval() {
+        return flushInterval;
+    }
+
+    public void setFlushInterval(Duration flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public Duration getShutdownTimeout() {
+        return shutdownTimeout;
+    }
+
+    public void setShutdownTimeout(Duration shutdownTimeout) {
+        this.shutdownTimeout = shutdownTimeout;
+    }
+
+    public enum OverflowPolicy {
+
+        /**
+         * Insert the entry on the caller's thread. Nothing is lost, but the caller pays the round trip again.
+         */
+        SYNC,
+
+        /**
+         * Drop the entry and count it in {@code log.writebehind.dropped}.
+         */
+        DROP
+    }
+}
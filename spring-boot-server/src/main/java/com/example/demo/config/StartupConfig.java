@@ -0,0 +1,58 @@
+package com.example.demo.config;
+
+import com.example.demo.HelloController;
+import com.example.demo.repository.LogEntryBatchRepository;
+import com.example.demo.service.LogSaveService;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationInitializer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+
+/**
+ * Which beans stay eager when spring.main.lazy-initialization is on, as in the fast-startup profile.
+ * <p>
+ * A lazy bean is only created when something first asks for it, and its init method, @Scheduled and
+ * {@code @KafkaListener} methods are only picked up then, so the ingest consumer and the maintenance jobs
+ * would silently never run; those beans stay eager. So do the schema migration and the beans /api/hello
+ * goes through, so that the first request after a scale-out doesn't pay for creating them. What is left
+ * lazy is what the first request doesn't need: the query, rollup and search endpoints and their services.
+ * The filters are only consulted when lazy initialization is on.
+ */
+@Configuration(proxyBeanMethods = false)
+public class StartupConfig {
+
+    @Bean
+    static LazyInitializationExcludeFilter backgroundBeans() {
+        return (beanName, definition, type) -> definition.getInitMethodName() != null
+                || type != null && type.getName().startsWith("com.example.") && runsInBackground(type);
+    }
+
+    @Bean
+    static LazyInitializationExcludeFilter requestPathBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(FlywayMigrationInitializer.class, HelloController.class,
+                LogSaveService.class, LogEntryBatchRepository.class);
+    }
+
+    /**
+     * Whether the class has @Scheduled or @KafkaListener methods. Only our own classes are looked at, which
+     * keeps the scan off the hundreds of framework beans.
+     */
+    private static boolean runsInBackground(Class<?> type) {
+        if (AnnotatedElementUtils.hasAnnotation(type, KafkaListener.class)) {
+            return true;
+        }
+        for (Method method : ReflectionUtils.getUniqueDeclaredMethods(type, ReflectionUtils.USER_DECLARED_METHODS)) {
+            if (AnnotatedElementUtils.hasAnnotation(method, Scheduled.class)
+                    || AnnotatedElementUtils.hasAnnotation(method, KafkaListener.class)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.demo.controller;
+
+import com.example.demo.repository.LogQuery;
+import com.example.demo.repository.LogRecord;
+import com.example.demo.service.LogPage;
+import com.example.demo.service.LogQueryService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Read access to stored logs. Results are newest first; {@code from}/{@code to} are local date-times
+ * (e.g. 2025-09-23T14:00:00) and default to the last hour.
+ */
+@RestController
+@RequestMapping("/api/logs")
+public class LogQueryController {
+
+    private static final byte[] NEWLINE = {'\n'};
+
+    private final LogQueryService logQueryService;
+    private final ObjectWriter recordWriter;
+
+    public LogQueryController(LogQueryService logQueryService, ObjectMapper objectMapper) {
+        this.logQueryService = logQueryService;
+        // Lines are written one by one to the same response stream, which Jackson must not close
+        this.recordWriter = objectMapper.writerFor(LogRecord.class).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    @GetMapping
+    public LogPage findLogs(@RequestParam(required = false) String traceId,
+                            @RequestParam(required = false) String globalId,
+                            @RequestParam(required = false) String level,
+                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                            @RequestParam(required = false) String cursor,
+                            @RequestParam(required = false) Integer limit) {
+        return logQueryService.findPage(traceId, globalId, level, from, to, cursor, limit);
+    }
+
+    /**
+     * Same filters as {@link #findLogs}, without paging: every match is written as one NDJSON line as soon as
+     * it is read, so the server never holds the whole result.
+     */
+    @GetMapping(path = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamLogs(
+            @RequestParam(required = false) String traceId,
+            @RequestParam(required = false) String globalId,
+            @RequestParam(required = false) String level,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor) {
+        // Resolved up front, so a bad request still gets a 400 before the response is committed
+        LogQuery query = logQueryService.buildQuery(traceId, globalId, level, from, to, cursor);
+
+        StreamingResponseBody body = out -> {
+            try {
+                logQueryService.stream(query, record -> write(out, record));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @GetMapping("/traces/{traceId}")
+    public List<LogRecord> findTrace(@PathVariable String traceId) {
+        return logQueryService.findTrace(traceId);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ProblemDetail badRequest(IllegalArgumentException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage());
+    }
+
+    private void write(OutputStream out, LogRecord record) {
+        try {
+            recordWriter.writeValue(out, record);
+            out.write(NEWLINE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.demo.controller;
+
+import com.example.demo.repository.LogRollupRow;
+import com.example.demo.service.LogRollupService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Log volume per minute or hour, by level and message, for dashboards. {@code from}/{@code to} are local
+ * date-times like those of the log query API; e.g.
+ * {@code GET /api/logs/rollup?resolution=hour&from=2025-09-23T00:00:00&level=ERROR}.
+ */
+@RestController
+@ConditionalOnProperty(prefix = "log.rollup", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class LogRollupController {
+
+    private final LogRollupService logRollupService;
+
+    public LogRollupController(LogRollupService logRollupService) {
+        this.logRollupService = logRollupService;
+    }
+
+    @GetMapping("/api/logs/rollup")
+    public List<LogRollupRow> findRollup(@RequestParam(required = false) String resolution,
+                                         @RequestParam(required = false) String level,
+                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return logRollupService.find(resolution, level, from, to);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ProblemDetail badRequest(IllegalArgumentException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage());
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.demo.controller;
+
+import com.example.demo.search.LogSearchHit;
+import com.example.demo.service.LogSearchService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Full-text search of log messages, e.g. {@code GET /api/logs/search?q=payment+timeout&level=ERROR}.
+ * {@code q} takes the simple query syntax: {@code "a phrase"}, {@code -excluded}, {@code prefix*} and
+ * {@code a | b}. {@code from}/{@code to} are local date-times and default to the last day.
+ */
+@RestController
+@RequestMapping("/api/logs/search")
+@ConditionalOnProperty(prefix = "log.search", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class LogSearchController {
+
+    private final LogSearchService logSearchService;
+
+    public LogSearchController(LogSearchService logSearchService) {
+        this.logSearchService = logSearchService;
+    }
+
+    @GetMapping
+    public List<LogSearchHit> search(@RequestParam(required = false) String q,
+                                     @RequestParam(required = false) String traceId,
+                                     @RequestParam(required = false) String globalId,
+                                     @RequestParam(required = false) String level,
+                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                     @RequestParam(required = false) Integer limit,
+                                     @RequestParam(required = false) String order) {
+        return logSearchService.search(q, traceId, globalId, level, from, to, limit, order);
+    }
+
+    /**
+     * Re-indexes the days from {@code from} to {@code to} (ISO dates, both included; by default every day in
+     * retention) from the database in the background. 400 for days outside retention or after today, 409 if a
+     * rebuild is already running.
+     */
+    @PostMapping("/rebuild")
+    public ResponseEntity<Void> rebuild(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return logSearchService.rebuild(from, to)
+                ? ResponseEntity.accepted().build()
+                : ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ProblemDetail badRequest(IllegalArgumentException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage());
+    }
+}
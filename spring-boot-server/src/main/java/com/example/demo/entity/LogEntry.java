@@ -1,22 +1,38 @@
 package com.example.demo.entity;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
 import java.time.LocalDateTime;
 
 @Entity
 public class LogEntry {
 
+    // Inserts go through LogEntryBatchRepository, which takes one nextval per row (see db/migration V4)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "log_entry_seq")
+    @SequenceGenerator(name = "log_entry_seq", sequenceName = "log_entry_seq", allocationSize = 1)
     private Long id;
     private String traceId;
     private String message;
+    // Partition key of the log_entry table (see db/migration), so it can't be null
+    @Column(nullable = false)
     private LocalDateTime timestamp;
     private String level;
 
+    // Set for client events consumed from the ingest-events topic
+    private String globalId;
+    private String eventId;
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(columnDefinition = "jsonb")
+    private String payload;
+
     // Constructors
     public LogEntry() {
     }
@@ -68,4 +84,28 @@ public class LogEntry {
     public void setLevel(String level) {
         this.level = level;
     }
+
+    public String getGlobalId() {
+        return globalId;
+    }
+
+    public void setGlobalId(String globalId) {
+        this.globalId = globalId;
+    }
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(String eventId) {
+        this.eventId = eventId;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
 }
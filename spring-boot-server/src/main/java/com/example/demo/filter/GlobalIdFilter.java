@@ -0,0 +1,44 @@
+package com.example.demo.filter;
+
+import com.example.tracing.GlobalId;
+import io.micrometer.common.KeyValue;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.filter.ServerHttpObservationFilter;
+
+import java.io.IOException;
+
+/**
+ * Resolves the client's {@code X-Global-ID} once per request. The value tags the request's server span, and
+ * is current ({@link GlobalId#current()}, MDC) while the request is handled, including on threads the
+ * request hands work to through context propagation.
+ * <p>
+ * Only the server span gets the attribute, as a high-cardinality key value so it stays out of the
+ * http.server.requests metrics. Child spans (JDBC, Kafka) belong to the same trace and are found through it.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2) // inside ServerHttpObservationFilter, which starts the server observation
+public class GlobalIdFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String globalId = GlobalId.resolve(request.getHeader(GlobalId.HEADER));
+        if (globalId == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        ServerHttpObservationFilter.findObservationContext(request)
+                .ifPresent(context -> context.addHighCardinalityKeyValue(KeyValue.of(GlobalId.KEY, globalId)));
+        try (GlobalId.Scope ignored = GlobalId.open(globalId)) {
+            chain.doFilter(request, response);
+        }
+    }
+}
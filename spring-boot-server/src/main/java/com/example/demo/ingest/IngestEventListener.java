@@ -0,0 +1,124 @@
+package com.example.demo.ingest;
+
+import com.example.demo.entity.LogEntry;
+import com.example.demo.repository.LogEntryBatchRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persists client events from the ingest-events topic, one poll at a time.
+ * <p>
+ * The listener is a batch listener: each poll is mapped in one pass and written with a single JDBC batch.
+ * The container commits the poll's offsets only after this method returns, i.e. after the insert has been
+ * committed, so a crash or a failed insert replays the poll (at-least-once).
+ * <p>
+ * A record that can never be stored must not hold its partition up: one that isn't an object in its format
+ * (JSON, Smile or CBOR), or one PostgreSQL rejects (say a {@code \u0000} escape, which jsonb can't hold), is
+ * handed to the dead-letter recoverer instead. A batch the database rejects is retried one row at a time to
+ * find the offending rows; any other failure, like the database being down, fails the whole poll.
+ */
+@Component
+public class IngestEventListener {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestEventListener.class);
+
+    private final IngestEventMapper mapper;
+    private final LogEntryBatchRepository batchRepository;
+    private final ConsumerRecordRecoverer deadLetters;
+    private final DistributionSummary batchSize;
+    private final Timer flushLatency;
+    private final Timer lag;
+    private final Counter unreadable;
+    private final Counter rejected;
+
+    public IngestEventListener(IngestEventMapper mapper, LogEntryBatchRepository batchRepository,
+                               ConsumerRecordRecoverer deadLetters, MeterRegistry meterRegistry) {
+        this.mapper = mapper;
+        this.batchRepository = batchRepository;
+        this.deadLetters = deadLetters;
+        this.batchSize = DistributionSummary.builder("ingest.consumer.batch.size")
+                .description("Records per poll written to the database")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.flushLatency = Timer.builder("ingest.consumer.flush.latency")
+                .description("Time to write one poll's records to the database and commit")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.lag = Timer.builder("ingest.consumer.lag")
+                .description("Time from the gateway producing a record to it being committed to the database")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.unreadable = deadLetterCounter(meterRegistry, "unreadable");
+        this.rejected = deadLetterCounter(meterRegistry, "rejected");
+    }
+
+    private static Counter deadLetterCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("ingest.consumer.dead.letters")
+                .description("Records sent to the dead-letter topic instead of being stored")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    @KafkaListener(id = "ingest-events-writer", topics = "${ingest.consumer.topic:ingest-events}",
+            batch = "true")
+    public void onEvents(List<ConsumerRecord<String, byte[]>> records) {
+        List<LogEntry> entries = new ArrayList<>(records.size());
+        List<ConsumerRecord<String, byte[]>> sources = new ArrayList<>(records.size());
+        long oldestTimestamp = Long.MAX_VALUE;
+        for (ConsumerRecord<String, byte[]> record : records) {
+            try {
+                entries.add(mapper.map(record));
+                sources.add(record);
+                oldestTimestamp = Math.min(oldestTimestamp, record.timestamp());
+            } catch (IOException e) {
+                deadLetter(record, e, unreadable);
+            }
+        }
+
+        long start = System.nanoTime();
+        try {
+            batchRepository.insertAll(entries);
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Database rejected a batch of {} events, inserting them one by one: {}", entries.size(),
+                    e.getMostSpecificCause().getMessage());
+            insertEach(entries, sources);
+        }
+        flushLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        batchSize.record(entries.size());
+        if (!entries.isEmpty()) {
+            lag.record(Math.max(0, System.currentTimeMillis() - oldestTimestamp), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void insertEach(List<LogEntry> entries, List<ConsumerRecord<String, byte[]>> sources) {
+        for (int i = 0; i < entries.size(); i++) {
+            try {
+                batchRepository.insertAll(List.of(entries.get(i)));
+            } catch (DataIntegrityViolationException e) {
+                deadLetter(sources.get(i), e, rejected);
+            }
+        }
+    }
+
+    // Throws if the record can't be dead-lettered either, which fails the poll so that it is retried
+    private void deadLetter(ConsumerRecord<String, byte[]> record, Exception cause, Counter counter) {
+        log.warn("Dead-lettering event at {}-{}@{}: {}", record.topic(), record.partition(), record.offset(),
+                cause.getMessage());
+        deadLetters.accept(record, cause);
+        counter.increment();
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.demo.ingest;
+
+import com.example.demo.entity.LogEntry;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Turns a record from the ingest-events topic into a {@link LogEntry}.
+ * <p>
+ * The gateway has already validated the payload, so it is only scanned once with a streaming parser for the
+ * few top-level fields that get their own column; JSON bytes are stored as they are. The gateway may
+ * store events as Smile or CBOR instead, named by the {@code format} header; those are read the same way
+ * and transcoded to JSON text for the payload column. The trace ID and the client's global ID come from
+ * the record headers.
+ */
+public class IngestEventMapper {
+
+    static final String TRACEPARENT_HEADER = "traceparent";
+    static final String GLOBAL_ID_HEADER = "globalId";
+    static final String FORMAT_HEADER = "format";
+    static final String EVENT_LEVEL = "EVENT";
+
+    private final JsonFactory jsonFactory;
+    private final JsonFactory smileFactory = new SmileFactory();
+    private final JsonFactory cborFactory = new CBORFactory();
+    private final ZoneId zone;
+
+    public IngestEventMapper(JsonFactory jsonFactory, ZoneId zone) {
+        this.jsonFactory = jsonFactory;
+        this.zone = zone;
+    }
+
+    /**
+     * @throws IOException if the value is not an object in its format, or the format is unknown
+     */
+    public LogEntry map(ConsumerRecord<String, byte[]> record) throws IOException {
+        JsonFactory factory = factory(header(record, FORMAT_HEADER));
+        String eventId = null;
+        String eventType = null;
+        String timestamp = null;
+        try (JsonParser parser = factory.createParser(record.value())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Event must be a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (value == JsonToken.VALUE_STRING) {
+                    switch (field) {
+                        case "eventId" -> eventId = parser.getText();
+                        case "event" -> eventType = parser.getText();
+                        case "timestamp" -> timestamp = parser.getText();
+                        default -> {
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        LogEntry entry = new LogEntry(traceId(header(record, TRACEPARENT_HEADER)), eventType,
+                timestamp(timestamp, record.timestamp()), EVENT_LEVEL);
+        entry.setGlobalId(header(record, GLOBAL_ID_HEADER));
+        entry.setEventId(eventId);
+        entry.setPayload(factory == jsonFactory
+                ? new String(record.value(), StandardCharsets.UTF_8)
+                : toJson(factory, record.value()));
+        return entry;
+    }
+
+    private JsonFactory factory(String format) throws IOException {
+        if (format == null) {
+            return jsonFactory;
+        }
+        return switch (format) {
+            case "smile" -> smileFactory;
+            case "cbor" -> cborFactory;
+            default -> throw new IOException("Unknown event format: " + format);
+        };
+    }
+
+    private String toJson(JsonFactory factory, byte[] value) throws IOException {
+        StringWriter json = new StringWriter(value.length * 2);
+        try (JsonParser parser = factory.createParser(value);
+             JsonGenerator generator = jsonFactory.createGenerator(json)) {
+            parser.nextToken();
+            generator.copyCurrentStructure(parser);
+        }
+        return json.toString();
+    }
+
+    private LocalDateTime timestamp(String value, long recordTimestamp) {
+        if (value != null) {
+            try {
+                return LocalDateTime.parse(value);
+            } catch (DateTimeParseException e) {
+                try {
+                    return OffsetDateTime.parse(value).atZoneSameInstant(zone).toLocalDateTime();
+                } catch (DateTimeParseException ignored) {
+                    // Fall back to when the gateway produced the record
+                }
+            }
+        }
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(recordTimestamp), zone);
+    }
+
+    private static String header(ConsumerRecord<?, ?> record, String name) {
+        Header header = record.headers().lastHeader(name);
+        return header != null && header.value() != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+
+    // traceparent is "00-<32 hex trace id>-<16 hex span id>-<flags>"
+    private static String traceId(String traceparent) {
+        return traceparent != null && traceparent.length() >= 35 ? traceparent.substring(3, 35) : null;
+    }
+}
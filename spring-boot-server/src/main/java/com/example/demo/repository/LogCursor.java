@@ -0,0 +1,40 @@
+package com.example.demo.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of a row in the (timestamp, id) order of the query API, along with the time window of the query
+ * it came from, so that following pages keep that window instead of resolving a default one again. Clients
+ * get it as an opaque token and send it back to continue where the previous page ended.
+ */
+public record LogCursor(LocalDateTime timestamp, long id, LocalDateTime from, LocalDateTime to) {
+
+    public static LogCursor of(LogRecord record, LocalDateTime from, LocalDateTime to) {
+        return new LogCursor(record.timestamp(), record.id(), from, to);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token wasn't produced by {@link #encode()}
+     */
+    public static LogCursor decode(String token) {
+        String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        String[] parts = value.split(",", -1);
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        try {
+            return new LogCursor(LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]),
+                    LocalDateTime.parse(parts[2]), LocalDateTime.parse(parts[3]));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((timestamp + "," + id + "," + from + "," + to).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.LogEntry;
+import com.example.demo.search.LogIndex;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Bulk inserts into the log_entry table, bypassing JPA.
+ * <p>
+ * LogEntryRepository.save() costs a persistence-context flush and a round trip per row. Here a whole
+ * list becomes one JDBC batch in one transaction, which the PostgreSQL driver rewrites into multi-row
+ * INSERTs when the datasource URL sets {@code reWriteBatchedInserts=true}. When rollups are enabled the
+ * entries are added to their minute and hour counts in the same transaction, and when full-text search is
+ * enabled they are indexed once the transaction has committed.
+ */
+@Repository
+public class LogEntryBatchRepository {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO log_entry (id, trace_id, message, timestamp, level, global_id, event_id, payload)
+            VALUES (?, ?, ?, ?, ?, ?, ?, CAST(? AS jsonb))""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final LogRollupRepository rollupRepository;
+    private final LogIndex logIndex;
+
+    public LogEntryBatchRepository(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                   ObjectProvider<LogRollupRepository> rollupRepository,
+                                   ObjectProvider<LogIndex> logIndex) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.rollupRepository = rollupRepository.getIfAvailable();
+        this.logIndex = logIndex.getIfAvailable();
+    }
+
+    /**
+     * Inserts all entries, or none of them if any insert fails, and sets their ids. Returns once the
+     * transaction is committed.
+     */
+    public void insertAll(List<LogEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            // One round trip for all ids, so the entries can be indexed by id afterwards
+            List<Long> ids = jdbcTemplate.queryForList(
+                    "SELECT nextval('log_entry_seq') FROM generate_series(1, ?)", Long.class, entries.size());
+            for (int i = 0; i < entries.size(); i++) {
+                entries.get(i).setId(ids.get(i));
+            }
+            jdbcTemplate.batchUpdate(INSERT_SQL, entries, entries.size(), (ps, entry) -> {
+                ps.setLong(1, entry.getId());
+                ps.setString(2, entry.getTraceId());
+                ps.setString(3, entry.getMessage());
+                ps.setTimestamp(4, entry.getTimestamp() != null ? Timestamp.valueOf(entry.getTimestamp()) : null);
+                ps.setString(5, entry.getLevel());
+                ps.setString(6, entry.getGlobalId());
+                ps.setString(7, entry.getEventId());
+                ps.setString(8, entry.getPayload());
+            });
+            if (rollupRepository != null) {
+                rollupRepository.addAll(entries);
+            }
+        });
+        if (logIndex != null) {
+            logIndex.addAll(entries);
+        }
+    }
+}
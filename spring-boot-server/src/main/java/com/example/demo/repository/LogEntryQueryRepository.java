@@ -0,0 +1,125 @@
+package com.example.demo.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads log_entry newest first with keyset pagination.
+ * <p>
+ * Pages continue from the last (timestamp, id) seen instead of using OFFSET, so page N costs the same as
+ * page 1: the (timestamp, id) and (global_id, timestamp) indexes are entered right at the cursor, and the
+ * time window restricts the scan to the partitions it overlaps.
+ */
+@Repository
+public class LogEntryQueryRepository {
+
+    private static final String SELECT_ALL_SQL = """
+            SELECT id, trace_id, global_id, event_id, "timestamp", level, message, payload::text AS payload
+            FROM log_entry""";
+
+    private static final String SELECT_SQL = SELECT_ALL_SQL + " WHERE \"timestamp\" >= ? AND \"timestamp\" < ?";
+
+    private static final String ORDER_SQL = " ORDER BY \"timestamp\" DESC, id DESC";
+
+    private static final int STREAM_FETCH_SIZE = 1000;
+
+    private static final RowMapper<LogRecord> ROW_MAPPER = (rs, rowNum) -> new LogRecord(
+            rs.getLong("id"),
+            rs.getString("trace_id"),
+            rs.getString("global_id"),
+            rs.getString("event_id"),
+            rs.getTimestamp("timestamp").toLocalDateTime(),
+            rs.getString("level"),
+            rs.getString("message"),
+            rs.getString("payload"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public LogEntryQueryRepository(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public List<LogRecord> findPage(LogQuery query, int limit) {
+        List<Object> args = new ArrayList<>();
+        String sql = buildSql(query, args) + " LIMIT ?";
+        args.add(limit);
+        return jdbcTemplate.query(sql, ROW_MAPPER, args.toArray());
+    }
+
+    /**
+     * Hands every matching row to the consumer as it is read. The PostgreSQL driver only fetches rows
+     * through a cursor (instead of buffering the whole result) inside a transaction with a fetch size set,
+     * hence the read-only transaction.
+     */
+    public void stream(LogQuery query, Consumer<LogRecord> consumer) {
+        List<Object> args = new ArrayList<>();
+        String sql = buildSql(query, args);
+        stream(sql, args, consumer);
+    }
+
+    /**
+     * Hands every row with an id above {@code afterId} to the consumer as it is read, in no particular order.
+     * Each partition's primary key index starts at the id.
+     */
+    public void streamAfterId(long afterId, Consumer<LogRecord> consumer) {
+        stream(SELECT_ALL_SQL + " WHERE id > ?", List.of(afterId), consumer);
+    }
+
+    private void stream(String sql, List<Object> args, Consumer<LogRecord> consumer) {
+        readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            for (int i = 0; i < args.size(); i++) {
+                statement.setObject(i + 1, args.get(i));
+            }
+            return statement;
+        }, (RowCallbackHandler) rs -> consumer.accept(ROW_MAPPER.mapRow(rs, rs.getRow()))));
+    }
+
+    /**
+     * Every entry of one trace in time order, capped at {@code limit} rows.
+     */
+    public List<LogRecord> findByTraceId(String traceId, int limit) {
+        return jdbcTemplate.query("""
+                SELECT id, trace_id, global_id, event_id, "timestamp", level, message, payload::text AS payload
+                FROM log_entry WHERE trace_id = ? ORDER BY "timestamp", id LIMIT ?""", ROW_MAPPER, traceId, limit);
+    }
+
+    private static String buildSql(LogQuery query, List<Object> args) {
+        StringBuilder sql = new StringBuilder(SELECT_SQL);
+        args.add(Timestamp.valueOf(query.from()));
+        args.add(Timestamp.valueOf(query.to()));
+        if (query.traceId() != null) {
+            sql.append(" AND trace_id = ?");
+            args.add(query.traceId());
+        }
+        if (query.globalId() != null) {
+            sql.append(" AND global_id = ?");
+            args.add(query.globalId());
+        }
+        if (query.level() != null) {
+            sql.append(" AND level = ?");
+            args.add(query.level());
+        }
+        if (query.after() != null) {
+            // Row comparison, so the index on ("timestamp", id) can seek straight to the cursor
+            sql.append(" AND (\"timestamp\", id) < (?, ?)");
+            args.add(Timestamp.valueOf(query.after().timestamp()));
+            args.add(query.after().id());
+        }
+        return sql.append(ORDER_SQL).toString();
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.demo.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Filters for {@link LogEntryQueryRepository}. Null filters match everything; the time window is required
+ * so that only the partitions it overlaps are scanned.
+ *
+ * @param from  inclusive lower bound
+ * @param to    exclusive upper bound
+ * @param after resume strictly after this position in (timestamp, id) descending order, or null for the start
+ */
+public record LogQuery(String traceId, String globalId, String level, LocalDateTime from, LocalDateTime to,
+                       LogCursor after) {
+}
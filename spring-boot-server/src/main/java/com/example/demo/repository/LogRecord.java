@@ -0,0 +1,14 @@
+package com.example.demo.repository;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import java.time.LocalDateTime;
+
+/**
+ * A log_entry row as returned by the query API. The payload is the stored JSON, written out as-is.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record LogRecord(long id, String traceId, String globalId, String eventId, LocalDateTime timestamp,
+                        String level, String message, @JsonRawValue String payload) {
+}
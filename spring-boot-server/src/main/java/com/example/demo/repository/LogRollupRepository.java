@@ -0,0 +1,206 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.LogEntry;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The log_rollup_minute and log_rollup_hour tables: log_entry row counts by bucket, level and message.
+ * <p>
+ * {@link #addAll} runs inside the transaction that inserts the entries, so the counts change exactly when
+ * the rows become visible, and an entry with an old timestamp simply adds to its old bucket. {@link #recount}
+ * rebuilds a range of buckets from the rows themselves, behind the watermark kept by LogRollupMaintenance.
+ */
+public class LogRollupRepository {
+
+    /**
+     * Messages are grouped by their first this many characters, which keeps them usable as a key.
+     */
+    public static final int MESSAGE_KEY_LENGTH = 200;
+
+    private static final String WATERMARK_NAME = "log_rollup";
+
+    private static final String ADD_SQL = """
+            INSERT INTO %s AS r (bucket, level, message, count) VALUES (?, ?, ?, ?)
+            ON CONFLICT (bucket, level, message) DO UPDATE SET count = r.count + excluded.count""";
+
+    private static final String RECOUNT_MINUTES_SQL = """
+            INSERT INTO log_rollup_minute (bucket, level, message, count)
+            SELECT date_trunc('minute', "timestamp"), coalesce(level, ''), left(coalesce(message, ''), %d), count(*)
+            FROM log_entry
+            WHERE "timestamp" >= ? AND "timestamp" < ?
+            GROUP BY 1, 2, 3
+            ON CONFLICT (bucket, level, message) DO UPDATE SET count = excluded.count""".formatted(MESSAGE_KEY_LENGTH);
+
+    private static final String RECOUNT_HOURS_SQL = """
+            INSERT INTO log_rollup_hour (bucket, level, message, count)
+            SELECT date_trunc('hour', bucket), level, message, sum(count)
+            FROM log_rollup_minute
+            WHERE bucket >= ? AND bucket < ?
+            GROUP BY 1, 2, 3
+            ON CONFLICT (bucket, level, message) DO UPDATE SET count = excluded.count""";
+
+    private static final RowMapper<LogRollupRow> ROW_MAPPER = (rs, rowNum) -> new LogRollupRow(
+            rs.getTimestamp("bucket").toLocalDateTime(),
+            rs.getString("level"),
+            rs.getString("message"),
+            rs.getLong("count"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LogRollupRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Adds the entries to their minute and hour counts. Must run in the transaction that inserts them.
+     */
+    public void addAll(List<LogEntry> entries) {
+        for (Resolution resolution : Resolution.values()) {
+            List<LogRollupRow> deltas = aggregate(entries, resolution);
+            if (deltas.isEmpty()) {
+                continue;
+            }
+            jdbcTemplate.batchUpdate(ADD_SQL.formatted(resolution.table), deltas, deltas.size(), (ps, delta) -> {
+                ps.setTimestamp(1, Timestamp.valueOf(delta.bucket()));
+                ps.setString(2, delta.level());
+                ps.setString(3, delta.message());
+                ps.setLong(4, delta.count());
+            });
+        }
+    }
+
+    /**
+     * Counts per bucket, level and message key, sorted. Every writer updates the rows it shares with others
+     * in the same order, so concurrent batches wait for each other instead of deadlocking.
+     */
+    static List<LogRollupRow> aggregate(List<LogEntry> entries, Resolution resolution) {
+        Map<Key, long[]> counts = new TreeMap<>();
+        for (LogEntry entry : entries) {
+            if (entry.getTimestamp() == null) {
+                continue;
+            }
+            Key key = new Key(entry.getTimestamp().truncatedTo(resolution.unit),
+                    entry.getLevel() != null ? entry.getLevel() : "", messageKey(entry.getMessage()));
+            counts.computeIfAbsent(key, k -> new long[1])[0]++;
+        }
+        List<LogRollupRow> rows = new ArrayList<>(counts.size());
+        counts.forEach((key, count) -> rows.add(new LogRollupRow(key.bucket(), key.level(), key.message(), count[0])));
+        return rows;
+    }
+
+    /**
+     * The message cut to {@link #MESSAGE_KEY_LENGTH} characters, counted in code points like PostgreSQL's
+     * left() so that both sides cut at the same place.
+     */
+    static String messageKey(String message) {
+        if (message == null) {
+            return "";
+        }
+        if (message.length() <= MESSAGE_KEY_LENGTH
+                || message.codePointCount(0, message.length()) <= MESSAGE_KEY_LENGTH) {
+            return message;
+        }
+        return message.substring(0, message.offsetByCodePoints(0, MESSAGE_KEY_LENGTH));
+    }
+
+    /**
+     * Replaces the minute counts of [from, to) with counts of the log_entry rows, then rebuilds from their
+     * minutes the hours that end within the range; the hour {@code to} falls in is rebuilt by the recount
+     * that passes its end. Run it in a REPEATABLE READ transaction: a batch that commits additions to the
+     * same rows after the recount's snapshot then fails the recount with a serialization error, rather than
+     * having its additions overwritten.
+     */
+    public void recount(LocalDateTime from, LocalDateTime to) {
+        jdbcTemplate.update("DELETE FROM log_rollup_minute WHERE bucket >= ? AND bucket < ?",
+                Timestamp.valueOf(from), Timestamp.valueOf(to));
+        jdbcTemplate.update(RECOUNT_MINUTES_SQL, Timestamp.valueOf(from), Timestamp.valueOf(to));
+
+        LocalDateTime firstHour = from.truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime hoursEnd = to.truncatedTo(ChronoUnit.HOURS);
+        if (firstHour.isBefore(hoursEnd)) {
+            jdbcTemplate.update("DELETE FROM log_rollup_hour WHERE bucket >= ? AND bucket < ?",
+                    Timestamp.valueOf(firstHour), Timestamp.valueOf(hoursEnd));
+            jdbcTemplate.update(RECOUNT_HOURS_SQL, Timestamp.valueOf(firstHour), Timestamp.valueOf(hoursEnd));
+        }
+    }
+
+    /**
+     * Start of the first minute that hasn't been recounted yet, or null if nothing has been.
+     */
+    public LocalDateTime findWatermark() {
+        List<Timestamp> watermark = jdbcTemplate.queryForList(
+                "SELECT watermark FROM log_rollup_watermark WHERE name = ?", Timestamp.class, WATERMARK_NAME);
+        return watermark.isEmpty() ? null : watermark.get(0).toLocalDateTime();
+    }
+
+    public void saveWatermark(LocalDateTime watermark) {
+        jdbcTemplate.update("""
+                INSERT INTO log_rollup_watermark (name, watermark) VALUES (?, ?)
+                ON CONFLICT (name) DO UPDATE SET watermark = excluded.watermark""",
+                WATERMARK_NAME, Timestamp.valueOf(watermark));
+    }
+
+    /**
+     * Deletes the rows of buckets that start before the given time. Returns how many were deleted.
+     */
+    public int deleteBefore(Resolution resolution, LocalDateTime before) {
+        return jdbcTemplate.update("DELETE FROM " + resolution.table + " WHERE bucket < ?", Timestamp.valueOf(before));
+    }
+
+    /**
+     * Rows of the buckets starting in [from, to), oldest first, optionally of one level only.
+     */
+    public List<LogRollupRow> find(Resolution resolution, LocalDateTime from, LocalDateTime to, String level) {
+        StringBuilder sql = new StringBuilder("SELECT bucket, level, message, count FROM ")
+                .append(resolution.table)
+                .append(" WHERE bucket >= ? AND bucket < ?");
+        List<Object> args = new ArrayList<>(3);
+        args.add(Timestamp.valueOf(from));
+        args.add(Timestamp.valueOf(to));
+        if (level != null) {
+            sql.append(" AND level = ?");
+            args.add(level);
+        }
+        sql.append(" ORDER BY bucket, level, message");
+        return jdbcTemplate.query(sql.toString(), ROW_MAPPER, args.toArray());
+    }
+
+    public enum Resolution {
+
+        MINUTE("log_rollup_minute", ChronoUnit.MINUTES),
+        HOUR("log_rollup_hour", ChronoUnit.HOURS);
+
+        private final String table;
+        private final ChronoUnit unit;
+
+        Resolution(String table, ChronoUnit unit) {
+            this.table = table;
+            this.unit = unit;
+        }
+
+        public ChronoUnit unit() {
+            return unit;
+        }
+    }
+
+    private record Key(LocalDateTime bucket, String level, String message) implements Comparable<Key> {
+
+        @Override
+        public int compareTo(Key other) {
+            int result = bucket.compareTo(other.bucket);
+            if (result == 0) {
+                result = level.compareTo(other.level);
+            }
+            return result != 0 ? result : message.compareTo(other.message);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.demo.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Number of log entries of one level and message in the minute or hour starting at {@code bucket}.
+ */
+public record LogRollupRow(LocalDateTime bucket, String level, String message, long count) {
+}
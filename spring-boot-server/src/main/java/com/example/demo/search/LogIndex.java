@@ -0,0 +1,457 @@
+package com.example.demo.search;
+
+import com.example.demo.config.LogPartitionProperties;
+import com.example.demo.config.LogSearchProperties;
+import com.example.demo.entity.LogEntry;
+import com.example.demo.repository.LogRecord;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.MultiReader;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherFactory;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Embedded Lucene index of log messages, one index per day of log timestamps, so that a day of index
+ * expires by deleting its directory, in step with the daily log_entry partitions.
+ * <p>
+ * Entries are added after their insert commits and become searchable within {@code refresh-interval}; the
+ * writers are committed every {@code commit-interval}. Each commit records the highest log_entry id it
+ * contains, from which {@link LogIndexRebuilder} catches up after a crash. Searches open only the days
+ * their time range overlaps and read hits from stored fields, without touching the database.
+ */
+public class LogIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(LogIndex.class);
+
+    static final String ID = "id";
+    static final String TIMESTAMP = "timestamp";
+    static final String LEVEL = "level";
+    static final String TRACE_ID = "traceId";
+    static final String GLOBAL_ID = "globalId";
+    static final String MESSAGE = "message";
+
+    private static final String MAX_ID_COMMIT_KEY = "maxId";
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final Sort NEWEST_FIRST = new Sort(new SortedNumericSortField(TIMESTAMP, SortField.Type.LONG, true));
+
+    private final LogSearchProperties properties;
+    private final LogPartitionProperties partitionProperties;
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final NavigableMap<LocalDate, DayIndex> days = new ConcurrentSkipListMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    private final Counter indexed;
+    private final Counter failures;
+    private final Timer searchLatency;
+
+    public LogIndex(LogSearchProperties properties, LogPartitionProperties partitionProperties,
+                    MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.partitionProperties = partitionProperties;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "log-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("log.index.days", days, Map::size)
+                .description("Days of log messages in the full-text index")
+                .register(meterRegistry);
+        this.indexed = Counter.builder("log.index.indexed")
+                .description("Log entries added to the full-text index")
+                .register(meterRegistry);
+        this.failures = Counter.builder("log.index.failures")
+                .description("Log entries that could not be indexed; a rebuild of their day adds them")
+                .register(meterRegistry);
+        this.searchLatency = Timer.builder("log.search.latency")
+                .description("Time to run one full-text search and read its hits")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens the days already on disk and starts refreshing and committing them.
+     */
+    public void start() throws IOException {
+        Files.createDirectories(properties.getDirectory());
+        try (DirectoryStream<Path> children = Files.newDirectoryStream(properties.getDirectory())) {
+            for (Path child : children) {
+                LocalDate day = parseDay(child.getFileName().toString());
+                if (day != null && Files.isDirectory(child)) {
+                    days.put(day, new DayIndex(day));
+                }
+            }
+        }
+        expire();
+
+        long refreshMillis = properties.getRefreshInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::refresh, refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+        long commitMillis = properties.getCommitInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::commit, commitMillis, commitMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Commits and closes every day, so a clean shutdown needs no catch-up.
+     */
+    public void stop() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        for (DayIndex day : days.values()) {
+            day.close();
+        }
+        days.clear();
+    }
+
+    /**
+     * Adds freshly inserted entries, which must have their ids. Failures are logged and counted rather than
+     * thrown, since the entries are already stored.
+     */
+    public void addAll(List<LogEntry> entries) {
+        LocalDate oldestKept = oldestKeptDay();
+        Map<LocalDate, List<Document>> byDay = new HashMap<>();
+        Map<LocalDate, Long> maxIds = new HashMap<>();
+        for (LogEntry entry : entries) {
+            if (entry.getId() == null || entry.getTimestamp() == null) {
+                continue;
+            }
+            LocalDate day = entry.getTimestamp().toLocalDate();
+            if (day.isBefore(oldestKept)) {
+                continue;
+            }
+            byDay.computeIfAbsent(day, d -> new ArrayList<>()).add(document(entry.getId(), entry.getTimestamp(),
+                    entry.getLevel(), entry.getTraceId(), entry.getGlobalId(), entry.getMessage()));
+            maxIds.merge(day, entry.getId(), Math::max);
+        }
+
+        byDay.forEach((day, documents) -> {
+            try {
+                DayIndex index = day(day);
+                // Replaced by id like update(), since a catch-up or rebuild may have indexed the row already
+                for (Document document : documents) {
+                    index.writer.updateDocument(new Term(ID, document.get(ID)), document);
+                }
+                index.maxId.accumulateAndGet(maxIds.get(day), Math::max);
+                indexed.increment(documents.size());
+            } catch (IOException | RuntimeException e) {
+                failures.increment(documents.size());
+                log.warn("Failed to index {} log entries of {}: {}", documents.size(), day, e.toString());
+            }
+        });
+    }
+
+    /**
+     * Adds or replaces one stored row, for rebuilds and catch-up: replacing by id makes indexing a row twice
+     * harmless.
+     */
+    public void update(LogRecord record) throws IOException {
+        LocalDate day = record.timestamp().toLocalDate();
+        if (day.isBefore(oldestKeptDay())) {
+            return;
+        }
+        DayIndex index = day(day);
+        index.writer.updateDocument(new Term(ID, Long.toString(record.id())), document(record.id(),
+                record.timestamp(), record.level(), record.traceId(), record.globalId(), record.message()));
+        index.maxId.accumulateAndGet(record.id(), Math::max);
+        indexed.increment();
+    }
+
+    /**
+     * Empties a day ahead of rebuilding it. Entries added from now on are kept. A day without an index, past
+     * retention or not, has nothing to empty and gets no index opened for it.
+     */
+    public void clear(LocalDate day) throws IOException {
+        if (day.isBefore(oldestKeptDay())) {
+            return;
+        }
+        DayIndex index = days.get(day);
+        if (index != null) {
+            index.writer.deleteAll();
+        }
+    }
+
+    /**
+     * Highest log_entry id in any committed day, or 0 if nothing is committed.
+     */
+    public long maxCommittedId() {
+        return days.values().stream().mapToLong(day -> day.committedMaxId).max().orElse(0);
+    }
+
+    public boolean isEmpty() {
+        return days.isEmpty();
+    }
+
+    public List<LogSearchHit> search(LogSearchQuery query) throws IOException {
+        long start = System.nanoTime();
+        LocalDate firstDay = query.from().toLocalDate();
+        LocalDate lastDay = query.to().minusNanos(1).toLocalDate();
+        List<DayIndex> overlapping = new ArrayList<>(days.subMap(firstDay, true, lastDay, true).values());
+
+        List<IndexSearcher> acquired = new ArrayList<>(overlapping.size());
+        try {
+            for (DayIndex day : overlapping) {
+                acquired.add(day.searchers.acquire());
+            }
+            if (acquired.isEmpty()) {
+                return List.of();
+            }
+            IndexReader[] readers = acquired.stream().map(IndexSearcher::getIndexReader).toArray(IndexReader[]::new);
+            try (MultiReader reader = new MultiReader(readers, false)) {
+                IndexSearcher searcher = new IndexSearcher(reader);
+                Query luceneQuery = toLuceneQuery(query);
+                TopDocs topDocs = query.order() == LogSearchQuery.Order.RELEVANCE && query.text() != null
+                        ? searcher.search(luceneQuery, query.limit())
+                        : searcher.search(luceneQuery, query.limit(), NEWEST_FIRST);
+                return hits(searcher.storedFields(), topDocs);
+            }
+        } finally {
+            for (int i = 0; i < acquired.size(); i++) {
+                overlapping.get(i).searchers.release(acquired.get(i));
+            }
+            searchLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Query toLuceneQuery(LogSearchQuery query) {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        if (query.text() != null) {
+            SimpleQueryParser parser = new SimpleQueryParser(analyzer, MESSAGE);
+            parser.setDefaultOperator(BooleanClause.Occur.MUST);
+            builder.add(parser.parse(query.text()), BooleanClause.Occur.MUST);
+        } else {
+            builder.add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST);
+        }
+        addTermFilter(builder, TRACE_ID, query.traceId());
+        addTermFilter(builder, GLOBAL_ID, query.globalId());
+        addTermFilter(builder, LEVEL, query.level());
+        builder.add(LongField.newRangeQuery(TIMESTAMP, epochMillis(query.from()), epochMillis(query.to()) - 1),
+                BooleanClause.Occur.FILTER);
+        return builder.build();
+    }
+
+    private static void addTermFilter(BooleanQuery.Builder builder, String field, String value) {
+        if (value != null) {
+            builder.add(new TermQuery(new Term(field, value)), BooleanClause.Occur.FILTER);
+        }
+    }
+
+    private static List<LogSearchHit> hits(StoredFields storedFields, TopDocs topDocs) throws IOException {
+        List<LogSearchHit> hits = new ArrayList<>(topDocs.scoreDocs.length);
+        for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+            Document document = storedFields.document(scoreDoc.doc);
+            hits.add(new LogSearchHit(
+                    Long.parseLong(document.get(ID)),
+                    LocalDateTime.ofInstant(Instant.ofEpochMilli(document.getField(TIMESTAMP).numericValue().longValue()),
+                            ZoneOffset.UTC),
+                    document.get(LEVEL),
+                    document.get(TRACE_ID),
+                    document.get(GLOBAL_ID),
+                    document.get(MESSAGE),
+                    Float.isNaN(scoreDoc.score) ? null : scoreDoc.score));
+        }
+        return hits;
+    }
+
+    private static Document document(long id, LocalDateTime timestamp, String level, String traceId,
+                                     String globalId, String message) {
+        Document document = new Document();
+        document.add(new StringField(ID, Long.toString(id), Field.Store.YES));
+        // Points for the time filter, doc values for newest-first order, and stored for the hit itself
+        document.add(new LongField(TIMESTAMP, epochMillis(timestamp), Field.Store.YES));
+        addKeyword(document, LEVEL, level);
+        addKeyword(document, TRACE_ID, traceId);
+        addKeyword(document, GLOBAL_ID, globalId);
+        if (message != null) {
+            document.add(new TextField(MESSAGE, message, Field.Store.YES));
+        }
+        return document;
+    }
+
+    private static void addKeyword(Document document, String field, String value) {
+        if (value != null) {
+            document.add(new StringField(field, value, Field.Store.YES));
+        }
+    }
+
+    // log_entry timestamps are local date-times; UTC only serves as a fixed encoding
+    private static long epochMillis(LocalDateTime timestamp) {
+        return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    /**
+     * Makes what was added since the last refresh searchable. Runs every {@code refresh-interval}.
+     */
+    void refresh() {
+        for (DayIndex day : days.values()) {
+            try {
+                day.searchers.maybeRefresh();
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to refresh the log index of {}: {}", day.day, e.toString());
+            }
+        }
+    }
+
+    /**
+     * Commits the days with changes. Runs every {@code commit-interval}.
+     */
+    void commit() {
+        for (DayIndex day : days.values()) {
+            try {
+                day.commit();
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to commit the log index of {}: {}", day.day, e.toString());
+            }
+        }
+    }
+
+    /**
+     * Deletes the days past log retention, along with the log_entry partitions.
+     */
+    @Scheduled(cron = "${log.partitions.maintenance-cron:0 5 0 * * *}")
+    public void expire() {
+        LocalDate oldestKept = oldestKeptDay();
+        for (LocalDate day : List.copyOf(days.headMap(oldestKept, false).keySet())) {
+            DayIndex index = days.remove(day);
+            if (index == null) {
+                continue;
+            }
+            index.close();
+            try {
+                IOUtils.rm(index.path);
+                log.info("Deleted the log index of {}", day);
+            } catch (IOException e) {
+                log.warn("Failed to delete the log index of {}: {}", day, e.toString());
+            }
+        }
+    }
+
+    private LocalDate oldestKeptDay() {
+        return LocalDate.now().minusDays(partitionProperties.getRetentionDays());
+    }
+
+    /**
+     * ConcurrentSkipListMap.computeIfAbsent may run its function more than once for a key, and a second
+     * DayIndex of the same day fails on the directory's write lock, so days are created under a lock.
+     */
+    private DayIndex day(LocalDate day) throws IOException {
+        DayIndex index = days.get(day);
+        if (index != null) {
+            return index;
+        }
+        synchronized (days) {
+            index = days.get(day);
+            if (index == null) {
+                index = new DayIndex(day);
+                days.put(day, index);
+            }
+            return index;
+        }
+    }
+
+    static LocalDate parseDay(String directoryName) {
+        try {
+            return LocalDate.parse(directoryName, DAY_FORMAT);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private final class DayIndex {
+
+        private final LocalDate day;
+        private final Path path;
+        private final FSDirectory directory;
+        private final IndexWriter writer;
+        private final SearcherManager searchers;
+        private final AtomicLong maxId = new AtomicLong();
+        private volatile long committedMaxId;
+
+        DayIndex(LocalDate day) throws IOException {
+            this.day = day;
+            this.path = properties.getDirectory().resolve(DAY_FORMAT.format(day));
+            this.directory = FSDirectory.open(path);
+            if (DirectoryReader.indexExists(directory)) {
+                String committed = SegmentInfos.readLatestCommit(directory).getUserData().get(MAX_ID_COMMIT_KEY);
+                committedMaxId = committed != null ? Long.parseLong(committed) : 0;
+                maxId.set(committedMaxId);
+            }
+            IndexWriterConfig config = new IndexWriterConfig(analyzer)
+                    .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND)
+                    .setRAMBufferSizeMB(properties.getRamBuffer().toMegabytes());
+            this.writer = new IndexWriter(directory, config);
+            this.searchers = new SearcherManager(writer, new SearcherFactory());
+        }
+
+        void commit() throws IOException {
+            if (!writer.hasUncommittedChanges()) {
+                return;
+            }
+            long id = maxId.get();
+            writer.setLiveCommitData(Map.of(MAX_ID_COMMIT_KEY, Long.toString(id)).entrySet());
+            writer.commit();
+            committedMaxId = id;
+        }
+
+        void close() {
+            try {
+                commit();
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to commit the log index of {} on close: {}", day, e.toString());
+            }
+            IOUtils.closeWhileHandlingException(searchers, writer, directory);
+        }
+    }
+}
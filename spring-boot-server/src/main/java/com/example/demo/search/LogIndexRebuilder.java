@@ -0,0 +1,121 @@
+package com.example.demo.search;
+
+import com.example.demo.config.LogPartitionProperties;
+import com.example.demo.config.LogSearchProperties;
+import com.example.demo.repository.LogEntryQueryRepository;
+import com.example.demo.repository.LogQuery;
+import com.example.demo.repository.LogRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Fills {@link LogIndex} from log_entry, which stays the source of truth, on one background thread.
+ * <p>
+ * On startup an empty index (a new install, or its directory was removed) is rebuilt for the whole log
+ * retention; otherwise the rows after the last committed id, less {@code catch-up-id-margin}, are indexed
+ * again, which covers what a crash lost. Either way rows are replaced by id, so indexing a row twice
+ * is harmless and live indexing goes on meanwhile.
+ */
+public class LogIndexRebuilder {
+
+    private static final Logger log = LoggerFactory.getLogger(LogIndexRebuilder.class);
+
+    private final LogIndex logIndex;
+    private final LogEntryQueryRepository queryRepository;
+    private final LogSearchProperties properties;
+    private final LogPartitionProperties partitionProperties;
+    private final ExecutorService executor;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public LogIndexRebuilder(LogIndex logIndex, LogEntryQueryRepository queryRepository,
+                             LogSearchProperties properties, LogPartitionProperties partitionProperties) {
+        this.logIndex = logIndex;
+        this.queryRepository = queryRepository;
+        this.properties = properties;
+        this.partitionProperties = partitionProperties;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "log-index-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start() {
+        if (logIndex.isEmpty()) {
+            LocalDate today = LocalDate.now();
+            rebuild(today.minusDays(partitionProperties.getRetentionDays()), today);
+        } else {
+            long afterId = Math.max(0, logIndex.maxCommittedId() - properties.getCatchUpIdMargin());
+            submit(() -> {
+                long count = index(consumer -> queryRepository.streamAfterId(afterId, consumer));
+                log.info("Log index caught up: {} entries after id {} indexed again", count, afterId);
+            });
+        }
+    }
+
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Rebuilds the days from {@code firstDay} to {@code lastDay}, both included, newest first. Returns false
+     * without doing anything if a rebuild or catch-up is already running.
+     */
+    public boolean rebuild(LocalDate firstDay, LocalDate lastDay) {
+        return submit(() -> {
+            for (LocalDate day = lastDay; !day.isBefore(firstDay); day = day.minusDays(1)) {
+                LocalDate current = day;
+                try {
+                    logIndex.clear(current);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                long count = index(consumer -> queryRepository.stream(new LogQuery(null, null, null,
+                        current.atStartOfDay(), current.plusDays(1).atStartOfDay(), null), consumer));
+                log.info("Rebuilt the log index of {} from {} entries", current, count);
+            }
+        });
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    private boolean submit(Runnable task) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        executor.execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.error("Filling the log index from the database failed", e);
+            } finally {
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    private long index(Consumer<Consumer<LogRecord>> rows) {
+        AtomicLong count = new AtomicLong();
+        rows.accept(record -> {
+            try {
+                logIndex.update(record);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            count.incrementAndGet();
+        });
+        return count.get();
+    }
+}
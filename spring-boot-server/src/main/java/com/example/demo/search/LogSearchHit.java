@@ -0,0 +1,14 @@
+package com.example.demo.search;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+
+/**
+ * An entry found by {@link LogIndex}, read from the index alone. {@code id} is the log_entry row's; the
+ * score is only set for hits ranked by relevance.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record LogSearchHit(long id, LocalDateTime timestamp, String level, String traceId, String globalId,
+                           String message, Float score) {
+}
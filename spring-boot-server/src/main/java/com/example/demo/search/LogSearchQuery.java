@@ -0,0 +1,30 @@
+package com.example.demo.search;
+
+import java.time.LocalDateTime;
+
+/**
+ * A search of {@link LogIndex}. Null filters match everything; without text, every entry matching the
+ * filters is a hit and hits are newest first.
+ *
+ * @param text  words to find in the message, in the simple query syntax ({@code "a phrase"}, {@code -not},
+ *              {@code prefix*}, {@code a | b}); all words must match unless {@code |} says otherwise
+ * @param from  inclusive lower bound
+ * @param to    exclusive upper bound
+ * @param order how hits are ranked
+ */
+public record LogSearchQuery(String text, String traceId, String globalId, String level, LocalDateTime from,
+                             LocalDateTime to, int limit, Order order) {
+
+    public enum Order {
+
+        /**
+         * Best match first (BM25), which needs text.
+         */
+        RELEVANCE,
+
+        /**
+         * Newest first.
+         */
+        TIME
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.LogRecord;
+
+import java.util.List;
+
+/**
+ * One page of query results, newest first.
+ *
+ * @param nextCursor pass as {@code cursor} to get the following page; null on the last page
+ */
+public record LogPage(List<LogRecord> items, String nextCursor) {
+}
@@ -0,0 +1,141 @@
+package com.example.demo.service;
+
+import com.example.demo.config.LogPartitionProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Keeps the daily partitions of log_entry in shape: creates the coming days' partitions and drops the ones
+ * past retention. Dropping a partition is a catalog change, so expiring a day of logs costs the same no
+ * matter how many rows it holds, and leaves nothing behind for vacuum.
+ * <p>
+ * Runs at startup and then daily. Several instances may run it at once; a transaction-scoped advisory
+ * lock lets one of them change the schema and the others skip, since the holder does the same work.
+ */
+@Component
+public class LogPartitionMaintenance {
+
+    private static final Logger log = LoggerFactory.getLogger(LogPartitionMaintenance.class);
+
+    static final String PARTITION_PREFIX = "log_entry_p";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+    // Arbitrary key identifying this job among advisory lock holders
+    private static final long ADVISORY_LOCK_KEY = 0x6c6f675f70617274L;
+
+    private static final String LIST_PARTITIONS_SQL = """
+            SELECT child.relname FROM pg_inherits
+            JOIN pg_class child ON child.oid = pg_inherits.inhrelid
+            JOIN pg_class parent ON parent.oid = pg_inherits.inhparent
+            WHERE parent.relname = 'log_entry'""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final LogPartitionProperties properties;
+
+    public LogPartitionMaintenance(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                   LogPartitionProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${log.partitions.maintenance-cron:0 5 0 * * *}")
+    public void maintain() {
+        maintain(LocalDate.now());
+    }
+
+    void maintain(LocalDate today) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class,
+                    ADVISORY_LOCK_KEY);
+            if (!Boolean.TRUE.equals(locked)) {
+                return;
+            }
+
+            Set<LocalDate> existing = new HashSet<>();
+            for (String name : jdbcTemplate.queryForList(LIST_PARTITIONS_SQL, String.class)) {
+                LocalDate day = partitionDay(name);
+                if (day != null) {
+                    existing.add(day);
+                }
+            }
+
+            LocalDate lastDay = today.plusDays(properties.getPrecreateDays());
+            for (LocalDate day = today; !day.isAfter(lastDay); day = day.plusDays(1)) {
+                if (!existing.contains(day)) {
+                    createPartition(day);
+                }
+            }
+
+            LocalDate oldestKept = today.minusDays(properties.getRetentionDays());
+            for (LocalDate day : existing) {
+                if (day.isBefore(oldestKept)) {
+                    jdbcTemplate.execute("DROP TABLE " + partitionName(day));
+                    log.info("Dropped log partition for {}", day);
+                }
+            }
+            // Rows that never had a daily partition expire the slow way, but the default partition stays small
+            int expired = jdbcTemplate.update("DELETE FROM log_entry_default WHERE \"timestamp\" < ?",
+                    Timestamp.valueOf(oldestKept.atStartOfDay()));
+            if (expired > 0) {
+                log.info("Deleted {} expired rows from the default log partition", expired);
+            }
+        });
+    }
+
+    /**
+     * Creates the day's partition detached, moves in any rows of that day that already went to the default
+     * partition, then attaches it; attaching fails if the default partition still holds rows for the range.
+     */
+    private void createPartition(LocalDate day) {
+        String name = partitionName(day);
+        Timestamp from = Timestamp.valueOf(day.atStartOfDay());
+        Timestamp to = Timestamp.valueOf(day.plusDays(1).atStartOfDay());
+
+        jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE log_entry INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        int moved = jdbcTemplate.update("""
+                WITH moved AS (
+                    DELETE FROM log_entry_default WHERE "timestamp" >= ? AND "timestamp" < ? RETURNING *
+                )
+                INSERT INTO %s SELECT * FROM moved""".formatted(name), from, to);
+        jdbcTemplate.execute("ALTER TABLE log_entry ATTACH PARTITION " + name
+                + " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+        log.info("Created log partition {} ({} rows moved from the default partition)", name, moved);
+    }
+
+    static String partitionName(LocalDate day) {
+        return PARTITION_PREFIX + PARTITION_SUFFIX.format(day);
+    }
+
+    /**
+     * The day a partition covers, or null for partitions that aren't daily ones (i.e. the default partition).
+     */
+    static LocalDate partitionDay(String partitionName) {
+        if (!partitionName.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(partitionName.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.demo.service;
+
+import com.example.demo.config.LogQueryProperties;
+import com.example.demo.repository.LogCursor;
+import com.example.demo.repository.LogEntryQueryRepository;
+import com.example.demo.repository.LogQuery;
+import com.example.demo.repository.LogRecord;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+@Service
+public class LogQueryService {
+
+    public static final String TRACE_CACHE = "traces";
+
+    private final LogEntryQueryRepository queryRepository;
+    private final LogQueryProperties properties;
+
+    public LogQueryService(LogEntryQueryRepository queryRepository, LogQueryProperties properties) {
+        this.queryRepository = queryRepository;
+        this.properties = properties;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the window, page size or cursor is invalid
+     */
+    public LogPage findPage(String traceId, String globalId, String level, LocalDateTime from, LocalDateTime to,
+                            String cursor, Integer limit) {
+        int pageSize = limit != null ? limit : properties.getDefaultPageSize();
+        if (pageSize < 1 || pageSize > properties.getMaxPageSize()) {
+            throw new IllegalArgumentException("limit must be between 1 and " + properties.getMaxPageSize());
+        }
+        LogQuery query = buildQuery(traceId, globalId, level, from, to, cursor);
+
+        // One extra row tells whether there is a next page without a count query
+        List<LogRecord> rows = queryRepository.findPage(query, pageSize + 1);
+        if (rows.size() <= pageSize) {
+            return new LogPage(rows, null);
+        }
+        List<LogRecord> page = rows.subList(0, pageSize);
+        return new LogPage(page, LogCursor.of(page.get(pageSize - 1), query.from(), query.to()).encode());
+    }
+
+    /**
+     * Passes every row matching the query to the consumer as it is read, without a page size.
+     */
+    public void stream(LogQuery query, Consumer<LogRecord> consumer) {
+        queryRepository.stream(query, consumer);
+    }
+
+    /**
+     * Entries of a trace in time order. Traces are looked up repeatedly while someone investigates them, so
+     * results are cached (bounded, expiring after write; see spring.cache in application.yaml). Empty
+     * results are not cached, since the trace's entries may simply not have arrived yet.
+     */
+    @Cacheable(cacheNames = TRACE_CACHE, unless = "#result.isEmpty()")
+    public List<LogRecord> findTrace(String traceId) {
+        return List.copyOf(queryRepository.findByTraceId(traceId, properties.getMaxTraceEntries()));
+    }
+
+    /**
+     * Resolves the time window (the last {@code default-window} when none is given, or the first page's with a
+     * cursor) and checks it against {@code max-window}.
+     *
+     * @throws IllegalArgumentException if the window or cursor is invalid, or the window differs from the cursor's
+     */
+    public LogQuery buildQuery(String traceId, String globalId, String level, LocalDateTime from,
+                               LocalDateTime to, String cursor) {
+        LogCursor after = cursor != null ? LogCursor.decode(cursor) : null;
+        if (after != null) {
+            // Resolving the default window again on every page would slide it along with the clock
+            if ((from != null && !from.equals(after.from())) || (to != null && !to.equals(after.to()))) {
+                throw new IllegalArgumentException("from and to must stay as they were on the first page");
+            }
+            from = after.from();
+            to = after.to();
+        }
+        if (to == null) {
+            to = from != null ? from.plus(properties.getDefaultWindow()) : LocalDateTime.now();
+        }
+        if (from == null) {
+            from = to.minus(properties.getDefaultWindow());
+        }
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        if (Duration.between(from, to).compareTo(properties.getMaxWindow()) > 0) {
+            throw new IllegalArgumentException("time range must not exceed " + properties.getMaxWindow());
+        }
+        return new LogQuery(traceId, globalId, level, from, to, after);
+    }
+}
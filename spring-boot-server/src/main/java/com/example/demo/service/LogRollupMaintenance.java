@@ -0,0 +1,128 @@
+package com.example.demo.service;
+
+import com.example.demo.config.LogRollupProperties;
+import com.example.demo.repository.LogRollupRepository;
+import com.example.demo.repository.LogRollupRepository.Resolution;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Moves the rollup watermark forward: recounts the minutes between the watermark and {@code allowed-lateness}
+ * ago from log_entry, rebuilds the hours that were completed, and expires old rollup rows.
+ * <p>
+ * Inserts keep the counts current on their own, so the recount corrects what went around them (rows
+ * written before the rollup existed, or by hand) rather than doing the counting. It reads only the
+ * minutes it recounts, through the partition and timestamp index, so it costs the same however big
+ * log_entry is; a backlog is caught up {@code max-recount-window} at a time.
+ * <p>
+ * A batch inserted into recounted minutes while the recount runs makes it fail with a serialization error;
+ * the watermark then stays put and the next run tries again. Several instances may run it at once; an
+ * advisory lock lets one of them recount and the others skip.
+ */
+public class LogRollupMaintenance {
+
+    private static final Logger log = LoggerFactory.getLogger(LogRollupMaintenance.class);
+
+    // Arbitrary key identifying this job among advisory lock holders
+    private static final long ADVISORY_LOCK_KEY = 0x6c6f675f726f6c6cL;
+
+    private final LogRollupRepository rollupRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final LogRollupProperties properties;
+    private final Counter conflicts;
+
+    private volatile LocalDateTime watermark;
+
+    public LogRollupMaintenance(LogRollupRepository rollupRepository, JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager, LogRollupProperties properties,
+                                MeterRegistry meterRegistry) {
+        this.rollupRepository = rollupRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.properties = properties;
+
+        Gauge.builder("log.rollup.watermark.lag", this, LogRollupMaintenance::watermarkLagSeconds)
+                .description("How far the rollup watermark is behind now")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.conflicts = Counter.builder("log.rollup.recount.conflicts")
+                .description("Recounts rolled back because a batch was inserted into the same minutes")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${log.rollup.recount-interval:30s}")
+    public void recount() {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class,
+                        ADVISORY_LOCK_KEY);
+                if (!Boolean.TRUE.equals(locked)) {
+                    return;
+                }
+                LocalDateTime current = rollupRepository.findWatermark();
+                Window window = nextWindow(current, now, properties);
+                if (window == null) {
+                    watermark = current;
+                    return;
+                }
+                rollupRepository.recount(window.from(), window.to());
+                rollupRepository.saveWatermark(window.to());
+                watermark = window.to();
+            });
+        } catch (ConcurrencyFailureException e) {
+            conflicts.increment();
+            log.debug("Rollup recount conflicted with an insert, retrying next time: {}", e.getMessage());
+            return;
+        }
+
+        int minutes = rollupRepository.deleteBefore(Resolution.MINUTE, minuteCutoff(now, properties));
+        int hours = rollupRepository.deleteBefore(Resolution.HOUR,
+                now.minus(properties.getHourRetention()).truncatedTo(ChronoUnit.HOURS));
+        if (minutes > 0 || hours > 0) {
+            log.info("Expired {} minute and {} hour rollup rows", minutes, hours);
+        }
+    }
+
+    /**
+     * The minutes to recount next: from the watermark (at most {@code minute-retention} back) up to the last
+     * minute that ended {@code allowed-lateness} ago, and no more than {@code max-recount-window} of them.
+     * Null when the watermark has caught up.
+     */
+    static Window nextWindow(LocalDateTime watermark, LocalDateTime now, LogRollupProperties properties) {
+        LocalDateTime cutoff = minuteCutoff(now, properties);
+        LocalDateTime from = watermark != null && watermark.isAfter(cutoff) ? watermark : cutoff;
+        LocalDateTime closed = now.minus(properties.getAllowedLateness()).truncatedTo(ChronoUnit.MINUTES);
+        LocalDateTime limit = from.plus(properties.getMaxRecountWindow()).truncatedTo(ChronoUnit.MINUTES);
+        LocalDateTime to = closed.isBefore(limit) ? closed : limit;
+        return from.isBefore(to) ? new Window(from, to) : null;
+    }
+
+    // Hour-aligned, so the oldest hour still has all its minutes when it is rebuilt
+    private static LocalDateTime minuteCutoff(LocalDateTime now, LogRollupProperties properties) {
+        return now.minus(properties.getMinuteRetention()).truncatedTo(ChronoUnit.HOURS);
+    }
+
+    private double watermarkLagSeconds() {
+        LocalDateTime current = watermark;
+        return current != null ? Duration.between(current, LocalDateTime.now()).toSeconds() : Double.NaN;
+    }
+
+    record Window(LocalDateTime from, LocalDateTime to) {
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.demo.service;
+
+import com.example.demo.config.LogRollupProperties;
+import com.example.demo.repository.LogRollupRepository;
+import com.example.demo.repository.LogRollupRepository.Resolution;
+import com.example.demo.repository.LogRollupRow;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads the log volume rollups for dashboards. A request reads one row per bucket, level and message of
+ * its range from the rollup tables, never log_entry itself.
+ */
+public class LogRollupService {
+
+    private static final Duration DEFAULT_MINUTE_WINDOW = Duration.ofHours(1);
+    private static final Duration DEFAULT_HOUR_WINDOW = Duration.ofDays(1);
+
+    private final LogRollupRepository rollupRepository;
+    private final LogRollupProperties properties;
+
+    public LogRollupService(LogRollupRepository rollupRepository, LogRollupProperties properties) {
+        this.rollupRepository = rollupRepository;
+        this.properties = properties;
+    }
+
+    /**
+     * Counts of the buckets in [from, to), by default the last hour at minute resolution or the last day at
+     * hour resolution. {@code from} and {@code to} are rounded down to the resolution.
+     *
+     * @throws IllegalArgumentException if the resolution or window is invalid
+     */
+    public List<LogRollupRow> find(String resolution, String level, LocalDateTime from, LocalDateTime to) {
+        Resolution parsed = parse(resolution);
+        Duration defaultWindow = parsed == Resolution.MINUTE ? DEFAULT_MINUTE_WINDOW : DEFAULT_HOUR_WINDOW;
+        Duration maxWindow = parsed == Resolution.MINUTE ? properties.getMaxMinuteWindow() : properties.getMaxHourWindow();
+
+        if (to == null) {
+            // The current bucket is included, with what has been counted so far
+            to = from != null ? from.plus(defaultWindow) : LocalDateTime.now().plus(1, parsed.unit());
+        }
+        if (from == null) {
+            from = to.minus(defaultWindow);
+        }
+        from = from.truncatedTo(parsed.unit());
+        to = to.truncatedTo(parsed.unit());
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be at least one " + parsed.name().toLowerCase(Locale.ROOT)
+                    + " before to");
+        }
+        if (Duration.between(from, to).compareTo(maxWindow) > 0) {
+            throw new IllegalArgumentException("time range must not exceed " + maxWindow + " at "
+                    + parsed.name().toLowerCase(Locale.ROOT) + " resolution");
+        }
+        return rollupRepository.find(parsed, from, to, level);
+    }
+
+    private static Resolution parse(String resolution) {
+        if (resolution == null) {
+            return Resolution.MINUTE;
+        }
+        try {
+            return Resolution.valueOf(resolution.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("resolution must be minute or hour");
+        }
+    }
+}
@@ -1,29 +1,44 @@
 package com.example.demo.service;
 
 import com.example.demo.entity.LogEntry;
-import com.example.demo.repository.LogEntryRepository;
+import com.example.demo.repository.LogEntryBatchRepository;
 import io.micrometer.observation.annotation.Observed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 @Service
 public class LogSaveService {
 
     private static final Logger log = LoggerFactory.getLogger(LogSaveService.class);
 
-    private final LogEntryRepository logEntryRepository;
+    private final LogEntryBatchRepository batchRepository;
+    private final LogWriteBehindBuffer writeBehindBuffer;
 
     @Autowired
-    public LogSaveService(LogEntryRepository logEntryRepository) {
-        this.logEntryRepository = logEntryRepository;
+    public LogSaveService(LogEntryBatchRepository batchRepository, ObjectProvider<LogWriteBehindBuffer> writeBehindBuffer) {
+        this.batchRepository = batchRepository;
+        this.writeBehindBuffer = writeBehindBuffer.getIfAvailable();
     }
 
+    /**
+     * With write-behind enabled (the default) this only queues the entry, which is written shortly after in
+     * a batch; see {@link LogWriteBehindBuffer} for what that means for durability. The entry is inserted
+     * synchronously when write-behind is disabled, or when the buffer is full under the SYNC overflow policy;
+     * either way it goes through {@link LogEntryBatchRepository}, which also keeps the rollups current.
+     */
     // Micrometer는 스팬 이름으로 contextualName을 우선 사용
     @Observed(name = "save-log-to-db", contextualName = "save-log-to-db")
     public void saveLog(LogEntry logEntry) {
+        if (writeBehindBuffer != null && writeBehindBuffer.add(logEntry)) {
+            log.debug("Queued log entry for write-behind.");
+            return;
+        }
         log.info("Inside LogSaveService.saveLog. Attempting to save log to DB.");
-        logEntryRepository.save(logEntry);
+        batchRepository.insertAll(List.of(logEntry));
     }
 }
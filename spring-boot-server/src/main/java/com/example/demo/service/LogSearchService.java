@@ -0,0 +1,92 @@
+package com.example.demo.service;
+
+import com.example.demo.config.LogPartitionProperties;
+import com.example.demo.config.LogSearchProperties;
+import com.example.demo.search.LogIndex;
+import com.example.demo.search.LogIndexRebuilder;
+import com.example.demo.search.LogSearchHit;
+import com.example.demo.search.LogSearchQuery;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+
+public class LogSearchService {
+
+    private final LogIndex logIndex;
+    private final LogIndexRebuilder rebuilder;
+    private final LogSearchProperties properties;
+    private final LogPartitionProperties partitionProperties;
+
+    public LogSearchService(LogIndex logIndex, LogIndexRebuilder rebuilder, LogSearchProperties properties,
+                            LogPartitionProperties partitionProperties) {
+        this.logIndex = logIndex;
+        this.rebuilder = rebuilder;
+        this.properties = properties;
+        this.partitionProperties = partitionProperties;
+    }
+
+    /**
+     * Entries whose message matches the text and that pass the filters, ranked by relevance or, without
+     * text or with {@code order=time}, newest first. The window defaults to the last {@code default-window}.
+     *
+     * @throws IllegalArgumentException if the window, limit or order is invalid
+     */
+    public List<LogSearchHit> search(String text, String traceId, String globalId, String level,
+                                     LocalDateTime from, LocalDateTime to, Integer limit, String order) {
+        int size = limit != null ? limit : properties.getDefaultLimit();
+        if (size < 1 || size > properties.getMaxLimit()) {
+            throw new IllegalArgumentException("limit must be between 1 and " + properties.getMaxLimit());
+        }
+        if (to == null) {
+            to = from != null ? from.plus(properties.getDefaultWindow()) : LocalDateTime.now();
+        }
+        if (from == null) {
+            from = to.minus(properties.getDefaultWindow());
+        }
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        LogSearchQuery query = new LogSearchQuery(text == null || text.isBlank() ? null : text, traceId, globalId,
+                level, from, to, size, parseOrder(order));
+        try {
+            return logIndex.search(query);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Starts rebuilding the index of the given days (by default every day still in retention) from log_entry.
+     * Returns false if a rebuild is already running.
+     *
+     * @throws IllegalArgumentException if firstDay is after lastDay, or either is outside retention or after today
+     */
+    public boolean rebuild(LocalDate firstDay, LocalDate lastDay) {
+        LocalDate today = LocalDate.now();
+        LocalDate oldestKept = today.minusDays(partitionProperties.getRetentionDays());
+        LocalDate first = firstDay != null ? firstDay : oldestKept;
+        LocalDate last = lastDay != null ? lastDay : today;
+        if (first.isBefore(oldestKept) || last.isAfter(today)) {
+            throw new IllegalArgumentException("from and to must be between " + oldestKept + " and " + today);
+        }
+        if (first.isAfter(last)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        return rebuilder.rebuild(first, last);
+    }
+
+    private static LogSearchQuery.Order parseOrder(String order) {
+        if (order == null) {
+            return LogSearchQuery.Order.RELEVANCE;
+        }
+        try {
+            return LogSearchQuery.Order.valueOf(order.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("order must be relevance or time");
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.demo.service;
+
+import com.example.demo.config.LogWriteBehindProperties;
+import com.example.demo.config.LogWriteBehindProperties.OverflowPolicy;
+import com.example.demo.entity.LogEntry;
+import com.example.demo.repository.LogEntryBatchRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Collects log entries in memory and writes them in multi-row batches from a single background thread.
+ * <p>
+ * Callers never block: {@link #add} reserves a slot with a CAS on the size counter and enqueues into a
+ * lock-free queue. {@link #stop} closes the buffer with a CAS on the same counter, so an entry is either
+ * reserved before it and drained or counted as dropped, or handed back to its caller. The flusher writes
+ * as soon as a full batch is queued, or after the flush interval otherwise. Entries are only in memory
+ * until flushed, so a crash (not an orderly shutdown, which flushes what is queued) loses up to one
+ * buffer's worth; a batch that still fails after the configured attempts is dropped and counted.
+ */
+public class LogWriteBehindBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(LogWriteBehindBuffer.class);
+
+    private static final int CLOSED = Integer.MIN_VALUE;
+
+    private final LogEntryBatchRepository batchRepository;
+    private final LogWriteBehindProperties properties;
+    private final Queue<LogEntry> queue = new ConcurrentLinkedQueue<>();
+    /**
+     * Entries reserved or queued, with {@link #CLOSED} set until {@link #start} and again from {@link #stop}.
+     */
+    private final AtomicInteger size = new AtomicInteger(CLOSED);
+    private final Thread flusher;
+
+    private final Counter overflowed;
+    private final Counter dropped;
+    private final DistributionSummary batchSize;
+    private final Timer flushLatency;
+
+    private volatile boolean running;
+    /**
+     * Entries of the batch being written, which are no longer counted in {@link #size}.
+     */
+    private volatile int writing;
+    /**
+     * Set when {@link #stop} gave up waiting and counted what was left as dropped.
+     */
+    private volatile boolean abandoned;
+
+    public LogWriteBehindBuffer(LogEntryBatchRepository batchRepository, LogWriteBehindProperties properties,
+                                MeterRegistry meterRegistry) {
+        this.batchRepository = batchRepository;
+        this.properties = properties;
+        this.flusher = new Thread(this::flushLoop, "log-write-behind");
+        this.flusher.setDaemon(true);
+
+        Gauge.builder("log.writebehind.queue.size", this, LogWriteBehindBuffer::queued)
+                .description("Log entries waiting to be written")
+                .register(meterRegistry);
+        this.overflowed = Counter.builder("log.writebehind.overflow")
+                .description("Entries that found the buffer full and were handled by the overflow policy")
+                .tag("policy", properties.getOverflowPolicy().name().toLowerCase())
+                .register(meterRegistry);
+        this.dropped = Counter.builder("log.writebehind.dropped")
+                .description("Entries lost because the buffer was full or their batch kept failing")
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("log.writebehind.batch.size")
+                .description("Entries written per flush")
+                .register(meterRegistry);
+        this.flushLatency = Timer.builder("log.writebehind.flush")
+                .description("Time to write one batch, retries included")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    public void start() {
+        running = true;
+        size.set(0);
+        flusher.start();
+    }
+
+    /**
+     * Stops accepting entries and waits up to the shutdown timeout for the queued ones to be written. Those
+     * still queued or being written after that are counted as dropped.
+     */
+    public void stop() throws InterruptedException {
+        if (size.getAndUpdate(current -> current | CLOSED) < 0) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(flusher);
+        flusher.join(properties.getShutdownTimeout().toMillis());
+        if (!flusher.isAlive()) {
+            return;
+        }
+        abandoned = true;
+        flusher.interrupt();
+        int left = queued() + writing;
+        if (left > 0) {
+            dropped.increment(left);
+            log.error("Shut down with {} log entries not written", left);
+        }
+    }
+
+    /**
+     * Queues the entry. Returns false if the caller has to write it itself, i.e. the buffer is full under the
+     * SYNC overflow policy or is shutting down; under DROP a full buffer drops the entry and returns true.
+     */
+    public boolean add(LogEntry entry) {
+        int capacity = properties.getCapacity();
+        int current;
+        do {
+            current = size.get();
+            if (current < 0) {
+                return false;
+            }
+            if (current >= capacity) {
+                overflowed.increment();
+                if (properties.getOverflowPolicy() == OverflowPolicy.DROP) {
+                    dropped.increment();
+                    return true;
+                }
+                return false;
+            }
+        } while (!size.compareAndSet(current, current + 1));
+
+        queue.offer(entry);
+        if (current + 1 == properties.getBatchSize()) {
+            LockSupport.unpark(flusher);
+        }
+        return true;
+    }
+
+    private void flushLoop() {
+        List<LogEntry> batch = new ArrayList<>(properties.getBatchSize());
+        while (running) {
+            if (size.get() < properties.getBatchSize()) {
+                LockSupport.parkNanos(this, properties.getFlushInterval().toNanos());
+            }
+            flush(batch);
+        }
+        // Shutting down: write out whatever is still queued, including entries whose add() reserved a slot
+        // before the buffer was closed and has yet to enqueue them
+        while (queued() > 0 && !Thread.currentThread().isInterrupted()) {
+            flush(batch);
+            Thread.onSpinWait();
+        }
+    }
+
+    private int queued() {
+        return size.get() & ~CLOSED;
+    }
+
+    private void flush(List<LogEntry> batch) {
+        LogEntry entry;
+        while (batch.size() < properties.getBatchSize() && (entry = queue.poll()) != null) {
+            batch.add(entry);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        writing = batch.size();
+        size.addAndGet(-batch.size());
+
+        long start = System.nanoTime();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                batchRepository.insertAll(batch);
+                break;
+            } catch (RuntimeException e) {
+                if (attempt >= properties.getMaxAttempts() || abandoned) {
+                    if (!abandoned) {
+                        dropped.increment(batch.size());
+                    }
+                    log.error("Dropping {} log entries after {} failed attempts", batch.size(), attempt, e);
+                    break;
+                }
+                log.warn("Writing {} log entries failed (attempt {}), retrying: {}", batch.size(), attempt,
+                        e.getMessage());
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100L * attempt));
+            }
+        }
+        flushLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        batchSize.record(batch.size());
+        writing = 0;
+        batch.clear();
+    }
+}
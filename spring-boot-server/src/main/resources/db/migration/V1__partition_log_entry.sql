@@ -0,0 +1,56 @@
+-- log_entry as a table range-partitioned by day on "timestamp".
+-- Daily partitions are created ahead of time and dropped after the retention period by
+-- LogPartitionMaintenance; rows outside every daily partition land in log_entry_default.
+--
+-- Databases that ran with ddl-auto: update already have a plain log_entry heap. It is renamed,
+-- its rows are copied into the default partition (the maintenance job moves them into daily
+-- partitions as it creates them) and the old table is dropped.
+
+CREATE SEQUENCE IF NOT EXISTS log_entry_seq START WITH 1 INCREMENT BY 50;
+
+DO $$
+BEGIN
+    IF to_regclass('log_entry') IS NOT NULL THEN
+        ALTER TABLE log_entry RENAME TO log_entry_legacy;
+    END IF;
+END
+$$;
+
+CREATE TABLE log_entry (
+    id          bigint       NOT NULL,
+    trace_id    varchar(255),
+    message     text,
+    "timestamp" timestamp(6) NOT NULL,
+    level       varchar(255),
+    global_id   varchar(255),
+    event_id    varchar(255),
+    payload     jsonb,
+    PRIMARY KEY (id, "timestamp")
+) PARTITION BY RANGE ("timestamp");
+
+CREATE TABLE log_entry_default PARTITION OF log_entry DEFAULT;
+
+-- Declared on the parent, so every partition gets its own index on creation
+CREATE INDEX log_entry_trace_id_idx ON log_entry (trace_id);
+
+DO $$
+BEGIN
+    IF to_regclass('log_entry_legacy') IS NULL THEN
+        RETURN;
+    END IF;
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_name = 'log_entry_legacy' AND column_name = 'payload') THEN
+        INSERT INTO log_entry (id, trace_id, message, "timestamp", level, global_id, event_id, payload)
+        SELECT id, trace_id, message, coalesce("timestamp", now()), level, global_id, event_id, payload::jsonb
+        FROM log_entry_legacy;
+    ELSE
+        INSERT INTO log_entry (id, trace_id, message, "timestamp", level)
+        SELECT id, trace_id, message, coalesce("timestamp", now()), level
+        FROM log_entry_legacy;
+    END IF;
+    DROP TABLE log_entry_legacy;
+END
+$$;
+
+-- Ids handed out by the legacy IDENTITY column must not be reused by the sequence
+SELECT setval('log_entry_seq', greatest((SELECT max(id) FROM log_entry), 1));
@@ -0,0 +1,4 @@
+-- Indexes for the newest-first keyset pagination of the log query API (LogEntryQueryRepository).
+-- Declared on the partitioned parent, so each daily partition gets its own.
+CREATE INDEX log_entry_timestamp_id_idx ON log_entry ("timestamp" DESC, id DESC);
+CREATE INDEX log_entry_global_id_timestamp_idx ON log_entry (global_id, "timestamp" DESC, id DESC);
@@ -0,0 +1,25 @@
+-- Rows of log_entry counted per minute and per hour, by level and message (the message's first 200
+-- characters), so that dashboards read a few hundred rows instead of scanning the raw table.
+-- LogRollupRepository adds to the counts in the same transaction as the inserts; LogRollupMaintenance
+-- recounts closed minutes from log_entry once they fall behind the watermark in log_rollup_watermark.
+CREATE TABLE log_rollup_minute (
+    bucket  timestamp(0) NOT NULL,
+    level   varchar(255) NOT NULL,
+    message text         NOT NULL,
+    count   bigint       NOT NULL,
+    PRIMARY KEY (bucket, level, message)
+);
+
+CREATE TABLE log_rollup_hour (
+    bucket  timestamp(0) NOT NULL,
+    level   varchar(255) NOT NULL,
+    message text         NOT NULL,
+    count   bigint       NOT NULL,
+    PRIMARY KEY (bucket, level, message)
+);
+
+-- Minutes before the watermark have been recounted from log_entry
+CREATE TABLE log_rollup_watermark (
+    name      varchar(64)  PRIMARY KEY,
+    watermark timestamp(0) NOT NULL
+);
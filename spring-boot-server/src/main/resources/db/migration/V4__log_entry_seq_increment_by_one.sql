@@ -0,0 +1,3 @@
+-- LogEntryBatchRepository takes one nextval per row, so with INCREMENT BY 50 every row used up 50 ids.
+-- Ids are handed out one at a time from here on; the ones already used are unaffected.
+ALTER SEQUENCE log_entry_seq INCREMENT BY 1;
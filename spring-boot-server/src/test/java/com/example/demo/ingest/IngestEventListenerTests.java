@@ -0,0 +1,99 @@
+package com.example.demo.ingest;
+
+import com.example.demo.entity.LogEntry;
+import com.example.demo.repository.LogEntryBatchRepository;
+import com.example.demo.repository.LogRollupRepository;
+import com.example.demo.search.LogIndex;
+import com.fasterxml.jackson.core.JsonFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IngestEventListenerTests {
+
+	private final FakeRepository repository = new FakeRepository();
+	private final List<ConsumerRecord<?, ?>> deadLetters = new ArrayList<>();
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final IngestEventListener listener = new IngestEventListener(
+			new IngestEventMapper(new JsonFactory(), ZoneOffset.UTC), repository,
+			(record, e) -> deadLetters.add(record), meterRegistry);
+
+	@Test
+	void deadLettersThePoisonRecordAndStoresTheRestOfTheBatch() {
+		// jsonb has no room for U+0000, so PostgreSQL rejects this event's row and with it the whole batch
+		List<ConsumerRecord<String, byte[]>> records = List.of(record(0, "{\"eventId\":\"e-0\"}"),
+				record(1, "{\"eventId\":\"e-1\",\"note\":\"\\u0000\"}"), record(2, "{\"eventId\":\"e-2\"}"));
+
+		listener.onEvents(records);
+
+		assertThat(repository.stored).extracting(LogEntry::getEventId).containsExactly("e-0", "e-2");
+		assertThat(deadLetters).extracting(ConsumerRecord::offset).containsExactly(1L);
+		assertThat(deadLetters("rejected")).isEqualTo(1);
+	}
+
+	@Test
+	void deadLettersUnreadableRecordsWithoutFailingTheBatch() {
+		listener.onEvents(List.of(record(0, "{\"eventId\":\"e-0\"}"), record(1, "not an event")));
+
+		assertThat(repository.stored).extracting(LogEntry::getEventId).containsExactly("e-0");
+		assertThat(repository.batches).isEqualTo(1);
+		assertThat(deadLetters).extracting(ConsumerRecord::offset).containsExactly(1L);
+		assertThat(deadLetters("unreadable")).isEqualTo(1);
+	}
+
+	@Test
+	void failsThePollWhenTheDatabaseIsUnavailable() {
+		repository.unavailable = true;
+
+		assertThatThrownBy(() -> listener.onEvents(List.of(record(0, "{\"eventId\":\"e-0\"}"))))
+				.isInstanceOf(DataAccessResourceFailureException.class);
+		assertThat(deadLetters).isEmpty();
+	}
+
+	private double deadLetters(String reason) {
+		return meterRegistry.get("ingest.consumer.dead.letters").tag("reason", reason).counter().count();
+	}
+
+	private static ConsumerRecord<String, byte[]> record(long offset, String value) {
+		return new ConsumerRecord<>("ingest-events", 0, offset, 0L, TimestampType.CREATE_TIME, -1, -1, null,
+				value.getBytes(StandardCharsets.UTF_8), new RecordHeaders(), Optional.empty());
+	}
+
+	private static class FakeRepository extends LogEntryBatchRepository {
+
+		final List<LogEntry> stored = new ArrayList<>();
+		int batches;
+		boolean unavailable;
+
+		FakeRepository() {
+			super(null, null, new StaticListableBeanFactory().getBeanProvider(LogRollupRepository.class),
+					new StaticListableBeanFactory().getBeanProvider(LogIndex.class));
+		}
+
+		@Override
+		public void insertAll(List<LogEntry> entries) {
+			if (unavailable) {
+				throw new DataAccessResourceFailureException("database unavailable");
+			}
+			if (entries.stream().anyMatch(entry -> entry.getPayload().contains("\\u0000"))) {
+				throw new DataIntegrityViolationException("unsupported Unicode escape sequence");
+			}
+			stored.addAll(entries);
+			batches++;
+		}
+	}
+}
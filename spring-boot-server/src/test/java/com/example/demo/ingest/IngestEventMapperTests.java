@@ -0,0 +1,110 @@
+package com.example.demo.ingest;
+
+import com.example.demo.entity.LogEntry;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IngestEventMapperTests {
+
+	private static final String TRACEPARENT = "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01";
+
+	private final IngestEventMapper mapper = new IngestEventMapper(new JsonFactory(), ZoneOffset.UTC);
+
+	@Test
+	void mapsRoutingFieldsAndHeaders() throws IOException {
+		String event = """
+				{"eventId":"e-1","timestamp":"2025-09-23T14:30:00.123456","userId":"user-123",\
+				"event":"button_click","properties":{"event":"nested","page":"home"}}""";
+		RecordHeaders headers = new RecordHeaders();
+		headers.add(new RecordHeader("traceparent", TRACEPARENT.getBytes(StandardCharsets.US_ASCII)));
+		headers.add(new RecordHeader("globalId", "client-1".getBytes(StandardCharsets.UTF_8)));
+
+		LogEntry entry = mapper.map(record(event, headers));
+
+		assertThat(entry.getTraceId()).isEqualTo("4bf92f3577b34da6a3ce929d0e0e4736");
+		assertThat(entry.getGlobalId()).isEqualTo("client-1");
+		assertThat(entry.getEventId()).isEqualTo("e-1");
+		assertThat(entry.getMessage()).isEqualTo("button_click");
+		assertThat(entry.getLevel()).isEqualTo("EVENT");
+		assertThat(entry.getTimestamp()).isEqualTo(LocalDateTime.of(2025, 9, 23, 14, 30, 0, 123_456_000));
+		assertThat(entry.getPayload()).isEqualTo(event);
+	}
+
+	@Test
+	void fallsBackToRecordTimestamp() throws IOException {
+		LogEntry entry = mapper.map(record("{\"event\":\"page_view\",\"timestamp\":\"yesterday\"}",
+				new RecordHeaders()));
+
+		assertThat(entry.getTimestamp()).isEqualTo(LocalDateTime.of(2025, 1, 1, 0, 0));
+		assertThat(entry.getTraceId()).isNull();
+		assertThat(entry.getGlobalId()).isNull();
+	}
+
+	@Test
+	void convertsOffsetTimestampsToLocalTime() throws IOException {
+		LogEntry entry = mapper.map(record("{\"timestamp\":\"2025-09-23T23:30:00+09:00\"}", new RecordHeaders()));
+
+		assertThat(entry.getTimestamp()).isEqualTo(LocalDateTime.of(2025, 9, 23, 14, 30));
+	}
+
+	@Test
+	void readsBinaryFormatsAndStoresJson() throws IOException {
+		String event = """
+				{"eventId":"e-1","event":"button_click","properties":{"page":"home","position":{"x":120,"y":48}}}""";
+		JsonNode tree = new ObjectMapper().readTree(event);
+
+		for (String format : new String[] {"smile", "cbor"}) {
+			ObjectMapper binary = new ObjectMapper(format.equals("smile") ? new SmileFactory() : new CBORFactory());
+			RecordHeaders headers = new RecordHeaders();
+			headers.add(new RecordHeader("format", format.getBytes(StandardCharsets.US_ASCII)));
+
+			LogEntry entry = mapper.map(record(binary.writeValueAsBytes(tree), headers));
+
+			assertThat(entry.getEventId()).isEqualTo("e-1");
+			assertThat(entry.getMessage()).isEqualTo("button_click");
+			assertThat(entry.getPayload()).isEqualTo(event);
+		}
+	}
+
+	@Test
+	void rejectsUnknownFormats() {
+		RecordHeaders headers = new RecordHeaders();
+		headers.add(new RecordHeader("format", "avro".getBytes(StandardCharsets.US_ASCII)));
+
+		assertThatThrownBy(() -> mapper.map(record("{}", headers))).isInstanceOf(IOException.class);
+	}
+
+	@Test
+	void rejectsNonObjects() {
+		assertThatThrownBy(() -> mapper.map(record("[1,2]", new RecordHeaders()))).isInstanceOf(IOException.class);
+		assertThatThrownBy(() -> mapper.map(record("{\"event\":", new RecordHeaders())))
+				.isInstanceOf(IOException.class);
+	}
+
+	private static ConsumerRecord<String, byte[]> record(String value, RecordHeaders headers) {
+		return record(value.getBytes(StandardCharsets.UTF_8), headers);
+	}
+
+	private static ConsumerRecord<String, byte[]> record(byte[] value, RecordHeaders headers) {
+		long timestamp = LocalDateTime.of(2025, 1, 1, 0, 0).toInstant(ZoneOffset.UTC).toEpochMilli();
+		return new ConsumerRecord<>("ingest-events", 0, 0, timestamp, TimestampType.CREATE_TIME, -1, -1, null,
+				value, headers, Optional.empty());
+	}
+}
@@ -0,0 +1,25 @@
+package com.example.demo.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LogCursorTests {
+
+	@Test
+	void roundTrips() {
+		LocalDateTime timestamp = LocalDateTime.of(2025, 9, 23, 14, 30, 0, 123_456_000);
+		LogCursor cursor = new LogCursor(timestamp, 4711, timestamp.minusHours(1), timestamp.plusHours(1));
+
+		assertThat(LogCursor.decode(cursor.encode())).isEqualTo(cursor);
+	}
+
+	@Test
+	void rejectsForeignTokens() {
+		assertThatThrownBy(() -> LogCursor.decode("not a cursor!")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> LogCursor.decode("Zm9vLGJhcg")).isInstanceOf(IllegalArgumentException.class);
+	}
+}
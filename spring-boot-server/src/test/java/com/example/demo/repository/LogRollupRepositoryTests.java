@@ -0,0 +1,66 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.LogEntry;
+import com.example.demo.repository.LogRollupRepository.Resolution;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LogRollupRepositoryTests {
+
+	private static final LocalDateTime NOON = LocalDateTime.of(2025, 9, 23, 12, 0);
+
+	@Test
+	void countsEntriesPerMinuteLevelAndMessage() {
+		List<LogEntry> entries = List.of(
+				entry(NOON.plusSeconds(5), "INFO", "clicked"),
+				entry(NOON.plusSeconds(50), "INFO", "clicked"),
+				entry(NOON.plusSeconds(30), "ERROR", "clicked"),
+				entry(NOON.plusMinutes(1), "INFO", "clicked"));
+
+		assertThat(LogRollupRepository.aggregate(entries, Resolution.MINUTE)).containsExactly(
+				new LogRollupRow(NOON, "ERROR", "clicked", 1),
+				new LogRollupRow(NOON, "INFO", "clicked", 2),
+				new LogRollupRow(NOON.plusMinutes(1), "INFO", "clicked", 1));
+		assertThat(LogRollupRepository.aggregate(entries, Resolution.HOUR)).containsExactly(
+				new LogRollupRow(NOON, "ERROR", "clicked", 1),
+				new LogRollupRow(NOON, "INFO", "clicked", 3));
+	}
+
+	@Test
+	void sortsRowsSoWritersLockThemInTheSameOrder() {
+		List<LogEntry> entries = List.of(
+				entry(NOON.plusMinutes(2), "INFO", "b"),
+				entry(NOON, "WARN", "a"),
+				entry(NOON, "INFO", "b"),
+				entry(NOON, "INFO", "a"));
+
+		assertThat(LogRollupRepository.aggregate(entries, Resolution.MINUTE))
+				.extracting(row -> row.bucket().getMinute() + row.level() + row.message())
+				.containsExactly("0INFOa", "0INFOb", "0WARNa", "2INFOb");
+	}
+
+	@Test
+	void groupsMissingLevelAndMessageAsEmpty() {
+		assertThat(LogRollupRepository.aggregate(List.of(entry(NOON, null, null)), Resolution.MINUTE))
+				.containsExactly(new LogRollupRow(NOON, "", "", 1));
+	}
+
+	@Test
+	void cutsMessagesAtCodePoints() {
+		String message = "x".repeat(LogRollupRepository.MESSAGE_KEY_LENGTH - 1) + "😀" + "tail";
+
+		String key = LogRollupRepository.messageKey(message);
+
+		assertThat(key.codePointCount(0, key.length())).isEqualTo(LogRollupRepository.MESSAGE_KEY_LENGTH);
+		assertThat(key).endsWith("😀");
+		assertThat(LogRollupRepository.messageKey("short")).isEqualTo("short");
+	}
+
+	private static LogEntry entry(LocalDateTime timestamp, String level, String message) {
+		return new LogEntry(null, message, timestamp, level);
+	}
+}
@@ -0,0 +1,178 @@
+package com.example.demo.search;
+
+import com.example.demo.config.LogPartitionProperties;
+import com.example.demo.config.LogSearchProperties;
+import com.example.demo.entity.LogEntry;
+import com.example.demo.repository.LogRecord;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LogIndexTests {
+
+	private static final LocalDateTime NOW = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+	@TempDir
+	Path directory;
+
+	private final LogSearchProperties properties = new LogSearchProperties();
+	private final LogPartitionProperties partitionProperties = new LogPartitionProperties();
+	private LogIndex index;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		properties.setDirectory(directory);
+		index = newIndex();
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		index.stop();
+	}
+
+	@Test
+	void findsEntriesWithAllWordsBestMatchFirst() throws Exception {
+		index.addAll(List.of(
+				entry(1, NOW.minusMinutes(3), "INFO", "payment accepted"),
+				entry(2, NOW.minusMinutes(2), "ERROR", "payment timeout on checkout page"),
+				entry(3, NOW.minusMinutes(1), "ERROR", "payment timeout")));
+		index.refresh();
+
+		List<LogSearchHit> hits = index.search(query("payment timeout", null, null, LogSearchQuery.Order.RELEVANCE));
+
+		assertThat(hits).extracting(LogSearchHit::id).containsExactly(3L, 2L);
+		assertThat(hits.get(0).score()).isPositive();
+		assertThat(hits.get(0).timestamp()).isEqualTo(NOW.minusMinutes(1));
+	}
+
+	@Test
+	void filtersByTraceLevelAndTime() throws Exception {
+		index.addAll(List.of(
+				entry(1, NOW.minusMinutes(3), "ERROR", "disk full"),
+				entry(2, NOW.minusMinutes(2), "WARN", "disk full"),
+				entry(3, NOW.minusHours(2), "ERROR", "disk full")));
+		index.refresh();
+
+		assertThat(index.search(query("disk", null, "ERROR", LogSearchQuery.Order.RELEVANCE)))
+				.extracting(LogSearchHit::id).containsExactly(1L);
+		assertThat(index.search(query("disk", "trace-2", null, LogSearchQuery.Order.RELEVANCE)))
+				.extracting(LogSearchHit::id).containsExactly(2L);
+	}
+
+	@Test
+	void listsNewestFirstWithoutText() throws Exception {
+		index.addAll(List.of(
+				entry(1, NOW.minusMinutes(3), "INFO", "a"),
+				entry(2, NOW.minusMinutes(1), "INFO", "b"),
+				entry(3, NOW.minusMinutes(2), "INFO", "c")));
+		index.refresh();
+
+		List<LogSearchHit> hits = index.search(query(null, null, null, LogSearchQuery.Order.TIME));
+
+		assertThat(hits).extracting(LogSearchHit::id).containsExactly(2L, 3L, 1L);
+		assertThat(hits.get(0).score()).isNull();
+	}
+
+	@Test
+	void replacesRowsIndexedAgain() throws Exception {
+		LogRecord record = new LogRecord(7, "trace-7", null, null, NOW.minusMinutes(1), "INFO", "cache warmed", null);
+		index.update(record);
+		index.update(record);
+		index.refresh();
+
+		assertThat(index.search(query("cache", null, null, LogSearchQuery.Order.RELEVANCE))).hasSize(1);
+	}
+
+	@Test
+	void replacesRowsAddedAfterACatchUpIndexedThem() throws Exception {
+		index.update(new LogRecord(8, "trace-8", null, null, NOW.minusMinutes(1), "INFO", "cache warmed", null));
+		index.addAll(List.of(entry(8, NOW.minusMinutes(1), "INFO", "cache warmed")));
+		index.refresh();
+
+		assertThat(index.search(query("cache", null, null, LogSearchQuery.Order.RELEVANCE))).hasSize(1);
+	}
+
+	@Test
+	void keepsCommittedEntriesAndTheirHighestIdAcrossRestarts() throws Exception {
+		index.addAll(List.of(entry(41, NOW.minusMinutes(1), "INFO", "restart me"),
+				entry(42, NOW.minusMinutes(1), "INFO", "restart me too")));
+		index.stop();
+
+		index = newIndex();
+
+		assertThat(index.maxCommittedId()).isEqualTo(42);
+		assertThat(index.search(query("restart", null, null, LogSearchQuery.Order.RELEVANCE))).hasSize(2);
+	}
+
+	@Test
+	void indexesEveryBatchWhenThreadsOpenTheSameDayAtOnce() throws Exception {
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> writers = new ArrayList<>();
+		for (int i = 1; i <= 8; i++) {
+			LogEntry entry = entry(i, NOW.minusMinutes(1), "INFO", "first of the day");
+			Thread writer = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				index.addAll(List.of(entry));
+			});
+			writer.start();
+			writers.add(writer);
+		}
+
+		start.countDown();
+		for (Thread writer : writers) {
+			writer.join();
+		}
+		index.refresh();
+
+		assertThat(index.search(query("first", null, null, LogSearchQuery.Order.RELEVANCE))).hasSize(8);
+	}
+
+	@Test
+	void skipsEntriesPastRetention() throws Exception {
+		partitionProperties.setRetentionDays(1);
+		index.addAll(List.of(entry(1, NOW.minusDays(5), "INFO", "too old")));
+
+		assertThat(index.isEmpty()).isTrue();
+	}
+
+	@Test
+	void opensNoIndexToClearADayItDoesNotHave() throws Exception {
+		partitionProperties.setRetentionDays(1);
+		index.clear(LocalDate.of(1, 1, 1));
+		index.clear(NOW.toLocalDate());
+
+		assertThat(index.isEmpty()).isTrue();
+	}
+
+	private LogIndex newIndex() throws Exception {
+		LogIndex logIndex = new LogIndex(properties, partitionProperties, new SimpleMeterRegistry());
+		logIndex.start();
+		return logIndex;
+	}
+
+	private static LogSearchQuery query(String text, String traceId, String level, LogSearchQuery.Order order) {
+		return new LogSearchQuery(text, traceId, null, level, NOW.minusHours(1), NOW.plusMinutes(1), 10, order);
+	}
+
+	private static LogEntry entry(long id, LocalDateTime timestamp, String level, String message) {
+		LogEntry entry = new LogEntry("trace-" + id, message, timestamp, level);
+		entry.setId(id);
+		return entry;
+	}
+}
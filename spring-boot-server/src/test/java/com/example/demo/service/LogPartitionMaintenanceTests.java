@@ -0,0 +1,144 @@
+package com.example.demo.service;
+
+import com.example.demo.config.LogPartitionProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LogPartitionMaintenanceTests {
+
+	private static final LocalDate TODAY = LocalDate.of(2025, 9, 23);
+
+	private final LogPartitionProperties properties = new LogPartitionProperties();
+	private final RecordingJdbcTemplate jdbcTemplate = new RecordingJdbcTemplate();
+	private final LogPartitionMaintenance maintenance = new LogPartitionMaintenance(jdbcTemplate,
+			new InlineTransactionTemplate(), properties);
+
+	@Test
+	void namesPartitionsByDay() {
+		LocalDate day = LocalDate.of(2025, 9, 23);
+
+		assertThat(LogPartitionMaintenance.partitionName(day)).isEqualTo("log_entry_p20250923");
+		assertThat(LogPartitionMaintenance.partitionDay("log_entry_p20250923")).isEqualTo(day);
+	}
+
+	@Test
+	void ignoresPartitionsThatAreNotDaily() {
+		assertThat(LogPartitionMaintenance.partitionDay("log_entry_default")).isNull();
+		assertThat(LogPartitionMaintenance.partitionDay("log_entry_pfoo")).isNull();
+	}
+
+	@Test
+	void createsTheMissingDaysFromTodayThroughThePrecreatedOnes() {
+		properties.setPrecreateDays(2);
+		jdbcTemplate.partitions = List.of("log_entry_default", "log_entry_p20250923");
+
+		maintenance.maintain(TODAY);
+
+		assertThat(jdbcTemplate.statements("CREATE TABLE")).containsExactly(
+				"CREATE TABLE log_entry_p20250924 (LIKE log_entry INCLUDING DEFAULTS INCLUDING CONSTRAINTS)",
+				"CREATE TABLE log_entry_p20250925 (LIKE log_entry INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+		assertThat(jdbcTemplate.statements("ALTER TABLE")).containsExactly(
+				"ALTER TABLE log_entry ATTACH PARTITION log_entry_p20250924"
+						+ " FOR VALUES FROM ('2025-09-24 00:00:00.0') TO ('2025-09-25 00:00:00.0')",
+				"ALTER TABLE log_entry ATTACH PARTITION log_entry_p20250925"
+						+ " FOR VALUES FROM ('2025-09-25 00:00:00.0') TO ('2025-09-26 00:00:00.0')");
+	}
+
+	@Test
+	void movesTheDaysRowsOutOfTheDefaultPartitionBeforeAttaching() {
+		properties.setPrecreateDays(0);
+
+		maintenance.maintain(TODAY);
+
+		assertThat(jdbcTemplate.statements).containsSubsequence(
+				"CREATE TABLE log_entry_p20250923 (LIKE log_entry INCLUDING DEFAULTS INCLUDING CONSTRAINTS)",
+				"""
+						WITH moved AS (
+						    DELETE FROM log_entry_default WHERE "timestamp" >= ? AND "timestamp" < ? RETURNING *
+						)
+						INSERT INTO log_entry_p20250923 SELECT * FROM moved \
+						[2025-09-23 00:00:00.0, 2025-09-24 00:00:00.0]""",
+				"ALTER TABLE log_entry ATTACH PARTITION log_entry_p20250923"
+						+ " FOR VALUES FROM ('2025-09-23 00:00:00.0') TO ('2025-09-24 00:00:00.0')");
+	}
+
+	@Test
+	void dropsPartitionsOlderThanRetentionAndExpiresTheDefaultPartition() {
+		properties.setRetentionDays(2);
+		properties.setPrecreateDays(0);
+		jdbcTemplate.partitions = List.of("log_entry_default", "log_entry_p20250920", "log_entry_p20250921",
+				"log_entry_p20250922", "log_entry_p20250923");
+
+		maintenance.maintain(TODAY);
+
+		assertThat(jdbcTemplate.statements("DROP TABLE")).containsExactly("DROP TABLE log_entry_p20250920");
+		assertThat(jdbcTemplate.statements("CREATE TABLE")).isEmpty();
+		assertThat(jdbcTemplate.statements("DELETE FROM")).containsExactly(
+				"DELETE FROM log_entry_default WHERE \"timestamp\" < ? [2025-09-21 00:00:00.0]");
+	}
+
+	@Test
+	void skipsWhenAnotherInstanceHoldsTheLock() {
+		jdbcTemplate.locked = false;
+
+		maintenance.maintain(TODAY);
+
+		assertThat(jdbcTemplate.statements).containsExactly("SELECT pg_try_advisory_xact_lock(?)");
+	}
+
+	/**
+	 * Answers the lock and partition listing queries, and records every statement with its arguments.
+	 */
+	private static class RecordingJdbcTemplate extends JdbcTemplate {
+
+		private final List<String> statements = new ArrayList<>();
+		private boolean locked = true;
+		private List<String> partitions = List.of("log_entry_default");
+
+		List<String> statements(String prefix) {
+			return statements.stream().filter(statement -> statement.startsWith(prefix)).toList();
+		}
+
+		@Override
+		public <T> T queryForObject(String sql, Class<T> requiredType, Object... args) {
+			statements.add(sql);
+			return requiredType.cast(locked);
+		}
+
+		@Override
+		public <T> List<T> queryForList(String sql, Class<T> elementType) {
+			return partitions.stream().map(elementType::cast).toList();
+		}
+
+		@Override
+		public void execute(String sql) {
+			statements.add(sql);
+		}
+
+		@Override
+		public int update(String sql, Object... args) {
+			statements.add(sql + " " + Arrays.toString(args));
+			return 0;
+		}
+	}
+
+	private static class InlineTransactionTemplate extends TransactionTemplate {
+
+		@Override
+		public <T> T execute(TransactionCallback<T> action) {
+			TransactionStatus status = new SimpleTransactionStatus();
+			return action.doInTransaction(status);
+		}
+	}
+}
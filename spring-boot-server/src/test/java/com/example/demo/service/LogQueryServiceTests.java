@@ -0,0 +1,107 @@
+package com.example.demo.service;
+
+import com.example.demo.config.LogQueryProperties;
+import com.example.demo.repository.LogCursor;
+import com.example.demo.repository.LogEntryQueryRepository;
+import com.example.demo.repository.LogQuery;
+import com.example.demo.repository.LogRecord;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LogQueryServiceTests {
+
+	private static final LocalDateTime NOON = LocalDateTime.of(2025, 9, 23, 12, 0);
+
+	private final FakeQueryRepository repository = new FakeQueryRepository();
+	private final LogQueryProperties properties = new LogQueryProperties();
+	private final LogQueryService service = new LogQueryService(repository, properties);
+
+	@Test
+	void returnsCursorOfLastRowWhenMoreRowsExist() {
+		repository.rows = List.of(record(3, NOON.plusMinutes(3)), record(2, NOON.plusMinutes(2)),
+				record(1, NOON.plusMinutes(1)));
+
+		LogPage page = service.findPage(null, null, null, NOON, NOON.plusHours(1), null, 2);
+
+		assertThat(page.items()).extracting(LogRecord::id).containsExactly(3L, 2L);
+		assertThat(LogCursor.decode(page.nextCursor()))
+				.isEqualTo(new LogCursor(NOON.plusMinutes(2), 2, NOON, NOON.plusHours(1)));
+		assertThat(repository.lastLimit).isEqualTo(3);
+	}
+
+	@Test
+	void omitsCursorOnLastPage() {
+		repository.rows = List.of(record(1, NOON));
+
+		LogPage page = service.findPage(null, null, null, NOON.minusHours(1), NOON.plusHours(1), null, 2);
+
+		assertThat(page.nextCursor()).isNull();
+	}
+
+	@Test
+	void defaultsToWindowEndingAtTo() {
+		LogQuery query = service.buildQuery("trace", null, null, null, NOON, null);
+
+		assertThat(query.from()).isEqualTo(NOON.minus(properties.getDefaultWindow()));
+		assertThat(query.to()).isEqualTo(NOON);
+	}
+
+	@Test
+	void keepsTheFirstPagesWindowOnFollowingPages() {
+		String cursor = new LogCursor(NOON.minusMinutes(5), 7, NOON.minusHours(1), NOON).encode();
+
+		LogQuery query = service.buildQuery("trace", null, null, null, null, cursor);
+
+		assertThat(query.from()).isEqualTo(NOON.minusHours(1));
+		assertThat(query.to()).isEqualTo(NOON);
+		assertThat(query.after()).isEqualTo(LogCursor.decode(cursor));
+		assertThat(service.buildQuery("trace", null, null, NOON.minusHours(1), NOON, cursor)).isEqualTo(query);
+		assertThatThrownBy(() -> service.buildQuery("trace", null, null, null, NOON.plusMinutes(1), cursor))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void rejectsWindowsWiderThanAllowed() {
+		properties.setMaxWindow(Duration.ofDays(1));
+
+		assertThatThrownBy(() -> service.buildQuery(null, null, null, NOON.minusDays(2), NOON, null))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> service.buildQuery(null, null, null, NOON, NOON, null))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void rejectsPageSizesOutsideLimits() {
+		assertThatThrownBy(() -> service.findPage(null, null, null, null, null, null, 0))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> service.findPage(null, null, null, null, null, null,
+				properties.getMaxPageSize() + 1)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static LogRecord record(long id, LocalDateTime timestamp) {
+		return new LogRecord(id, "trace", null, null, timestamp, "INFO", "message", null);
+	}
+
+	private static class FakeQueryRepository extends LogEntryQueryRepository {
+
+		List<LogRecord> rows = new ArrayList<>();
+		int lastLimit;
+
+		FakeQueryRepository() {
+			super(null, null);
+		}
+
+		@Override
+		public List<LogRecord> findPage(LogQuery query, int limit) {
+			lastLimit = limit;
+			return rows.subList(0, Math.min(limit, rows.size()));
+		}
+	}
+}
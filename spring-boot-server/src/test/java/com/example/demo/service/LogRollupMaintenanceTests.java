@@ -0,0 +1,46 @@
+package com.example.demo.service;
+
+import com.example.demo.config.LogRollupProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LogRollupMaintenanceTests {
+
+	private static final LocalDateTime NOW = LocalDateTime.of(2025, 9, 23, 12, 30, 45);
+
+	private final LogRollupProperties properties = new LogRollupProperties();
+
+	@Test
+	void recountsClosedMinutesAfterTheWatermark() {
+		properties.setAllowedLateness(Duration.ofMinutes(5));
+
+		LogRollupMaintenance.Window window = LogRollupMaintenance.nextWindow(NOW.withMinute(20).withSecond(0),
+				NOW, properties);
+
+		assertThat(window).isEqualTo(new LogRollupMaintenance.Window(NOW.withMinute(20).withSecond(0),
+				NOW.withMinute(25).withSecond(0)));
+	}
+
+	@Test
+	void waitsWhenTheWatermarkHasCaughtUp() {
+		properties.setAllowedLateness(Duration.ofMinutes(5));
+
+		assertThat(LogRollupMaintenance.nextWindow(NOW.withMinute(25).withSecond(0), NOW, properties)).isNull();
+	}
+
+	@Test
+	void startsAtMinuteRetentionAndCatchesUpInSteps() {
+		properties.setMinuteRetention(Duration.ofDays(1));
+		properties.setMaxRecountWindow(Duration.ofHours(1));
+
+		LogRollupMaintenance.Window window = LogRollupMaintenance.nextWindow(null, NOW, properties);
+
+		LocalDateTime start = NOW.minusDays(1).withMinute(0).withSecond(0);
+		assertThat(window).isEqualTo(new LogRollupMaintenance.Window(start, start.plusHours(1)));
+		assertThat(LogRollupMaintenance.nextWindow(NOW.minusDays(30), NOW, properties)).isEqualTo(window);
+	}
+}
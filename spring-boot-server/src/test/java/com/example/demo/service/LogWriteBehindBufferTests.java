@@ -0,0 +1,246 @@
+package com.example.demo.service;
+
+import com.example.demo.config.LogWriteBehindProperties;
+import com.example.demo.config.LogWriteBehindProperties.OverflowPolicy;
+import com.example.demo.entity.LogEntry;
+import com.example.demo.repository.LogEntryBatchRepository;
+import com.example.demo.repository.LogRollupRepository;
+import com.example.demo.search.LogIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LogWriteBehindBufferTests {
+
+	private final RecordingRepository repository = new RecordingRepository();
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final LogWriteBehindProperties properties = new LogWriteBehindProperties();
+
+	private LogWriteBehindBuffer buffer;
+
+	@AfterEach
+	void tearDown() throws InterruptedException {
+		repository.release();
+		if (buffer != null) {
+			buffer.stop();
+		}
+	}
+
+	@Test
+	void flushesAsSoonAsABatchIsFull() throws InterruptedException {
+		properties.setBatchSize(10);
+		properties.setFlushInterval(Duration.ofMinutes(1));
+		start();
+
+		for (int i = 0; i < 10; i++) {
+			assertThat(buffer.add(entry(i))).isTrue();
+		}
+
+		assertThat(repository.awaitWritten(10)).isTrue();
+		assertThat(repository.batches).hasSize(1);
+	}
+
+	@Test
+	void flushesPartialBatchesAfterTheInterval() throws InterruptedException {
+		properties.setBatchSize(100);
+		properties.setFlushInterval(Duration.ofMillis(20));
+		start();
+
+		buffer.add(entry(1));
+		buffer.add(entry(2));
+
+		assertThat(repository.awaitWritten(2)).isTrue();
+	}
+
+	@Test
+	void handsEntriesBackToTheCallerWhenFullUnderSyncPolicy() {
+		properties.setCapacity(2);
+		properties.setBatchSize(1);
+		properties.setOverflowPolicy(OverflowPolicy.SYNC);
+		repository.block();
+		start();
+
+		// The first entry is taken by the blocked flusher, two more fill the buffer
+		buffer.add(entry(0));
+		repository.awaitBlocked();
+		assertThat(buffer.add(entry(1))).isTrue();
+		assertThat(buffer.add(entry(2))).isTrue();
+
+		assertThat(buffer.add(entry(3))).isFalse();
+		assertThat(meterRegistry.counter("log.writebehind.overflow", "policy", "sync").count()).isEqualTo(1);
+	}
+
+	@Test
+	void dropsEntriesWhenFullUnderDropPolicy() {
+		properties.setCapacity(1);
+		properties.setBatchSize(1);
+		properties.setOverflowPolicy(OverflowPolicy.DROP);
+		repository.block();
+		start();
+
+		buffer.add(entry(0));
+		repository.awaitBlocked();
+		assertThat(buffer.add(entry(1))).isTrue();
+
+		assertThat(buffer.add(entry(2))).isTrue();
+		assertThat(meterRegistry.counter("log.writebehind.dropped").count()).isEqualTo(1);
+	}
+
+	@Test
+	void writesQueuedEntriesOnStop() throws InterruptedException {
+		properties.setBatchSize(100);
+		properties.setFlushInterval(Duration.ofMinutes(1));
+		start();
+
+		for (int i = 0; i < 250; i++) {
+			buffer.add(entry(i));
+		}
+		buffer.stop();
+
+		assertThat(repository.written()).isEqualTo(250);
+		assertThat(buffer.add(entry(250))).isFalse();
+	}
+
+	@Test
+	void accountsForEveryEntryAcceptedWhileStopping() throws Exception {
+		properties.setBatchSize(50);
+		properties.setCapacity(1_000_000);
+		start();
+		AtomicInteger accepted = new AtomicInteger();
+		CountDownLatch adding = new CountDownLatch(4);
+		List<Thread> producers = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			Thread producer = new Thread(() -> {
+				adding.countDown();
+				for (int i = 0; buffer.add(entry(i)); i++) {
+					accepted.incrementAndGet();
+				}
+			});
+			producer.start();
+			producers.add(producer);
+		}
+
+		adding.await();
+		Thread.sleep(20);
+		buffer.stop();
+		for (Thread producer : producers) {
+			producer.join();
+		}
+
+		assertThat(repository.written()).isEqualTo(accepted.get());
+		assertThat(meterRegistry.counter("log.writebehind.dropped").count()).isZero();
+	}
+
+	@Test
+	void countsTheBatchInProgressAsDroppedWhenStopTimesOut() throws InterruptedException {
+		properties.setBatchSize(1);
+		properties.setShutdownTimeout(Duration.ofMillis(50));
+		repository.block();
+		start();
+
+		buffer.add(entry(0));
+		repository.awaitBlocked();
+		buffer.add(entry(1));
+		buffer.add(entry(2));
+		buffer.stop();
+
+		assertThat(meterRegistry.counter("log.writebehind.dropped").count()).isEqualTo(3);
+		assertThat(meterRegistry.get("log.writebehind.queue.size").gauge().value()).isEqualTo(2);
+	}
+
+	@Test
+	void retriesFailedBatches() throws InterruptedException {
+		properties.setBatchSize(1);
+		properties.setMaxAttempts(3);
+		repository.failTimes(2);
+		start();
+
+		buffer.add(entry(1));
+
+		assertThat(repository.awaitWritten(1)).isTrue();
+		assertThat(meterRegistry.counter("log.writebehind.dropped").count()).isZero();
+	}
+
+	private void start() {
+		buffer = new LogWriteBehindBuffer(repository, properties, meterRegistry);
+		buffer.start();
+	}
+
+	private static LogEntry entry(int i) {
+		return new LogEntry("trace-" + i, "message " + i, LocalDateTime.now(), "INFO");
+	}
+
+	private static class RecordingRepository extends LogEntryBatchRepository {
+
+		final List<List<LogEntry>> batches = new CopyOnWriteArrayList<>();
+		private final CountDownLatch blocked = new CountDownLatch(1);
+		private volatile CountDownLatch gate = new CountDownLatch(0);
+		private volatile int failures;
+
+		RecordingRepository() {
+			super(null, null, new StaticListableBeanFactory().getBeanProvider(LogRollupRepository.class),
+					new StaticListableBeanFactory().getBeanProvider(LogIndex.class));
+		}
+
+		@Override
+		public void insertAll(List<LogEntry> entries) {
+			if (gate.getCount() > 0) {
+				blocked.countDown();
+				try {
+					gate.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			if (failures > 0) {
+				failures--;
+				throw new IllegalStateException("database unavailable");
+			}
+			batches.add(List.copyOf(entries));
+		}
+
+		void block() {
+			gate = new CountDownLatch(1);
+		}
+
+		void release() {
+			gate.countDown();
+		}
+
+		void failTimes(int times) {
+			failures = times;
+		}
+
+		void awaitBlocked() {
+			try {
+				assertThat(blocked.await(5, TimeUnit.SECONDS)).isTrue();
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		int written() {
+			return batches.stream().mapToInt(List::size).sum();
+		}
+
+		boolean awaitWritten(int count) throws InterruptedException {
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while (written() < count && System.nanoTime() < deadline) {
+				Thread.sleep(5);
+			}
+			return written() >= count;
+		}
+	}
+}
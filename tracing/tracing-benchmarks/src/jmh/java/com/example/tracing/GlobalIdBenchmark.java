@@ -0,0 +1,169 @@
+package com.example.tracing;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationFilter;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.slf4j.MDC;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of getting the global ID onto spans: spring-boot-server's old pair (an around advice on
+ * every controller method plus an ObservationFilter reading the MDC on every observation) against
+ * GlobalIdFilter's approach (resolve once, tag the server observation, open a {@link GlobalId} scope).
+ * <p>
+ * A request is one server observation around a controller call that makes {@code childObservations} more,
+ * standing in for the JDBC observations datasource-micrometer creates. The handler reads every key value at
+ * stop, as the tracing handler does when it copies them onto the span. The old aspect tagged
+ * {@code Tracer.currentSpan()}; here it tags the current observation, which costs the same thread-local
+ * lookup without pulling a tracer into the benchmark.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GlobalIdBenchmark {
+
+    private static final String GLOBAL_ID = "c0a8012e-7d1f-4a8e-9b0c-3f2d5e6a7b8c";
+
+    @Param({"0", "5", "20"})
+    public int childObservations;
+
+    private ObservationRegistry legacyRegistry;
+    private Controller legacyController;
+
+    private ObservationRegistry registry;
+    private Controller controller;
+
+    @Setup
+    public void setUp() {
+        legacyRegistry = registry();
+        legacyRegistry.observationConfig().observationFilter(new LegacyMdcFilter());
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new Controller(legacyRegistry, childObservations));
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(new LegacyAspect(legacyRegistry));
+        legacyController = proxyFactory.getProxy();
+
+        registry = registry();
+        controller = new Controller(registry, childObservations);
+    }
+
+    @Benchmark
+    public int aspectAndMdcFilter() {
+        // Whatever made the MDC value available to the aspect and the filter
+        MDC.put(GlobalId.KEY, GLOBAL_ID);
+        Observation server = Observation.start("http.server.requests", legacyRegistry);
+        try (Observation.Scope ignored = server.openScope()) {
+            return legacyController.handle();
+        } finally {
+            server.stop();
+            MDC.remove(GlobalId.KEY);
+        }
+    }
+
+    @Benchmark
+    public int resolvedOncePerRequest() {
+        String globalId = GlobalId.resolve(GLOBAL_ID);
+        Observation server = Observation.start("http.server.requests", registry);
+        server.highCardinalityKeyValue(GlobalId.KEY, globalId);
+        try (GlobalId.Scope ignored = GlobalId.open(globalId);
+             Observation.Scope ignoredToo = server.openScope()) {
+            return controller.handle();
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static ObservationRegistry registry() {
+        ObservationRegistry registry = ObservationRegistry.create();
+        registry.observationConfig().observationHandler(new KeyValueReadingHandler());
+        return registry;
+    }
+
+    public static class Controller {
+
+        private final ObservationRegistry registry;
+        private final int childObservations;
+
+        public Controller(ObservationRegistry registry, int childObservations) {
+            this.registry = registry;
+            this.childObservations = childObservations;
+        }
+
+        public int handle() {
+            int done = 0;
+            for (int i = 0; i < childObservations; i++) {
+                Observation.start("jdbc.query", registry).stop();
+                done++;
+            }
+            return done;
+        }
+    }
+
+    // The removed TracingAspect, pointed at the benchmark's controller
+    @Aspect
+    public static class LegacyAspect {
+
+        private final ObservationRegistry registry;
+
+        public LegacyAspect(ObservationRegistry registry) {
+            this.registry = registry;
+        }
+
+        @Around("execution(* com.example.tracing.GlobalIdBenchmark.Controller.*(..))")
+        public Object addGlobalIdToSpan(ProceedingJoinPoint joinPoint) throws Throwable {
+            try {
+                return joinPoint.proceed();
+            } finally {
+                String globalId = MDC.get(GlobalId.KEY);
+                Observation current = registry.getCurrentObservation();
+                if (current != null && globalId != null && !globalId.isEmpty()) {
+                    current.highCardinalityKeyValue(GlobalId.KEY, globalId);
+                }
+            }
+        }
+    }
+
+    // The removed ObservationFilter from ObservabilityConfig
+    static class LegacyMdcFilter implements ObservationFilter {
+
+        @Override
+        public Observation.Context map(Observation.Context context) {
+            String globalId = MDC.get(GlobalId.KEY);
+            if (globalId != null && !globalId.isEmpty()) {
+                context.addLowCardinalityKeyValue(KeyValue.of(GlobalId.KEY, globalId));
+            }
+            return context;
+        }
+    }
+
+    static class KeyValueReadingHandler implements ObservationHandler<Observation.Context> {
+
+        int tagged;
+
+        @Override
+        public void onStop(Observation.Context context) {
+            for (KeyValue keyValue : context.getAllKeyValues()) {
+                tagged += keyValue.getValue().length();
+            }
+        }
+
+        @Override
+        public boolean supportsContext(Observation.Context context) {
+            return true;
+        }
+    }
+}
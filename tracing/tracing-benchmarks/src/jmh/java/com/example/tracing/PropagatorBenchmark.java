@@ -0,0 +1,96 @@
+package com.example.tracing;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.TextMapGetter;
+import io.opentelemetry.context.propagation.TextMapPropagator;
+import io.opentelemetry.context.propagation.TextMapSetter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of {@link TraceIdPropagator} next to the stock W3C propagator it runs alongside.
+ * Compare {@code gc.alloc.rate.norm} too: extract should allocate little beyond the SpanContext it returns.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PropagatorBenchmark {
+
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+
+    private static final TextMapGetter<Map<String, String>> GETTER = new TextMapGetter<>() {
+
+        @Override
+        public Iterable<String> keys(Map<String, String> carrier) {
+            return carrier.keySet();
+        }
+
+        @Override
+        public String get(Map<String, String> carrier, String key) {
+            return carrier.get(key);
+        }
+    };
+
+    private static final TextMapSetter<Map<String, String>> SETTER = Map::put;
+
+    private final TextMapPropagator traceIdPropagator = new TraceIdPropagator();
+    private final TextMapPropagator w3cPropagator = W3CTraceContextPropagator.getInstance();
+
+    private Map<String, String> traceIdHeaders;
+    private Map<String, String> traceparentHeaders;
+    private Map<String, String> noHeaders;
+    private Map<String, String> out;
+    private Context spanContext;
+
+    @Setup
+    public void setUp() {
+        traceIdHeaders = new HashMap<>(Map.of(TraceIdPropagator.TRACE_ID_HEADER, TRACE_ID));
+        traceparentHeaders = new HashMap<>(Map.of("traceparent", "00-" + TRACE_ID + "-00f067aa0ba902b7-01"));
+        noHeaders = new HashMap<>();
+        out = new HashMap<>();
+        spanContext = Context.root().with(Span.wrap(SpanContext.create(TRACE_ID, "00f067aa0ba902b7",
+                TraceFlags.getSampled(), TraceState.getDefault())));
+    }
+
+    @Benchmark
+    public Context traceIdExtract() {
+        return traceIdPropagator.extract(Context.root(), traceIdHeaders, GETTER);
+    }
+
+    // Most requests carry no X-Trace-Id; this is the cost every one of them pays
+    @Benchmark
+    public Context traceIdExtractMissing() {
+        return traceIdPropagator.extract(Context.root(), noHeaders, GETTER);
+    }
+
+    @Benchmark
+    public Map<String, String> traceIdInject() {
+        traceIdPropagator.inject(spanContext, out, SETTER);
+        return out;
+    }
+
+    @Benchmark
+    public Context w3cExtract() {
+        return w3cPropagator.extract(Context.root(), traceparentHeaders, GETTER);
+    }
+
+    @Benchmark
+    public Map<String, String> w3cInject() {
+        w3cPropagator.inject(spanContext, out, SETTER);
+        return out;
+    }
+}
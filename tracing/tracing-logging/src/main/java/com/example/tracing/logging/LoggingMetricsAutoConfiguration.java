@@ -0,0 +1,20 @@
+package com.example.tracing.logging;
+
+import ch.qos.logback.classic.LoggerContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Registers {@link RingBufferAppenderMetrics}; Spring Boot binds every MeterBinder bean to the registry.
+ */
+@AutoConfiguration
+@ConditionalOnClass({MeterRegistry.class, LoggerContext.class})
+public class LoggingMetricsAutoConfiguration {
+
+    @Bean
+    public RingBufferAppenderMetrics ringBufferAppenderMetrics() {
+        return new RingBufferAppenderMetrics();
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.tracing.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free queue for many producers and a single consumer (Vyukov's bounded queue).
+ * <p>
+ * Each slot has a sequence number telling whose turn it is: a producer claims position {@code p} by a CAS on
+ * the tail once the slot's sequence equals {@code p}, writes the element and publishes it by setting the
+ * sequence to {@code p + 1}; the consumer takes it and hands the slot back by setting the sequence to
+ * {@code p + capacity}. A full queue fails fast instead of waiting.
+ */
+final class MpscRingBuffer<E> {
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<E> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+
+    // Written by the consumer only; volatile so size() can be read from other threads
+    private volatile long head;
+
+    /**
+     * @param requestedCapacity rounded up to a power of two, at least 2 (with one slot a published element
+     *                          would look free to the next producer)
+     */
+    MpscRingBuffer(int requestedCapacity) {
+        if (requestedCapacity < 1 || requestedCapacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30: " + requestedCapacity);
+        }
+        this.capacity = requestedCapacity <= 2 ? 2 : Integer.highestOneBit(requestedCapacity - 1) << 1;
+        this.mask = capacity - 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns false, without waiting, if the queue is full.
+     */
+    boolean offer(E element) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.lazySet(index, element);
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // The consumer hasn't freed this slot since the last lap
+                return false;
+            } else {
+                // Another producer got this position first
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Consumer thread only. Returns null if nothing is published at the head yet.
+     */
+    E poll() {
+        long position = head;
+        int index = (int) position & mask;
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        E element = slots.get(index);
+        slots.lazySet(index, null);
+        sequences.lazySet(index, position + capacity);
+        head = position + 1;
+        return element;
+    }
+
+    /**
+     * Elements claimed but not yet taken; approximate while producers and the consumer are active.
+     */
+    int size() {
+        long size = tail.get() - head;
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+}
@@ -0,0 +1,357 @@
+package com.example.tracing.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongConsumer;
+
+/**
+ * Hands events to the attached appenders from one background thread, through a lock-free ring buffer.
+ * <p>
+ * Logback's AsyncAppender puts every event through an ArrayBlockingQueue, i.e. one lock shared by all
+ * logging threads. Here a logging thread only snapshots the event (message, MDC, thread name) and claims a
+ * slot with a CAS. The worker writes events in order and flushes the attached output stream appenders once
+ * the buffer runs empty, so they should set {@code immediateFlush} to false and the file is written in
+ * large chunks. When the buffer is full the {@link OverflowPolicy} decides.
+ * <p>
+ * Configured in logback-spring.xml like AsyncAppender:
+ * <pre>
+ * &lt;appender name="ASYNC_FILE" class="com.example.tracing.logging.RingBufferAppender"&gt;
+ *     &lt;bufferSize&gt;8192&lt;/bufferSize&gt;
+ *     &lt;overflowPolicy&gt;DROP_BELOW_WARN&lt;/overflowPolicy&gt;
+ *     &lt;appender-ref ref="FILE"/&gt;
+ * &lt;/appender&gt;
+ * </pre>
+ * The counters are published as {@code logging.async.*} meters by {@link RingBufferAppenderMetrics}.
+ */
+public class RingBufferAppender extends UnsynchronizedAppenderBase<ILoggingEvent>
+        implements AppenderAttachable<ILoggingEvent> {
+
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    // How long the worker sleeps when idle before looking again, in case a wake-up was missed
+    private static final long IDLE_PARK_NANOS = 100_000_000L;
+    // How long a blocked logging thread waits before retrying
+    private static final long FULL_PARK_NANOS = 50_000L;
+
+    private static final Level[] LEVELS = {Level.TRACE, Level.DEBUG, Level.INFO, Level.WARN, Level.ERROR};
+
+    private final AppenderAttachableImpl<ILoggingEvent> appenders = new AppenderAttachableImpl<>();
+
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_BELOW_WARN;
+    private int maxFlushTime = 1000;
+    private boolean includeCallerData;
+
+    private final LongAdder[] dropped = new LongAdder[LEVELS.length];
+    private final LongAdder written = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private volatile LongConsumer enqueueListener;
+
+    private MpscRingBuffer<ILoggingEvent> buffer;
+    private Thread worker;
+    private volatile boolean running;
+    private volatile boolean workerIdle;
+
+    public RingBufferAppender() {
+        for (int i = 0; i < dropped.length; i++) {
+            dropped[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public void start() {
+        if (isStarted()) {
+            return;
+        }
+        if (!appenders.iteratorForAppenders().hasNext()) {
+            addError("No appender attached to [" + getName() + "]");
+            return;
+        }
+        if (bufferSize < 1) {
+            addError("bufferSize must be positive: " + bufferSize);
+            return;
+        }
+        buffer = new MpscRingBuffer<>(bufferSize);
+        worker = new Thread(this::drainLoop, "logback-ring-buffer-" + getName());
+        worker.setDaemon(true);
+        running = true;
+        super.start();
+        worker.start();
+    }
+
+    /**
+     * Stops taking events and gives the worker up to {@code maxFlushTime} milliseconds to write the queued
+     * ones before the attached appenders are stopped.
+     */
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        super.stop();
+        running = false;
+        LockSupport.unpark(worker);
+        try {
+            worker.join(maxFlushTime);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (worker.isAlive()) {
+            addWarn("[" + getName() + "] stopped with about " + buffer.size() + " events not written");
+        }
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        long start = System.nanoTime();
+        event.prepareForDeferredProcessing();
+        if (includeCallerData) {
+            event.getCallerData();
+        }
+
+        if (buffer.offer(event) || offerWhenFull(event)) {
+            if (workerIdle) {
+                LockSupport.unpark(worker);
+            }
+        } else {
+            dropped[levelIndex(event.getLevel())].increment();
+        }
+
+        LongConsumer listener = enqueueListener;
+        if (listener != null) {
+            listener.accept(System.nanoTime() - start);
+        }
+    }
+
+    private boolean offerWhenFull(ILoggingEvent event) {
+        boolean wait = switch (overflowPolicy) {
+            case DROP -> false;
+            case DROP_BELOW_WARN -> event.getLevel().isGreaterOrEqual(Level.WARN);
+            case BLOCK -> true;
+        };
+        // An attached appender logging from the worker would wait for itself
+        if (!wait || Thread.currentThread() == worker) {
+            return false;
+        }
+        while (isStarted()) {
+            LockSupport.unpark(worker);
+            LockSupport.parkNanos(this, FULL_PARK_NANOS);
+            if (buffer.offer(event)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void drainLoop() {
+        boolean unflushed = false;
+        while (running) {
+            ILoggingEvent event = buffer.poll();
+            if (event != null) {
+                write(event);
+                unflushed = true;
+                continue;
+            }
+            if (unflushed) {
+                flushAppenders();
+                unflushed = false;
+            }
+            // Producers check workerIdle after publishing; re-check the buffer after setting it so an event
+            // published in between isn't left waiting for the idle timeout
+            workerIdle = true;
+            if (buffer.isEmpty() && running) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            workerIdle = false;
+        }
+
+        ILoggingEvent event;
+        while ((event = buffer.poll()) != null) {
+            write(event);
+        }
+        flushAppenders();
+    }
+
+    private void write(ILoggingEvent event) {
+        try {
+            appenders.appendLoopOnAppenders(event);
+            written.increment();
+        } catch (RuntimeException e) {
+            addError("Attached appender failed", e);
+        }
+    }
+
+    private void flushAppenders() {
+        Iterator<Appender<ILoggingEvent>> iterator = appenders.iteratorForAppenders();
+        while (iterator.hasNext()) {
+            if (iterator.next() instanceof OutputStreamAppender<ILoggingEvent> appender
+                    && !appender.isImmediateFlush() && appender.getOutputStream() != null) {
+                try {
+                    appender.getOutputStream().flush();
+                } catch (IOException e) {
+                    addError("Failed to flush [" + appender.getName() + "]", e);
+                }
+            }
+        }
+        flushes.increment();
+    }
+
+    private static int levelIndex(Level level) {
+        return switch (level.toInt()) {
+            case Level.TRACE_INT -> 0;
+            case Level.DEBUG_INT -> 1;
+            case Level.INFO_INT -> 2;
+            case Level.WARN_INT -> 3;
+            default -> 4;
+        };
+    }
+
+    // Statistics, read by RingBufferAppenderMetrics
+
+    /**
+     * The actual capacity: bufferSize rounded up to a power of two. Zero before the appender is started.
+     */
+    public int getCapacity() {
+        return buffer != null ? buffer.capacity() : 0;
+    }
+
+    public int getQueueSize() {
+        return buffer != null ? buffer.size() : 0;
+    }
+
+    public long getDroppedCount(Level level) {
+        return dropped[levelIndex(level)].sum();
+    }
+
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    /**
+     * Times the worker flushed the attached appenders after emptying the buffer.
+     */
+    public long getFlushCount() {
+        return flushes.sum();
+    }
+
+    static Level[] levels() {
+        return LEVELS.clone();
+    }
+
+    /**
+     * Receives the time, in nanoseconds, each {@link #append} call took, drops and waits included.
+     */
+    public void setEnqueueListener(LongConsumer enqueueListener) {
+        this.enqueueListener = enqueueListener;
+    }
+
+    // Configuration
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public int getMaxFlushTime() {
+        return maxFlushTime;
+    }
+
+    /**
+     * Milliseconds {@link #stop()} waits for queued events to be written.
+     */
+    public void setMaxFlushTime(int maxFlushTime) {
+        this.maxFlushTime = maxFlushTime;
+    }
+
+    public boolean isIncludeCallerData() {
+        return includeCallerData;
+    }
+
+    /**
+     * Captures the caller's class, method and line before queueing. Costly; only needed by layouts that
+     * print them.
+     */
+    public void setIncludeCallerData(boolean includeCallerData) {
+        this.includeCallerData = includeCallerData;
+    }
+
+    // AppenderAttachable, for <appender-ref> inside the appender element
+
+    @Override
+    public void addAppender(Appender<ILoggingEvent> newAppender) {
+        appenders.addAppender(newAppender);
+    }
+
+    @Override
+    public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+        return appenders.iteratorForAppenders();
+    }
+
+    @Override
+    public Appender<ILoggingEvent> getAppender(String name) {
+        return appenders.getAppender(name);
+    }
+
+    @Override
+    public boolean isAttached(Appender<ILoggingEvent> appender) {
+        return appenders.isAttached(appender);
+    }
+
+    @Override
+    public void detachAndStopAllAppenders() {
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    public boolean detachAppender(Appender<ILoggingEvent> appender) {
+        return appenders.detachAppender(appender);
+    }
+
+    @Override
+    public boolean detachAppender(String name) {
+        return appenders.detachAppender(name);
+    }
+
+    /**
+     * What a logging thread does when the buffer is full.
+     */
+    public enum OverflowPolicy {
+
+        /**
+         * Drop the event. Logging never waits.
+         */
+        DROP,
+
+        /**
+         * Drop TRACE to INFO events; WARN and ERROR wait for room, so problems are never lost.
+         */
+        DROP_BELOW_WARN,
+
+        /**
+         * Wait for room. Nothing is lost, but logging threads slow down to the speed of the disk.
+         */
+        BLOCK
+    }
+}
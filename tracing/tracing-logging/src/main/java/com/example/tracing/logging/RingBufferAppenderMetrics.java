@@ -0,0 +1,92 @@
+package com.example.tracing.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.ILoggerFactory;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the statistics of every {@link RingBufferAppender} attached to a logger:
+ * <ul>
+ * <li>{@code logging.async.enqueue}: time a logging thread spends handing an event over</li>
+ * <li>{@code logging.async.dropped}: events dropped because the buffer was full, by level</li>
+ * <li>{@code logging.async.written} and {@code logging.async.flushes}: events written and flushes of the
+ * attached appenders, whose rates show how well writes are batched</li>
+ * <li>{@code logging.async.queue.size} and {@code logging.async.queue.capacity}</li>
+ * </ul>
+ * Logback is configured before the application context exists, so the appenders are looked up in the
+ * LoggerContext when the registry binds this.
+ */
+public class RingBufferAppenderMetrics implements MeterBinder {
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (RingBufferAppender appender : findAppenders()) {
+            Tags tags = Tags.of("appender", appender.getName());
+
+            Timer enqueue = Timer.builder("logging.async.enqueue")
+                    .description("Time a logging thread spends handing an event to the async appender")
+                    .tags(tags)
+                    .publishPercentileHistogram()
+                    .register(registry);
+            appender.setEnqueueListener(nanos -> enqueue.record(nanos, TimeUnit.NANOSECONDS));
+
+            for (Level level : RingBufferAppender.levels()) {
+                FunctionCounter.builder("logging.async.dropped", appender, a -> a.getDroppedCount(level))
+                        .description("Events dropped because the async appender's buffer was full")
+                        .tags(tags)
+                        .tag("level", level.levelStr.toLowerCase())
+                        .register(registry);
+            }
+            FunctionCounter.builder("logging.async.written", appender, RingBufferAppender::getWrittenCount)
+                    .description("Events written to the attached appenders")
+                    .tags(tags)
+                    .register(registry);
+            FunctionCounter.builder("logging.async.flushes", appender, RingBufferAppender::getFlushCount)
+                    .description("Flushes of the attached appenders, one each time the buffer runs empty")
+                    .tags(tags)
+                    .register(registry);
+            Gauge.builder("logging.async.queue.size", appender, RingBufferAppender::getQueueSize)
+                    .description("Events waiting to be written")
+                    .tags(tags)
+                    .register(registry);
+            Gauge.builder("logging.async.queue.capacity", appender, RingBufferAppender::getCapacity)
+                    .description("Events the buffer holds before the overflow policy applies")
+                    .tags(tags)
+                    .register(registry);
+        }
+    }
+
+    private static List<RingBufferAppender> findAppenders() {
+        ILoggerFactory loggerFactory = LoggerFactory.getILoggerFactory();
+        if (!(loggerFactory instanceof LoggerContext context)) {
+            return List.of();
+        }
+        Map<RingBufferAppender, Boolean> found = new IdentityHashMap<>();
+        for (Logger logger : context.getLoggerList()) {
+            Iterator<Appender<ILoggingEvent>> appenders = logger.iteratorForAppenders();
+            while (appenders.hasNext()) {
+                if (appenders.next() instanceof RingBufferAppender appender) {
+                    found.put(appender, Boolean.TRUE);
+                }
+            }
+        }
+        return new ArrayList<>(found.keySet());
+    }
+}
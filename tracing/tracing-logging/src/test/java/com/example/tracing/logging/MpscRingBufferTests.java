@@ -0,0 +1,71 @@
+package com.example.tracing.logging;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MpscRingBufferTests {
+
+	@Test
+	void roundsCapacityUpToPowerOfTwo() {
+		assertThat(new MpscRingBuffer<>(1).capacity()).isEqualTo(2);
+		assertThat(new MpscRingBuffer<>(1000).capacity()).isEqualTo(1024);
+		assertThat(new MpscRingBuffer<>(1024).capacity()).isEqualTo(1024);
+	}
+
+	@Test
+	void rejectsWhenFullAndReusesSlots() {
+		MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(2);
+
+		assertThat(buffer.offer(1)).isTrue();
+		assertThat(buffer.offer(2)).isTrue();
+		assertThat(buffer.offer(3)).isFalse();
+		assertThat(buffer.size()).isEqualTo(2);
+
+		assertThat(buffer.poll()).isEqualTo(1);
+		assertThat(buffer.offer(3)).isTrue();
+		assertThat(buffer.poll()).isEqualTo(2);
+		assertThat(buffer.poll()).isEqualTo(3);
+		assertThat(buffer.poll()).isNull();
+		assertThat(buffer.isEmpty()).isTrue();
+	}
+
+	@Test
+	void keepsEachProducersOrder() throws InterruptedException {
+		MpscRingBuffer<int[]> buffer = new MpscRingBuffer<>(16);
+		int producers = 4;
+		int perProducer = 20_000;
+		List<Thread> threads = new ArrayList<>();
+		for (int p = 0; p < producers; p++) {
+			int producer = p;
+			Thread thread = new Thread(() -> {
+				for (int i = 0; i < perProducer; i++) {
+					int[] element = {producer, i};
+					while (!buffer.offer(element)) {
+						Thread.yield();
+					}
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+
+		int[] next = new int[producers];
+		for (int taken = 0; taken < producers * perProducer; ) {
+			int[] element = buffer.poll();
+			if (element == null) {
+				Thread.yield();
+				continue;
+			}
+			assertThat(element[1]).isEqualTo(next[element[0]]++);
+			taken++;
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertThat(buffer.poll()).isNull();
+	}
+}
@@ -0,0 +1,131 @@
+package com.example.tracing.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.AppenderBase;
+import ch.qos.logback.core.read.ListAppender;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RingBufferAppenderTests {
+
+	private final LoggerContext context = new LoggerContext();
+	private final Logger logger = context.getLogger("test");
+	private final RingBufferAppender appender = new RingBufferAppender();
+
+	@AfterEach
+	void tearDown() {
+		appender.stop();
+	}
+
+	@Test
+	void writesEventsInOrderWithTheirMdc() {
+		ListAppender<ILoggingEvent> target = start(new ListAppender<>());
+
+		MDC.put("globalId", "device-42");
+		try {
+			for (int i = 0; i < 100; i++) {
+				logger.info("event {}", i);
+			}
+		} finally {
+			MDC.remove("globalId");
+		}
+		appender.stop();
+
+		assertThat(target.list).hasSize(100);
+		assertThat(target.list.get(99).getFormattedMessage()).isEqualTo("event 99");
+		assertThat(target.list.get(0).getMDCPropertyMap()).containsEntry("globalId", "device-42");
+		assertThat(appender.getWrittenCount()).isEqualTo(100);
+		assertThat(appender.getFlushCount()).isPositive();
+	}
+
+	@Test
+	void dropsBelowWarnWhenFull() throws InterruptedException {
+		BlockingAppender target = new BlockingAppender();
+		appender.setBufferSize(2);
+		start(target);
+
+		logger.info("taken by the worker, which then blocks");
+		assertThat(target.entered.await(5, TimeUnit.SECONDS)).isTrue();
+		logger.info("queued 1");
+		logger.info("queued 2");
+		logger.info("dropped");
+		logger.debug("dropped");
+
+		assertThat(appender.getDroppedCount(Level.INFO)).isEqualTo(1);
+		assertThat(appender.getDroppedCount(Level.DEBUG)).isEqualTo(1);
+
+		target.release.countDown();
+		logger.warn("waits for room instead");
+		appender.stop();
+		assertThat(target.written).isEqualTo(4);
+		assertThat(appender.getDroppedCount(Level.WARN)).isZero();
+	}
+
+	@Test
+	void publishesMetrics() {
+		start(new ListAppender<>());
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		bind(registry);
+
+		logger.info("timed");
+
+		assertThat(registry.get("logging.async.enqueue").tag("appender", "ASYNC").timer().count()).isEqualTo(1);
+		assertThat(registry.get("logging.async.queue.capacity").gauge().value()).isEqualTo(8192);
+		assertThat(registry.get("logging.async.dropped").tag("level", "info").functionCounter().count()).isZero();
+	}
+
+	private <T extends Appender<ILoggingEvent>> T start(T target) {
+		target.setContext(context);
+		target.start();
+		appender.setContext(context);
+		appender.setName("ASYNC");
+		appender.addAppender(target);
+		appender.start();
+		logger.setAdditive(false);
+		logger.setLevel(Level.DEBUG);
+		logger.addAppender(appender);
+		return target;
+	}
+
+	// RingBufferAppenderMetrics looks in slf4j's LoggerContext; bind this test's context the same way
+	private void bind(SimpleMeterRegistry registry) {
+		LoggerContext global = (LoggerContext) LoggerFactory.getILoggerFactory();
+		Logger holder = global.getLogger(RingBufferAppenderTests.class);
+		holder.addAppender(appender);
+		try {
+			new RingBufferAppenderMetrics().bindTo(registry);
+		} finally {
+			holder.detachAppender(appender);
+		}
+	}
+
+	private static class BlockingAppender extends AppenderBase<ILoggingEvent> {
+
+		final CountDownLatch entered = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		volatile int written;
+
+		@Override
+		protected void append(ILoggingEvent event) {
+			entered.countDown();
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			written++;
+		}
+	}
+}
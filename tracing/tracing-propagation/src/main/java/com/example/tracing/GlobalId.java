@@ -0,0 +1,87 @@
+package com.example.tracing;
+
+import org.slf4j.MDC;
+
+/**
+ * The client's {@code X-Global-ID} for the request being handled, resolved once by a request filter and
+ * then available to any code that runs for the request.
+ * <p>
+ * The value lives in a thread local (mirrored into the MDC for log patterns) that
+ * {@link GlobalIdThreadLocalAccessor} registers with Micrometer context propagation. Everything that already
+ * carries the observation across threads carries the global ID with it: Reactor with automatic context
+ * propagation (the value is written to the Reactor context under {@link #KEY}), and executors wrapped in a
+ * ContextPropagatingTaskDecorator or ContextExecutorService, including virtual thread executors.
+ */
+public final class GlobalId {
+
+    public static final String HEADER = "X-Global-ID";
+
+    /**
+     * Context propagation, Reactor context, MDC and span attribute key.
+     */
+    public static final String KEY = "globalId";
+
+    // Longer values are not IDs; don't let them into span attributes and log lines
+    static final int MAX_LENGTH = 128;
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private GlobalId() {
+    }
+
+    /**
+     * Normalizes a header value: trimmed, or null when it is missing, blank, too long or contains control
+     * characters.
+     */
+    public static String resolve(String headerValue) {
+        if (headerValue == null) {
+            return null;
+        }
+        String value = headerValue.strip();
+        if (value.isEmpty() || value.length() > MAX_LENGTH) {
+            return null;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.isISOControl(value.charAt(i))) {
+                return null;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * The global ID of the current request, or null.
+     */
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Makes {@code globalId} current until the returned scope is closed, which restores the previous value.
+     */
+    public static Scope open(String globalId) {
+        String previous = CURRENT.get();
+        set(globalId);
+        return () -> set(previous);
+    }
+
+    static void set(String globalId) {
+        if (globalId != null) {
+            CURRENT.set(globalId);
+            MDC.put(KEY, globalId);
+        } else {
+            CURRENT.remove();
+            MDC.remove(KEY);
+        }
+    }
+
+    /**
+     * A {@link #open} scope; closing it does not throw.
+     */
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
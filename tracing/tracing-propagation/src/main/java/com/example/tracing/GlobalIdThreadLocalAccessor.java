@@ -0,0 +1,30 @@
+package com.example.tracing;
+
+import io.micrometer.context.ThreadLocalAccessor;
+
+/**
+ * Lets Micrometer context propagation capture and restore {@link GlobalId#current()}. Registered through
+ * {@code META-INF/services}, so ContextRegistry.getInstance() picks it up without any configuration.
+ */
+public class GlobalIdThreadLocalAccessor implements ThreadLocalAccessor<String> {
+
+    @Override
+    public Object key() {
+        return GlobalId.KEY;
+    }
+
+    @Override
+    public String getValue() {
+        return GlobalId.current();
+    }
+
+    @Override
+    public void setValue(String value) {
+        GlobalId.set(value);
+    }
+
+    @Override
+    public void setValue() {
+        GlobalId.set(null);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.tracing;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanId;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceId;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.TextMapGetter;
+import io.opentelemetry.context.propagation.TextMapPropagator;
+import io.opentelemetry.context.propagation.TextMapSetter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Propagates the trace ID alone in an {@code X-Trace-Id} header, for clients that can't send a W3C
+ * {@code traceparent} but still want their requests grouped under their own trace.
+ * <p>
+ * Runs on every request, so extract and inject only allocate what the resulting context needs: the trace ID
+ * is checked in place (32 lowercase hex digits, not all zero) and nothing is logged above debug.
+ */
+public class TraceIdPropagator implements TextMapPropagator {
+
+    public static final String TRACE_ID_HEADER = "X-Trace-Id";
+
+    /**
+     * Trace state entry marking a parent that came from {@code X-Trace-Id}. Such a parent is flagged sampled
+     * for samplers that only look at the flag, but nobody actually decided to sample it; samplers that know
+     * the marker (see tracing-sampling) make their own decision and drop the entry.
+     */
+    public static final String UNDECIDED_TRACE_STATE_KEY = "xtid";
+
+    private static final TraceState UNDECIDED = TraceState.builder().put(UNDECIDED_TRACE_STATE_KEY, "1").build();
+
+    private static final Logger log = LoggerFactory.getLogger(TraceIdPropagator.class);
+    private static final Collection<String> FIELDS = Collections.singletonList(TRACE_ID_HEADER);
+
+    @Override
+    public Collection<String> fields() {
+        return FIELDS;
+    }
+
+    @Override
+    public <C> void inject(@Nonnull Context context, C carrier, @Nonnull TextMapSetter<C> setter) {
+        SpanContext spanContext = Span.fromContext(context).getSpanContext();
+        if (spanContext.isValid()) {
+            setter.set(carrier, TRACE_ID_HEADER, spanContext.getTraceId());
+        }
+    }
+
+    /**
+     * The header carries no span ID, so the remote parent gets a random one. That keeps spans of different
+     * requests with the same trace ID from claiming one shared parent.
+     */
+    @Override
+    public <C> Context extract(@Nonnull Context context, C carrier, @Nonnull TextMapGetter<C> getter) {
+        String traceId = getter.get(carrier, TRACE_ID_HEADER);
+        if (traceId == null) {
+            return context;
+        }
+        if (!TraceId.isValid(traceId)) {
+            log.debug("Ignoring invalid {} header: {}", TRACE_ID_HEADER, traceId);
+            return context;
+        }
+
+        SpanContext spanContext = SpanContext.createFromRemoteParent(
+                traceId,
+                randomSpanId(),
+                TraceFlags.getSampled(),
+                UNDECIDED
+        );
+        return context.with(Span.wrap(spanContext));
+    }
+
+    private static String randomSpanId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long id;
+        do {
+            id = random.nextLong();
+        } while (id == 0);
+        return SpanId.fromLong(id);
+    }
+}
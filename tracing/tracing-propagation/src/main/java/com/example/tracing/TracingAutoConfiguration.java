@@ -1,14 +1,18 @@
-package com.example.gateway.config;
+package com.example.tracing;
 
 import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
 import io.opentelemetry.context.propagation.ContextPropagators;
 import io.opentelemetry.context.propagation.TextMapPropagator;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 
-@Configuration
-public class TracingConfig {
+/**
+ * Applied to every application that has this module on its classpath, replacing the TracingConfig classes
+ * the gateway and spring-boot-server each used to carry.
+ */
+@AutoConfiguration
+public class TracingAutoConfiguration {
 
     /**
      * Overrides the default ContextPropagators bean to include our custom propagator.
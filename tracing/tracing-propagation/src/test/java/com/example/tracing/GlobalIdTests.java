@@ -0,0 +1,48 @@
+package com.example.tracing;
+
+import io.micrometer.context.ContextExecutorService;
+import io.micrometer.context.ContextSnapshotFactory;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GlobalIdTests {
+
+	@Test
+	void resolvesOnlyUsableHeaderValues() {
+		assertThat(GlobalId.resolve(" device-42 ")).isEqualTo("device-42");
+		assertThat(GlobalId.resolve(null)).isNull();
+		assertThat(GlobalId.resolve("  ")).isNull();
+		assertThat(GlobalId.resolve("a\nb")).isNull();
+		assertThat(GlobalId.resolve("x".repeat(GlobalId.MAX_LENGTH + 1))).isNull();
+	}
+
+	@Test
+	void scopeRestoresPreviousValue() {
+		try (GlobalId.Scope outer = GlobalId.open("outer")) {
+			try (GlobalId.Scope inner = GlobalId.open("inner")) {
+				assertThat(GlobalId.current()).isEqualTo("inner");
+				assertThat(MDC.get(GlobalId.KEY)).isEqualTo("inner");
+			}
+			assertThat(GlobalId.current()).isEqualTo("outer");
+		}
+		assertThat(GlobalId.current()).isNull();
+		assertThat(MDC.get(GlobalId.KEY)).isNull();
+	}
+
+	@Test
+	void followsContextPropagationOntoVirtualThreads() throws Exception {
+		ExecutorService executor = ContextExecutorService.wrap(Executors.newVirtualThreadPerTaskExecutor(),
+				() -> ContextSnapshotFactory.builder().build().captureAll());
+		try (GlobalId.Scope scope = GlobalId.open("device-42")) {
+			assertThat(executor.submit(GlobalId::current).get()).isEqualTo("device-42");
+			assertThat(executor.submit(() -> MDC.get(GlobalId.KEY)).get()).isEqualTo("device-42");
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package com.example.tracing;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanId;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.TextMapGetter;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TraceIdPropagatorTests {
+
+	private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+
+	private static final TextMapGetter<Map<String, String>> GETTER = new TextMapGetter<>() {
+
+		@Override
+		public Iterable<String> keys(Map<String, String> carrier) {
+			return carrier.keySet();
+		}
+
+		@Override
+		public String get(Map<String, String> carrier, String key) {
+			return carrier == null ? null : carrier.get(key);
+		}
+	};
+
+	private final TraceIdPropagator propagator = new TraceIdPropagator();
+
+	@Test
+	void extractsTraceIdWithRandomParentSpan() {
+		Map<String, String> headers = Map.of(TraceIdPropagator.TRACE_ID_HEADER, TRACE_ID);
+
+		SpanContext first = extract(headers);
+		SpanContext second = extract(headers);
+
+		assertThat(first.getTraceId()).isEqualTo(TRACE_ID);
+		assertThat(first.isRemote()).isTrue();
+		assertThat(first.isSampled()).isTrue();
+		assertThat(first.getTraceState().get(TraceIdPropagator.UNDECIDED_TRACE_STATE_KEY)).isEqualTo("1");
+		assertThat(SpanId.isValid(first.getSpanId())).isTrue();
+		assertThat(first.getSpanId()).isNotEqualTo(second.getSpanId());
+	}
+
+	@Test
+	void ignoresInvalidTraceIds() {
+		assertThat(extract(Map.of())).isEqualTo(SpanContext.getInvalid());
+		assertThat(extract(Map.of(TraceIdPropagator.TRACE_ID_HEADER, "abc"))).isEqualTo(SpanContext.getInvalid());
+		assertThat(extract(Map.of(TraceIdPropagator.TRACE_ID_HEADER, "4bf92f3577b34da6a3ce929d0e0e473g")))
+				.isEqualTo(SpanContext.getInvalid());
+		assertThat(extract(Map.of(TraceIdPropagator.TRACE_ID_HEADER, "00000000000000000000000000000000")))
+				.isEqualTo(SpanContext.getInvalid());
+	}
+
+	@Test
+	void injectsTraceIdOfValidSpans() {
+		SpanContext spanContext = SpanContext.create(TRACE_ID, "00f067aa0ba902b7", TraceFlags.getSampled(),
+				TraceState.getDefault());
+		Map<String, String> headers = new HashMap<>();
+
+		propagator.inject(Context.root().with(Span.wrap(spanContext)), headers, Map::put);
+		propagator.inject(Context.root(), headers, (carrier, key, value) -> carrier.put("unexpected", value));
+
+		assertThat(headers).containsExactly(Map.entry(TraceIdPropagator.TRACE_ID_HEADER, TRACE_ID));
+	}
+
+	private SpanContext extract(Map<String, String> headers) {
+		return Span.fromContext(propagator.extract(Context.root(), headers, GETTER)).getSpanContext();
+	}
+}
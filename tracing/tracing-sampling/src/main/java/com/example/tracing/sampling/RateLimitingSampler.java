@@ -0,0 +1,144 @@
+package com.example.tracing.sampling;
+
+import com.example.tracing.TraceIdPropagator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Head sampler that starts at most a configured number of sampled traces per second and route.
+ * <p>
+ * Only traces that enter this service without a decision are rate limited: new traces, and traces
+ * continued from an {@code X-Trace-Id} header. Spans with a W3C parent follow the parent's sampled flag,
+ * so every service a request passes through keeps or drops its part of the trace together with the
+ * service that started it.
+ * <p>
+ * Traces that are not sampled are still recorded (unless both tail sampling and span metrics are off), so
+ * that {@link TailSamplingSpanProcessor} can keep the ones that turn out to fail or be slow, and
+ * {@link SpanMetricsProcessor} can count them.
+ */
+public class RateLimitingSampler implements Sampler {
+
+    // Span names are normally low-cardinality; beyond this, new names share one bucket
+    private static final int MAX_ROUTES = 1000;
+
+    private final SamplingProperties properties;
+    private final LongSupplier nanoClock;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final TokenBucket overflowBucket;
+    private final SamplingDecision notSampled;
+
+    private final Counter sampledByRate;
+    private final Counter droppedByRate;
+    private final Counter sampledByParent;
+    private final Counter droppedByParent;
+
+    public RateLimitingSampler(SamplingProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    RateLimitingSampler(SamplingProperties properties, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.properties = properties;
+        this.nanoClock = nanoClock;
+        this.overflowBucket = newBucket(properties.getDefaultRate());
+        boolean recordUnsampled = properties.getTail().isEnabled() || properties.getSpanMetrics().isEnabled();
+        this.notSampled = recordUnsampled ? SamplingDecision.RECORD_ONLY : SamplingDecision.DROP;
+
+        this.sampledByRate = decisions(meterRegistry, "sampled", "rate");
+        this.droppedByRate = decisions(meterRegistry, "dropped", "rate");
+        this.sampledByParent = decisions(meterRegistry, "sampled", "parent");
+        this.droppedByParent = decisions(meterRegistry, "dropped", "parent");
+    }
+
+    @Override
+    public SamplingResult shouldSample(Context parentContext, String traceId, String name, SpanKind spanKind,
+                                       Attributes attributes, List<LinkData> parentLinks) {
+        SpanContext parent = Span.fromContext(parentContext).getSpanContext();
+        boolean fromTraceIdHeader = parent.isValid()
+                && parent.getTraceState().get(TraceIdPropagator.UNDECIDED_TRACE_STATE_KEY) != null;
+
+        if (parent.isValid() && !fromTraceIdHeader) {
+            if (parent.isRemote()) {
+                (parent.isSampled() ? sampledByParent : droppedByParent).increment();
+            }
+            return SamplingResult.create(parent.isSampled() ? SamplingDecision.RECORD_AND_SAMPLE : notSampled);
+        }
+
+        boolean sampled = bucket(name).tryAcquire() == 0;
+        (sampled ? sampledByRate : droppedByRate).increment();
+        SamplingDecision decision = sampled ? SamplingDecision.RECORD_AND_SAMPLE : notSampled;
+        return fromTraceIdHeader ? new DecidedResult(decision) : SamplingResult.create(decision);
+    }
+
+    @Override
+    public String getDescription() {
+        return "RateLimitingSampler{defaultRate=" + properties.getDefaultRate() + ", routes=" + properties.getRoutes()
+                + "}";
+    }
+
+    private TokenBucket bucket(String route) {
+        TokenBucket bucket = buckets.get(route);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= MAX_ROUTES) {
+            return overflowBucket;
+        }
+        return buckets.computeIfAbsent(route,
+                key -> newBucket(properties.getRoutes().getOrDefault(key, properties.getDefaultRate())));
+    }
+
+    private TokenBucket newBucket(double rate) {
+        return new TokenBucket(rate, rate * properties.getBurstSeconds(), nanoClock);
+    }
+
+    private static Counter decisions(MeterRegistry meterRegistry, String decision, String reason) {
+        return Counter.builder("tracing.sampling.head")
+                .description("Sampling decisions for traces entering this service")
+                .tag("decision", decision)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Result for a trace continued from X-Trace-Id: the decision is made now, so the marker is dropped and
+     * not propagated further.
+     */
+    private static final class DecidedResult implements SamplingResult {
+
+        private final SamplingDecision decision;
+
+        DecidedResult(SamplingDecision decision) {
+            this.decision = decision;
+        }
+
+        @Override
+        public SamplingDecision getDecision() {
+            return decision;
+        }
+
+        @Override
+        public Attributes getAttributes() {
+            return Attributes.empty();
+        }
+
+        @Override
+        public TraceState getUpdatedTraceState(TraceState parentTraceState) {
+            return parentTraceState.toBuilder().remove(TraceIdPropagator.UNDECIDED_TRACE_STATE_KEY).build();
+        }
+    }
+}
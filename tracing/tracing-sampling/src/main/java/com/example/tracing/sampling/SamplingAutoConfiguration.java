@@ -0,0 +1,41 @@
+package com.example.tracing.sampling;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Runs before Spring Boot's OpenTelemetry tracing auto-configuration, whose probability Sampler backs off
+ * when one is already defined. The tail and span metrics processors are picked up with the other
+ * SpanProcessor beans; span metrics rely on this sampler recording the spans it doesn't sample.
+ */
+@AutoConfiguration(beforeName = "org.springframework.boot.actuate.autoconfigure.tracing.OpenTelemetryTracingAutoConfiguration")
+@ConditionalOnProperty(prefix = "tracing.sampling", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(SamplingProperties.class)
+public class SamplingAutoConfiguration {
+
+    @Bean
+    public Sampler rateLimitingSampler(SamplingProperties properties, MeterRegistry meterRegistry) {
+        return new RateLimitingSampler(properties, meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "tracing.sampling.tail", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public TailSamplingSpanProcessor tailSamplingSpanProcessor(ObjectProvider<SpanExporter> spanExporters,
+                                                               SamplingProperties properties,
+                                                               MeterRegistry meterRegistry) {
+        SpanExporter exporter = SpanExporter.composite(spanExporters.orderedStream().toList());
+        return new TailSamplingSpanProcessor(exporter, properties.getTail(), meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "tracing.sampling.span-metrics", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public SpanMetricsProcessor spanMetricsProcessor(SamplingProperties properties, MeterRegistry meterRegistry) {
+        return new SpanMetricsProcessor(meterRegistry, properties.getSpanMetrics());
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.tracing.sampling;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Trace sampling, bound from {@code tracing.sampling.*}.
+ */
+@ConfigurationProperties(prefix = "tracing.sampling")
+public class SamplingProperties {
+
+    /**
+     * Whether this sampling replaces Spring Boot's probability sampler (management.tracing.sampling).
+     */
+    private boolean enabled = true;
+
+    /**
+     * Traces started per second and route when the route has no entry in {@code routes}.
+     */
+    private double defaultRate = 10;
+
+    /**
+     * Traces started per second, by route. The route is the name of the trace's first span in this service
+     * (e.g. "http get" for Spring MVC and WebFlux servers, or an @Observed contextual name).
+     */
+    private Map<String, Double> routes = new LinkedHashMap<>();
+
+    /**
+     * Bucket size in seconds of rate, i.e. how big a burst is let through after a quiet period.
+     */
+    private double burstSeconds = 1;
+
+    private final Tail tail = new Tail();
+
+    private final SpanMetrics spanMetrics = new SpanMetrics();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public double getDefaultRate() {
+        return defaultRate;
+    }
+
+    public void setDefaultRate(double defaultRate) {
+        this.defaultRate = defaultRate;
+    }
+
+    public Map<String, Double> getRoutes() {
+        return routes;
+    }
+
+    public void setRoutes(Map<String, Double> routes) {
+        this.routes = routes;
+    }
+
+    public double getBurstSeconds() {
+        return burstSeconds;
+    }
+
+    public void setBurstSeconds(double burstSeconds) {
+        this.burstSeconds = burstSeconds;
+    }
+
+    public Tail getTail() {
+        return tail;
+    }
+
+    public SpanMetrics getSpanMetrics() {
+        return spanMetrics;
+    }
+
+    public static class Tail {
+
+        /**
+         * Whether traces the head sampler dropped are still buffered locally, so errors and slow ones are kept.
+         */
+        private boolean enabled = true;
+
+        /**
+         * A dropped trace is kept anyway if its local root span took at least this long.
+         */
+        private Duration slowThreshold = Duration.ofSeconds(1);
+
+        /**
+         * Traces buffered at once. Spans of further traces are discarded until some complete.
+         */
+        private int maxTraces = 10_000;
+
+        /**
+         * Spans buffered per trace; later spans of the trace are discarded.
+         */
+        private int maxSpansPerTrace = 500;
+
+        /**
+         * Buffered traces whose local root hasn't ended after this long are discarded.
+         */
+        private Duration traceTimeout = Duration.ofSeconds(30);
+
+        /**
+         * Kept traces waiting for the exporter. Traces kept while it is full are discarded.
+         */
+        private int maxQueuedExports = 1_000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getSlowThreshold() {
+            return slowThreshold;
+        }
+
+        public void setSlowThreshold(Duration slowThreshold) {
+            this.slowThreshold = slowThreshold;
+        }
+
+        public int getMaxTraces() {
+            return maxTraces;
+        }
+
+        public void setMaxTraces(int maxTraces) {
+            this.maxTraces = maxTraces;
+        }
+
+        public int getMaxSpansPerTrace() {
+            return maxSpansPerTrace;
+        }
+
+        public void setMaxSpansPerTrace(int maxSpansPerTrace) {
+            this.maxSpansPerTrace = maxSpansPerTrace;
+        }
+
+        public Duration getTraceTimeout() {
+            return traceTimeout;
+        }
+
+        public void setTraceTimeout(Duration traceTimeout) {
+            this.traceTimeout = traceTimeout;
+        }
+
+        public int getMaxQueuedExports() {
+            return maxQueuedExports;
+        }
+
+        public void setMaxQueuedExports(int maxQueuedExports) {
+            this.maxQueuedExports = maxQueuedExports;
+        }
+    }
+
+    public static class SpanMetrics {
+
+        /**
+         * Whether every span, sampled or not, is counted and timed as {@code tracing.span.duration}.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Distinct span names with their own series; spans with further names are counted as "other".
+         */
+        private int maxNames = 500;
+
+        /**
+         * Histogram buckets of the duration timer.
+         */
+        private List<Duration> buckets = new ArrayList<>(List.of(Duration.ofMillis(5), Duration.ofMillis(10),
+                Duration.ofMillis(25), Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofMillis(250),
+                Duration.ofMillis(500), Duration.ofSeconds(1), Duration.ofMillis(2500), Duration.ofSeconds(5),
+                Duration.ofSeconds(10)));
+
+        /**
+         * Span attributes used as the name when present, in order (e.g. the gateway route ID), so that
+         * spans sharing a generic name such as "http post" are told apart.
+         */
+        private List<String> nameAttributes = new ArrayList<>(List.of("spring.cloud.gateway.route.id"));
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxNames() {
+            return maxNames;
+        }
+
+        public void setMaxNames(int maxNames) {
+            this.maxNames = maxNames;
+        }
+
+        public List<Duration> getBuckets() {
+            return buckets;
+        }
+
+        public void setBuckets(List<Duration> buckets) {
+            this.buckets = buckets;
+        }
+
+        public List<String> getNameAttributes() {
+            return nameAttributes;
+        }
+
+        public void setNameAttributes(List<String> nameAttributes) {
+            this.nameAttributes = nameAttributes;
+        }
+    }
+}
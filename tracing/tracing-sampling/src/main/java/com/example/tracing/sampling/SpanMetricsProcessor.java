@@ -0,0 +1,127 @@
+package com.example.tracing.sampling;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate, errors and duration per span name, from every span, sampled or not: a
+ * {@code tracing.span.duration} timer tagged with the span's name, kind and status, whose count is the rate
+ * and whose {@code status="error"} series are the errors.
+ * <p>
+ * {@link RateLimitingSampler} records the spans it doesn't sample instead of dropping them while this
+ * processor is on, so the numbers stay exact however low the sampling rate. Durations of sampled spans are
+ * recorded with their trace current, which lets the Prometheus registry attach the trace ID as an exemplar.
+ * <p>
+ * Meters are looked up once per name, kind and status and then cached; recording is a Micrometer timer
+ * update, which accumulates in striped adders. Past {@code maxNames} names, new ones are recorded under
+ * {@code span.name="other"}.
+ */
+public class SpanMetricsProcessor implements SpanProcessor {
+
+    static final String OTHER = "other";
+
+    private final MeterRegistry meterRegistry;
+    private final SamplingProperties.SpanMetrics settings;
+    private final List<AttributeKey<String>> nameAttributes;
+    private final Duration[] buckets;
+    private final Map<Key, Timer> timers = new ConcurrentHashMap<>();
+    private final Set<String> names = ConcurrentHashMap.newKeySet();
+    private final Counter overflow;
+
+    public SpanMetricsProcessor(MeterRegistry meterRegistry, SamplingProperties.SpanMetrics settings) {
+        this.meterRegistry = meterRegistry;
+        this.settings = settings;
+        this.nameAttributes = settings.getNameAttributes().stream().map(AttributeKey::stringKey).toList();
+        this.buckets = settings.getBuckets().toArray(Duration[]::new);
+        this.overflow = Counter.builder("tracing.span.overflow")
+                .description("Spans recorded under span.name=\"other\" because max-names was reached")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void onStart(Context parentContext, ReadWriteSpan span) {
+    }
+
+    @Override
+    public boolean isStartRequired() {
+        return false;
+    }
+
+    @Override
+    public void onEnd(ReadableSpan span) {
+        // ReadableSpan has no status accessor; the SpanData view is a thin wrapper over the span
+        boolean error = span.toSpanData().getStatus().getStatusCode() == StatusCode.ERROR;
+        Timer timer = timer(new Key(name(span), span.getKind(), error));
+        long latency = span.getLatencyNanos();
+
+        if (span.getSpanContext().isSampled()) {
+            try (Scope ignored = Context.root().with(Span.wrap(span.getSpanContext())).makeCurrent()) {
+                timer.record(latency, TimeUnit.NANOSECONDS);
+            }
+        } else {
+            timer.record(latency, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public boolean isEndRequired() {
+        return true;
+    }
+
+    // Routed gateway requests all get the same span name; the route ID tells them apart
+    private String name(ReadableSpan span) {
+        for (AttributeKey<String> attribute : nameAttributes) {
+            String value = span.getAttribute(attribute);
+            if (value != null) {
+                return value;
+            }
+        }
+        return span.getName();
+    }
+
+    private Timer timer(Key key) {
+        Timer timer = timers.get(key);
+        if (timer != null) {
+            return timer;
+        }
+        // Racing threads can let a few names past the cap; it only has to stop unbounded growth
+        if (!names.contains(key.name()) && names.size() >= settings.getMaxNames()) {
+            overflow.increment();
+            key = new Key(OTHER, key.kind(), key.error());
+        } else {
+            names.add(key.name());
+        }
+        return timers.computeIfAbsent(key, this::register);
+    }
+
+    private Timer register(Key key) {
+        return Timer.builder("tracing.span.duration")
+                .description("Duration of spans, sampled or not, by span name")
+                .tag("span.name", key.name())
+                .tag("span.kind", key.kind().name().toLowerCase(Locale.ROOT))
+                .tag("status", key.error() ? "error" : "ok")
+                .serviceLevelObjectives(buckets)
+                .register(meterRegistry);
+    }
+
+    private record Key(String name, SpanKind kind, boolean error) {
+    }
+}
@@ -0,0 +1,241 @@
+package com.example.tracing.sampling;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buffers the spans of traces the head sampler did not sample and decides once the trace's local root span
+ * ends: traces with an error span, or whose root took at least the slow threshold, are exported after all;
+ * the rest are dropped.
+ * <p>
+ * Kept traces are exported on a thread of their own, one at a time, so the thread that ended the root span
+ * (typically a request thread) never waits on the exporter; while {@code max-queued-exports} of them are
+ * waiting, further ones are discarded.
+ * <p>
+ * The decision is local. Other services only export their part of a tail-kept trace if they see the error
+ * or slowness themselves; whole-trace tail sampling needs a collector in front of the tracing backend.
+ */
+public class TailSamplingSpanProcessor implements SpanProcessor {
+
+    // How long one export, or draining the queue on shutdown, may take
+    private static final long EXPORT_TIMEOUT_SECONDS = 10;
+
+    private final SpanExporter exporter;
+    private final SamplingProperties.Tail settings;
+    private final Map<String, PendingTrace> traces = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService sweeper;
+    private final ThreadPoolExecutor exports;
+
+    private final Counter keptError;
+    private final Counter keptSlow;
+    private final Counter dropped;
+    private final Counter discardedOverflow;
+    private final Counter discardedTimeout;
+    private final Counter discardedQueueFull;
+    private final Counter discardedLate;
+
+    public TailSamplingSpanProcessor(SpanExporter exporter, SamplingProperties.Tail settings,
+                                     MeterRegistry meterRegistry) {
+        this.exporter = exporter;
+        this.settings = settings;
+
+        Gauge.builder("tracing.sampling.tail.buffered", traces, Map::size)
+                .description("Unsampled traces waiting for their local root span to end")
+                .register(meterRegistry);
+        this.keptError = outcome(meterRegistry, "kept", "error");
+        this.keptSlow = outcome(meterRegistry, "kept", "slow");
+        this.dropped = outcome(meterRegistry, "dropped", "normal");
+        this.discardedOverflow = outcome(meterRegistry, "discarded", "overflow");
+        this.discardedTimeout = outcome(meterRegistry, "discarded", "timeout");
+        this.discardedQueueFull = outcome(meterRegistry, "discarded", "queue-full");
+        this.discardedLate = outcome(meterRegistry, "discarded", "late");
+
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tail-sampling-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, settings.getTraceTimeout().toMillis() / 2);
+        sweeper.scheduleAtFixedRate(this::discardTimedOut, period, period, TimeUnit.MILLISECONDS);
+
+        this.exports = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(settings.getMaxQueuedExports()), runnable -> {
+                    Thread thread = new Thread(runnable, "tail-sampling-export");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @Override
+    public void onStart(Context parentContext, ReadWriteSpan span) {
+    }
+
+    @Override
+    public boolean isStartRequired() {
+        return false;
+    }
+
+    @Override
+    public void onEnd(ReadableSpan span) {
+        SpanContext spanContext = span.getSpanContext();
+        if (spanContext.isSampled()) {
+            // Exported by the regular batch processor
+            return;
+        }
+        SpanContext parent = span.getParentSpanContext();
+        boolean localRoot = !parent.isValid() || parent.isRemote();
+        String traceId = spanContext.getTraceId();
+
+        if (localRoot) {
+            PendingTrace trace = traces.remove(traceId);
+            List<SpanData> spans = trace != null ? trace.close() : new ArrayList<>(1);
+            spans.add(span.toSpanData());
+            decide(spans, span);
+            return;
+        }
+
+        PendingTrace trace = traces.get(traceId);
+        if (trace == null) {
+            if (traces.size() >= settings.getMaxTraces()) {
+                discardedOverflow.increment();
+                return;
+            }
+            trace = traces.computeIfAbsent(traceId, id -> new PendingTrace(System.nanoTime()));
+        }
+        if (!trace.add(span.toSpanData(), settings.getMaxSpansPerTrace())) {
+            // The root ended, or the trace timed out, between looking the trace up and adding to it
+            discardedLate.increment();
+        }
+    }
+
+    @Override
+    public boolean isEndRequired() {
+        return true;
+    }
+
+    /**
+     * Completes once the traces kept so far are exported.
+     */
+    @Override
+    public CompletableResultCode forceFlush() {
+        CompletableResultCode result = new CompletableResultCode();
+        try {
+            exports.execute(result::succeed);
+        } catch (RejectedExecutionException e) {
+            result.fail();
+        }
+        return result;
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        // The exporter is shared with the regular span pipeline, which shuts it down
+        sweeper.shutdownNow();
+        traces.clear();
+        exports.shutdown();
+        try {
+            if (exports.awaitTermination(EXPORT_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                return CompletableResultCode.ofSuccess();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        exports.shutdownNow();
+        return CompletableResultCode.ofFailure();
+    }
+
+    private void decide(List<SpanData> spans, ReadableSpan root) {
+        boolean error = false;
+        for (SpanData span : spans) {
+            if (span.getStatus().getStatusCode() == StatusCode.ERROR) {
+                error = true;
+                break;
+            }
+        }
+        boolean slow = root.getLatencyNanos() >= settings.getSlowThreshold().toNanos();
+        if (error || slow) {
+            try {
+                exports.execute(() -> exporter.export(spans).join(EXPORT_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+                (error ? keptError : keptSlow).increment();
+            } catch (RejectedExecutionException e) {
+                discardedQueueFull.increment();
+            }
+        } else {
+            dropped.increment();
+        }
+    }
+
+    private void discardTimedOut() {
+        long cutoff = System.nanoTime() - settings.getTraceTimeout().toNanos();
+        traces.entrySet().removeIf(entry -> {
+            boolean expired = entry.getValue().startedAt - cutoff < 0;
+            if (expired) {
+                entry.getValue().close();
+                discardedTimeout.increment();
+            }
+            return expired;
+        });
+    }
+
+    private static Counter outcome(MeterRegistry meterRegistry, String outcome, String reason) {
+        return Counter.builder("tracing.sampling.tail")
+                .description("Unsampled traces by what tail sampling did with them")
+                .tag("outcome", outcome)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Spans of one trace until it is closed, by its root ending or by timing out; a span that comes after
+     * that is refused rather than added to a list nobody reads any more.
+     */
+    private static final class PendingTrace {
+
+        private final long startedAt;
+        private final List<SpanData> spans = new ArrayList<>();
+        private boolean closed;
+
+        PendingTrace(long startedAt) {
+            this.startedAt = startedAt;
+        }
+
+        /**
+         * False if the trace is already closed; spans beyond {@code maxSpans} are dropped silently.
+         */
+        synchronized boolean add(SpanData span, int maxSpans) {
+            if (closed) {
+                return false;
+            }
+            if (spans.size() < maxSpans) {
+                spans.add(span);
+            }
+            return true;
+        }
+
+        synchronized List<SpanData> close() {
+            closed = true;
+            return new ArrayList<>(spans);
+        }
+    }
+}
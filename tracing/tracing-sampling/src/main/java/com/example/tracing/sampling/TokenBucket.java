@@ -0,0 +1,61 @@
+package com.example.tracing.sampling;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free token bucket, kept as the time at which the bucket will be full again (the generic cell rate
+ * algorithm): one CAS per acquire, and no refill thread. Acquiring a token pushes that time back by one
+ * refill interval; a token is available as long as the bucket wouldn't end up more than {@code capacity}
+ * tokens in debt.
+ * <p>
+ * Shared by the per-route sampling limits here and the gateway's request rate limits.
+ */
+public final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final LongSupplier nanoClock;
+    private final AtomicLong fullAt;
+
+    /**
+     * @param ratePerSecond tokens added per second; zero or less means none are ever available
+     * @param capacity      largest burst, in tokens
+     * @param nanoClock     monotonic time in nanoseconds, {@code System::nanoTime} outside tests
+     */
+    public TokenBucket(double ratePerSecond, double capacity, LongSupplier nanoClock) {
+        this.intervalNanos = ratePerSecond > 0 ? Math.max(1, (long) (1_000_000_000L / ratePerSecond)) : -1;
+        this.toleranceNanos = (long) (intervalNanos * Math.max(1, capacity));
+        this.nanoClock = nanoClock;
+        this.fullAt = new AtomicLong(nanoClock.getAsLong());
+    }
+
+    /**
+     * @return zero if a token was taken, otherwise how many nanoseconds until one is available
+     *         ({@link Long#MAX_VALUE} at a zero rate)
+     */
+    public long tryAcquire() {
+        if (intervalNanos < 0) {
+            return Long.MAX_VALUE;
+        }
+        long now = nanoClock.getAsLong();
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + intervalNanos;
+            long debt = next - now;
+            if (debt > toleranceNanos) {
+                return debt - toleranceNanos;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * A full bucket behaves exactly like a new one, so it can be forgotten.
+     */
+    public boolean isFull() {
+        return fullAt.get() - nanoClock.getAsLong() <= 0;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.tracing.sampling;
+
+import com.example.tracing.TraceIdPropagator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitingSamplerTests {
+
+	private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+	private static final String SPAN_ID = "00f067aa0ba902b7";
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final SamplingProperties properties = new SamplingProperties();
+	private final long now = 0;
+
+	@Test
+	void limitsNewTracesPerRoute() {
+		properties.setDefaultRate(2);
+		properties.setRoutes(Map.of("http post", 1.0));
+		RateLimitingSampler sampler = sampler();
+
+		assertThat(sample(sampler, Context.root(), "http get")).isEqualTo(SamplingDecision.RECORD_AND_SAMPLE);
+		assertThat(sample(sampler, Context.root(), "http get")).isEqualTo(SamplingDecision.RECORD_AND_SAMPLE);
+		assertThat(sample(sampler, Context.root(), "http get")).isEqualTo(SamplingDecision.RECORD_ONLY);
+		assertThat(sample(sampler, Context.root(), "http post")).isEqualTo(SamplingDecision.RECORD_AND_SAMPLE);
+		assertThat(sample(sampler, Context.root(), "http post")).isEqualTo(SamplingDecision.RECORD_ONLY);
+
+		assertThat(meterRegistry.counter("tracing.sampling.head", "decision", "sampled", "reason", "rate").count())
+				.isEqualTo(3);
+		assertThat(meterRegistry.counter("tracing.sampling.head", "decision", "dropped", "reason", "rate").count())
+				.isEqualTo(2);
+	}
+
+	@Test
+	void followsW3cParentRegardlessOfRate() {
+		properties.setDefaultRate(0);
+		RateLimitingSampler sampler = sampler();
+
+		assertThat(sample(sampler, remoteParent(TraceFlags.getSampled(), TraceState.getDefault()), "http get"))
+				.isEqualTo(SamplingDecision.RECORD_AND_SAMPLE);
+		assertThat(sample(sampler, remoteParent(TraceFlags.getDefault(), TraceState.getDefault()), "http get"))
+				.isEqualTo(SamplingDecision.RECORD_ONLY);
+	}
+
+	@Test
+	void decidesForTraceIdHeaderParentsAndDropsTheMarker() {
+		properties.setDefaultRate(0);
+		RateLimitingSampler sampler = sampler();
+		TraceState marked = TraceState.builder().put(TraceIdPropagator.UNDECIDED_TRACE_STATE_KEY, "1").build();
+
+		SamplingResult result = sampler.shouldSample(remoteParent(TraceFlags.getSampled(), marked), TRACE_ID,
+				"http get", SpanKind.SERVER, Attributes.empty(), List.of());
+
+		assertThat(result.getDecision()).isEqualTo(SamplingDecision.RECORD_ONLY);
+		assertThat(result.getUpdatedTraceState(marked).isEmpty()).isTrue();
+	}
+
+	@Test
+	void dropsOutrightWithoutTailSamplingOrSpanMetrics() {
+		properties.setDefaultRate(0);
+		properties.getTail().setEnabled(false);
+		properties.getSpanMetrics().setEnabled(false);
+
+		assertThat(sample(sampler(), Context.root(), "http get")).isEqualTo(SamplingDecision.DROP);
+	}
+
+	private RateLimitingSampler sampler() {
+		return new RateLimitingSampler(properties, meterRegistry, () -> now);
+	}
+
+	private static SamplingDecision sample(RateLimitingSampler sampler, Context parent, String name) {
+		return sampler.shouldSample(parent, TRACE_ID, name, SpanKind.SERVER, Attributes.empty(), List.of())
+				.getDecision();
+	}
+
+	private static Context remoteParent(TraceFlags flags, TraceState state) {
+		return Context.root().with(Span.wrap(SpanContext.createFromRemoteParent(TRACE_ID, SPAN_ID, flags, state)));
+	}
+}
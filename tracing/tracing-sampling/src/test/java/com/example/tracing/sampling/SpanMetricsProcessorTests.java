@@ -0,0 +1,90 @@
+package com.example.tracing.sampling;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpanMetricsProcessorTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final SamplingProperties properties = new SamplingProperties();
+
+	private SdkTracerProvider tracerProvider;
+	private Tracer tracer;
+
+	@BeforeEach
+	void setUp() {
+		// Nothing passes the head sampler, so every span counted was counted without being sampled
+		properties.setDefaultRate(0);
+		properties.getTail().setEnabled(false);
+		properties.getSpanMetrics().setMaxNames(2);
+		tracerProvider = SdkTracerProvider.builder()
+				.setSampler(new RateLimitingSampler(properties, meterRegistry))
+				.addSpanProcessor(new SpanMetricsProcessor(meterRegistry, properties.getSpanMetrics()))
+				.build();
+		tracer = tracerProvider.get("test");
+	}
+
+	@AfterEach
+	void tearDown() {
+		tracerProvider.close();
+	}
+
+	@Test
+	void countsUnsampledSpansByNameAndStatus() {
+		tracer.spanBuilder("save-log-to-db").startSpan().end();
+		tracer.spanBuilder("save-log-to-db").startSpan().end();
+		tracer.spanBuilder("save-log-to-db").startSpan().setStatus(StatusCode.ERROR).end();
+
+		assertThat(timer("save-log-to-db", "internal", "ok").count()).isEqualTo(2);
+		assertThat(timer("save-log-to-db", "internal", "error").count()).isEqualTo(1);
+	}
+
+	@Test
+	void recordsSpanDuration() {
+		long start = System.nanoTime();
+		tracer.spanBuilder("http get").setSpanKind(SpanKind.SERVER)
+				.setStartTimestamp(start, TimeUnit.NANOSECONDS).startSpan()
+				.end(start + TimeUnit.MILLISECONDS.toNanos(300), TimeUnit.NANOSECONDS);
+
+		assertThat(timer("http get", "server", "ok").totalTime(TimeUnit.MILLISECONDS)).isEqualTo(300);
+	}
+
+	@Test
+	void namesSpansByRouteWhenPresent() {
+		Span span = tracer.spanBuilder("http post").setSpanKind(SpanKind.SERVER).startSpan();
+		span.setAttribute("spring.cloud.gateway.route.id", "server-logs");
+		span.end();
+
+		assertThat(timer("server-logs", "server", "ok").count()).isEqualTo(1);
+	}
+
+	@Test
+	void countsNamesPastTheCapAsOther() {
+		tracer.spanBuilder("a").startSpan().end();
+		tracer.spanBuilder("b").startSpan().end();
+		tracer.spanBuilder("c").startSpan().end();
+		tracer.spanBuilder("a").startSpan().end();
+
+		assertThat(timer("a", "internal", "ok").count()).isEqualTo(2);
+		assertThat(timer(SpanMetricsProcessor.OTHER, "internal", "ok").count()).isEqualTo(1);
+		assertThat(meterRegistry.counter("tracing.span.overflow").count()).isEqualTo(1);
+	}
+
+	private Timer timer(String name, String kind, String status) {
+		return meterRegistry.get("tracing.span.duration")
+				.tags("span.name", name, "span.kind", kind, "status", status)
+				.timer();
+	}
+}
@@ -0,0 +1,160 @@
+package com.example.tracing.sampling;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TailSamplingSpanProcessorTests {
+
+	private final InMemorySpanExporter exporter = InMemorySpanExporter.create();
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final SamplingProperties properties = new SamplingProperties();
+
+	private SdkTracerProvider tracerProvider;
+	private Tracer tracer;
+
+	@BeforeEach
+	void setUp() {
+		// Nothing passes the head sampler, so everything exported went through the tail
+		properties.setDefaultRate(0);
+		properties.getTail().setSlowThreshold(Duration.ofSeconds(1));
+		tracerProvider = SdkTracerProvider.builder()
+				.setSampler(new RateLimitingSampler(properties, meterRegistry))
+				.addSpanProcessor(SimpleSpanProcessor.create(exporter))
+				.addSpanProcessor(new TailSamplingSpanProcessor(exporter, properties.getTail(), meterRegistry))
+				.build();
+		tracer = tracerProvider.get("test");
+	}
+
+	@AfterEach
+	void tearDown() {
+		tracerProvider.close();
+	}
+
+	@Test
+	void keepsWholeTraceWhenAChildFails() {
+		Span root = tracer.spanBuilder("http get").startSpan();
+		try (Scope ignored = root.makeCurrent()) {
+			tracer.spanBuilder("db").startSpan().setStatus(StatusCode.ERROR).end();
+			tracer.spanBuilder("cache").startSpan().end();
+		}
+		root.end();
+		flush();
+
+		assertThat(exporter.getFinishedSpanItems()).extracting(SpanData::getName)
+				.containsExactlyInAnyOrder("db", "cache", "http get");
+		assertThat(meterRegistry.counter("tracing.sampling.tail", "outcome", "kept", "reason", "error").count())
+				.isEqualTo(1);
+	}
+
+	@Test
+	void keepsSlowTraces() {
+		long start = System.nanoTime();
+		Span root = tracer.spanBuilder("http get").setStartTimestamp(start, TimeUnit.NANOSECONDS).startSpan();
+		root.end(start + TimeUnit.SECONDS.toNanos(2), TimeUnit.NANOSECONDS);
+		flush();
+
+		assertThat(exporter.getFinishedSpanItems()).hasSize(1);
+		assertThat(meterRegistry.counter("tracing.sampling.tail", "outcome", "kept", "reason", "slow").count())
+				.isEqualTo(1);
+	}
+
+	@Test
+	void dropsFastSuccessfulTraces() {
+		Span root = tracer.spanBuilder("http get").startSpan();
+		try (Scope ignored = root.makeCurrent()) {
+			tracer.spanBuilder("db").startSpan().end();
+		}
+		root.end();
+		flush();
+
+		assertThat(exporter.getFinishedSpanItems()).isEmpty();
+		assertThat(meterRegistry.counter("tracing.sampling.tail", "outcome", "dropped", "reason", "normal").count())
+				.isEqualTo(1);
+	}
+
+	@Test
+	void exportsOffTheEndingThreadAndDiscardsWhatTheQueueCannotHold() throws Exception {
+		properties.getTail().setMaxQueuedExports(1);
+		CountDownLatch exporting = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		SpanExporter blocking = new SpanExporter() {
+			@Override
+			public CompletableResultCode export(Collection<SpanData> spans) {
+				exporting.countDown();
+				try {
+					release.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return exporter.export(spans);
+			}
+
+			@Override
+			public CompletableResultCode flush() {
+				return CompletableResultCode.ofSuccess();
+			}
+
+			@Override
+			public CompletableResultCode shutdown() {
+				return CompletableResultCode.ofSuccess();
+			}
+		};
+		SdkTracerProvider provider = SdkTracerProvider.builder()
+				.setSampler(new RateLimitingSampler(properties, meterRegistry))
+				.addSpanProcessor(new TailSamplingSpanProcessor(blocking, properties.getTail(), meterRegistry))
+				.build();
+		Tracer blockedTracer = provider.get("test");
+
+		blockedTracer.spanBuilder("first").startSpan().setStatus(StatusCode.ERROR).end();
+		assertThat(exporting.await(5, TimeUnit.SECONDS)).isTrue();
+		// The exporter is stuck on the first trace: the second waits in the queue, the third finds it full
+		blockedTracer.spanBuilder("second").startSpan().setStatus(StatusCode.ERROR).end();
+		blockedTracer.spanBuilder("third").startSpan().setStatus(StatusCode.ERROR).end();
+		release.countDown();
+		provider.forceFlush().join(5, TimeUnit.SECONDS);
+		provider.close();
+
+		assertThat(exporter.getFinishedSpanItems()).extracting(SpanData::getName).containsExactly("first", "second");
+		assertThat(meterRegistry.counter("tracing.sampling.tail", "outcome", "discarded", "reason", "queue-full")
+				.count()).isEqualTo(1);
+	}
+
+	@Test
+	void leavesHeadSampledTracesToTheRegularPipeline() {
+		properties.setDefaultRate(100);
+		SdkTracerProvider provider = SdkTracerProvider.builder()
+				.setSampler(new RateLimitingSampler(properties, meterRegistry))
+				.addSpanProcessor(new TailSamplingSpanProcessor(exporter, properties.getTail(), meterRegistry))
+				.build();
+
+		Span root = provider.get("test").spanBuilder("http get").startSpan();
+		root.setStatus(StatusCode.ERROR);
+		root.end();
+		provider.close();
+
+		assertThat(exporter.getFinishedSpanItems()).isEmpty();
+	}
+
+	private void flush() {
+		tracerProvider.forceFlush().join(5, TimeUnit.SECONDS);
+	}
+}
@@ -0,0 +1,65 @@
+package com.example.tracing.sampling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTests {
+
+	private final AtomicLong now = new AtomicLong(TimeUnit.SECONDS.toNanos(100));
+
+	@Test
+	void letsBurstThroughThenRefillsAtRate() {
+		TokenBucket bucket = new TokenBucket(10, 5, now::get);
+
+		for (int i = 0; i < 5; i++) {
+			assertThat(bucket.tryAcquire()).isZero();
+		}
+		assertThat(bucket.tryAcquire()).isPositive();
+
+		now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+		assertThat(bucket.tryAcquire()).isZero();
+		assertThat(bucket.tryAcquire()).isPositive();
+	}
+
+	@Test
+	void tellsHowLongUntilTheNextToken() {
+		TokenBucket bucket = new TokenBucket(10, 1, now::get);
+
+		bucket.tryAcquire();
+		now.addAndGet(TimeUnit.MILLISECONDS.toNanos(30));
+
+		assertThat(bucket.tryAcquire()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(70));
+	}
+
+	@Test
+	void doesNotSaveUpBeyondCapacity() {
+		TokenBucket bucket = new TokenBucket(10, 2, now::get);
+
+		now.addAndGet(TimeUnit.SECONDS.toNanos(60));
+
+		assertThat(bucket.tryAcquire()).isZero();
+		assertThat(bucket.tryAcquire()).isZero();
+		assertThat(bucket.tryAcquire()).isPositive();
+	}
+
+	@Test
+	void isFullAgainOnceItHasRefilled() {
+		TokenBucket bucket = new TokenBucket(10, 2, now::get);
+
+		bucket.tryAcquire();
+		bucket.tryAcquire();
+		assertThat(bucket.isFull()).isFalse();
+
+		now.addAndGet(TimeUnit.MILLISECONDS.toNanos(200));
+		assertThat(bucket.isFull()).isTrue();
+	}
+
+	@Test
+	void zeroRateNeverAdmits() {
+		assertThat(new TokenBucket(0, 10, now::get).tryAcquire()).isEqualTo(Long.MAX_VALUE);
+	}
+}